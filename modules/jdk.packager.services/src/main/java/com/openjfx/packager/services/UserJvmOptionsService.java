@@ -94,4 +94,44 @@ public interface UserJvmOptionsService {
      * @throws UnsupportedOperationException if the defaults cannot be calculated.
      */
     Map<String, String> getUserJVMOptionDefaults();
+
+    /**
+     * Listener for changes of the UserJVMOptions.
+     *
+     * @see #addChangeListener(ChangeListener)
+     */
+    @FunctionalInterface
+    interface ChangeListener {
+
+        /**
+         * Called when the UserJVMOptions changed, either by this application
+         * or by another process such as another instance of the application.
+         * The changes take effect on the next application start.
+         *
+         * @param options the new UserJVMOptions.  The map cannot be modified.
+         */
+        void userJVMOptionsChanged(Map<String, String> options);
+    }
+
+    /**
+     * Registers a listener that is notified when the UserJVMOptions change.
+     *
+     * The listeners are called on a background thread, one at a time.
+     *
+     * @param listener the listener to add.
+     * @throws UnsupportedOperationException if changes cannot be observed.
+     */
+    default void addChangeListener(ChangeListener listener) {
+        throw new UnsupportedOperationException("Changes of the UserJVMOptions cannot be observed");
+    }
+
+    /**
+     * Unregisters a listener added with {@link #addChangeListener(ChangeListener)}.
+     *
+     * @param listener the listener to remove.
+     * @throws UnsupportedOperationException if changes cannot be observed.
+     */
+    default void removeChangeListener(ChangeListener listener) {
+        throw new UnsupportedOperationException("Changes of the UserJVMOptions cannot be observed");
+    }
 }
@@ -0,0 +1,129 @@
+/*
+ * Copyright (c) 2018, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+
+package com.openjfx.packager.services.singleton;
+
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.Map;
+
+/**
+ * The {@code ActivationContext} class describes the launch of the application
+ * the current thread runs for when the application runs in an activation
+ * server.  An activation server is a JVM that is kept running in the
+ * background and runs the {@code main} method of the application for every
+ * following launch instead of starting a new JVM.
+ *
+ * <p>{@code System.out}, {@code System.err} and {@code System.in} are
+ * connected to the launcher of the launch in the thread that runs
+ * {@code main} and in the threads it starts.  The working directory and the
+ * environment of the JVM are those of the launch that started the server, the
+ * ones of the current launch are available from this class.
+ */
+public final class ActivationContext {
+
+    private static final InheritableThreadLocal<ActivationContext> CURRENT = new InheritableThreadLocal<>();
+
+    private final Path workingDirectory;
+    private final Map<String, String> environment;
+    private final OutputStream out;
+    private final OutputStream err;
+    private final InputStream in;
+    private volatile int exitCode;
+
+    ActivationContext(Path workingDirectory, Map<String, String> environment,
+                      OutputStream out, OutputStream err, InputStream in) {
+        this.workingDirectory = workingDirectory;
+        this.environment = Collections.unmodifiableMap(environment);
+        this.out = out;
+        this.err = err;
+        this.in = in;
+    }
+
+    /**
+     * Returns the launch the current thread runs for, or {@code null} if the
+     * application does not run in an activation server.
+     *
+     * @return the launch the current thread runs for
+     */
+    public static ActivationContext current() {
+        return CURRENT.get();
+    }
+
+    static void setCurrent(ActivationContext context) {
+        if (context == null) {
+            CURRENT.remove();
+        } else {
+            CURRENT.set(context);
+        }
+    }
+
+    /**
+     * Returns the working directory of the launcher.
+     *
+     * @return the working directory of the launcher
+     */
+    public Path getWorkingDirectory() {
+        return workingDirectory;
+    }
+
+    /**
+     * Returns the environment of the launcher.
+     *
+     * @return an unmodifiable map of the environment variables of the launcher
+     */
+    public Map<String, String> getEnvironment() {
+        return environment;
+    }
+
+    /**
+     * Sets the exit code the launcher exits with when {@code main} returns.
+     * An application that runs in an activation server calls this method
+     * instead of {@code System.exit}, which stops the server.
+     *
+     * @param exitCode the exit code of the launcher
+     */
+    public void setExitCode(int exitCode) {
+        this.exitCode = exitCode;
+    }
+
+    int getExitCode() {
+        return exitCode;
+    }
+
+    OutputStream getOut() {
+        return out;
+    }
+
+    OutputStream getErr() {
+        return err;
+    }
+
+    InputStream getIn() {
+        return in;
+    }
+}
@@ -0,0 +1,451 @@
+/*
+ * Copyright (c) 2018, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+
+package com.openjfx.packager.services.singleton;
+
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.net.ProtocolException;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+/**
+ * Keeps a JVM with the application loaded running in the background and runs
+ * the {@code main} method of the application in it for every launch of the
+ * application, see {@link ActivationContext}.  The launcher starts the server
+ * when it is launched and no server is running, and forwards the following
+ * launches to it.  The server exits when it has not run the application for
+ * the idle timeout.
+ *
+ * <p>The launcher sends the random number from the single instance file, the
+ * working directory, the arguments and the environment, each string as its
+ * length in bytes and its UTF-8 bytes.  The server answers with frames of a
+ * type byte and an int, followed by that many bytes for output: accepted,
+ * standard output, standard error, a request for up to that many bytes of
+ * standard input, which the launcher answers with an input frame that is
+ * empty at the end of the input, and the exit code.  Ints are big endian.
+ * The request is limited to 16 MB, a connection with a longer request or an
+ * invalid length or count is closed before anything is allocated for it.
+ *
+ * <p>The launches share the JVM of the server, so an application that runs in
+ * it does not call {@code System.exit}, which ends the server and every launch
+ * it runs.  It sets the exit code of its launch with
+ * {@link ActivationContext#setExitCode} and returns from {@code main}; the
+ * launcher exits with that code once {@code main} has returned, or with 1 if
+ * {@code main} throws.
+ */
+public final class ActivationServer {
+
+    static final String MAIN_PROPERTY = "javapackager.activation.main";
+    static final String TIMEOUT_PROPERTY = "javapackager.activation.timeout";
+    static final String APP_ID_PROPERTY = "app.preferences.id";
+    static final String ACTIVATION_ID_PREFIX = "javapackager.activation.";
+
+    static final byte FRAME_ACCEPTED = 'A';
+    static final byte FRAME_OUT = 'O';
+    static final byte FRAME_ERR = 'E';
+    static final byte FRAME_INPUT_REQUEST = 'I';
+    static final byte FRAME_INPUT = 'i';
+    static final byte FRAME_EXIT = 'X';
+
+    static final int MAX_REQUEST_SIZE = 16 * 1024 * 1024;
+
+    private final SingleInstanceEndpoint endpoint;
+    private final Method mainMethod;
+    private final long timeout;
+    private final AtomicInteger active = new AtomicInteger();
+    private volatile long lastActivity = System.nanoTime();
+
+    private ActivationServer(SingleInstanceEndpoint endpoint, Method mainMethod, long timeout) {
+        this.endpoint = endpoint;
+        this.mainMethod = mainMethod;
+        this.timeout = timeout;
+    }
+
+    /**
+     * Started by the launcher, the main class of the application and the idle
+     * timeout in seconds are passed as system properties.
+     *
+     * @param args ignored
+     */
+    public static void main(String[] args) throws Exception {
+        String appId = System.getProperty(APP_ID_PROPERTY);
+        String main = System.getProperty(MAIN_PROPERTY);
+
+        if (appId == null || main == null) {
+            SingleInstanceService.trace("ActivationServer: no application");
+            return;
+        }
+
+        // loads the application before the first launch is forwarded
+        Method mainMethod = findMainMethod(main);
+
+        SingleInstanceEndpoint endpoint;
+        try {
+            endpoint = new SingleInstanceEndpoint(ACTIVATION_ID_PREFIX + appId);
+        } catch (IOException e) {
+            // another launch started the server first
+            SingleInstanceService.trace(e);
+            return;
+        }
+
+        ActivationServer server = new ActivationServer(endpoint, mainMethod,
+                TimeUnit.SECONDS.toNanos(Long.getLong(TIMEOUT_PROPERTY, 0)));
+        server.run();
+    }
+
+    // main is either a class name, or a module name and optionally the class
+    // name separated by a slash as with the -m option of the java launcher.
+    static Method findMainMethod(String main) throws ClassNotFoundException, NoSuchMethodException {
+        Class<?> mainClass;
+        int slash = main.indexOf('/');
+
+        if (slash == -1) {
+            mainClass = Class.forName(main, true, ClassLoader.getSystemClassLoader());
+        } else {
+            String moduleName = main.substring(0, slash);
+            Module module = ModuleLayer.boot().findModule(moduleName)
+                    .orElseThrow(() -> new ClassNotFoundException("Module " + moduleName + " not found"));
+            String className = slash == main.length() - 1 ? null : main.substring(slash + 1);
+
+            if (className == null) {
+                className = module.getDescriptor().mainClass()
+                        .orElseThrow(() -> new ClassNotFoundException("Module " + moduleName + " has no main class"));
+            }
+
+            mainClass = Class.forName(module, className);
+            if (mainClass == null) {
+                throw new ClassNotFoundException(className);
+            }
+        }
+
+        return mainClass.getMethod("main", String[].class);
+    }
+
+    private void run() {
+        System.setOut(new PrintStream(new ContextOutputStream(System.out, ActivationContext::getOut), true));
+        System.setErr(new PrintStream(new ContextOutputStream(System.err, ActivationContext::getErr), true));
+        System.setIn(new ContextInputStream(System.in));
+
+        if (timeout > 0) {
+            Thread idle = new Thread(null, this::exitWhenIdle, "JavaPackagerActivationIdle", 0, false);
+            idle.setDaemon(true);
+            idle.start();
+        }
+
+        while (endpoint.isOpen()) {
+            try {
+                final SocketChannel channel = endpoint.accept();
+                active.incrementAndGet();
+                // the threads the application starts inherit the launch
+                new Thread(null, () -> handleConnection(channel), "JavaPackagerActivation", 0, true).start();
+            } catch (IOException ioe) {
+                SingleInstanceService.trace(ioe);
+            }
+        }
+    }
+
+    private void exitWhenIdle() {
+        long interval = Math.min(TimeUnit.SECONDS.toMillis(1), TimeUnit.NANOSECONDS.toMillis(timeout));
+
+        while (true) {
+            try {
+                Thread.sleep(interval);
+            } catch (InterruptedException e) {
+                return;
+            }
+
+            if (active.get() == 0 && System.nanoTime() - lastActivity >= timeout) {
+                SingleInstanceService.trace("ActivationServer: idle, exiting");
+                endpoint.close();
+                System.exit(0);
+            }
+        }
+    }
+
+    private void handleConnection(SocketChannel channel) {
+        try (SocketChannel c = channel) {
+            Connection connection = new Connection(c);
+            RequestReader request = new RequestReader(connection.in);
+
+            if (!String.valueOf(endpoint.getRandomNumber()).equals(request.readString())) {
+                SingleInstanceService.trace("ActivationServer: random number does not match");
+                return;
+            }
+
+            final String workingDirectory = request.readString();
+            String[] args = new String[request.readCount()];
+            for (int i = 0; i < args.length; i++) {
+                args[i] = request.readString();
+            }
+
+            Map<String, String> environment = new LinkedHashMap<>();
+            int count = request.readCount();
+            for (int i = 0; i < count; i++) {
+                String variable = request.readString();
+                int equals = variable.indexOf('=');
+                if (equals > 0) {
+                    environment.put(variable.substring(0, equals), variable.substring(equals + 1));
+                }
+            }
+
+            connection.write(FRAME_ACCEPTED, 0, null, 0, 0);
+
+            ActivationContext context = new ActivationContext(Paths.get(workingDirectory), environment,
+                    connection.newOutputStream(FRAME_OUT), connection.newOutputStream(FRAME_ERR),
+                    connection.newInputStream());
+            connection.write(FRAME_EXIT, runMain(context, args), null, 0, 0);
+        } catch (IOException ioe) {
+            SingleInstanceService.trace(ioe);
+        } finally {
+            lastActivity = System.nanoTime();
+            active.decrementAndGet();
+        }
+    }
+
+    private int runMain(ActivationContext context, String[] args) {
+        ActivationContext.setCurrent(context);
+
+        try {
+            mainMethod.invoke(null, (Object) args);
+            return context.getExitCode();
+        } catch (InvocationTargetException e) {
+            e.getCause().printStackTrace();
+            return 1;
+        } catch (IllegalAccessException e) {
+            e.printStackTrace();
+            return 1;
+        } finally {
+            System.out.flush();
+            System.err.flush();
+            ActivationContext.setCurrent(null);
+        }
+    }
+
+    // Reads the request of a launch.  Lengths and counts are checked against
+    // what is left of MAX_REQUEST_SIZE before anything is allocated for them.
+    static final class RequestReader {
+
+        private final DataInputStream in;
+        private int remaining = MAX_REQUEST_SIZE;
+
+        RequestReader(DataInputStream in) {
+            this.in = in;
+        }
+
+        private int readInt() throws IOException {
+            if (remaining < 4) {
+                throw new ProtocolException("Request too long");
+            }
+            remaining -= 4;
+            return in.readInt();
+        }
+
+        // every element is at least the int of its length
+        int readCount() throws IOException {
+            int count = readInt();
+            if (count < 0 || count > remaining / 4) {
+                throw new ProtocolException("Invalid count " + count);
+            }
+            return count;
+        }
+
+        String readString() throws IOException {
+            int length = readInt();
+            if (length < 0 || length > remaining) {
+                throw new ProtocolException("Invalid string length " + length);
+            }
+            remaining -= length;
+
+            byte[] bytes = new byte[length];
+            in.readFully(bytes);
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+    }
+
+    // Reads and writes the channel directly, the streams of Channels lock
+    // the channel for reads and writes together.
+    private static final class Connection {
+
+        final SocketChannel channel;
+        final DataInputStream in;
+        private boolean endOfInput;
+
+        Connection(SocketChannel channel) {
+            this.channel = channel;
+            this.in = new DataInputStream(new InputStream() {
+                @Override
+                public int read() throws IOException {
+                    byte[] b = new byte[1];
+                    return read(b, 0, 1) == -1 ? -1 : b[0] & 0xff;
+                }
+
+                @Override
+                public int read(byte[] b, int off, int len) throws IOException {
+                    return channel.read(ByteBuffer.wrap(b, off, len));
+                }
+            });
+        }
+
+        synchronized void write(byte type, int value, byte[] b, int off, int len) throws IOException {
+            ByteBuffer buffer = ByteBuffer.allocate(5 + len);
+            buffer.put(type).putInt(value);
+            if (len > 0) {
+                buffer.put(b, off, len);
+            }
+            buffer.flip();
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+        }
+
+        OutputStream newOutputStream(byte type) {
+            return new OutputStream() {
+                @Override
+                public void write(int b) throws IOException {
+                    write(new byte[] {(byte) b}, 0, 1);
+                }
+
+                @Override
+                public void write(byte[] b, int off, int len) throws IOException {
+                    if (len > 0) {
+                        Connection.this.write(type, len, b, off, len);
+                    }
+                }
+            };
+        }
+
+        // Asks the launcher for input when the application reads it, so that
+        // the launcher only reads its standard input while the application does.
+        InputStream newInputStream() {
+            return new InputStream() {
+                @Override
+                public int read() throws IOException {
+                    byte[] b = new byte[1];
+                    return read(b, 0, 1) == -1 ? -1 : b[0] & 0xff;
+                }
+
+                @Override
+                public int read(byte[] b, int off, int len) throws IOException {
+                    synchronized (Connection.this.in) {
+                        if (endOfInput) {
+                            return -1;
+                        }
+                        if (len == 0) {
+                            return 0;
+                        }
+
+                        write(FRAME_INPUT_REQUEST, len, null, 0, 0);
+
+                        if (in.readByte() != FRAME_INPUT) {
+                            throw new IOException("Unexpected frame");
+                        }
+
+                        int length = in.readInt();
+                        if (length == 0) {
+                            endOfInput = true;
+                            return -1;
+                        }
+                        if (length > len) {
+                            throw new IOException("Unexpected input length " + length);
+                        }
+
+                        in.readFully(b, off, length);
+                        return length;
+                    }
+                }
+            };
+        }
+    }
+
+    // Writes to the stream of the launch of the current thread.
+    private static final class ContextOutputStream extends OutputStream {
+
+        private final OutputStream fallback;
+        private final Function<ActivationContext, OutputStream> stream;
+
+        ContextOutputStream(OutputStream fallback, Function<ActivationContext, OutputStream> stream) {
+            this.fallback = fallback;
+            this.stream = stream;
+        }
+
+        private OutputStream target() {
+            ActivationContext context = ActivationContext.current();
+            return context == null ? fallback : stream.apply(context);
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            target().write(b);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            target().write(b, off, len);
+        }
+
+        @Override
+        public void flush() throws IOException {
+            target().flush();
+        }
+    }
+
+    // Reads from the standard input of the launch of the current thread.
+    private static final class ContextInputStream extends InputStream {
+
+        private final InputStream fallback;
+
+        ContextInputStream(InputStream fallback) {
+            this.fallback = fallback;
+        }
+
+        private InputStream target() {
+            ActivationContext context = ActivationContext.current();
+            return context == null ? fallback : context.getIn();
+        }
+
+        @Override
+        public int read() throws IOException {
+            return target().read();
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            return target().read(b, off, len);
+        }
+    }
+}
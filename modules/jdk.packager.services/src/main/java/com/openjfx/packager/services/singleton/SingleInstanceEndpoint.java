@@ -0,0 +1,194 @@
+/*
+ * Copyright (c) 2018, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+
+package com.openjfx.packager.services.singleton;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.SecureRandom;
+
+/**
+ * The server end of a single instance channel.  The server holds the lock on
+ * the lock file of the id for as long as it runs, listens on a Unix domain
+ * socket or a TCP port, and writes the random number a client has to send
+ * first, and the port if it listens on TCP, to the single instance file.
+ */
+final class SingleInstanceEndpoint {
+
+    private static final SecureRandom SECURE_RANDOM = new SecureRandom();
+
+    private final String stringId;
+    private FileChannel lockChannel;
+    private FileLock fileLock;
+    private ServerSocketChannel ss;
+    private SocketAddress address;
+    private int port = -1;
+    private int randomNumber;
+
+    SingleInstanceEndpoint(String stringId) throws IOException {
+        this.stringId = stringId;
+
+        new File(SingleInstanceImpl.SI_FILEDIR).mkdirs();
+
+        lockSingleInstanceFile();
+
+        try {
+            ss = openServerChannel();
+            createSingleInstanceFile();
+        } catch (IOException | RuntimeException e) {
+            close();
+            throw e;
+        }
+    }
+
+    SocketAddress getAddress() {
+        return address;
+    }
+
+    int getRandomNumber() {
+        return randomNumber;
+    }
+
+    boolean isOpen() {
+        return ss.isOpen();
+    }
+
+    SocketChannel accept() throws IOException {
+        return ss.accept();
+    }
+
+    // The lock is held until the server is stopped or the process exits.  The
+    // lock file is only deleted while locked, in close(), so that it is never
+    // deleted under a new instance; one left behind is reused.
+    private void lockSingleInstanceFile() throws IOException {
+        Path lockFile = SingleInstanceImpl.getSingleInstanceLockFile(stringId);
+        lockChannel = FileChannel.open(lockFile, StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+
+        try {
+            fileLock = lockChannel.tryLock();
+        } catch (IOException | RuntimeException e) {
+            lockChannel.close();
+            throw e;
+        }
+
+        if (fileLock == null) {
+            lockChannel.close();
+            throw new IOException("Single instance server is already running for " + stringId);
+        }
+    }
+
+    // Listens on a Unix domain socket at a path derived from the id, or
+    // on a TCP port of 127.0.0.1 if the runtime does not support them.
+    private ServerSocketChannel openServerChannel() throws IOException {
+        if (UnixDomainSockets.isSupported()) {
+            Path socketFile = SingleInstanceImpl.getSingleInstanceSocketFile(stringId);
+            try {
+                // Left behind by an instance that did not exit cleanly,
+                // the lock is ours so it is not in use.
+                Files.deleteIfExists(socketFile);
+                final ServerSocketChannel channel = UnixDomainSockets.openServer(socketFile);
+                socketFile.toFile().deleteOnExit();
+                address = UnixDomainSockets.getAddress(socketFile);
+                SingleInstanceService.trace("server socket at: " + socketFile);
+                return channel;
+            } catch (IOException | UnsupportedOperationException e) {
+                SingleInstanceService.trace("Unix domain socket failed, using TCP");
+                SingleInstanceService.trace(e);
+            }
+        }
+
+        // we should bind the server to the local InetAddress 127.0.0.1
+        // port number is automatically allocated for current SI
+        ServerSocketChannel channel = ServerSocketChannel.open();
+        try {
+            channel.bind(new InetSocketAddress(InetAddress.getByName("127.0.0.1"), 0));
+        } catch (IOException e) {
+            channel.close();
+            throw e;
+        }
+
+        // get the port number
+        address = channel.getLocalAddress();
+        port = ((InetSocketAddress) address).getPort();
+        SingleInstanceService.trace("server port at: " + port);
+        return channel;
+    }
+
+    // Written to a temporary file and moved into place so that a client
+    // never reads a partially written file.
+    private void createSingleInstanceFile() throws IOException {
+        final Path siFile = SingleInstanceImpl.getSingleInstanceFile(stringId);
+        final Path tmpFile = Paths.get(siFile + ".tmp");
+        randomNumber = SECURE_RANDOM.nextInt();
+
+        try (PrintStream out = new PrintStream(Files.newOutputStream(tmpFile))) {
+            // write random number to single instance file
+            out.println(randomNumber);
+            if (port != -1) {
+                out.println(port);
+            }
+        }
+
+        Files.move(tmpFile, siFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        siFile.toFile().deleteOnExit();
+        SingleInstanceService.trace("created SingleInstanceFile: " + siFile);
+    }
+
+    // Stops listening and removes the files of the id.
+    void close() {
+        try {
+            Files.deleteIfExists(SingleInstanceImpl.getSingleInstanceFile(stringId));
+            Files.deleteIfExists(SingleInstanceImpl.getSingleInstanceSocketFile(stringId));
+
+            if (ss != null) {
+                ss.close();
+            }
+
+            if (fileLock != null) {
+                Files.deleteIfExists(SingleInstanceImpl.getSingleInstanceLockFile(stringId));
+                fileLock.release();
+            }
+
+            lockChannel.close();
+        } catch (IOException ioe) {
+            SingleInstanceService.trace(ioe);
+        }
+        SingleInstanceService.trace("removed SingleInstanceFiles: " +
+                SingleInstanceImpl.getSingleInstanceFile(stringId));
+    }
+}
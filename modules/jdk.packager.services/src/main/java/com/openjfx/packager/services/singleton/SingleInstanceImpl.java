@@ -28,21 +28,34 @@ package com.openjfx.packager.services.singleton;
 import java.awt.Desktop;
 import java.io.BufferedReader;
 import java.io.File;
-import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.io.OutputStream;
 import java.io.PrintStream;
-import java.net.InetAddress;
-import java.net.ServerSocket;
-import java.net.Socket;
+import java.net.SocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.channels.SocketChannel;
 import java.nio.charset.Charset;
+import java.nio.file.InvalidPathException;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
 import java.security.AccessController;
 import java.security.PrivilegedAction;
-import java.security.SecureRandom;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
 
 class SingleInstanceImpl {
 
@@ -51,23 +64,86 @@ class SingleInstanceImpl {
     static final String SI_ACK = "javapackager.singleinstance.ack";
     static final String SI_STOP = "javapackager.singleinstance.stop";
     static final String SI_EOF = "javapackager.singleinstance.EOF";
+    static final String SI_LOCK_SUFFIX = ".lock";
+    static final String SI_SOCKET_SUFFIX = ".socket";
+    static final String SI_COALESCE_PROPERTY = "javapackager.singleinstance.coalesce";
 
     private final ArrayList<SingleInstanceListener> siListeners =
             new ArrayList<>();
     private SingleInstanceServer siServer;
 
-    private static final SecureRandom SECURE_RANDOM = new SecureRandom();
     private static volatile boolean SERVER_STARTED;
     private static int randomNumber;
 
     private final Object lock = new Object();
 
+    // Activations are queued by the connections and passed to the listeners
+    // on a single thread, the listeners are never called concurrently.
+    private final BlockingQueue<Activation> activations = new LinkedBlockingQueue<>();
+    private Thread activationThread;
+
+    private final ExecutorService connectionExecutor = Executors.newCachedThreadPool(r -> {
+        Thread thread = new Thread(null, r, "JavaPackagerSIConnection", 0, false);
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private static final class Activation {
+
+        final Path workingDirectory;
+        final String[] args;
+
+        Activation(Path workingDirectory, String[] args) {
+            this.workingDirectory = workingDirectory;
+            this.args = args;
+        }
+    }
+
     static String getSingleInstanceFilePrefix(final String stringId) {
         String filePrefix = stringId.replace('/', '_');
         filePrefix = filePrefix.replace(':', '_');
         return filePrefix;
     }
 
+    // Holds the random number and, if the server listens on TCP, the port.
+    static Path getSingleInstanceFile(final String stringId) {
+        return Paths.get(SI_FILEDIR, getSingleInstanceFilePrefix(stringId));
+    }
+
+    // Locked by the server for as long as it runs.
+    static Path getSingleInstanceLockFile(final String stringId) {
+        return Paths.get(SI_FILEDIR, getSingleInstanceFilePrefix(stringId) + SI_LOCK_SUFFIX);
+    }
+
+    // The Unix domain socket the server listens on.
+    static Path getSingleInstanceSocketFile(final String stringId) {
+        return Paths.get(SI_FILEDIR, getSingleInstanceFilePrefix(stringId) + SI_SOCKET_SUFFIX);
+    }
+
+    /**
+     * Returns true if the server for the id holds the lock on its lock file.
+     * The lock is released when the process exits, so files left behind by an
+     * instance that did not exit cleanly are not mistaken for a running server.
+     */
+    static boolean isServerLocked(final String stringId) {
+        try (FileChannel channel = FileChannel.open(getSingleInstanceLockFile(stringId), StandardOpenOption.WRITE)) {
+            FileLock fileLock = channel.tryLock();
+            if (fileLock != null) {
+                fileLock.release();
+                return false;
+            }
+            return true;
+        } catch (OverlappingFileLockException e) {
+            // The server runs in this JVM.
+            return true;
+        } catch (NoSuchFileException e) {
+            return false;
+        } catch (IOException ioe) {
+            SingleInstanceService.trace(ioe);
+            return false;
+        }
+    }
+
     static String getTmpDir() {
         String os = System.getProperty("os.name").toLowerCase();
         if (os.contains("win")) {
@@ -131,8 +207,8 @@ class SingleInstanceImpl {
             this(new SingleInstanceServerRunnable(stringId));
         }
 
-        int getPort() {
-            return runnable.getPort();
+        SocketAddress getAddress() {
+            return runnable.getAddress();
         }
 
         void start() {
@@ -142,217 +218,254 @@ class SingleInstanceImpl {
 
     private class SingleInstanceServerRunnable implements Runnable {
 
-        ServerSocket ss;
-        int port;
-        String stringId;
-        String[] arguments;
+        final SingleInstanceEndpoint endpoint;
 
-        int getPort() {
-            return port;
+        SocketAddress getAddress() {
+            return endpoint.getAddress();
         }
 
         SingleInstanceServerRunnable(String id) throws IOException {
-            stringId = id;
-
-            // open a free ServerSocket
-            ss = null;
-
-            // we should bind the server to the local InetAddress 127.0.0.1
-            // port number is automatically allocated for current SI
-            ss = new ServerSocket(0, 0, InetAddress.getByName("127.0.0.1"));
+            endpoint = new SingleInstanceEndpoint(id);
+            randomNumber = endpoint.getRandomNumber();
+        }
 
-            // get the port number
-            port = ss.getLocalPort();
-            SingleInstanceService.trace("server port at: " + port);
+        @Override
+        public void run() {
+            // start sil to handle all the incoming request
+            // from the server port of the current url
+            AccessController.doPrivileged((PrivilegedAction<Void>) () -> {
+                while (endpoint.isOpen()) {
+                    try {
+                        SingleInstanceService.trace("waiting connection");
+                        final SocketChannel s = endpoint.accept();
+                        // handle the connections concurrently so that a burst of
+                        // activations does not wait for each other
+                        connectionExecutor.execute(() -> AccessController.doPrivileged((PrivilegedAction<Void>) () -> {
+                            handleConnection(s);
+                            return null;
+                        }));
+                    } catch (IOException ioe) {
+                        // the server socket is closed when the server is stopped
+                        SingleInstanceService.trace(ioe);
+                    }
+                }
+                connectionExecutor.shutdown();
+                return null;
+            });
+        }
 
-            // create the single instance file with canonical home and port num
-            createSingleInstanceFile(stringId, port);
+        private void handleConnection(SocketChannel s) {
+            try (SocketChannel channel = s) {
+                // the first byte is the protocol version, or the encoding
+                // of the text sent by clients of earlier versions
+                byte version = SingleInstanceProtocol.read(channel, ByteBuffer.allocate(1)).get();
+                if (version == SingleInstanceProtocol.VERSION) {
+                    handleRequest(channel, SingleInstanceProtocol.read(channel, randomNumber));
+                } else {
+                    handleLegacyConnection(channel, version);
+                }
+            } catch (IOException ioe) {
+                SingleInstanceService.trace(ioe);
+            }
         }
 
-        private String getSingleInstanceFilename(final String id,
-                                                 final int port) {
-            String name = SI_FILEDIR + getSingleInstanceFilePrefix(id) + "_" + port;
-            SingleInstanceService.trace("getSingleInstanceFilename: " + name);
-            return name;
+        private void handleRequest(SocketChannel channel, SingleInstanceProtocol.Request request)
+                throws IOException {
+            if (request == null) {
+                disableServer();
+            } else if (request.type == SingleInstanceProtocol.TYPE_ACTIVATE) {
+                SingleInstanceService.trace("Starting new instance with " + request.args.length + " arguments");
+                // the listeners are called on the activation thread,
+                // the client only waits for the activation to be queued
+                queueNewActivation(toPath(request.workingDirectory), request.args);
+                SingleInstanceService.trace("sending out ACK");
+                SingleInstanceProtocol.write(channel, SingleInstanceProtocol.ACK);
+            } else if (request.type == SingleInstanceProtocol.TYPE_STOP) {
+                // remove the SingleInstance files
+                endpoint.close();
+                stopActivationThread();
+            }
         }
 
-        private void removeSingleInstanceFile(final String id, final int port) {
-            new File(getSingleInstanceFilename(id, port)).delete();
-            SingleInstanceService.trace("removed SingleInstanceFile: " + getSingleInstanceFilename(id, port));
+        private void disableServer() {
+            // random number does not match
+            // should not happen
+            // shutdown server socket
+            endpoint.close();
+            SERVER_STARTED = false;
+            SingleInstanceService.trace("Unexpected Error, " + "SingleInstanceService disabled");
         }
 
-        private void createSingleInstanceFile(final String id, final int port) {
-            String filename = getSingleInstanceFilename(id, port);
-            final File siFile = new File(filename);
-            final File siDir = new File(SI_FILEDIR);
-            AccessController.doPrivileged((PrivilegedAction<Void>) () -> {
-                siDir.mkdirs();
-                String[] fList = siDir.list();
-                if (fList != null) {
-                    String prefix = getSingleInstanceFilePrefix(id);
-                    for (String file : fList) {
-                        // if file with the same prefix exist, remove it
-                        if (file.startsWith(prefix)) {
-                            SingleInstanceService.trace("file should be removed: " + SI_FILEDIR + file);
-                            new File(SI_FILEDIR + file).delete();
+        // newline separated text sent by clients of earlier versions
+        private void handleLegacyConnection(SocketChannel s, int encoding) {
+            InputStream is = null;
+            BufferedReader in = null;
+            InputStreamReader isr = null;
+            String line;
+            boolean sendAck = false;
+            String charset = null;
+            try {
+                is = Channels.newInputStream(s);
+                if (encoding ==
+                        SingleInstanceService.ENCODING_PLATFORM) {
+                    charset = Charset.defaultCharset().name();
+                } else if (encoding ==
+                        SingleInstanceService.ENCODING_UNICODE) {
+                    charset =
+                            SingleInstanceService.ENCODING_UNICODE_NAME;
+                } else {
+                    SingleInstanceService.trace(
+                            "SingleInstanceImpl - unknown encoding");
+                    return;
+                }
+                isr = new InputStreamReader(is, charset);
+                in = new BufferedReader(isr);
+                // first read the random number
+                line = in.readLine();
+                if (!String.valueOf(randomNumber).equals(line)) {
+                    disableServer();
+                } else {
+                    line = in.readLine();
+                    // no need to continue reading if MAGICWORD
+                    // did not come first
+                    SingleInstanceService.trace("recv: " + line);
+                    if (SI_MAGICWORD.equals(line)) {
+                        SingleInstanceService.trace("got magic word.");
+                        List<String> recvArgs = new ArrayList<>();
+                        while (true) {
+                            // Get input string
+                            line = in.readLine();
+                            if (line == null || line.equals(SI_EOF)) {
+                                // end of file reached
+                                break;
+                            } else {
+                                recvArgs.add(line);
+                            }
                         }
+                        String[] arguments = recvArgs.toArray(new String[0]);
+                        for (String arg : arguments) {
+                            SingleInstanceService.trace(
+                                    "Starting new instance with " + "arguments: arg:" + arg);
+                        }
+
+                        // the listeners are called on the activation thread,
+                        // the client only waits for the activation to be queued
+                        queueNewActivation(null, arguments);
+                        sendAck = true;
+                    } else if (SI_STOP.equals(line)) {
+                        // remove the SingleInstance files
+                        endpoint.close();
+                        stopActivationThread();
                     }
                 }
 
-                PrintStream out = null;
+                if (sendAck) {
+                    // now the event is queued, we can send
+                    // out the ACK
+                    SingleInstanceService.trace("sending out ACK");
+                    OutputStream os = Channels.newOutputStream(s);
+                    PrintStream ps = new PrintStream(os, true, charset);
+                    // send OK (ACK)
+                    ps.println(SI_ACK);
+                    ps.flush();
+                }
+            } catch (IOException ioe) {
+                SingleInstanceService.trace(ioe);
+            } finally {
                 try {
-                    siFile.createNewFile();
-                    siFile.deleteOnExit();
-                    // write random number to single instance file
-                    out = new PrintStream(new FileOutputStream(siFile));
-                    randomNumber = SECURE_RANDOM.nextInt();
-                    out.print(randomNumber);
+                    if (in != null) {
+                        in.close();
+                    }
+
+                    if (isr != null) {
+                        isr.close();
+                    }
+
+                    if (is != null) {
+                        is.close();
+                    }
+
+                    s.close();
                 } catch (IOException ioe) {
                     SingleInstanceService.trace(ioe);
-                } finally {
-                    if (out != null) {
-                        out.close();
-                    }
                 }
-                return null;
-            });
+            }
         }
+    }
 
-        @Override
-        public void run() {
-            // start sil to handle all the incoming request
-            // from the server port of the current url
-            AccessController.doPrivileged((PrivilegedAction<Void>) () -> {
-                List<String> recvArgs = new ArrayList<>();
-                while (true) {
-                    recvArgs.clear();
-                    InputStream is = null;
-                    BufferedReader in = null;
-                    InputStreamReader isr = null;
-                    Socket s = null;
-                    String line;
-                    boolean sendAck = false;
-                    int port = -1;
-                    String charset = null;
-                    try {
-                        SingleInstanceService.trace("waiting connection");
-                        s = ss.accept();
-                        is = s.getInputStream();
-                        // read first byte for encoding type
-                        int encoding = is.read();
-                        if (encoding ==
-                                SingleInstanceService.ENCODING_PLATFORM) {
-                            charset = Charset.defaultCharset().name();
-                        } else if (encoding ==
-                                SingleInstanceService.ENCODING_UNICODE) {
-                            charset =
-                                    SingleInstanceService.ENCODING_UNICODE_NAME;
-                        } else {
-                            SingleInstanceService.trace(
-                                    "SingleInstanceImpl - unknown encoding");
-                            return null;
-                        }
-                        isr = new InputStreamReader(is, charset);
-                        in = new BufferedReader(isr);
-                        // first read the random number
-                        line = in.readLine();
-                        if (!line.equals(String.valueOf(randomNumber))) {
-                            // random number does not match
-                            // should not happen
-                            // shutdown server socket
-                            removeSingleInstanceFile(stringId, port);
-                            ss.close();
-                            SERVER_STARTED = false;
-                            SingleInstanceService.trace("Unexpected Error, " + "SingleInstanceService disabled");
-                            return null;
-                        } else {
-                            line = in.readLine();
-                            // no need to continue reading if MAGICWORD
-                            // did not come first
-                            SingleInstanceService.trace("recv: " + line);
-                            if (line.equals(SI_MAGICWORD)) {
-                                SingleInstanceService.trace("got magic word.");
-                                while (true) {
-                                    // Get input string
-                                    try {
-                                        line = in.readLine();
-                                        if (line != null && line.equals(SI_EOF)) {
-                                            // end of file reached
-                                            break;
-                                        } else {
-                                            recvArgs.add(line);
-                                        }
-                                    } catch (IOException ioe) {
-                                        SingleInstanceService.trace(ioe);
-                                    }
-                                }
-                                arguments = recvArgs.toArray(new String[0]);
-                                sendAck = true;
-                            } else if (line.equals(SI_STOP)) {
-                                // remove the SingleInstance file
-                                removeSingleInstanceFile(stringId, port);
-                                break;
-                            }
-                        }
-                    } catch (IOException ioe) {
-                        SingleInstanceService.trace(ioe);
-                    } finally {
-                        try {
-                            if (sendAck) {
-                                // let the action listener handle the rest
-                                for (String arg : arguments) {
-                                    SingleInstanceService.trace(
-                                            "Starting new instance with " + "arguments: arg:" + arg);
-                                }
-
-                                performNewActivation(arguments);
-
-                                // now the event is handled, we can send
-                                // out the ACK
-                                SingleInstanceService.trace("sending out ACK");
-                                if (s != null) {
-                                    try (OutputStream os =
-                                                 s.getOutputStream();
-                                         PrintStream ps = new PrintStream(os,
-                                                 true, charset)) {
-                                        // send OK (ACK)
-                                        ps.println(SI_ACK);
-                                        ps.flush();
-                                    }
-                                }
-                            }
+    private static Path toPath(String workingDirectory) {
+        try {
+            return workingDirectory.isEmpty() ? null : Paths.get(workingDirectory);
+        } catch (InvalidPathException e) {
+            SingleInstanceService.trace(e);
+            return null;
+        }
+    }
 
-                            if (in != null) {
-                                in.close();
-                            }
+    private void queueNewActivation(final Path workingDirectory, final String[] args) {
+        startActivationThread();
+        activations.add(new Activation(workingDirectory, args));
+    }
 
-                            if (isr != null) {
-                                isr.close();
-                            }
+    private void startActivationThread() {
+        synchronized (activations) {
+            if (activationThread == null) {
+                activationThread = new Thread(null, this::dispatchActivations, "JavaPackagerSIActivation", 0, false);
+                activationThread.setDaemon(true);
+                activationThread.start();
+            }
+        }
+    }
 
-                            if (is != null) {
-                                is.close();
-                            }
+    private void stopActivationThread() {
+        synchronized (activations) {
+            if (activationThread != null) {
+                activationThread.interrupt();
+                activationThread = null;
+            }
+        }
+    }
 
-                            if (s != null) {
-                                s.close();
-                            }
-                        } catch (IOException ioe) {
-                            SingleInstanceService.trace(ioe);
-                        }
+    // Passes the queued activations to the listeners.  The arguments of the
+    // activations queued within the coalescing window of the first one are
+    // passed in a single call, with the working directory of the first one.
+    private void dispatchActivations() {
+        final long window = Long.getLong(SI_COALESCE_PROPERTY, 0);
+
+        while (!Thread.currentThread().isInterrupted()) {
+            List<String> args = new ArrayList<>();
+            Path workingDirectory = null;
+            try {
+                Activation first = activations.take();
+                workingDirectory = first.workingDirectory;
+                args.addAll(Arrays.asList(first.args));
+
+                final long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(window);
+                long remaining = deadline - System.nanoTime();
+                while (remaining > 0) {
+                    Activation next = activations.poll(remaining, TimeUnit.NANOSECONDS);
+                    if (next == null) {
+                        break;
                     }
+                    args.addAll(Arrays.asList(next.args));
+                    remaining = deadline - System.nanoTime();
                 }
-                return null;
-            });
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                if (args.isEmpty()) {
+                    return;
+                }
+            }
+            performNewActivation(workingDirectory, args.toArray(new String[0]));
         }
     }
 
-    private void performNewActivation(final String[] args) {
+    private void performNewActivation(final Path workingDirectory, final String[] args) {
         // enumerate the sil list and call
         // each sil with arguments
         @SuppressWarnings("unchecked")
         ArrayList<SingleInstanceListener> silal = (ArrayList<SingleInstanceListener>) siListeners.clone();
-        silal.forEach(sil -> sil.newActivation(args));
+        silal.forEach(sil -> sil.newActivation(workingDirectory, args));
     }
 
     void setOpenFileHandler() {
@@ -364,7 +477,7 @@ class SingleInstanceImpl {
         Desktop.getDesktop().setOpenFileHandler(e -> {
             List<String> arguments = new ArrayList<>();
             e.getFiles().forEach(file -> arguments.add(file.toString()));
-            performNewActivation(arguments.toArray(new String[0]));
+            queueNewActivation(null, arguments.toArray(new String[0]));
         });
     }
 
@@ -382,39 +495,13 @@ class SingleInstanceImpl {
             if (siListeners.isEmpty()) {
                 AccessController.doPrivileged((PrivilegedAction<Void>) () -> {
                     // stop server
-                    Socket socket = null;
-                    PrintStream out = null;
-                    OutputStream os = null;
-                    try {
-                        socket = new Socket("127.0.0.1",
-                                siServer.getPort());
-                        os = socket.getOutputStream();
-                        byte[] encoding = new byte[1];
-                        encoding[0] =
-                                SingleInstanceService.ENCODING_PLATFORM;
-                        os.write(encoding);
-                        String charset = Charset.defaultCharset().name();
-                        out = new PrintStream(os, true, charset);
-                        out.println(randomNumber);
-                        out.println(SingleInstanceImpl.SI_STOP);
-                        out.flush();
+                    try (SocketChannel socket = SocketChannel.open(siServer.getAddress())) {
+                        SingleInstanceProtocol.write(socket, SingleInstanceProtocol.encode(randomNumber,
+                                new SingleInstanceProtocol.Request(SingleInstanceProtocol.TYPE_STOP, "",
+                                        new String[0])));
                         SERVER_STARTED = false;
                     } catch (IOException ioe) {
                         SingleInstanceService.trace(ioe);
-                    } finally {
-                        try {
-                            if (out != null) {
-                                out.close();
-                            }
-                            if (os != null) {
-                                os.close();
-                            }
-                            if (socket != null) {
-                                socket.close();
-                            }
-                        } catch (IOException ioe) {
-                            SingleInstanceService.trace(ioe);
-                        }
                     }
                     return null;
                 });
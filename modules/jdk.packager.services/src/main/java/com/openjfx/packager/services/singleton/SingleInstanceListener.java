@@ -25,6 +25,8 @@
 
 package com.openjfx.packager.services.singleton;
 
+import java.nio.file.Path;
+
 /**
  * The {@code SingleInstanceListener} interface is used for implementing
  * Single Instance functionality for Java Packager.
@@ -40,4 +42,18 @@ public interface SingleInstanceListener {
      * @param params parameters for the application main
      */
     void newActivation(String... params);
+
+    /**
+     * Handles the activation like {@link #newActivation(String...)}, the
+     * relative paths among the arguments are relative to the working
+     * directory of the new instance.  The default implementation ignores the
+     * working directory.
+     *
+     * @param workingDirectory working directory of the new instance, or
+     *         {@code null} if it is not known
+     * @param params parameters for the application main
+     */
+    default void newActivation(Path workingDirectory, String... params) {
+        newActivation(params);
+    }
 }
@@ -0,0 +1,165 @@
+/*
+ * Copyright (c) 2018, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+
+package com.openjfx.packager.services.singleton;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.net.ProtocolException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Binary wire format of the single instance service.
+ *
+ * <p>A request is the protocol version, the random number of the server, the
+ * length of the rest of the request, the request type, the working directory
+ * of the new instance and its arguments.  Numbers are big endian ints and
+ * strings are their length followed by their UTF-8 bytes, so arguments may
+ * contain line breaks.  The server answers an activation with {@link #ACK}
+ * once it is queued.
+ *
+ * <p>Clients of earlier versions send {@link SingleInstanceService#ENCODING_PLATFORM}
+ * or {@link SingleInstanceService#ENCODING_UNICODE} instead of the version,
+ * followed by lines of text.  Servers of earlier versions close the connection
+ * without an answer on the unknown first byte, the client then falls back to
+ * the text format.
+ */
+final class SingleInstanceProtocol {
+
+    static final byte VERSION = 3;
+    static final byte TYPE_ACTIVATE = 1;
+    static final byte TYPE_STOP = 2;
+    static final byte ACK = 1;
+
+    // random number and length following the version
+    private static final int HEADER_SIZE = 8;
+    private static final int MAX_REQUEST_SIZE = 16 * 1024 * 1024;
+
+    private SingleInstanceProtocol() {}
+
+    static final class Request {
+
+        final byte type;
+        final String workingDirectory;
+        final String[] args;
+
+        Request(byte type, String workingDirectory, String[] args) {
+            this.type = type;
+            this.workingDirectory = workingDirectory;
+            this.args = args;
+        }
+    }
+
+    static ByteBuffer encode(int randomNumber, Request request) {
+        byte[] workingDirectory = request.workingDirectory.getBytes(StandardCharsets.UTF_8);
+        byte[][] args = new byte[request.args.length][];
+        int length = 1 + 4 + workingDirectory.length + 4;
+
+        for (int i = 0; i < args.length; i++) {
+            args[i] = request.args[i].getBytes(StandardCharsets.UTF_8);
+            length += 4 + args[i].length;
+        }
+
+        ByteBuffer buffer = ByteBuffer.allocate(1 + HEADER_SIZE + length);
+        buffer.put(VERSION).putInt(randomNumber).putInt(length);
+        buffer.put(request.type);
+        buffer.putInt(workingDirectory.length).put(workingDirectory);
+        buffer.putInt(args.length);
+        for (byte[] arg : args) {
+            buffer.putInt(arg.length).put(arg);
+        }
+
+        return buffer.flip();
+    }
+
+    static void write(SocketChannel channel, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+
+    static void write(SocketChannel channel, byte value) throws IOException {
+        write(channel, ByteBuffer.wrap(new byte[] {value}));
+    }
+
+    /**
+     * Reads a request whose version has been read already.  Returns
+     * {@code null} if the random number does not match, the rest of the
+     * request is not read then.
+     */
+    static Request read(ReadableByteChannel channel, int randomNumber) throws IOException {
+        ByteBuffer header = read(channel, ByteBuffer.allocate(HEADER_SIZE));
+
+        if (header.getInt() != randomNumber) {
+            return null;
+        }
+
+        int length = header.getInt();
+        if (length < 1 + 4 + 4 || length > MAX_REQUEST_SIZE) {
+            throw new ProtocolException("Invalid request length " + length);
+        }
+
+        ByteBuffer body = read(channel, ByteBuffer.allocate(length));
+        byte type = body.get();
+        String workingDirectory = getString(body);
+        int count = body.getInt();
+        if (count < 0 || count > body.remaining() / 4) {
+            throw new ProtocolException("Invalid argument count " + count);
+        }
+
+        String[] args = new String[count];
+        for (int i = 0; i < count; i++) {
+            args[i] = getString(body);
+        }
+
+        return new Request(type, workingDirectory, args);
+    }
+
+    static ByteBuffer read(ReadableByteChannel channel, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer) < 0) {
+                throw new EOFException();
+            }
+        }
+
+        return buffer.flip();
+    }
+
+    // decodes the string in place from the array of the buffer
+    private static String getString(ByteBuffer buffer) throws ProtocolException {
+        int length = buffer.getInt();
+        if (length < 0 || length > buffer.remaining()) {
+            throw new ProtocolException("Invalid string length " + length);
+        }
+
+        String value = new String(buffer.array(), buffer.arrayOffset() + buffer.position(), length,
+                StandardCharsets.UTF_8);
+        buffer.position(buffer.position() + length);
+        return value;
+    }
+}
@@ -26,25 +26,38 @@
 package com.openjfx.packager.services.singleton;
 
 import java.io.BufferedReader;
-import java.io.File;
-import java.io.FileReader;
+import java.io.EOFException;
 import java.io.IOException;
 import java.io.InputStreamReader;
 import java.io.OutputStream;
 import java.io.PrintStream;
-import java.net.Socket;
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.net.SocketException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.SocketChannel;
 import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.util.List;
 
 /**
  * The {@code SingleInstanceService} class provides public methods for using
  * Single Instance functionality for Java Packager. To use these methods,
  * the option named "-singleton" must be specified on javapackager command line.
+ *
+ * <p>The listeners are called on a single thread and the new instance is
+ * released as soon as its arguments are queued.  If the system property
+ * {@code javapackager.singleinstance.coalesce} is set to a number of
+ * milliseconds, the arguments of the activations that arrive within that time
+ * of the first one, such as a file manager opening several files with one
+ * instance each, are passed to the listeners in a single call.
  */
 public class SingleInstanceService {
 
     private static boolean DEBUG;
     private static PrintStream DEBUG_STREAM;
-    private static int currPort;
+    private static SocketAddress currAddress;
     private static String stringId;
     private static String randomNumberString;
     private static SingleInstanceImpl instance;
@@ -128,57 +141,57 @@ public class SingleInstanceService {
      */
     static boolean isServerRunning(String id) {
         trace("isServerRunning ? : " + id);
-        File siDir = new File(SingleInstanceImpl.SI_FILEDIR);
-        String[] fList = siDir.list();
-        if (fList != null) {
-            String prefix = SingleInstanceImpl.getSingleInstanceFilePrefix(id);
-            for (String file : fList) {
-                trace("isServerRunning: " + file);
-                trace("\t String id: " + id);
-                trace("\t SingleInstanceFilePrefix: " + prefix);
-                // if file with the same prefix already exist, server is running
-                if (file.startsWith(prefix)) {
-                    try {
-                        currPort = Integer.parseInt(
-                                file.substring(file.lastIndexOf('_') + 1));
-                        trace("isServerRunning: " + file + ": port: " + currPort);
-                    } catch (NumberFormatException nfe) {
-                        trace("isServerRunning: " + file + ": port parsing failed");
-                        trace(nfe);
-                        return false;
-                    }
-
-                    trace("Server running at port: " + currPort);
-                    File siFile = new File(SingleInstanceImpl.SI_FILEDIR, file);
-
-                    // get random number from single instance file
-                    try (BufferedReader br = new BufferedReader(
-                            new FileReader(siFile))) {
-                        randomNumberString = br.readLine();
-                        trace("isServerRunning: " + file + ": magic: " + randomNumberString);
-                    } catch (IOException ioe) {
-                        trace("isServerRunning: " + file + ": reading magic failed");
-                        trace(ioe);
-                    }
-                    trace("isServerRunning: " + file + ": setting id - OK");
-                    stringId = id;
-                    return true;
-                } else {
-                    trace("isServerRunning: " + file + ": prefix NOK");
-                }
+
+        // the server holds the lock for as long as it runs
+        if (!SingleInstanceImpl.isServerLocked(id)) {
+            trace("isServerRunning: false");
+            return false;
+        }
+
+        List<String> lines;
+        try {
+            lines = Files.readAllLines(SingleInstanceImpl.getSingleInstanceFile(id));
+        } catch (IOException ioe) {
+            // the server has not written the file yet
+            trace("isServerRunning: reading single instance file failed");
+            trace(ioe);
+            return false;
+        }
+
+        if (lines.isEmpty()) {
+            trace("isServerRunning: empty single instance file");
+            return false;
+        }
+
+        // get random number from single instance file
+        randomNumberString = lines.get(0);
+        trace("isServerRunning: magic: " + randomNumberString);
+
+        try {
+            if (lines.size() > 1) {
+                int port = Integer.parseInt(lines.get(1));
+                currAddress = new InetSocketAddress("127.0.0.1", port);
+                trace("Server running at port: " + port);
+            } else {
+                currAddress = UnixDomainSockets.getAddress(SingleInstanceImpl.getSingleInstanceSocketFile(id));
+                trace("Server running at: " + currAddress);
             }
-        } else {
-            trace("isServerRunning: empty file list");
+        } catch (NumberFormatException | IOException e) {
+            trace("isServerRunning: server address failed");
+            trace(e);
+            return false;
         }
-        trace("isServerRunning: false");
-        return false;
+
+        trace("isServerRunning: setting id - OK");
+        stringId = id;
+        return true;
     }
 
     /**
      * Returns true if we connect successfully to the server for the stringId
      */
     static boolean connectToServer(String[] args) {
-        trace("Connect to: " + stringId + " " + currPort);
+        trace("Connect to: " + stringId + " " + currAddress);
 
         if (randomNumberString == null) {
             // should not happen
@@ -186,22 +199,74 @@ public class SingleInstanceService {
             return false;
         }
 
+        SocketChannel socket;
+        try {
+            socket = SocketChannel.open(currAddress);
+        } catch (IOException ioe) {
+            // no server is running - continue launch
+            trace("No server is running - continue launch.");
+            trace(ioe);
+            return false;
+        }
+
+        boolean closedByServer = false;
+
+        try (SocketChannel channel = socket) {
+            SingleInstanceProtocol.Request request = new SingleInstanceProtocol.Request(
+                    SingleInstanceProtocol.TYPE_ACTIVATE, System.getProperty("user.dir", ""), args);
+            SingleInstanceProtocol.write(channel,
+                    SingleInstanceProtocol.encode(Integer.parseInt(randomNumberString), request));
+
+            // wait for ACK (OK) response
+            trace("Waiting for ack");
+            ByteBuffer reply;
+            try {
+                reply = SingleInstanceProtocol.read(channel, ByteBuffer.allocate(1));
+            } catch (EOFException | SocketException e) {
+                // servers of earlier versions close the connection on the
+                // unknown protocol version without an answer
+                trace(e);
+                reply = null;
+                closedByServer = true;
+            }
+
+            if (reply != null && reply.get() == SingleInstanceProtocol.ACK) {
+                trace("Got ACK");
+                return true;
+            }
+        } catch (NumberFormatException e) {
+            trace(e);
+        } catch (IOException ioe) {
+            // the server may have received the request, do not send it again
+            trace(ioe);
+        }
+
+        if (closedByServer) {
+            trace("Connection closed without an answer, retrying with the text protocol.");
+            return connectToLegacyServer(args);
+        }
+
+        trace("No ACK from server, bail out.");
+        return false;
+    }
+
+    private static boolean connectToLegacyServer(String[] args) {
         // Now we open the tcpSocket and the stream
-        Socket socket = null;
+        SocketChannel socket = null;
         OutputStream os = null;
         PrintStream out = null;
         InputStreamReader isr = null;
         BufferedReader br = null;
         try {
-            socket = new Socket("127.0.0.1", currPort);
-            os = socket.getOutputStream();
+            socket = SocketChannel.open(currAddress);
+            os = Channels.newOutputStream(socket);
             byte[] encoding = new byte[1];
             encoding[0] = ENCODING_PLATFORM;
             os.write(encoding);
             String encodingName = Charset.defaultCharset().name();
 
             out = new PrintStream(os, true, encodingName);
-            isr = new InputStreamReader(socket.getInputStream(), encodingName);
+            isr = new InputStreamReader(Channels.newInputStream(socket), encodingName);
             br = new BufferedReader(isr);
 
             // send random number
@@ -0,0 +1,108 @@
+/*
+ * Copyright (c) 2018, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+
+package com.openjfx.packager.services.singleton;
+
+import java.io.IOException;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.net.ProtocolFamily;
+import java.net.SocketAddress;
+import java.net.StandardProtocolFamily;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.file.Path;
+
+/**
+ * Unix domain sockets, which are available on Linux, Mac OS X and Windows 10
+ * when the application runs on Java 16 or later.  The API is looked up
+ * reflectively so that the single instance service still runs, over TCP, on
+ * older runtimes.
+ */
+final class UnixDomainSockets {
+
+    private static final Method ADDRESS_OF;
+    private static final Method OPEN_SERVER;
+    private static final ProtocolFamily UNIX;
+
+    static {
+        Method addressOf = null;
+        Method openServer = null;
+        ProtocolFamily unix = null;
+
+        try {
+            addressOf = Class.forName("java.net.UnixDomainSocketAddress").getMethod("of", Path.class);
+            openServer = ServerSocketChannel.class.getMethod("open", ProtocolFamily.class);
+            unix = StandardProtocolFamily.valueOf("UNIX");
+        } catch (ClassNotFoundException | NoSuchMethodException | IllegalArgumentException e) {
+            SingleInstanceService.trace("Unix domain sockets are not supported");
+            addressOf = null;
+        }
+
+        ADDRESS_OF = addressOf;
+        OPEN_SERVER = openServer;
+        UNIX = unix;
+    }
+
+    private UnixDomainSockets() {}
+
+    static boolean isSupported() {
+        return ADDRESS_OF != null;
+    }
+
+    // SocketChannel.open(SocketAddress) connects to the socket at this address.
+    static SocketAddress getAddress(Path path) throws IOException {
+        return (SocketAddress) invoke(ADDRESS_OF, path);
+    }
+
+    static ServerSocketChannel openServer(Path path) throws IOException {
+        ServerSocketChannel channel = (ServerSocketChannel) invoke(OPEN_SERVER, UNIX);
+
+        try {
+            channel.bind(getAddress(path));
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+
+        return channel;
+    }
+
+    private static Object invoke(Method method, Object argument) throws IOException {
+        if (method == null) {
+            throw new IOException("Unix domain sockets are not supported");
+        }
+
+        try {
+            return method.invoke(null, argument);
+        } catch (IllegalAccessException e) {
+            throw new IOException(e);
+        } catch (InvocationTargetException e) {
+            if (e.getCause() instanceof IOException) {
+                throw (IOException) e.getCause();
+            }
+            throw new IOException(e.getCause());
+        }
+    }
+}
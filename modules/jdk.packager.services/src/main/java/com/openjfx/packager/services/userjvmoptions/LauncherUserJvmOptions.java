@@ -25,10 +25,15 @@
 
 package com.openjfx.packager.services.userjvmoptions;
 
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.security.AllPermission;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.LinkedHashMap;
-import java.util.LinkedList;
-import java.util.List;
 import java.util.Map;
 
 import com.openjfx.packager.services.UserJvmOptionsService;
@@ -36,6 +41,11 @@ import com.openjfx.packager.services.UserJvmOptionsService;
 /**
  * Access the UserJVMOptions via a native library provided by the launcher.
  *
+ * The options and their defaults are read from the launcher in a single call
+ * and kept until they are set, or until the content of the file the launcher
+ * reads the user options from changes, such as when another instance of the
+ * application sets them.
+ *
  * Do not instantiate this class directly, instead use
  * {@see UserJvmOptionsService#getUserJVMDefaults()}
  * to get an instance.
@@ -43,6 +53,12 @@ import com.openjfx.packager.services.UserJvmOptionsService;
 public final class LauncherUserJvmOptions implements UserJvmOptionsService {
 
     private static final Object SEMAPHORE = new Object();
+    private static final byte[] UNREADABLE = new byte[0];
+
+    // guarded by SEMAPHORE
+    private static Snapshot snapshot;
+    private static Path optionsFile;
+    private static UserJvmOptionsWatcher watcher;
 
     static {
         try {
@@ -61,39 +77,6 @@ public final class LauncherUserJvmOptions implements UserJvmOptionsService {
         }
     }
 
-    /**
-     * Access the default User JVM Option for a specific key
-     *
-     * @param option the key for the User JVM Option
-     *
-     * @return the default value of the user JVM Option.  Currently set user
-     * values are not considered, and only the default is returned.  If there
-     * is no default value then null is returned.
-     */
-    private static native String _getUserJvmOptionDefaultValue(String option);
-
-    /**
-     * This lists the keys for User JVM Options that will have a default
-     * provided by the launcher.
-     *
-     * This list will be a subset of the keys used by the launcher and only
-     * lists those values that will have a default value provided if the user
-     * does not set a value of their own.
-     *
-     * @return an array of keys in no particular order.
-     */
-    private static native String[] _getUserJvmOptionDefaultKeys();
-    /**
-     * Access the current User JVM Option for a specific key
-     *
-     * @param option the key for the User JVM Option
-     *
-     * @return the current value of the user JVM Option.  If the user has not
-     * set a value then the default value is returned, except in the case where
-     * there is no default value, where null is returned.
-     */
-    private static native String _getUserJvmOptionValue(String option);
-
     /**
      * Update the all User JVM Options
      *
@@ -109,34 +92,106 @@ public final class LauncherUserJvmOptions implements UserJvmOptionsService {
                                                         String[] values);
 
     /**
-     * This lists the keys for all User JVM Options that will be used by the
-     * launcher.
+     * Access the current User JVM Options and the defaults in one call.
      *
-     * This list will be a superset of the defaults as may also include user
-     * values that do not have a default.
+     * @param reload read the user values from their file again first
      *
-     * @return an array of keys in no particular order.
+     * @return the current keys and values followed by the default keys and
+     * values, keys and values alternate in each array.
      */
-    private static native String[] _getUserJvmOptionKeys();
+    private static native String[][] _getUserJvmOptionSnapshot(boolean reload);
 
-    @Override
-    public Map<String, String> getUserJVMOptions() {
-        checkAllPermissions();
+    /**
+     * The file the launcher reads the user values from.
+     *
+     * @return the name of the file, which may not exist.
+     */
+    private static native String _getUserJvmOptionsFileName();
+
+    private static final class Snapshot {
+
+        final Map<String, String> options;
+        final Map<String, String> defaults;
+        // the file is small, its content is compared so that an edit that
+        // keeps the size and the modification time is noticed too
+        final byte[] content;
+
+        Snapshot(String[][] data, byte[] content) {
+            options = toMap(data[0]);
+            defaults = toMap(data[1]);
+            this.content = content;
+        }
+
+        boolean isCurrent(byte[] content) {
+            return Arrays.equals(this.content, content);
+        }
+
+        private static Map<String, String> toMap(String[] keysAndValues) {
+            Map<String, String> result = new LinkedHashMap<>();
+            for (int i = 0; i + 1 < keysAndValues.length; i += 2) {
+                result.put(keysAndValues[i], keysAndValues[i + 1]);
+            }
+            return Collections.unmodifiableMap(result);
+        }
+    }
+
+    private static Path getOptionsFile() {
         synchronized (SEMAPHORE) {
-            Map<String, String> results = new LinkedHashMap<>();
-            for (String s : _getUserJvmOptionKeys()) {
-                results.put(s, _getUserJvmOptionValue(s));
+            if (optionsFile == null) {
+                optionsFile = Paths.get(_getUserJvmOptionsFileName());
             }
-            return results;
+            return optionsFile;
+        }
+    }
+
+    private static UserJvmOptionsWatcher getWatcher() {
+        synchronized (SEMAPHORE) {
+            if (watcher == null) {
+                watcher = new UserJvmOptionsWatcher(getOptionsFile(), () -> getSnapshot().options);
+            }
+            return watcher;
+        }
+    }
+
+    private static Snapshot getSnapshot() {
+        synchronized (SEMAPHORE) {
+            Path file = getOptionsFile();
+            // read before the launcher reads it, a change in between is
+            // picked up by the next access
+            byte[] content = readContent(file);
+            if (snapshot == null || content == UNREADABLE || !snapshot.isCurrent(content)) {
+                // the launcher read the file at startup, it may have
+                // changed since
+                snapshot = new Snapshot(_getUserJvmOptionSnapshot(true), content);
+            }
+            return snapshot;
+        }
+    }
+
+    private static byte[] readContent(Path file) {
+        try {
+            return Files.readAllBytes(file);
+        } catch (NoSuchFileException e) {
+            return null;
+        } catch (IOException e) {
+            // read the options again on every access
+            return UNREADABLE;
         }
     }
 
+    @Override
+    public Map<String, String> getUserJVMOptions() {
+        checkAllPermissions();
+        return new LinkedHashMap<>(getSnapshot().options);
+    }
+
     @Override
     public void setUserJVMOptions(Map<String, String> options) {
         checkAllPermissions();
         synchronized (SEMAPHORE) {
-            List<String> keys = new LinkedList<>();
-            List<String> values = new LinkedList<>();
+            String[] keys = new String[options.size()];
+            String[] values = new String[options.size()];
+            int index = 0;
 
             for (Map.Entry<String, String> option : options.entrySet()) {
                 if (option.getKey() == null) {
@@ -151,23 +206,38 @@ public final class LauncherUserJvmOptions implements UserJvmOptionsService {
                                     "removed by absence, not by setting keys to null."
                     );
                 }
-                keys.add(option.getKey());
-                values.add(option.getValue());
+                keys[index] = option.getKey();
+                values[index] = option.getValue();
+                index++;
             }
 
-            _setUserJvmKeysAndValues(keys.toArray(new String[0]), values.toArray(new String[0]));
+            _setUserJvmKeysAndValues(keys, values);
+            snapshot = null;
         }
+        getWatcher().changed();
     }
 
     @Override
     public Map<String, String> getUserJVMOptionDefaults() {
         checkAllPermissions();
-        synchronized (SEMAPHORE) {
-            Map<String, String> results = new LinkedHashMap<>();
-            for (String s : _getUserJvmOptionDefaultKeys()) {
-                results.put(s, _getUserJvmOptionDefaultValue(s));
-            }
-            return results;
-        }
+        return new LinkedHashMap<>(getSnapshot().defaults);
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * The file the launcher reads the user values from is watched while
+     * there are listeners.
+     */
+    @Override
+    public void addChangeListener(ChangeListener listener) {
+        checkAllPermissions();
+        getWatcher().addListener(listener);
+    }
+
+    @Override
+    public void removeChangeListener(ChangeListener listener) {
+        checkAllPermissions();
+        getWatcher().removeListener(listener);
     }
 }
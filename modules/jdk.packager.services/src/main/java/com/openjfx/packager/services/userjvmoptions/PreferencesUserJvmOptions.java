@@ -25,9 +25,12 @@
 
 package com.openjfx.packager.services.userjvmoptions;
 
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.util.LinkedHashMap;
 import java.util.Map;
 import java.util.prefs.BackingStoreException;
+import java.util.prefs.PreferenceChangeListener;
 import java.util.prefs.Preferences;
 
 import com.openjfx.packager.services.UserJvmOptionsService;
@@ -44,11 +47,47 @@ public final class PreferencesUserJvmOptions implements UserJvmOptionsService {
     Preferences node = Preferences.userRoot().node(System.getProperty(
             "app.preferences.id").replace(".", "/")).node("JVMUserOptions");
 
+    private final UserJvmOptionsWatcher watcher = new UserJvmOptionsWatcher(getPreferencesFile(node), () -> {
+        try {
+            // read the changes of other processes
+            node.sync();
+        } catch (BackingStoreException ignore) {
+        }
+        return getUserJVMOptions();
+    });
+    private final PreferenceChangeListener preferenceListener = e -> watcher.changed();
+    private int listenerCount;
+
+    /**
+     * The file the node is stored in by the file system based preferences of
+     * Unix systems, {@code null} if the node is stored elsewhere or its name
+     * is encoded.
+     */
+    private static Path getPreferencesFile(Preferences node) {
+        String os = System.getProperty("os.name").toLowerCase();
+        if (os.contains("win") || os.contains("mac") || os.contains("os x")) {
+            return null;
+        }
+
+        Path directory = Paths.get(System.getProperty("java.util.prefs.userRoot", System.getProperty("user.home")),
+                ".java", ".userPrefs");
+        for (String name : node.absolutePath().substring(1).split("/")) {
+            for (char c : name.toCharArray()) {
+                if (c <= 0x1f || c >= 0x7f || c == '.' || c == '_') {
+                    return null;
+                }
+            }
+            directory = directory.resolve(name);
+        }
+
+        return directory.resolve("prefs.xml");
+    }
+
     @Override
     public Map<String, String> getUserJVMOptions() {
         Map<String, String> result = new LinkedHashMap<>();
         try {
-            for (String s : node.childrenNames()) {
+            for (String s : node.keys()) {
                 String o = node.get(s, null);
                 if (o != null) {
                     result.put(s, o);
@@ -78,4 +117,25 @@ public final class PreferencesUserJvmOptions implements UserJvmOptionsService {
         throw new UnsupportedOperationException(
                 "Preferences backed UserJvmOptions do not enumerate their defaults");
     }
+
+    /**
+     * {@inheritDoc}
+     *
+     * The changes made through the preferences node are reported, and on
+     * Unix systems the file the node is stored in is watched.
+     */
+    @Override
+    public synchronized void addChangeListener(ChangeListener listener) {
+        watcher.addListener(listener);
+        if (listenerCount++ == 0) {
+            node.addPreferenceChangeListener(preferenceListener);
+        }
+    }
+
+    @Override
+    public synchronized void removeChangeListener(ChangeListener listener) {
+        if (watcher.removeListener(listener) && --listenerCount == 0) {
+            node.removePreferenceChangeListener(preferenceListener);
+        }
+    }
 }
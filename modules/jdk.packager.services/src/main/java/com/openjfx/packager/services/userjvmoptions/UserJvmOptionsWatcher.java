@@ -0,0 +1,227 @@
+/*
+ * Copyright (c) 2018, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+
+package com.openjfx.packager.services.userjvmoptions;
+
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Supplier;
+
+import com.openjfx.packager.services.UserJvmOptionsService.ChangeListener;
+
+/**
+ * Notifies the change listeners of a {@code UserJvmOptionsService}.
+ *
+ * The file the options are stored in is watched while there are listeners,
+ * and the services report the changes they make themselves.  The listeners
+ * are called on a single thread, only if the options differ from the ones
+ * they were last called with.
+ */
+final class UserJvmOptionsWatcher {
+
+    private final Path file;
+    private final Supplier<Map<String, String>> loader;
+    private final List<ChangeListener> listeners = new CopyOnWriteArrayList<>();
+
+    // guarded by this
+    private ExecutorService executor;
+    private WatchService watchService;
+    private Map<String, String> current;
+
+    /**
+     * @param file the file to watch, or {@code null} if only the changes
+     *         reported with {@link #changed()} are delivered
+     * @param loader reads the current options
+     */
+    UserJvmOptionsWatcher(Path file, Supplier<Map<String, String>> loader) {
+        this.file = file;
+        this.loader = loader;
+    }
+
+    synchronized void addListener(ChangeListener listener) {
+        Objects.requireNonNull(listener);
+        listeners.add(listener);
+
+        if (executor == null) {
+            current = snapshot();
+            executor = Executors.newSingleThreadExecutor(r -> {
+                Thread thread = new Thread(null, r, "JavaPackagerUserJvmOptions", 0, false);
+                thread.setDaemon(true);
+                return thread;
+            });
+            startWatching();
+        }
+    }
+
+    /**
+     * @return {@code true} if the listener was added before
+     */
+    synchronized boolean removeListener(ChangeListener listener) {
+        boolean removed = listeners.remove(listener);
+
+        if (listeners.isEmpty() && executor != null) {
+            executor.shutdown();
+            executor = null;
+            stopWatching();
+        }
+        return removed;
+    }
+
+    /**
+     * Reports a change the service made itself, or that it was told about.
+     */
+    synchronized void changed() {
+        if (executor != null) {
+            executor.execute(this::deliver);
+        }
+    }
+
+    private void deliver() {
+        Map<String, String> options = snapshot();
+
+        synchronized (this) {
+            if (options.equals(current)) {
+                return;
+            }
+            current = options;
+        }
+
+        for (ChangeListener listener : listeners) {
+            listener.userJVMOptionsChanged(options);
+        }
+    }
+
+    private Map<String, String> snapshot() {
+        return Collections.unmodifiableMap(new LinkedHashMap<>(loader.get()));
+    }
+
+    // The directory is watched, the file is replaced rather than written to.
+    // Until the directory exists its nearest existing parent is watched.
+    private void startWatching() {
+        if (file == null) {
+            return;
+        }
+
+        final Path target = file.toAbsolutePath();
+        try {
+            watchService = target.getFileSystem().newWatchService();
+            register(watchService, target);
+        } catch (IOException | UnsupportedOperationException e) {
+            // only the changes of this process are reported
+            stopWatching();
+            return;
+        }
+
+        final WatchService service = watchService;
+        Thread thread = new Thread(null, () -> watch(service, target), "JavaPackagerUserJvmOptionsWatch", 0,
+                false);
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    private void stopWatching() {
+        if (watchService != null) {
+            try {
+                watchService.close();
+            } catch (IOException ignore) {
+            }
+            watchService = null;
+        }
+    }
+
+    private static void register(WatchService service, Path target) throws IOException {
+        Path directory = target.getParent();
+        while (directory != null) {
+            WatchKey key;
+            try {
+                key = Files.isDirectory(directory) ? directory.register(service, StandardWatchEventKinds.ENTRY_CREATE,
+                        StandardWatchEventKinds.ENTRY_MODIFY, StandardWatchEventKinds.ENTRY_DELETE) : null;
+            } catch (NoSuchFileException ignore) {
+                // removed in the meantime
+                key = null;
+            }
+
+            if (key == null) {
+                directory = directory.getParent();
+                continue;
+            }
+
+            Path next = directory.resolve(directory.relativize(target).getName(0));
+            if (next.equals(target) || !Files.isDirectory(next)) {
+                return;
+            }
+            // created before the directory was watched, start over
+            key.cancel();
+            directory = target.getParent();
+        }
+        throw new NoSuchFileException(target.toString());
+    }
+
+    private void watch(WatchService service, Path target) {
+        try {
+            while (true) {
+                WatchKey key = service.take();
+                Path directory = (Path) key.watchable();
+                // the file itself, or the directory on the way to it
+                Path name = directory.relativize(target).getName(0);
+                boolean relevant = false;
+
+                for (WatchEvent<?> event : key.pollEvents()) {
+                    relevant |= event.kind() == StandardWatchEventKinds.OVERFLOW || name.equals(event.context());
+                }
+
+                if (!key.reset() || (relevant && !directory.equals(target.getParent()))) {
+                    // the watched directory was deleted, or one closer to
+                    // the file was created
+                    key.cancel();
+                    register(service, target);
+                }
+
+                if (relevant) {
+                    changed();
+                }
+            }
+        } catch (InterruptedException | ClosedWatchServiceException ignore) {
+            // no more listeners
+        } catch (IOException ignore) {
+            // only the changes of this process are reported from now on
+        }
+    }
+}
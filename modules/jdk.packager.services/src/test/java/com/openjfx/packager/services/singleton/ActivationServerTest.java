@@ -0,0 +1,167 @@
+/*
+ * Copyright (c) 2018, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+
+package com.openjfx.packager.services.singleton;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.net.URISyntaxException;
+import java.nio.channels.Channels;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.UUID;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class ActivationServerTest {
+
+    private static final byte[] INPUT = "input\n".getBytes(StandardCharsets.UTF_8);
+
+    // Run by the server for each launch: echoes its arguments and a line of
+    // input, and sets the exit code instead of calling System.exit.
+    public static final class App {
+
+        public static void main(String[] args) throws IOException {
+            BufferedReader in = new BufferedReader(new InputStreamReader(System.in, StandardCharsets.UTF_8));
+            System.out.print(String.join(" ", args) + " " + in.readLine());
+            System.err.print(ActivationContext.current().getEnvironment().get("NAME"));
+            ActivationContext.current().setExitCode(args.length);
+        }
+    }
+
+    // the directory the class is loaded from
+    private static String classRoot(Class<?> c) throws URISyntaxException {
+        String name = c.getName().replace('.', '/') + ".class";
+        String path = Paths.get(c.getResource("/" + name).toURI()).toString();
+        return path.substring(0, path.length() - name.length());
+    }
+
+    @Test(timeout = 60000)
+    public void launchesRunInTheServer() throws Exception {
+        String appId = "ActivationServerTest-" + UUID.randomUUID();
+        String stringId = ActivationServer.ACTIVATION_ID_PREFIX + appId;
+        Path siFile = SingleInstanceImpl.getSingleInstanceFile(stringId);
+
+        // started on the JDK the tests run on, like the launcher does
+        Process server = new ProcessBuilder(
+                Paths.get(System.getProperty("java.home"), "bin", "java").toString(),
+                "-cp", classRoot(ActivationServer.class) + File.pathSeparator + classRoot(App.class),
+                "-D" + ActivationServer.APP_ID_PROPERTY + "=" + appId,
+                "-D" + ActivationServer.MAIN_PROPERTY + "=" + App.class.getName(),
+                "-D" + ActivationServer.TIMEOUT_PROPERTY + "=60",
+                ActivationServer.class.getName()).inheritIO().start();
+        try {
+            while (!Files.exists(siFile)) {
+                if (!server.isAlive()) {
+                    fail("The activation server exited with " + server.exitValue());
+                }
+                Thread.sleep(50);
+            }
+
+            List<String> lines = Files.readAllLines(siFile);
+            SocketAddress address = lines.size() > 1
+                    ? new InetSocketAddress(InetAddress.getByName("127.0.0.1"), Integer.parseInt(lines.get(1)))
+                    : UnixDomainSockets.getAddress(SingleInstanceImpl.getSingleInstanceSocketFile(stringId));
+
+            // both launches run in the same server, which outlives them
+            assertLaunch(address, lines.get(0), new String[] {"first"}, "first input", 1);
+            assertLaunch(address, lines.get(0), new String[] {"second", "launch"}, "second launch input", 2);
+            assertTrue(server.isAlive());
+        } finally {
+            server.destroy();
+            server.waitFor();
+            Files.deleteIfExists(SingleInstanceImpl.getSingleInstanceLockFile(stringId));
+        }
+    }
+
+    // Sends a launch as the launcher does and checks what it writes back.
+    private static void assertLaunch(SocketAddress address, String randomNumber, String[] args,
+                                     String expectedOut, int expectedExitCode) throws IOException {
+        try (SocketChannel channel = SocketChannel.open(address)) {
+            DataOutputStream out = new DataOutputStream(Channels.newOutputStream(channel));
+            DataInputStream in = new DataInputStream(Channels.newInputStream(channel));
+
+            writeString(out, randomNumber);
+            writeString(out, System.getProperty("user.dir"));
+            out.writeInt(args.length);
+            for (String arg : args) {
+                writeString(out, arg);
+            }
+            out.writeInt(1);
+            writeString(out, "NAME=" + args[0]);
+            out.flush();
+
+            ByteArrayOutputStream stdout = new ByteArrayOutputStream();
+            ByteArrayOutputStream stderr = new ByteArrayOutputStream();
+            boolean inputSent = false;
+            while (true) {
+                byte type = in.readByte();
+                int value = in.readInt();
+                if (type == ActivationServer.FRAME_OUT || type == ActivationServer.FRAME_ERR) {
+                    byte[] bytes = new byte[value];
+                    in.readFully(bytes);
+                    (type == ActivationServer.FRAME_OUT ? stdout : stderr).write(bytes);
+                } else if (type == ActivationServer.FRAME_INPUT_REQUEST) {
+                    byte[] input = inputSent ? new byte[0] : INPUT;
+                    out.writeByte(ActivationServer.FRAME_INPUT);
+                    out.writeInt(input.length);
+                    out.write(input);
+                    out.flush();
+                    inputSent = true;
+                } else if (type == ActivationServer.FRAME_EXIT) {
+                    assertEquals(expectedExitCode, value);
+                    break;
+                } else {
+                    assertEquals(ActivationServer.FRAME_ACCEPTED, type);
+                }
+            }
+
+            assertEquals(expectedOut, stdout.toString(StandardCharsets.UTF_8.name()));
+            assertEquals(args[0], stderr.toString(StandardCharsets.UTF_8.name()));
+        }
+    }
+
+    private static void writeString(DataOutputStream out, String s) throws IOException {
+        byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+}
@@ -0,0 +1,60 @@
+/*
+ * Copyright (c) 2018, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+
+package com.openjfx.packager.services.singleton;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.UUID;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class SingleInstanceEndpointTest {
+
+    @Test
+    public void lockFileIsDeletedOnClose() throws IOException {
+        String id = "SingleInstanceEndpointTest-" + UUID.randomUUID();
+        Path lockFile = SingleInstanceImpl.getSingleInstanceLockFile(id);
+
+        SingleInstanceEndpoint endpoint = new SingleInstanceEndpoint(id);
+        try {
+            assertTrue(Files.exists(lockFile));
+            assertTrue(SingleInstanceImpl.isServerLocked(id));
+        } finally {
+            endpoint.close();
+        }
+        assertFalse(Files.exists(lockFile));
+        assertFalse(Files.exists(SingleInstanceImpl.getSingleInstanceFile(id)));
+        assertFalse(SingleInstanceImpl.isServerLocked(id));
+
+        // the next server for the id starts again
+        new SingleInstanceEndpoint(id).close();
+        assertFalse(Files.exists(lockFile));
+    }
+}
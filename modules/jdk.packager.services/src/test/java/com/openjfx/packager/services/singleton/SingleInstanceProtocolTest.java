@@ -0,0 +1,142 @@
+/*
+ * Copyright (c) 2018, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+
+package com.openjfx.packager.services.singleton;
+
+import java.io.ByteArrayInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.net.ProtocolException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+public class SingleInstanceProtocolTest {
+
+    private static final int RANDOM_NUMBER = 0x12345678;
+
+    // the request as the server sees it, after it has read the version
+    private static ReadableByteChannel channel(ByteBuffer request, int length) {
+        assertEquals(SingleInstanceProtocol.VERSION, request.get());
+        byte[] bytes = Arrays.copyOfRange(request.array(), request.position(), request.position() + length);
+        return Channels.newChannel(new ByteArrayInputStream(bytes));
+    }
+
+    private static ReadableByteChannel channel(ByteBuffer request) {
+        return channel(request, request.remaining() - 1);
+    }
+
+    private static ByteBuffer header(int randomNumber, int length) {
+        return ByteBuffer.allocate(1 + 8 + 1 + 4).put(SingleInstanceProtocol.VERSION).putInt(randomNumber)
+                .putInt(length).put(SingleInstanceProtocol.TYPE_ACTIVATE).flip();
+    }
+
+    @Test
+    public void roundTrip() throws IOException {
+        String[] args = {"first", "line\nbreak", "", "é中"};
+        ByteBuffer request = SingleInstanceProtocol.encode(RANDOM_NUMBER, new SingleInstanceProtocol.Request(
+                SingleInstanceProtocol.TYPE_ACTIVATE, "/home/user/über", args));
+
+        SingleInstanceProtocol.Request result = SingleInstanceProtocol.read(channel(request), RANDOM_NUMBER);
+
+        assertEquals(SingleInstanceProtocol.TYPE_ACTIVATE, result.type);
+        assertEquals("/home/user/über", result.workingDirectory);
+        assertArrayEquals(args, result.args);
+    }
+
+    @Test
+    public void roundTripStop() throws IOException {
+        ByteBuffer request = SingleInstanceProtocol.encode(RANDOM_NUMBER, new SingleInstanceProtocol.Request(
+                SingleInstanceProtocol.TYPE_STOP, "", new String[0]));
+
+        SingleInstanceProtocol.Request result = SingleInstanceProtocol.read(channel(request), RANDOM_NUMBER);
+
+        assertEquals(SingleInstanceProtocol.TYPE_STOP, result.type);
+        assertEquals(0, result.args.length);
+    }
+
+    @Test
+    public void wrongRandomNumber() throws IOException {
+        ByteBuffer request = SingleInstanceProtocol.encode(RANDOM_NUMBER, new SingleInstanceProtocol.Request(
+                SingleInstanceProtocol.TYPE_ACTIVATE, "", new String[] {"a"}));
+
+        assertNull(SingleInstanceProtocol.read(channel(request), RANDOM_NUMBER + 1));
+    }
+
+    @Test(expected = EOFException.class)
+    public void truncatedHeader() throws IOException {
+        ByteBuffer request = SingleInstanceProtocol.encode(RANDOM_NUMBER, new SingleInstanceProtocol.Request(
+                SingleInstanceProtocol.TYPE_ACTIVATE, "", new String[0]));
+
+        SingleInstanceProtocol.read(channel(request, 6), RANDOM_NUMBER);
+    }
+
+    @Test(expected = EOFException.class)
+    public void truncatedBody() throws IOException {
+        ByteBuffer request = SingleInstanceProtocol.encode(RANDOM_NUMBER, new SingleInstanceProtocol.Request(
+                SingleInstanceProtocol.TYPE_ACTIVATE, "/tmp", new String[] {"argument"}));
+
+        SingleInstanceProtocol.read(channel(request, request.remaining() - 4), RANDOM_NUMBER);
+    }
+
+    @Test(expected = ProtocolException.class)
+    public void oversizedRequest() throws IOException {
+        SingleInstanceProtocol.read(channel(header(RANDOM_NUMBER, Integer.MAX_VALUE)), RANDOM_NUMBER);
+    }
+
+    @Test(expected = ProtocolException.class)
+    public void negativeRequestLength() throws IOException {
+        SingleInstanceProtocol.read(channel(header(RANDOM_NUMBER, -1)), RANDOM_NUMBER);
+    }
+
+    @Test(expected = ProtocolException.class)
+    public void oversizedString() throws IOException {
+        byte[] directory = "/tmp".getBytes(StandardCharsets.UTF_8);
+        int length = 1 + 4 + directory.length + 4;
+        ByteBuffer request = ByteBuffer.allocate(1 + 8 + length).put(SingleInstanceProtocol.VERSION)
+                .putInt(RANDOM_NUMBER).putInt(length).put(SingleInstanceProtocol.TYPE_ACTIVATE)
+                .putInt(directory.length + 100).put(directory).putInt(0).flip();
+
+        SingleInstanceProtocol.read(channel(request), RANDOM_NUMBER);
+    }
+
+    @Test(expected = ProtocolException.class)
+    public void oversizedArgumentCount() throws IOException {
+        int length = 1 + 4 + 4;
+        ByteBuffer request = ByteBuffer.allocate(1 + 8 + length).put(SingleInstanceProtocol.VERSION)
+                .putInt(RANDOM_NUMBER).putInt(length).put(SingleInstanceProtocol.TYPE_ACTIVATE)
+                .putInt(0).putInt(1000).flip();
+
+        SingleInstanceProtocol.read(channel(request), RANDOM_NUMBER);
+    }
+}
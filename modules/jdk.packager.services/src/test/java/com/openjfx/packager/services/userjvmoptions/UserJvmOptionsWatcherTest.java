@@ -0,0 +1,93 @@
+/*
+ * Copyright (c) 2018, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+
+package com.openjfx.packager.services.userjvmoptions;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import com.openjfx.packager.services.UserJvmOptionsService.ChangeListener;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class UserJvmOptionsWatcherTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private static Map<String, String> read(Path file) {
+        try {
+            return Collections.singletonMap("content", new String(Files.readAllBytes(file)));
+        } catch (IOException e) {
+            return Collections.emptyMap();
+        }
+    }
+
+    // the file is replaced, as the launcher does
+    private static void write(Path file, String content) throws IOException {
+        Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+        Files.write(temp, content.getBytes());
+        Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    @Test
+    public void watchesTheNearestExistingDirectory() throws Exception {
+        Path directory = folder.getRoot().toPath().resolve("a").resolve("b");
+        Path file = directory.resolve("options");
+        UserJvmOptionsWatcher watcher = new UserJvmOptionsWatcher(file, () -> read(file));
+        BlockingQueue<Map<String, String>> changes = new LinkedBlockingQueue<>();
+        ChangeListener listener = changes::add;
+
+        watcher.addListener(listener);
+        try {
+            assertFalse(Files.exists(directory.getParent()));
+
+            Files.createDirectories(directory);
+            write(file, "-Xmx1g");
+
+            Map<String, String> options = changes.poll(30, TimeUnit.SECONDS);
+            assertEquals(Collections.singletonMap("content", "-Xmx1g"), options);
+
+            write(file, "-Xmx2g");
+            options = changes.poll(30, TimeUnit.SECONDS);
+            assertEquals(Collections.singletonMap("content", "-Xmx2g"), options);
+        } finally {
+            assertTrue(watcher.removeListener(listener));
+        }
+        assertFalse(watcher.removeListener(listener));
+    }
+}
@@ -25,22 +25,19 @@
 
 package com.sun.openjfx.tools.packager;
 
-import java.io.ByteArrayOutputStream;
 import java.io.File;
-import java.io.FileInputStream;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.PrintStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
-import java.nio.file.Paths;
-import java.text.MessageFormat;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 
+import static com.sun.openjfx.tools.packager.StandardBundlerParam.ACTIVATION_TIMEOUT;
 import static com.sun.openjfx.tools.packager.StandardBundlerParam.APP_CDS_CACHE_MODE;
 import static com.sun.openjfx.tools.packager.StandardBundlerParam.APP_CDS_CLASS_ROOTS;
 import static com.sun.openjfx.tools.packager.StandardBundlerParam.APP_FS_NAME;
@@ -55,6 +52,7 @@ import static com.sun.openjfx.tools.packager.StandardBundlerParam.JVM_PROPERTIES
 import static com.sun.openjfx.tools.packager.StandardBundlerParam.PREFERENCES_ID;
 import static com.sun.openjfx.tools.packager.StandardBundlerParam.PRELOADER_CLASS;
 import static com.sun.openjfx.tools.packager.StandardBundlerParam.SINGLETON;
+import static com.sun.openjfx.tools.packager.StandardBundlerParam.STARTUP_TRACE;
 import static com.sun.openjfx.tools.packager.StandardBundlerParam.USER_JVM_OPTIONS;
 import static com.sun.openjfx.tools.packager.StandardBundlerParam.VERSION;
 
@@ -83,6 +81,11 @@ public abstract class AbstractAppImageBuilder {
         return root;
     }
 
+    // Root of the complete image, the runtime image root by default.
+    public Path getImageRoot() {
+        return root;
+    }
+
     String getExcludeFileList() {
         StringBuilder result = new StringBuilder();
 
@@ -111,78 +114,15 @@ public abstract class AbstractAppImageBuilder {
     protected InputStream locateResource(String publicName, String category,
                                          String defaultName, File customFile,
                                          boolean verbose, File publicRoot) throws IOException {
-        InputStream is = null;
-        boolean customFromClasspath = false;
-        boolean customFromFile = false;
-        if (publicName != null) {
-            if (publicRoot != null) {
-                File publicResource = new File(publicRoot, publicName);
-                if (publicResource.exists() && publicResource.isFile()) {
-                    is = new FileInputStream(publicResource);
-                }
-            } else {
-                Path resource = Paths.get("./src/main/resources/com/sun/openjfx/tools/" + publicName);
-                is = Files.newInputStream(resource);
-            }
-            customFromClasspath = is != null;
-        }
-
-        if (is == null && customFile != null) {
-            Path resource = Paths.get("./src/main/resources/com/sun/openjfx/tools/" + customFile);
-            is = Files.newInputStream(resource);
-            customFromFile = true;
-        }
-        if (is == null && defaultName != null) {
-            Path resource = Paths.get("./src/main/resources/com/sun/openjfx/tools/" + defaultName);
-            is = Files.newInputStream(resource);
-        }
-        String msg;
-        if (customFromClasspath) {
-            msg = MessageFormat.format("Using custom package resource {0} (loaded from {1})",
-                    category == null ? "" : "[" + category + "] ", publicName);
-        } else if (customFromFile) {
-            msg = MessageFormat.format("Using custom package resource {0} (loaded from file {1})",
-                    category == null ? "" : "[" + category + "] ", customFile.getAbsoluteFile());
-        } else if (is != null) {
-            msg = MessageFormat.format("Using default package resource {0} (add {1} to the class path to customize)",
-                    category == null ? "" : "[" + category + "] ", publicName);
-        } else {
-            msg = MessageFormat.format("Using default package resource {0} (add {1} to the class path to customize)",
-                    category == null ? "" : "[" + category + "] ", publicName);
-        }
-        if (verbose) {
-            Log.info(msg);
-        }
-        return is;
+        TextTemplate.Source source = TextTemplate.resolve(publicName, category, defaultName, customFile,
+                verbose, publicRoot);
+        return source != null ? source.open() : null;
     }
 
-
     protected String preprocessTextResource(String publicName, String category,
                                             String defaultName, Map<String, String> pairs,
                                             boolean verbose, File publicRoot) throws IOException {
-        InputStream inp = locateResource(publicName, category, defaultName, null, verbose, publicRoot);
-        if (inp == null) {
-            throw new RuntimeException("Module corrupt? No " + defaultName + " resource!");
-        }
-
-        try (InputStream is = inp) {
-            // read fully into memory
-            ByteArrayOutputStream baos = new ByteArrayOutputStream();
-            byte[] buffer = new byte[1024];
-            int length;
-            while ((length = is.read(buffer)) != -1) {
-                baos.write(buffer, 0, length);
-            }
-
-            // substitute
-            String result = new String(baos.toByteArray());
-            for (Map.Entry<String, String> e : pairs.entrySet()) {
-                if (e.getValue() != null) {
-                    result = result.replace(e.getKey(), e.getValue());
-                }
-            }
-            return result;
-        }
+        return TextTemplate.locate(publicName, category, defaultName, verbose, publicRoot).render(pairs);
     }
 
     protected void writeCfgFile(Map<String, ? super Object> params, File cfgFileName, String runtimeLocation)
@@ -244,6 +184,20 @@ public abstract class AbstractAppImageBuilder {
             out.println("app.debug=-agentlib:jdwp=transport=dt_socket,server=y,suspend=y,address=localhost:" + port);
         }
 
+        LauncherMemory.writeConfig(params, out);
+
+        String startupTrace = STARTUP_TRACE.fetchFrom(params);
+
+        if (startupTrace != null) {
+            out.println("app.startup.trace=" + startupTrace);
+        }
+
+        int activationTimeout = ACTIVATION_TIMEOUT.fetchFrom(params);
+
+        if (activationTimeout != 0) {
+            out.println("app.activation.timeout=" + activationTimeout);
+        }
+
         out.println();
         out.println("[JVMOptions]");
         List<String> jvmargs = JVM_OPTIONS.fetchFrom(params);
@@ -338,4 +292,10 @@ public abstract class AbstractAppImageBuilder {
         return null;
     }
 
+    // If true the image does not co-bundle a runtime and no runtime image is
+    // created for it, see SharedRuntime.
+    public boolean usesSharedRuntime() {
+        return false;
+    }
+
 }
@@ -25,16 +25,12 @@
 
 package com.sun.openjfx.tools.packager;
 
-import java.io.ByteArrayOutputStream;
 import java.io.File;
-import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.Writer;
 import java.nio.file.Files;
-import java.nio.file.Path;
-import java.nio.file.Paths;
 import java.nio.file.StandardCopyOption;
-import java.text.MessageFormat;
 import java.util.Map;
 
 import com.sun.openjfx.tools.packager.windows.WindowsBundlerParam;
@@ -55,90 +51,40 @@ public abstract class AbstractBundler implements Bundler {
 
     protected void fetchResource(String publicName, String category,
                                  String defaultName, File result, boolean verbose, File publicRoot) throws IOException {
-        InputStream is = streamResource(publicName, category, defaultName, verbose, publicRoot);
-        if (is != null) {
-            Files.copy(is, result.toPath(), StandardCopyOption.REPLACE_EXISTING);
-        } else {
-            if (verbose) {
-                Log.info(MessageFormat.format(
-                        "Using default package resource {0} (add {1} to the class path to customize)",
-                        category == null ? "" : "[" + category + "] ", publicName));
+        TextTemplate.Source source = TextTemplate.resolve(publicName, category, defaultName, null, verbose, publicRoot);
+        if (source != null) {
+            try (InputStream is = source.open()) {
+                Files.copy(is, result.toPath(), StandardCopyOption.REPLACE_EXISTING);
             }
         }
     }
 
     protected void fetchResource(String publicName, String category, File defaultFile, File result,
                                  boolean verbose, File publicRoot) throws IOException {
-        InputStream is = streamResource(publicName, category, null, verbose, publicRoot);
-        if (is != null) {
-            Files.copy(is, result.toPath());
-        } else {
+        TextTemplate.Source source = TextTemplate.resolve(publicName, category, null, defaultFile, verbose, publicRoot);
+        if (source == null || defaultFile.equals(source.file)) {
             IOUtils.copyFile(defaultFile, result);
-            if (verbose) {
-                Log.info(MessageFormat.format("Using custom package resource {0} (loaded from file {1})",
-                        category == null ? "" : "[" + category + "] ", defaultFile.getAbsoluteFile()));
-            }
-        }
-    }
-
-    private InputStream streamResource(String publicName, String category,
-                                       String defaultName, boolean verbose, File publicRoot) throws IOException {
-        boolean custom = false;
-        InputStream is = null;
-        if (publicName != null) {
-            if (publicRoot != null) {
-                File publicResource = new File(publicRoot, publicName);
-                if (publicResource.exists() && publicResource.isFile()) {
-                    is = new FileInputStream(publicResource);
-                }
-            } else {
-                Path resource = Paths.get("./src/main/resources/com/sun/openjfx/tools/" + publicName);
-                is = Files.newInputStream(resource);
+        } else {
+            try (InputStream is = source.open()) {
+                Files.copy(is, result.toPath());
             }
-            custom = is != null;
-        }
-        if (is == null && defaultName != null) {
-            Path resource = Paths.get("./src/main/resources/com/sun/openjfx/tools/" + defaultName);
-            is = Files.newInputStream(resource);
         }
-        String msg = null;
-        if (custom) {
-            msg = MessageFormat.format("Using custom package resource {0} (loaded from {1})",
-                    category == null ? "" : "[" + category + "] ", publicName);
-        } else if (is != null) {
-            msg = MessageFormat.format("Using default package resource {0} (add {1} to the class path to customize)",
-                    category == null ? "" : "[" + category + "] ", publicName);
-        }
-        if (verbose && is != null) {
-            Log.info(msg);
-        }
-        return is;
     }
 
     protected String preprocessTextResource(String publicName, String category,
                                             String defaultName, Map<String, String> pairs,
                                             boolean verbose, File publicRoot) throws IOException {
-        InputStream inp = streamResource(publicName, category, defaultName, verbose, publicRoot);
-        if (inp == null) {
-            throw new RuntimeException("Jar corrupt? No " + defaultName + " resource!");
-        }
-
-        // read fully into memory
-        ByteArrayOutputStream baos = new ByteArrayOutputStream();
-        byte[] buffer = new byte[1024];
-        int length;
-        while ((length = inp.read(buffer)) != -1) {
-            baos.write(buffer, 0, length);
-        }
+        return TextTemplate.locate(publicName, category, defaultName, verbose, publicRoot).render(pairs);
+    }
 
-        // substitute
-        String result = new String(baos.toByteArray());
-        for (Map.Entry<String, String> e : pairs.entrySet()) {
-            if (e.getValue() != null) {
-                result = result.replace(e.getKey(), e.getValue());
-            }
-        }
-        return result;
+    /**
+     * Writes a text resource with each key of {@code pairs} replaced by its
+     * value, without building the whole text in memory first.
+     */
+    protected void preprocessTextResource(String publicName, String category,
+                                          String defaultName, Map<String, String> pairs,
+                                          boolean verbose, File publicRoot, Writer out) throws IOException {
+        TextTemplate.locate(publicName, category, defaultName, verbose, publicRoot).render(pairs, out);
     }
 
     @Override
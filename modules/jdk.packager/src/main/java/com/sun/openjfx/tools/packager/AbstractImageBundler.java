@@ -54,6 +54,10 @@ public abstract class AbstractImageBundler extends AbstractBundler {
             }
         }
 
+        JLinkBundlerHelper.validateJLinkParams(p);
+        ImageSizeReport.validate(p);
+        LauncherMemory.validate(p);
+
         boolean hasMainJar = MAIN_JAR.fetchFrom(p) != null;
         boolean hasMainModule = MODULE.fetchFrom(p) != null;
         boolean hasMainClass = MAIN_CLASS.fetchFrom(p) != null;
@@ -0,0 +1,232 @@
+/*
+ * Copyright (c) 2015, 2017, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+
+package com.sun.openjfx.tools.packager;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Writes a precompiled copy of a launcher configuration file.  The launcher
+ * maps the binary file and reads the values straight from it instead of
+ * reading and splitting the lines of the INI file on every start.  The binary
+ * file is written next to the INI file with the ".bin" suffix and records the
+ * size of the INI file, the launcher falls back to the INI file if it has been
+ * edited since.
+ * <p>
+ * Only the sections and name/value pairs are stored.  The JVM options keep one
+ * entry per option as in the INI file and paths keep their $APPDIR style
+ * macros, the launcher still expands them at startup because the install
+ * location is not known when the image is built.
+ *
+ * <pre>
+ * header:   "JPCB", version (u32), size of the INI file (u64),
+ *           section count (u32), section table offset (u32)
+ * section:  name offset, name length, entry table offset, entry count (u32)
+ * entry:    key offset, key length, value offset, value length (u32)
+ * strings:  UTF-8
+ * </pre>
+ *
+ * All integers are little endian and all offsets are from the start of the
+ * file.
+ */
+public final class BinaryLauncherConfig {
+
+    public static final String SUFFIX = ".bin";
+
+    static final byte[] MAGIC = {'J', 'P', 'C', 'B'};
+    static final int VERSION = 1;
+    static final int HEADER_SIZE = 24;
+    static final int RECORD_SIZE = 16;
+
+    private static final String SHARED_ARCHIVE_FILE = "-XX:SharedArchiveFile";
+
+    private BinaryLauncherConfig() {}
+
+    public static final BundlerParamInfo<Boolean> BINARY_CONFIG = new StandardBundlerParam<>(
+            "Binary Launcher Configuration",
+            "Write a precompiled copy of the launcher configuration file that the launcher reads at startup.",
+            "launcher.binaryConfig",
+            Boolean.class,
+        p -> Boolean.TRUE,
+        (s, p) -> Boolean.valueOf(s));
+
+    public static File getBinaryFile(File cfgFile) {
+        return new File(cfgFile.getPath() + SUFFIX);
+    }
+
+    /**
+     * Writes the binary copy of the given INI launcher configuration file.
+     * Nothing is written for configuration files in the old property format.
+     */
+    public static void write(File cfgFile) throws IOException {
+        byte[] ini = Files.readAllBytes(cfgFile.toPath());
+        File binaryFile = getBinaryFile(cfgFile);
+        Map<String, List<Map.Entry<String, String>>> sections =
+                parse(Arrays.asList(new String(ini, StandardCharsets.UTF_8).split("\n", -1)));
+
+        binaryFile.delete();
+
+        if (sections != null) {
+            Files.write(binaryFile.toPath(), encode(sections, ini.length));
+        }
+    }
+
+    /**
+     * Splits the lines of an INI file into sections of name/value pairs the
+     * way the launcher does it.  Sections that appear more than once are
+     * merged, names that appear more than once are kept and the launcher
+     * uses the first one.  Returns null if the
+     * lines are not in INI format.
+     */
+    static Map<String, List<Map.Entry<String, String>>> parse(List<String> lines) {
+        Map<String, List<Map.Entry<String, String>>> sections = new LinkedHashMap<>();
+        String sectionName = "";
+        boolean ini = false;
+
+        for (String line : lines) {
+            // The launcher skips empty lines and lines starting with # while
+            // reading and lines starting with ; while parsing the file.
+            if (line.isEmpty() || line.startsWith("#") || line.startsWith(";")) {
+                continue;
+            }
+
+            if (!ini) {
+                if (!line.startsWith("[")) {
+                    return null;
+                }
+                ini = true;
+            }
+
+            if (line.startsWith("[") && line.endsWith("]")) {
+                sectionName = line.substring(1, line.length() - 1);
+            } else if (!sectionName.isEmpty()) {
+                // As in the launcher a section only exists once it has an entry.
+                sections.computeIfAbsent(sectionName, k -> new ArrayList<>()).add(splitOption(line));
+            }
+        }
+
+        return ini ? sections : null;
+    }
+
+    // Splits at the first unescaped '=', the name may contain "\=" and "\\".
+    static Map.Entry<String, String> splitOption(String option) {
+        StringBuilder name = new StringBuilder();
+        String value = "";
+        int index = 0;
+
+        while (index < option.length()) {
+            char c = option.charAt(index);
+
+            if (c == '=') {
+                value = option.substring(index + 1);
+                break;
+            } else if (c == '\\') {
+                if (index + 1 < option.length()) {
+                    char next = option.charAt(index + 1);
+                    if (next == '\\' || next == '=') {
+                        name.append(next);
+                        index++;
+                    }
+                }
+            } else {
+                name.append(c);
+            }
+
+            index++;
+        }
+
+        return new AbstractMap.SimpleImmutableEntry<>(name.toString(), value);
+    }
+
+    static byte[] encode(Map<String, List<Map.Entry<String, String>>> sections, long iniSize) {
+        int entryCount = 0;
+        for (List<Map.Entry<String, String>> entries : sections.values()) {
+            entryCount += entries.size();
+        }
+
+        int sectionTable = HEADER_SIZE;
+        int entryTable = sectionTable + sections.size() * RECORD_SIZE;
+        int stringOffset = entryTable + entryCount * RECORD_SIZE;
+
+        ByteBuffer tables = ByteBuffer.allocate(stringOffset).order(ByteOrder.LITTLE_ENDIAN);
+        ByteArrayOutputStream strings = new ByteArrayOutputStream();
+
+        tables.put(MAGIC);
+        tables.putInt(VERSION);
+        tables.putLong(iniSize);
+        tables.putInt(sections.size());
+        tables.putInt(sectionTable);
+
+        int entry = entryTable;
+
+        for (Map.Entry<String, List<Map.Entry<String, String>>> section : sections.entrySet()) {
+            putString(tables, strings, stringOffset, section.getKey());
+            tables.putInt(entry);
+            tables.putInt(section.getValue().size());
+
+            for (Map.Entry<String, String> option : section.getValue()) {
+                int position = tables.position();
+                tables.position(entry);
+                putString(tables, strings, stringOffset, option.getKey());
+                putString(tables, strings, stringOffset, fixValue(option.getKey(), option.getValue()));
+                tables.position(position);
+                entry += RECORD_SIZE;
+            }
+        }
+
+        byte[] result = Arrays.copyOf(tables.array(), stringOffset + strings.size());
+        System.arraycopy(strings.toByteArray(), 0, result, stringOffset, strings.size());
+        return result;
+    }
+
+    private static void putString(ByteBuffer tables, ByteArrayOutputStream strings, int stringOffset,
+            String value) {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        tables.putInt(stringOffset + strings.size());
+        tables.putInt(bytes.length);
+        strings.write(bytes, 0, bytes.length);
+    }
+
+    // The launcher corrects the path separators of the AppCDS archive only
+    // when it reads the INI file, so store it corrected.
+    private static String fixValue(String name, String value) {
+        if (SHARED_ARCHIVE_FILE.equals(name) && File.separatorChar == '/') {
+            return value.replace('\\', '/');
+        }
+        return value;
+    }
+}
@@ -100,24 +100,17 @@ public class BundlerParamInfo<T> {
         return fetchFrom(params, true);
     }
 
-    @SuppressWarnings("unchecked")
+    /**
+     * Returns the value of the parameter, converted from a string if needed,
+     * or its default value.  The default value is put in the params.  With
+     * {@link ResolvedParams}, the value is resolved once.
+     */
     public final T fetchFrom(Map<String, ? super Object> params, boolean invokeDefault) {
-        Object o = params.get(getID());
-        if (o instanceof String && getStringConverter() != null) {
-            return getStringConverter().apply((String)o, params);
-        }
-
-        Class klass = getValueType();
-        if (klass.isInstance(o)) {
-            return (T) o;
-        }
-        if (o != null) {
-            throw new IllegalArgumentException(
-                    "Param " + getID() + " should be of type " + getValueType() + " but is a " + o.getClass());
+        if (params instanceof ResolvedParams) {
+            return ((ResolvedParams) params).resolve(this, invokeDefault);
         }
         if (params.containsKey(getID())) {
-            // explicit nulls are allowed
-            return null;
+            return convert(params);
         }
 
         if (invokeDefault && (getDefaultValueFunction() != null)) {
@@ -131,4 +124,26 @@ public class BundlerParamInfo<T> {
         // ultimate fallback
         return null;
     }
+
+    /**
+     * Returns the value set in the params, converted from a string if needed.
+     */
+    @SuppressWarnings("unchecked")
+    final T convert(Map<String, ? super Object> params) {
+        Object o = params.get(getID());
+        if (o instanceof String && getStringConverter() != null) {
+            return getStringConverter().apply((String)o, params);
+        }
+
+        Class klass = getValueType();
+        if (klass.isInstance(o)) {
+            return (T) o;
+        }
+        if (o != null) {
+            throw new IllegalArgumentException(
+                    "Param " + getID() + " should be of type " + getValueType() + " but is a " + o.getClass());
+        }
+        // explicit nulls are allowed
+        return null;
+    }
 }
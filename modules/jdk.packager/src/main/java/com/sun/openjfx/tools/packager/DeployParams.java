@@ -66,6 +66,8 @@ public class DeployParams extends CommonParams {
     String limitModules;
     Boolean stripNativeCommands;
     Boolean detectmods;
+    String jlinkProfile;
+    String sharedRuntime;
     String modulePath;
     String module;
     String debugPort;
@@ -177,6 +179,14 @@ public class DeployParams extends CommonParams {
         this.detectmods = value;
     }
 
+    public void setJLinkProfile(String value) {
+        this.jlinkProfile = value;
+    }
+
+    public void setSharedRuntime(String value) {
+        this.sharedRuntime = value;
+    }
+
     public void setDescription(String description) {
         this.description = description;
     }
@@ -264,7 +274,7 @@ public class DeployParams extends CommonParams {
             throw new PackagerException("Error: Missing argument: {0}", "-outdir");
         }
 
-        if (module == null) {
+        if (module == null && bundleType != BundleType.RUNTIME) {
             if (resources.isEmpty()) {
                 // throw new PackagerException("Error: Resources empty");
             }
@@ -435,6 +445,14 @@ public class DeployParams extends CommonParams {
             bundleParams.setDetectMods(detectmods);
         }
 
+        if (jlinkProfile != null && !jlinkProfile.isEmpty()) {
+            bundleParams.setJLinkProfile(jlinkProfile);
+        }
+
+        if (sharedRuntime != null && !sharedRuntime.isEmpty()) {
+            bundleParams.setSharedRuntime(sharedRuntime);
+        }
+
         // check for collisions
         TreeSet<String> keys = new TreeSet<>(bundlerArguments.keySet());
         keys.retainAll(bundleParams.getBundleParamsAsMap().keySet());
@@ -15,6 +15,8 @@ public class Help {
             "          Converts css file into binary form\n" +
             "  -signJar\n" +
             "          Signs jar file(s) with a provided certificate.\n" +
+            "  -verifyJar\n" +
+            "          Verifies the signatures of jar file(s) signed with -signJar.\n" +
             "  -makeall\n" +
             "          Performs compilation and deploy steps as one call with\n" +
             "          most arguments predefined. The sources must be located in \"src\"\n" +
@@ -25,7 +27,7 @@ public class Help {
             "  -native <type>\n" +
             "          generate self-contained application bundles (if possible).\n" +
             "          If type is specified then only bundle of this type is created.\n" +
-            "          List of supported types includes: installer, image, exe, msi, dmg, pkg, rpm, deb.\n" +
+            "          List of supported types includes: installer, image, runtime, exe, msi, dmg, pkg, rpm, deb.\n" +
             "  -name <name>\n" +
             "          name of the application.\n" +
             "  -appclass <application class>\n" +
@@ -53,6 +55,12 @@ public class Help {
             "          limit the universe of observable modules\n" +
             "  --strip-native-commands <true/false>\n" +
             "          include or exclude the native commands\n" +
+            "  --jlink.profile <startup/size>\n" +
+            "          preset of jlink options optimising the runtime image for\n" +
+            "          launch time or for size\n" +
+            "  --shared-runtime <path>\n" +
+            "          location of a shared runtime created with \"-native runtime\"\n" +
+            "          that the application uses instead of a co-bundled runtime\n" +
             "  -singleton\n" +
             "          prevents multiple instances of the application from launching.\n" +
             "  -title <title>\n" +
@@ -88,6 +96,18 @@ public class Help {
             "          Password for recovering the key.\n" +
             "  -storeType\n" +
             "          Keystore type, the default value is \"jks\".\n" +
+            "  -threads <number>\n" +
+            "          Number of jars signed concurrently, the default value is the\n" +
+            "          number of processors.\n" +
+            "  -cacheDir <dir>\n" +
+            "          Directory to keep the signed jars in, so that jars which have not\n" +
+            "          changed are copied instead of signed again by later runs.\n" +
+            "  -format <blob|jar>\n" +
+            "          Signature format, the default value is \"blob\". The jar format\n" +
+            "          is the standard one of jarsigner.\n" +
+            "  -sigFile <name>\n" +
+            "          Name of the signature files of the jar format, up to 8 letters,\n" +
+            "          digits, '_' or '-'. The default value is derived from the alias.\n" +
             "  -outdir <dir>\n" +
             "          name of the directory to generate output file(s) to.\n" +
             "  -srcdir <dir>\n" +
@@ -95,6 +115,15 @@ public class Help {
             "  -srcfiles <files>\n" +
             "          List of files in srcdir. If omitted, all files in srcdir (which\n" +
             "          is a mandatory argument in this case) will be signed.\n" +
+            "Options for verifyJar command include:\n" +
+            "  -threads <number>\n" +
+            "          Number of jars verified concurrently, the default value is the\n" +
+            "          number of processors.\n" +
+            "  -srcdir <dir>\n" +
+            "          Base dir of the files to verify.\n" +
+            "  -srcfiles <files>\n" +
+            "          List of files in srcdir. If omitted, all files in srcdir (which\n" +
+            "          is a mandatory argument in this case) will be verified.\n" +
             "Options for makeAll command include:\n" +
             "  -appclass <application class>\n" +
             "          qualified name of the application class to be executed.\n" +
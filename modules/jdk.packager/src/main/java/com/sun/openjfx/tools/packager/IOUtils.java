@@ -98,6 +98,18 @@ public class IOUtils {
         });
     }
 
+    public static long getDirectorySize(Path directory) throws IOException {
+        long[] size = {0};
+        Files.walkFileTree(directory, new SimpleFileVisitor<>() {
+            @Override
+            public FileVisitResult visitFile(final Path file, final BasicFileAttributes attrs) {
+                size[0] += attrs.size();
+                return FileVisitResult.CONTINUE;
+            }
+        });
+        return size[0];
+    }
+
     public static void copyFromURL(URL location, File file) throws IOException {
         copyFromURL(location, file, false);
     }
@@ -0,0 +1,377 @@
+/*
+ * Copyright (c) 2015, 2017, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+
+package com.sun.openjfx.tools.packager;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.FileSystem;
+import java.nio.file.FileSystems;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.text.MessageFormat;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+/**
+ * Breaks the size of an application image down by module, native library,
+ * jar and resource, compares it against the report of the previous build and
+ * checks it against the configured size budgets.
+ *
+ * The jimage of the runtime ({@code lib/modules}) is attributed to the
+ * modules it contains in proportion to their uncompressed size, so the
+ * entries always add up to the size of the image on disk.
+ */
+public final class ImageSizeReport {
+
+    public static final String MODULE = "module";
+    public static final String NATIVE = "native";
+    public static final String JAR = "jar";
+    public static final String RESOURCE = "resource";
+
+    private static final String BUDGET_WARN = "warn";
+    private static final String BUDGET_FAIL = "fail";
+
+    private static Map<String, String> getBudgetActions() {
+        Map<String, String> map = new LinkedHashMap<>();
+        map.put("Warn", BUDGET_WARN);
+        map.put("Fail", BUDGET_FAIL);
+        return map;
+    }
+
+    public static final BundlerParamInfo<File> IMAGE_SIZE_REPORT = new StandardBundlerParam<>(
+            "Image Size Report",
+            "File the size report of the image is written to.  The report of the previous build in this file is " +
+                    "compared against the new image before it is replaced.",
+            "image.sizeReport",
+            File.class,
+        p -> null,
+        (s, p) -> new File(s));
+
+    public static final BundlerParamInfo<Long> IMAGE_SIZE_BUDGET = new StandardBundlerParam<>(
+            "Image Size Budget",
+            "Maximum size in bytes of the image.",
+            "image.sizeBudget",
+            Long.class,
+        p -> null,
+        (s, p) -> Long.valueOf(s));
+
+    public static final BundlerParamInfo<Long> IMAGE_SIZE_GROWTH_BUDGET = new StandardBundlerParam<>(
+            "Image Size Growth Budget",
+            "Maximum number of bytes the image may grow by compared to the previous size report.",
+            "image.sizeGrowthBudget",
+            Long.class,
+        p -> null,
+        (s, p) -> Long.valueOf(s));
+
+    public static final EnumeratedBundlerParam<String> IMAGE_SIZE_BUDGET_ACTION = new EnumeratedBundlerParam<>(
+            "Image Size Budget Action",
+            "What to do when a size budget is exceeded: \"warn\" logs a warning, \"fail\" fails the bundle.",
+            "image.sizeBudgetAction",
+            String.class,
+        p -> BUDGET_WARN,
+        (s, p) -> s, getBudgetActions());
+
+    // entry key ("category/name") -> {bytes, files}
+    private final Map<String, long[]> entries = new TreeMap<>();
+
+    private ImageSizeReport() {}
+
+    public static ImageSizeReport create(Path imageRoot) throws IOException {
+        ImageSizeReport report = new ImageSizeReport();
+
+        Files.walkFileTree(imageRoot, new SimpleFileVisitor<>() {
+            @Override
+            public FileVisitResult visitFile(final Path file, final BasicFileAttributes attrs) throws IOException {
+                if (attrs.isRegularFile()) {
+                    report.addFile(imageRoot, file, attrs.size());
+                }
+                return FileVisitResult.CONTINUE;
+            }
+        });
+
+        return report;
+    }
+
+    public static ImageSizeReport load(File file) throws IOException {
+        ImageSizeReport report = new ImageSizeReport();
+
+        for (String line : Files.readAllLines(file.toPath(), StandardCharsets.UTF_8)) {
+            int index = line.lastIndexOf('=');
+            int comma = line.lastIndexOf(',');
+
+            if (line.startsWith("#") || index < 0 || comma < index) {
+                continue;
+            }
+
+            report.add(line.substring(0, index), Long.parseLong(line.substring(index + 1, comma)),
+                    Long.parseLong(line.substring(comma + 1)));
+        }
+
+        return report;
+    }
+
+    public void save(File file) throws IOException {
+        List<String> lines = new ArrayList<>();
+        lines.add("# Image size report, <category>/<name>=<bytes>,<files>");
+
+        for (Map.Entry<String, long[]> entry : entries.entrySet()) {
+            lines.add(entry.getKey() + "=" + entry.getValue()[0] + "," + entry.getValue()[1]);
+        }
+
+        Files.write(file.toPath(), lines, StandardCharsets.UTF_8);
+    }
+
+    public Map<String, Long> getSizes() {
+        Map<String, Long> result = new TreeMap<>();
+        entries.forEach((key, value) -> result.put(key, value[0]));
+        return result;
+    }
+
+    public long getSize(String category) {
+        return entries.entrySet().stream()
+                .filter(e -> e.getKey().startsWith(category + "/"))
+                .mapToLong(e -> e.getValue()[0])
+                .sum();
+    }
+
+    public long getTotalSize() {
+        return entries.values().stream().mapToLong(v -> v[0]).sum();
+    }
+
+    public long getFileCount() {
+        return entries.values().stream().mapToLong(v -> v[1]).sum();
+    }
+
+    private void add(String key, long bytes, long files) {
+        long[] value = entries.computeIfAbsent(key, k -> new long[2]);
+        value[0] += bytes;
+        value[1] += files;
+    }
+
+    private void addFile(Path imageRoot, Path file, long size) throws IOException {
+        String relative = imageRoot.relativize(file).toString().replace(File.separatorChar, '/');
+        String name = file.getFileName().toString();
+
+        if (name.equals("modules") && Files.exists(file.resolveSibling("jrt-fs.jar"))) {
+            addModules(file, relative, size);
+        } else if (name.endsWith(".so") || name.endsWith(".dll") || name.endsWith(".dylib") ||
+                name.endsWith(".exe") || Files.isExecutable(file)) {
+            // native libraries and executables
+            add(NATIVE + "/" + relative, size, 1);
+        } else if (name.endsWith(".jar")) {
+            add(JAR + "/" + relative, size, 1);
+        } else {
+            // resources are attributed to their directory, there are too many
+            // of them (legal notices, configuration) to list individually
+            int index = relative.lastIndexOf('/');
+            add(RESOURCE + "/" + (index < 0 ? "." : relative.substring(0, index)), size, 1);
+        }
+    }
+
+    // Attributes the jimage to its modules using the jrt file system of the
+    // runtime image the jimage belongs to.
+    private void addModules(Path jimage, String relative, long size) {
+        Map<String, long[]> modules = new TreeMap<>();
+        Path javaHome = jimage.getParent().getParent();
+
+        try (FileSystem jrt = FileSystems.newFileSystem(URI.create("jrt:/"),
+                Collections.singletonMap("java.home", javaHome.toString()));
+             DirectoryStream<Path> stream = Files.newDirectoryStream(jrt.getPath("/modules"))) {
+            for (Path module : stream) {
+                long[] value = {0, 0};
+                Files.walkFileTree(module, new SimpleFileVisitor<>() {
+                    @Override
+                    public FileVisitResult visitFile(final Path file, final BasicFileAttributes attrs) {
+                        value[0] += attrs.size();
+                        value[1]++;
+                        return FileVisitResult.CONTINUE;
+                    }
+                });
+                modules.put(module.getFileName().toString(), value);
+            }
+        } catch (IOException | RuntimeException e) {
+            Log.verbose(MessageFormat.format("Unable to read the modules of {0}: {1}", javaHome, e.toString()));
+            add(RESOURCE + "/" + relative, size, 1);
+            return;
+        }
+
+        long contentSize = modules.values().stream().mapToLong(v -> v[0]).sum();
+        long remaining = size;
+
+        for (Map.Entry<String, long[]> entry : modules.entrySet()) {
+            long share = contentSize == 0 ? 0 : size * entry.getValue()[0] / contentSize;
+            add(MODULE + "/" + entry.getKey(), share, entry.getValue()[1]);
+            remaining -= share;
+        }
+
+        // rounding remainder and the jimage header
+        add(RESOURCE + "/" + relative, remaining, 1);
+    }
+
+    /**
+     * Reports the size of the image, compares it against the previous report
+     * and checks the size budgets.  The report is only saved if the budgets
+     * are met, so an image over budget never becomes the new baseline, even
+     * when the budget action only warns.
+     */
+    public static void analyze(Map<String, ? super Object> params, Path imageRoot)
+            throws IOException, ConfigException {
+        ImageSizeReport report = create(imageRoot);
+        File reportFile = IMAGE_SIZE_REPORT.fetchFrom(params);
+        ImageSizeReport previous = null;
+
+        if (reportFile != null && reportFile.isFile()) {
+            previous = load(reportFile);
+        }
+
+        Log.info(MessageFormat.format("Image size: {0} bytes in {1} files (modules {2}, native libraries {3}, " +
+                        "jars {4}, resources {5}).", Long.toString(report.getTotalSize()),
+                Long.toString(report.getFileCount()), Long.toString(report.getSize(MODULE)),
+                Long.toString(report.getSize(NATIVE)), Long.toString(report.getSize(JAR)),
+                Long.toString(report.getSize(RESOURCE))));
+        logLargest(report);
+
+        if (previous != null) {
+            logChanges(previous, report);
+        }
+
+        boolean withinBudgets = checkBudgets(params, report, previous);
+
+        if (reportFile != null) {
+            if (withinBudgets) {
+                report.save(reportFile);
+            } else {
+                Log.info(MessageFormat.format("Keeping the previous image size report {0} as the baseline.",
+                        reportFile.getAbsolutePath()));
+            }
+        }
+    }
+
+    private static void logLargest(ImageSizeReport report) {
+        List<Map.Entry<String, Long>> largest = new ArrayList<>(report.getSizes().entrySet());
+        largest.sort(Map.Entry.<String, Long>comparingByValue().reversed());
+
+        for (Map.Entry<String, Long> entry : largest) {
+            Log.verbose(MessageFormat.format("  {0}: {1} bytes", entry.getKey(), Long.toString(entry.getValue())));
+        }
+    }
+
+    private static void logChanges(ImageSizeReport previous, ImageSizeReport report) {
+        Map<String, Long> before = previous.getSizes();
+        Map<String, Long> after = report.getSizes();
+        TreeSet<String> keys = new TreeSet<>(before.keySet());
+        keys.addAll(after.keySet());
+
+        Map<String, Long> deltas = new TreeMap<>();
+        for (String key : keys) {
+            long delta = after.getOrDefault(key, 0L) - before.getOrDefault(key, 0L);
+            if (delta != 0) {
+                deltas.put(key, Math.abs(delta));
+            }
+        }
+        List<String> changed = new ArrayList<>(deltas.keySet());
+        changed.sort(Comparator.comparing(deltas::get, Comparator.reverseOrder()));
+
+        Log.info(MessageFormat.format("Image size changed by {0} bytes since the previous build.",
+                Long.toString(report.getTotalSize() - previous.getTotalSize())));
+
+        for (String key : changed) {
+            Log.verbose(MessageFormat.format("  {0}: {1} -> {2} bytes", key,
+                    before.containsKey(key) ? Long.toString(before.get(key)) : "none",
+                    after.containsKey(key) ? Long.toString(after.get(key)) : "none"));
+        }
+    }
+
+    /**
+     * @return whether the image is within the budgets; if it is not, a
+     *         warning is logged or, with the "fail" action, a ConfigException
+     *         is thrown
+     */
+    static boolean checkBudgets(Map<String, ? super Object> params, ImageSizeReport report,
+                                ImageSizeReport previous) throws ConfigException {
+        List<String> violations = new ArrayList<>();
+        Long budget = IMAGE_SIZE_BUDGET.fetchFrom(params);
+        Long growthBudget = IMAGE_SIZE_GROWTH_BUDGET.fetchFrom(params);
+
+        if (budget != null && report.getTotalSize() > budget) {
+            violations.add(MessageFormat.format("Image size {0} bytes exceeds the budget of {1} bytes.",
+                    Long.toString(report.getTotalSize()), Long.toString(budget)));
+        }
+
+        if (growthBudget != null && previous != null &&
+                report.getTotalSize() - previous.getTotalSize() > growthBudget) {
+            violations.add(MessageFormat.format("Image size grew by {0} bytes, more than the budget of {1} bytes.",
+                    Long.toString(report.getTotalSize() - previous.getTotalSize()), Long.toString(growthBudget)));
+        }
+
+        if (violations.isEmpty()) {
+            return true;
+        }
+
+        if (BUDGET_FAIL.equals(IMAGE_SIZE_BUDGET_ACTION.fetchFrom(params))) {
+            throw new ConfigException(String.join(" ", violations),
+                    "Remove modules or files from the image, or raise " + IMAGE_SIZE_BUDGET.getID() + " or " +
+                            IMAGE_SIZE_GROWTH_BUDGET.getID() + ".");
+        }
+
+        for (String violation : violations) {
+            Log.info("Warning: " + violation);
+        }
+        return false;
+    }
+
+    public static void validate(Map<String, ? super Object> params) throws ConfigException {
+        String action = IMAGE_SIZE_BUDGET_ACTION.fetchFrom(params);
+        if (!BUDGET_WARN.equals(action) && !BUDGET_FAIL.equals(action)) {
+            throw new ConfigException(
+                    MessageFormat.format("Unknown image size budget action \"{0}\".", action),
+                    MessageFormat.format("Use \"{0}\" or \"{1}\".", BUDGET_WARN, BUDGET_FAIL));
+        }
+
+        for (BundlerParamInfo<Long> budget : Arrays.asList(IMAGE_SIZE_BUDGET, IMAGE_SIZE_GROWTH_BUDGET)) {
+            try {
+                budget.fetchFrom(params);
+            } catch (NumberFormatException e) {
+                throw new ConfigException(
+                        MessageFormat.format("Invalid {0} \"{1}\".", budget.getID(), params.get(budget.getID())),
+                        "Specify the budget in bytes.");
+            }
+        }
+    }
+}
@@ -40,6 +40,7 @@ import java.util.LinkedHashMap;
 import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
 import java.util.Properties;
 import java.util.Set;
 
@@ -50,6 +51,9 @@ public final class JLinkBundlerHelper {
     private static final String JRE_MODULES_FILENAME =
             "com/sun/openjfx/tools/jre.list";
 
+    // Size in bytes of the runtime image produced by jlink, set by execute.
+    public static final String RUNTIME_IMAGE_SIZE = ".runtime.image.size";
+
     private JLinkBundlerHelper() {}
 
     public static final BundlerParamInfo<Boolean> DETECT_MODULES = new StandardBundlerParam<>(
@@ -77,6 +81,96 @@ public final class JLinkBundlerHelper {
             }
         });
 
+    private static final String PROFILE_STARTUP = "startup";
+    private static final String PROFILE_SIZE = "size";
+
+    private static final String EXCLUDE_JMOD_SECTION = "exclude-jmod-section";
+    private static final String MAN_PAGES_FILES = "/*/man/**";
+
+    private static Map<String, String> getJLinkProfiles() {
+        Map<String, String> map = new LinkedHashMap<>();
+        map.put("Startup", PROFILE_STARTUP);
+        map.put("Size", PROFILE_SIZE);
+        return map;
+    }
+
+    public static final EnumeratedBundlerParam<String> JLINK_PROFILE = new EnumeratedBundlerParam<>(
+            "JLink Profile",
+            "Preset for the typed JLink options.  \"startup\" favours launch time (uncompressed image, CDS " +
+                    "archive), \"size\" favours a small image (zip compression).  Individual JLink options override " +
+                    "the preset.  If not set only the explicitly specified options are used.",
+            "jlink.profile",
+            String.class,
+        p -> null,
+        (s, p) -> s, getJLinkProfiles());
+
+    public static final BundlerParamInfo<Integer> JLINK_COMPRESS = new StandardBundlerParam<>(
+            "JLink Compression",
+            "Compression level of the runtime image resources: 0 (none), 1 (constant string sharing) or 2 (zip).",
+            "jlink.compress",
+            Integer.class,
+        p -> {
+            String profile = JLINK_PROFILE.fetchFrom(p);
+            if (PROFILE_STARTUP.equals(profile)) {
+                return 0;
+            } else if (PROFILE_SIZE.equals(profile)) {
+                return 2;
+            }
+            return null;
+        },
+        (s, p) -> Integer.valueOf(s));
+
+    public static final BundlerParamInfo<Boolean> JLINK_STRIP_DEBUG = new StandardBundlerParam<>(
+            "JLink Strip Debug",
+            "Strips debug information from the runtime image.",
+            "jlink.stripDebug",
+            Boolean.class,
+        p -> JLINK_PROFILE.fetchFrom(p) != null,
+        (s, p) -> Boolean.valueOf(s));
+
+    public static final BundlerParamInfo<Boolean> JLINK_NO_HEADER_FILES = new StandardBundlerParam<>(
+            "JLink No Header Files",
+            "Excludes the native header files from the runtime image.",
+            "jlink.noHeaderFiles",
+            Boolean.class,
+        p -> JLINK_PROFILE.fetchFrom(p) != null,
+        (s, p) -> Boolean.valueOf(s));
+
+    public static final BundlerParamInfo<Boolean> JLINK_NO_MAN_PAGES = new StandardBundlerParam<>(
+            "JLink No Man Pages",
+            "Excludes the man pages from the runtime image.",
+            "jlink.noManPages",
+            Boolean.class,
+        p -> JLINK_PROFILE.fetchFrom(p) != null,
+        (s, p) -> Boolean.valueOf(s));
+
+    public static final BundlerParamInfo<Boolean> JLINK_GENERATE_CDS_ARCHIVE = new StandardBundlerParam<>(
+            "JLink Generate CDS Archive",
+            "Generates a default CDS archive for the runtime image.  Requires a JLink that provides the " +
+                    "generate-cds-archive plugin (JDK 17 or later), otherwise the option is ignored.",
+            "jlink.generateCdsArchive",
+            Boolean.class,
+        p -> PROFILE_STARTUP.equals(JLINK_PROFILE.fetchFrom(p)),
+        (s, p) -> Boolean.valueOf(s));
+
+    public static final BundlerParamInfo<Boolean> JLINK_DEDUP_LEGAL_NOTICES = new StandardBundlerParam<>(
+            "JLink De-duplicate Legal Notices",
+            "De-duplicates the legal notices of the runtime image.  The JLink used by the packager always " +
+                    "de-duplicates them, so this option cannot be turned off.",
+            "jlink.dedupLegalNotices",
+            Boolean.class,
+        p -> Boolean.TRUE,
+        (s, p) -> Boolean.valueOf(s));
+
+    public static final BundlerParamInfo<String> JLINK_INCLUDE_LOCALES = new StandardBundlerParam<>(
+            "JLink Include Locales",
+            "Comma separated list of locales (language tags) to keep in the runtime image.  Adds the " +
+                    "jdk.localedata module to the image.  If not set all locales of jdk.localedata are kept.",
+            "jlink.includeLocales",
+            String.class,
+        p -> null,
+        (s, p) -> s);
+
     public static final BundlerParamInfo<String> JLINK_BUILDER = new StandardBundlerParam<>(
             "JLink Builder",
             "Name of the JLink Builder to build the application image with.",
@@ -158,7 +252,7 @@ public final class JLinkBundlerHelper {
 
         if (javaBasePath != null && javaBasePath.toFile().exists()) {
             result = RedistributableModules.getModuleVersion(
-                    javaBasePath.toFile(), modulePath, addModules, limitModules);
+                    javaBasePath.resolve("java.base.jmod").toFile(), modulePath, addModules, limitModules);
         }
 
         return result;
@@ -207,11 +301,6 @@ public final class JLinkBundlerHelper {
             throws Exception {
         List<Path> modulePath = StandardBundlerParam.MODULE_PATH.fetchFrom(params);
         Set<String> addModules = StandardBundlerParam.ADD_MODULES.fetchFrom(params);
-        Set<String> limitModules = StandardBundlerParam.LIMIT_MODULES.fetchFrom(params);
-        boolean stripNativeCommands = StandardBundlerParam.STRIP_NATIVE_COMMANDS.fetchFrom(params);
-        Map<String, String> userArguments = JLINK_OPTIONS.fetchFrom(params);
-        Path outputDir = imageBuilder.getRoot();
-        String excludeFileList = imageBuilder.getExcludeFileList();
         File mainJar = getMainJar(params);
         Module.ModuleType mainJarType = Module.ModuleType.Unknown;
 
@@ -242,15 +331,63 @@ public final class JLinkBundlerHelper {
             }
         }
 
+        addRuntimeModules(params, imageBuilder, modulePath, addModules);
+
+        if (imageBuilder.usesSharedRuntime()) {
+            Log.info(MessageFormat.format("Using shared runtime {0} for modules: {1}.",
+                    SharedRuntime.SHARED_RUNTIME.fetchFrom(params), addModules.toString()));
+            SharedRuntime.checkCompatibility(params, addModules);
+        } else {
+            buildRuntimeImage(params, imageBuilder, addModules);
+        }
+
+        imageBuilder.prepareApplicationFiles();
+        ImageSizeReport.analyze(params, imageBuilder.getImageRoot());
+    }
+
+    // Creates a runtime image that is not tied to an application, such as
+    // a shared runtime. Without explicit modules all redistributable
+    // modules are added.
+    public static void executeRuntime(Map<String, ? super Object> params, AbstractAppImageBuilder imageBuilder)
+            throws Exception {
+        List<Path> modulePath = StandardBundlerParam.MODULE_PATH.fetchFrom(params);
+        Set<String> addModules = StandardBundlerParam.ADD_MODULES.fetchFrom(params);
+
+        if (addModules.isEmpty()) {
+            addModules.add(ModuleHelper.ALL_RUNTIME);
+        }
+
+        addRuntimeModules(params, imageBuilder, modulePath, addModules);
+        buildRuntimeImage(params, imageBuilder, addModules);
+        imageBuilder.prepareApplicationFiles();
+        ImageSizeReport.analyze(params, imageBuilder.getImageRoot());
+    }
+
+    private static void addRuntimeModules(Map<String, ? super Object> params, AbstractAppImageBuilder imageBuilder,
+                                          List<Path> modulePath, Set<String> addModules) {
         Set<String> redistModules = getRedistributableModules(
                 modulePath, addModules, JRE_MODULES_FILENAME);
         addModules.addAll(redistModules);
 
+        if (JLINK_INCLUDE_LOCALES.fetchFrom(params) != null) {
+            addModules.add("jdk.localedata");
+        }
+
         if (imageBuilder.getPlatformSpecificModulesFile() != null) {
             Set<String> platformModules = RedistributableModules.getRedistributableModules(
                     modulePath, imageBuilder.getPlatformSpecificModulesFile());
             addModules.addAll(platformModules);
         }
+    }
+
+    private static void buildRuntimeImage(Map<String, ? super Object> params, AbstractAppImageBuilder imageBuilder,
+                                          Set<String> addModules) throws IOException {
+        List<Path> modulePath = StandardBundlerParam.MODULE_PATH.fetchFrom(params);
+        Set<String> limitModules = StandardBundlerParam.LIMIT_MODULES.fetchFrom(params);
+        boolean stripNativeCommands = StandardBundlerParam.STRIP_NATIVE_COMMANDS.fetchFrom(params);
+        Map<String, String> userArguments = getJLinkArguments(params);
+        Path outputDir = imageBuilder.getRoot();
+        String excludeFileList = getExcludeFileList(params, imageBuilder);
 
         Log.info(MessageFormat.format("Adding modules: {0} to runtime image.", addModules.toString()));
 
@@ -275,7 +412,100 @@ public final class JLinkBundlerHelper {
         appRuntimeBuilder.setUserArguments(userArguments);
         appRuntimeBuilder.build();
 
-        imageBuilder.prepareApplicationFiles();
+        long imageSize = IOUtils.getDirectorySize(outputDir);
+        params.put(RUNTIME_IMAGE_SIZE, imageSize);
+        Log.info(MessageFormat.format("JLink profile: {0} {1}, runtime image size: {2} bytes.",
+                Optional.ofNullable(JLINK_PROFILE.fetchFrom(params)).orElse("none"), userArguments,
+                Long.toString(imageSize)));
+    }
+
+    // Translates the typed JLink params into jlink plugin arguments. Explicit
+    // JLINK_OPTIONS take precedence over the typed params and the profile.
+    static Map<String, String> getJLinkArguments(Map<String, ? super Object> params) {
+        Map<String, String> result = new LinkedHashMap<>();
+
+        Integer compress = JLINK_COMPRESS.fetchFrom(params);
+        if (compress != null) {
+            result.put("compress", compress.toString());
+        }
+
+        if (JLINK_STRIP_DEBUG.fetchFrom(params)) {
+            result.put("strip-debug", "on");
+        }
+
+        // the plugin takes a single section, see getExcludeFileList
+        if (JLINK_NO_HEADER_FILES.fetchFrom(params)) {
+            result.put(EXCLUDE_JMOD_SECTION, "headers");
+        } else if (JLINK_NO_MAN_PAGES.fetchFrom(params)) {
+            result.put(EXCLUDE_JMOD_SECTION, "man");
+        }
+
+        String locales = JLINK_INCLUDE_LOCALES.fetchFrom(params);
+        if (locales != null) {
+            result.put("include-locales", locales);
+        }
+
+        if (JLINK_GENERATE_CDS_ARCHIVE.fetchFrom(params)) {
+            if (Runtime.version().feature() >= 17) {
+                result.put("generate-cds-archive", "on");
+            } else {
+                Log.info(MessageFormat.format("The JLink of Java {0} cannot generate a CDS archive, ignoring {1}.",
+                        System.getProperty("java.version"), JLINK_GENERATE_CDS_ARCHIVE.getID()));
+            }
+        }
+
+        if (!JLINK_DEDUP_LEGAL_NOTICES.fetchFrom(params)) {
+            Log.info(MessageFormat.format("JLink always de-duplicates legal notices, ignoring {0}.",
+                    JLINK_DEDUP_LEGAL_NOTICES.getID()));
+        }
+
+        for (Map.Entry<String, String> entry : JLINK_OPTIONS.fetchFrom(params).entrySet()) {
+            String previous = result.put(entry.getKey(), entry.getValue());
+            if (previous != null && !previous.equals(entry.getValue())) {
+                Log.info(MessageFormat.format("JLink option {0}={1} overrides {2}.",
+                        entry.getKey(), entry.getValue(), previous));
+            }
+        }
+
+        return result;
+    }
+
+    // jlink only accepts each plugin once, and AppRuntimeImageBuilder configures
+    // a plugin with a single argument, so exclude-jmod-section cannot exclude
+    // both the headers and the man pages; the man pages are then excluded by path
+    private static String getExcludeFileList(Map<String, ? super Object> params,
+                                             AbstractAppImageBuilder imageBuilder) {
+        String result = imageBuilder.getExcludeFileList();
+        if (JLINK_NO_HEADER_FILES.fetchFrom(params) && JLINK_NO_MAN_PAGES.fetchFrom(params)) {
+            result = result.isEmpty() ? MAN_PAGES_FILES : result + "," + MAN_PAGES_FILES;
+        }
+        return result;
+    }
+
+    public static void validateJLinkParams(Map<String, ? super Object> params) throws ConfigException {
+        String profile = JLINK_PROFILE.fetchFrom(params);
+        if (profile != null && !JLINK_PROFILE.getDisplayableKeys().stream()
+                .map(JLINK_PROFILE::getValueForDisplayableKey)
+                .anyMatch(profile::equals)) {
+            throw new ConfigException(
+                    MessageFormat.format("Unknown JLink profile \"{0}\".", profile),
+                    MessageFormat.format("Use \"{0}\" or \"{1}\".", PROFILE_STARTUP, PROFILE_SIZE));
+        }
+
+        Integer compress;
+        try {
+            compress = JLINK_COMPRESS.fetchFrom(params);
+        } catch (NumberFormatException e) {
+            throw new ConfigException(
+                    MessageFormat.format("Invalid JLink compression level \"{0}\".",
+                            params.get(JLINK_COMPRESS.getID())),
+                    "Use 0 (none), 1 (constant string sharing) or 2 (zip).");
+        }
+        if (compress != null && (compress < 0 || compress > 2)) {
+            throw new ConfigException(
+                    MessageFormat.format("Invalid JLink compression level {0}.", compress.toString()),
+                    "Use 0 (none), 1 (constant string sharing) or 2 (zip).");
+        }
     }
 
     // Returns the path to the JDK modules in the user defined module path.
@@ -25,22 +25,43 @@
 
 package com.sun.openjfx.tools.packager;
 
+import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.UncheckedIOException;
 import java.math.BigInteger;
+import java.nio.channels.FileChannel;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.security.CodeSigner;
+import java.security.GeneralSecurityException;
 import java.security.InvalidKeyException;
+import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
 import java.security.Principal;
 import java.security.PrivateKey;
 import java.security.PublicKey;
 import java.security.Signature;
 import java.security.SignatureException;
+import java.security.cert.CertificateException;
+import java.security.cert.CertificateFactory;
 import java.security.cert.X509Certificate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
 import java.util.Locale;
+import java.util.Map;
+import java.util.jar.Attributes;
 import java.util.jar.JarFile;
+import java.util.jar.Manifest;
 import java.util.zip.ZipEntry;
+import java.util.zip.ZipException;
+import java.util.zip.ZipFile;
 import java.util.zip.ZipInputStream;
 import java.util.zip.ZipOutputStream;
 
@@ -52,7 +73,7 @@ import sun.security.x509.X500Name;
 
 /**
  * This class is an abstraction of signature that is currently used
- * for implementation of jar signing as BLOBs.
+ * for implementation of jar signing as BLOBs, and of standard jar signing.
  *
  * There are 2 modes of use for this class - signing and validation
  * and same instance of JarSignature object can not be reused.
@@ -62,10 +83,13 @@ import sun.security.x509.X500Name;
  *   - add entries you want to include into the signature using
  *      updateWithEntry(). (Note the order is important.)
  *   - use getEncoded() to get bytes for the result signature
+ *   or sign a whole jar with signJarAsBLOB(), or the standard way with
+ *   signJar()
  *
  * Validation mode:
  *   - create new instance using JarSignature.load()
  *   - add entries using updateWithEntry()
+ *   or load the signature of a whole jar with JarSignature.load(File)
  *   - use isValid() to validate result
  *   - use getCodeSigners() to get list of code signers used
  */
@@ -75,6 +99,7 @@ public class JarSignature {
     private final Signature sig;
     private final X509Certificate[] certChain; // for singing scenarios only
     private final SignerInfo[] signerInfos;    // for validation only
+    private final List<X509Certificate> signerChain; // for validation only
 
     /**
      * Loads jar signature from given byte array.
@@ -89,11 +114,75 @@ public class JarSignature {
                     "BLOB signature currently only support single signer.");
         }
         X509Certificate cert = infos[0].getCertificate(pkcs7);
+        if (cert == null) {
+            throw new IllegalArgumentException("BLOB signature has no certificate for its signer.");
+        }
         PublicKey publicKey = cert.getPublicKey();
         Signature sig = getSignature(infos[0]);
         sig.initVerify(publicKey);
 
-        return new JarSignature(sig, infos);
+        return new JarSignature(sig, infos, infos[0].getCertificateChain(pkcs7));
+    }
+
+    /**
+     * Loads the BLOB signature of the jar and updates it with the entries of
+     * the jar, in a single pass.  Use isValid() to validate the result.
+     *
+     * @return the signature, or {@code null} if the jar is not signed as a BLOB
+     */
+    public static JarSignature load(File jar) throws
+            IOException, NoSuchAlgorithmException, InvalidKeyException, SignatureException {
+        try (FileChannel in = FileChannel.open(jar.toPath(), StandardOpenOption.READ)) {
+            RawZipFile zip = RawZipFile.open(in);
+            if (zip == null) {
+                return loadFromStream(jar);
+            }
+
+            JarSignature signature = null;
+            for (RawZipFile.Entry e : zip.getEntries()) {
+                if (BLOB_SIGNATURE.equals(e.getName())) {
+                    try (InputStream is = zip.getInputStream(e)) {
+                        signature = load(is.readAllBytes());
+                    }
+                }
+            }
+            if (signature == null) {
+                return null;
+            }
+
+            for (RawZipFile.Entry e : zip.getEntries()) {
+                if (!BLOB_SIGNATURE.equals(e.getName()) && !e.isDirectory()) {
+                    try (InputStream is = zip.getInputStream(e)) {
+                        signature.updateWithZipEntry(e.getName(), is);
+                    }
+                }
+            }
+            return signature;
+        }
+    }
+
+    private static JarSignature loadFromStream(File jar) throws
+            IOException, NoSuchAlgorithmException, InvalidKeyException, SignatureException {
+        JarSignature signature;
+        try (ZipFile zip = new ZipFile(jar)) {
+            ZipEntry e = zip.getEntry(BLOB_SIGNATURE);
+            if (e == null) {
+                return null;
+            }
+            try (InputStream is = zip.getInputStream(e)) {
+                signature = load(is.readAllBytes());
+            }
+        }
+
+        try (ZipInputStream jis = new ZipInputStream(new FileInputStream(jar))) {
+            ZipEntry e;
+            while ((e = jis.getNextEntry()) != null) {
+                if (!BLOB_SIGNATURE.equals(e.getName()) && !e.getName().endsWith("/")) {
+                    signature.updateWithZipEntry(e.getName(), jis);
+                }
+            }
+        }
+        return signature;
     }
 
     /**
@@ -108,15 +197,29 @@ public class JarSignature {
         return new JarSignature(signature, chain);
     }
 
+    /**
+     * Creates new signature for signing jars the standard way with
+     * signJar().  SHA-256 is used with all key algorithms, like jarsigner
+     * does, since jars signed with SHA-1 are treated as unsigned.
+     */
+    public static JarSignature createForJar(PrivateKey privateKey, X509Certificate[] chain)
+            throws NoSuchAlgorithmException, InvalidKeyException {
+        Signature signature = Signature.getInstance(makeSigAlg("SHA-256", privateKey.getAlgorithm()));
+        signature.initSign(privateKey);
+        return new JarSignature(signature, chain);
+    }
+
     private JarSignature(Signature signature, X509Certificate[] chain) {
         certChain = chain;
         signerInfos = null;
+        signerChain = null;
         sig = signature;
     }
 
-    private JarSignature(Signature signature, SignerInfo[] infos) {
+    private JarSignature(Signature signature, SignerInfo[] infos, List<X509Certificate> chain) {
         certChain = null;
         signerInfos = infos;
+        signerChain = chain;
         sig = signature;
     }
 
@@ -228,52 +331,26 @@ public class JarSignature {
         return bos.toByteArray();
     }
 
-    private class ValidationStream extends InputStream {
-        InputStream dataStream;
-
-        public ValidationStream(InputStream is) {
-            dataStream = is;
-        }
-
-        public int read() throws IOException {
-            int v = dataStream.read();
-            if (v > -1) {
-                try {
-                    JarSignature.this.sig.update((byte) v);
-                } catch (SignatureException ex) {
-                    throw new RuntimeException(ex);
-                }
-            }
-            return v;
-        }
-
-        public int read(byte[] b, int off, int len) throws IOException {
-            len = dataStream.read(b, off, len);
-            if (len > 0) {
-                try {
-                    JarSignature.this.sig.update(b, off, len);
-                } catch (SignatureException ex) {
-                    throw new RuntimeException(ex);
-                }
-            }
-            return len;
-        }
-
-        public void close() throws IOException {
-            dataStream.close();
-        }
-    }
-
     /**
-     * Performs partial validation of zip/jar entry with given name and
-     * data stream. Return wrapped version of input stream to complete validation.
-     * Stream need to be read fully for validation to be complete.
+     * Updates the signature with the zip/jar entry of given name, reading
+     * its data stream fully.
      *
      * @throws SignatureException
      */
-    private InputStream updateWithZipEntry(String name, InputStream is) throws SignatureException {
+    private void updateWithZipEntry(String name, InputStream is) throws IOException, SignatureException {
         sig.update(name.getBytes(StandardCharsets.UTF_8));
-        return new ValidationStream(is);
+        byte[] buf = new byte[RawZipFile.BUFFER_SIZE];
+        int n;
+        while ((n = is.read(buf)) != -1) {
+            sig.update(buf, 0, n);
+        }
+    }
+
+    /**
+     * Returns the name of the signature algorithm, such as SHA256withRSA.
+     */
+    public String getAlgorithm() {
+        return sig.getAlgorithm();
     }
 
     public void update(byte[] v) throws SignatureException {
@@ -288,13 +365,94 @@ public class JarSignature {
         }
     }
 
+    /**
+     * Returns the signer of the signature, with its certificate chain.
+     * Whether the signer is trusted is up to the caller.
+     * @throws UnsupportedOperationException if called in signing mode.
+     */
+    public CodeSigner[] getCodeSigners() throws CertificateException {
+        if (!isValidationMode()) {
+            throw new UnsupportedOperationException("Method is only for validation mode.");
+        }
+
+        CertificateFactory factory = CertificateFactory.getInstance("X.509");
+        return new CodeSigner[] {new CodeSigner(factory.generateCertPath(signerChain), null)};
+    }
+
     public interface InputStreamSource {
         InputStream getInputStream() throws IOException;
     }
 
+    /**
+     * Signs the jar as a BLOB.
+     *
+     * The signature is computed from the uncompressed entries in a single
+     * pass, and the entries are then copied to the signed jar with their
+     * compressed data as is.  Jars that can not be read through their central
+     * directory, such as zip64 jars, are processed as a stream.
+     */
+    public void signJarAsBLOB(File jar, File signedJar)
+            throws IOException, SignatureException, NoSuchAlgorithmException {
+        try (FileChannel in = FileChannel.open(jar.toPath(), StandardOpenOption.READ)) {
+            RawZipFile zip = RawZipFile.open(in);
+            if (zip == null) {
+                signJarAsBLOB(() -> new FileInputStream(jar), new ZipOutputStream(new FileOutputStream(signedJar)));
+                return;
+            }
+
+            // consider all entries except directories and old signature file (if any)
+            boolean hasManifest = false;
+            boolean hasMetaInf = false;
+            for (RawZipFile.Entry e : zip.getEntries()) {
+                String upperName = e.getName().toUpperCase(Locale.ENGLISH);
+                if (JarFile.MANIFEST_NAME.equals(upperName)) {
+                    hasManifest = true;
+                }
+                if ("META-INF/".equals(upperName)) {
+                    hasMetaInf = true;
+                }
+                if (!BLOB_SIGNATURE.equals(e.getName()) && !e.isDirectory()) {
+                    try (InputStream is = zip.getInputStream(e)) {
+                        updateWithZipEntry(e.getName(), is);
+                    }
+                }
+            }
+
+            byte[] signature = getEncoded();
+
+            try (RawZipFile.Writer out = new RawZipFile.Writer(FileChannel.open(signedJar.toPath(),
+                    StandardOpenOption.WRITE, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING))) {
+                for (RawZipFile.Entry e : zip.getEntries()) {
+                    // special case - jar has no manifest and possibly no META-INF
+                    // => add META-INF entry once
+                    // Then output manifest
+                    if (!hasMetaInf) {
+                        out.addStored("META-INF/", new byte[0]);
+                        hasMetaInf = true;
+                    }
+                    if (!hasManifest) {
+                        out.addStored(BLOB_SIGNATURE, signature);
+                        hasManifest = true;
+                    }
+
+                    // copy entry unless it is old signature file
+                    if (!BLOB_SIGNATURE.equals(e.getName())) {
+                        out.copy(zip, e);
+                    }
+
+                    // output signature after manifest
+                    if (JarFile.MANIFEST_NAME.equals(e.getName().toUpperCase(Locale.ENGLISH))) {
+                        out.addStored(BLOB_SIGNATURE, signature);
+                    }
+                }
+                out.finish(zip);
+            }
+        }
+    }
+
     public void signJarAsBLOB(InputStreamSource input, ZipOutputStream jos)
             throws IOException, SignatureException, NoSuchAlgorithmException {
-        byte[] copyBuf = new byte[8000];
+        byte[] copyBuf = new byte[RawZipFile.BUFFER_SIZE];
         int n;
         ZipEntry e;
         ZipInputStream jis = new ZipInputStream(input.getInputStream());
@@ -313,7 +471,7 @@ public class JarSignature {
                 }
                 if (!BLOB_SIGNATURE.equals(e.getName()) &&
                     !e.getName().endsWith("/")) {
-                    readFully(updateWithZipEntry(e.getName(), jis));
+                    updateWithZipEntry(e.getName(), jis);
                 }
             }
 
@@ -388,9 +546,225 @@ public class JarSignature {
         jos.closeEntry();
     }
 
-    private static void readFully(InputStream is) throws IOException {
-        byte[] buf = new byte[10000];
-        while (is.read(buf) != -1) {
+    /**
+     * Signs the jar the standard way, with a signature created by
+     * createForJar(): the SHA-256 digests of the entries go to the manifest,
+     * the digests of the manifest to META-INF/NAME.SF and the signature of
+     * that file to META-INF/NAME.RSA, .DSA or .EC.
+     * Earlier signatures of the jar are replaced.
+     *
+     * The digests of the entries are computed concurrently.  If
+     * {@code previous} is the jar signed before by this method with the same
+     * certificate and signature name, the digests of its entries which have
+     * the same name, size and CRC are reused, so that only the changed
+     * entries are read.
+     *
+     * @param signatureName the name of the signature files, see
+     *        {@link #toSignatureFileName(String)}
+     * @param previous an earlier signed version of the jar, or {@code null}
+     * @throws ZipException if the jar can not be read through its central
+     *         directory, such as a zip64 jar
+     */
+    public void signJar(File jar, File signedJar, String signatureName, File previous)
+            throws IOException, SignatureException, NoSuchAlgorithmException {
+        if (isValidationMode()) {
+            throw new UnsupportedOperationException("Method is not for validation mode.");
+        }
+
+        try (FileChannel in = FileChannel.open(jar.toPath(), StandardOpenOption.READ)) {
+            RawZipFile zip = RawZipFile.open(in);
+            if (zip == null) {
+                throw new ZipException("Jar file not supported for signing: " + jar);
+            }
+
+            Manifest manifest = null;
+            RawZipFile.Entry metaInf = null;
+            List<RawZipFile.Entry> entries = new ArrayList<>();
+            for (RawZipFile.Entry e : zip.getEntries()) {
+                String upperName = e.getName().toUpperCase(Locale.ENGLISH);
+                if (JarFile.MANIFEST_NAME.equals(upperName)) {
+                    try (InputStream is = zip.getInputStream(e)) {
+                        manifest = new Manifest(is);
+                    }
+                } else if ("META-INF/".equals(upperName)) {
+                    metaInf = e;
+                } else if (!isSigningRelated(upperName)) {
+                    entries.add(e);
+                }
+            }
+
+            Map<String, String> previousDigests = Collections.emptyMap();
+            if (previous != null && previous.isFile()) {
+                previousDigests = loadDigests(previous, signatureName);
+            }
+            String[] digests = computeDigests(zip, entries, previousDigests);
+
+            SignedManifest signedManifest = new SignedManifest(manifest);
+            for (int i = 0; i < digests.length; i++) {
+                if (digests[i] != null) {
+                    signedManifest.addEntry(entries.get(i).getName(), digests[i]);
+                }
+            }
+            byte[] manifestBytes = signedManifest.getManifest();
+            byte[] signatureFile = signedManifest.getSignatureFile(
+                    System.getProperty("java.version") + " (" + System.getProperty("java.vendor") + ")");
+            sig.update(signatureFile);
+            byte[] block = getEncoded();
+
+            try (RawZipFile.Writer out = new RawZipFile.Writer(FileChannel.open(signedJar.toPath(),
+                    StandardOpenOption.WRITE, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING))) {
+                if (metaInf != null) {
+                    out.copy(zip, metaInf);
+                } else {
+                    out.addStored("META-INF/", new byte[0]);
+                }
+                out.addDeflated(JarFile.MANIFEST_NAME, manifestBytes);
+                out.addDeflated("META-INF/" + signatureName + ".SF", signatureFile);
+                out.addStored("META-INF/" + signatureName + "." + getEncAlgFromSigAlg(sig.getAlgorithm()), block);
+                for (RawZipFile.Entry e : entries) {
+                    out.copy(zip, e);
+                }
+                out.finish(zip);
+            }
+        }
+    }
+
+    /**
+     * Returns the name of the signature files for the key alias, as jarsigner
+     * derives it: the first 8 characters in upper case, with characters other
+     * than letters, digits, '_' and '-' replaced by '_'.
+     */
+    public static String toSignatureFileName(String alias) {
+        StringBuilder name = new StringBuilder();
+        String upper = alias.toUpperCase(Locale.ENGLISH);
+        for (int i = 0; i < upper.length() && name.length() < 8; i++) {
+            char c = upper.charAt(i);
+            boolean valid = c >= 'A' && c <= 'Z' || c >= '0' && c <= '9' || c == '_' || c == '-';
+            name.append(valid ? c : '_');
+        }
+        return name.toString();
+    }
+
+    /**
+     * Whether the entry, with its name in upper case, is the manifest or a
+     * signature file, which are not digested themselves.
+     */
+    static boolean isSigningRelated(String upperName) {
+        if (JarFile.MANIFEST_NAME.equals(upperName) || BLOB_SIGNATURE.equals(upperName)) {
+            return true;
+        }
+        if (!upperName.startsWith("META-INF/") || upperName.indexOf('/', "META-INF/".length()) >= 0) {
+            return false;
+        }
+        return upperName.endsWith(".SF") || upperName.endsWith(".RSA") || upperName.endsWith(".DSA") ||
+                upperName.endsWith(".EC") || upperName.startsWith("META-INF/SIG-");
+    }
+
+    // entries of the previous jar are matched by name, CRC and size
+    private static String previousKey(RawZipFile.Entry e) {
+        return e.getName() + '\n' + e.getCrc() + '\n' + e.getSize();
+    }
+
+    /**
+     * Returns the digests of the entries of a jar signed before, if its
+     * signature is valid and made with our certificate.
+     */
+    private Map<String, String> loadDigests(File previous, String signatureName)
+            throws IOException, NoSuchAlgorithmException {
+        try (FileChannel in = FileChannel.open(previous.toPath(), StandardOpenOption.READ)) {
+            RawZipFile zip = RawZipFile.open(in);
+            if (zip == null) {
+                return Collections.emptyMap();
+            }
+
+            byte[] manifest = null;
+            byte[] signatureFile = null;
+            byte[] block = null;
+            String prefix = "META-INF/" + signatureName + ".";
+            for (RawZipFile.Entry e : zip.getEntries()) {
+                String upperName = e.getName().toUpperCase(Locale.ENGLISH);
+                if (JarFile.MANIFEST_NAME.equals(upperName)) {
+                    manifest = readAll(zip, e);
+                } else if ((prefix + "SF").equals(upperName)) {
+                    signatureFile = readAll(zip, e);
+                } else if (upperName.startsWith(prefix) && isSigningRelated(upperName)) {
+                    block = readAll(zip, e);
+                }
+            }
+            if (manifest == null || signatureFile == null || block == null || !isSignedByUs(signatureFile, block)) {
+                return Collections.emptyMap();
+            }
+
+            String manifestDigest = new Manifest(new ByteArrayInputStream(signatureFile)).getMainAttributes()
+                    .getValue(SignedManifest.DIGEST_ATTRIBUTE + "-Manifest");
+            byte[] actualDigest = MessageDigest.getInstance(SignedManifest.DIGEST).digest(manifest);
+            if (!SignedManifest.encode(actualDigest).equals(manifestDigest)) {
+                return Collections.emptyMap();
+            }
+
+            Manifest signedManifest = new Manifest(new ByteArrayInputStream(manifest));
+            Map<String, String> digests = new HashMap<>();
+            for (RawZipFile.Entry e : zip.getEntries()) {
+                Attributes attributes = signedManifest.getAttributes(e.getName());
+                String digest = attributes != null ? attributes.getValue(SignedManifest.DIGEST_ATTRIBUTE) : null;
+                if (digest != null) {
+                    digests.put(previousKey(e), digest);
+                }
+            }
+            return digests;
+        }
+    }
+
+    // the signature block is checked the same way as a BLOB signature, its
+    // signer signs the signature file directly, with no signed attributes
+    private boolean isSignedByUs(byte[] signatureFile, byte[] block) {
+        try {
+            JarSignature signature = load(block);
+            signature.update(signatureFile);
+            return signature.isValid() && certChain[0].equals(signature.signerChain.get(0));
+        } catch (IOException | GeneralSecurityException | IllegalArgumentException ignore) {
+            return false;
+        }
+    }
+
+    private static byte[] readAll(RawZipFile zip, RawZipFile.Entry entry) throws IOException {
+        try (InputStream is = zip.getInputStream(entry)) {
+            return is.readAllBytes();
+        }
+    }
+
+    /**
+     * Returns the base64 encoded digests of the entries, in their order, or
+     * {@code null} for directories.
+     */
+    private static String[] computeDigests(RawZipFile zip, List<RawZipFile.Entry> entries,
+            Map<String, String> previousDigests) throws IOException {
+        try {
+            return entries.parallelStream().map(e -> {
+                if (e.isDirectory()) {
+                    return null;
+                }
+                String digest = previousDigests.get(previousKey(e));
+                return digest != null ? digest : digest(zip, e);
+            }).toArray(String[]::new);
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    private static String digest(RawZipFile zip, RawZipFile.Entry entry) {
+        try (InputStream is = zip.getInputStream(entry)) {
+            MessageDigest md = MessageDigest.getInstance(SignedManifest.DIGEST);
+            byte[] buf = new byte[(int) Math.min(RawZipFile.BUFFER_SIZE, entry.getSize() + 1)];
+            int n;
+            while ((n = is.read(buf)) != -1) {
+                md.update(buf, 0, n);
+            }
+            return SignedManifest.encode(md.digest());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
         }
     }
 
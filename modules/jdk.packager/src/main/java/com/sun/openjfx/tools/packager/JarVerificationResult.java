@@ -0,0 +1,129 @@
+/*
+ * Copyright (c) 2015, 2017, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+
+package com.sun.openjfx.tools.packager;
+
+import java.io.File;
+import java.security.CodeSigner;
+import java.security.cert.Certificate;
+import java.security.cert.X509Certificate;
+import java.text.MessageFormat;
+import java.util.List;
+
+/**
+ * The result of verifying the BLOB signature of a jar.
+ */
+public final class JarVerificationResult {
+
+    public enum Status {
+        /** The signature matches the content of the jar. */
+        VALID,
+        /**
+         * The signature does not match the content of the jar, or not all
+         * its entries are signed by the same signers.
+         */
+        INVALID,
+        /** The jar has no BLOB signature. */
+        UNSIGNED,
+        /** The jar or its signature could not be read. */
+        ERROR
+    }
+
+    private final File jar;
+    private final Status status;
+    private final CodeSigner[] codeSigners;
+    private final Exception error;
+    private final long millis;
+
+    JarVerificationResult(File jar, Status status, CodeSigner[] codeSigners, Exception error, long millis) {
+        this.jar = jar;
+        this.status = status;
+        this.codeSigners = codeSigners;
+        this.error = error;
+        this.millis = millis;
+    }
+
+    public File getJar() {
+        return jar;
+    }
+
+    public Status getStatus() {
+        return status;
+    }
+
+    public boolean isValid() {
+        return status == Status.VALID;
+    }
+
+    /**
+     * The signers of the jar, if it is signed.  Whether they are trusted is
+     * up to the caller.
+     */
+    public CodeSigner[] getCodeSigners() {
+        return codeSigners == null ? new CodeSigner[0] : codeSigners.clone();
+    }
+
+    /**
+     * The reason the jar could not be verified, if its status is
+     * {@link Status#ERROR}.
+     */
+    public Exception getError() {
+        return error;
+    }
+
+    /**
+     * The time the verification took, in milliseconds.
+     */
+    public long getMillis() {
+        return millis;
+    }
+
+    private String getSigner() {
+        if (codeSigners == null || codeSigners.length == 0) {
+            return "";
+        }
+        List<? extends Certificate> chain = codeSigners[0].getSignerCertPath().getCertificates();
+        if (chain.isEmpty() || !(chain.get(0) instanceof X509Certificate)) {
+            return "";
+        }
+        return ((X509Certificate) chain.get(0)).getSubjectX500Principal().getName();
+    }
+
+    @Override
+    public String toString() {
+        switch (status) {
+            case VALID:
+                return MessageFormat.format("{0}: verified, signed by {1} ({2} ms)", jar.getPath(), getSigner(),
+                        millis);
+            case INVALID:
+                return MessageFormat.format("{0}: invalid signature of {1} ({2} ms)", jar.getPath(), getSigner(),
+                        millis);
+            case UNSIGNED:
+                return MessageFormat.format("{0}: not signed", jar.getPath());
+            default:
+                return MessageFormat.format("{0}: could not be verified: {1}", jar.getPath(), error);
+        }
+    }
+}
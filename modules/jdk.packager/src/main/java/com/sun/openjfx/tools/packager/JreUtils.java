@@ -26,34 +26,67 @@
 package com.sun.openjfx.tools.packager;
 
 import java.io.File;
-import java.util.HashSet;
+import java.io.IOException;
+import java.nio.file.FileVisitOption;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayDeque;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.EnumSet;
+import java.util.LinkedHashSet;
 import java.util.Set;
+import java.util.regex.Pattern;
 
 public class JreUtils {
 
     public static class Rule {
-        String regex;
-        boolean includeRule;
-        Type type;
+        final String regex;
+        final boolean includeRule;
+        final Type type;
+        // compiled once, for REGEX rules only
+        private final Pattern pattern;
         enum Type { SUFFIX, PREFIX, SUBSTR, REGEX }
 
         private Rule(String regex, boolean includeRule, Type type) {
             this.regex = regex;
             this.type = type;
             this.includeRule = includeRule;
+            this.pattern = type == Type.REGEX ? Pattern.compile(regex) : null;
         }
 
-        boolean match(String str) {
+        boolean match(CharSequence str) {
             if (type == Type.SUFFIX) {
-                return str.endsWith(regex);
+                return regionMatches(str, str.length() - regex.length());
             }
             if (type == Type.PREFIX) {
-                return str.startsWith(regex);
+                return regionMatches(str, 0);
             }
             if (type == Type.SUBSTR) {
-                return str.contains(regex);
+                for (int i = 0, last = str.length() - regex.length(); i <= last; i++) {
+                    if (regionMatches(str, i)) {
+                        return true;
+                    }
+                }
+                return false;
             }
-            return str.matches(regex);
+            return pattern.matcher(str).matches();
+        }
+
+        private boolean regionMatches(CharSequence str, int offset) {
+            if (offset < 0 || offset + regex.length() > str.length()) {
+                return false;
+            }
+            for (int i = 0; i < regex.length(); i++) {
+                if (str.charAt(offset + i) != regex.charAt(i)) {
+                    return false;
+                }
+            }
+            return true;
         }
 
         boolean treatAsAccept() {
@@ -81,13 +114,15 @@ public class JreUtils {
         }
     }
 
-    private static boolean shouldExclude(File baseDir, File f, Rule[] ruleset) {
+    /**
+     * @param fname the lower case path relative to the base directory,
+     *        starting with a separator
+     */
+    private static boolean shouldExclude(CharSequence fname, Rule[] ruleset) {
         if (ruleset == null) {
             return false;
         }
 
-        String fname = f.getAbsolutePath().toLowerCase().substring(
-                baseDir.getAbsolutePath().length());
         // first rule match defines the answer
         for (Rule r : ruleset) {
             if (r.match(fname)) {
@@ -98,26 +133,79 @@ public class JreUtils {
         return false;
     }
 
-    private static void walk(File base, File root, Rule[] ruleset, Set<File> files, boolean acceptSymlinks) {
-        if (!root.isDirectory()) {
-            if (root.isFile()) {
-                files.add(root);
+    /**
+     * Collects the files under a directory which are not excluded by the
+     * rules.  The relative path of the current directory is kept in a
+     * buffer as the tree is walked, in its own case for the file set and in
+     * lower case for the rules, so nothing is built per file but its name.
+     */
+    private static final class Walker extends SimpleFileVisitor<Path> {
+
+        private final Rule[] ruleset;
+        private final Set<String> files;
+        private final StringBuilder path = new StringBuilder();
+        private final StringBuilder lowerPath = new StringBuilder();
+        private final Deque<int[]> lengths = new ArrayDeque<>();
+        private Path root;
+
+        Walker(Rule[] ruleset, Set<String> files) {
+            this.ruleset = ruleset;
+            this.files = files;
+        }
+
+        // appends the name and returns false if the rules exclude it
+        private boolean enter(Path file) {
+            lengths.push(new int[] {path.length(), lowerPath.length()});
+            String name = file.getFileName().toString();
+            path.append(File.separatorChar).append(name);
+            lowerPath.append(File.separatorChar).append(name.toLowerCase());
+            return !shouldExclude(lowerPath, ruleset);
+        }
+
+        private void leave() {
+            int[] length = lengths.pop();
+            path.setLength(length[0]);
+            lowerPath.setLength(length[1]);
+        }
+
+        @Override
+        public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) {
+            if (root == null) {
+                root = dir;
+                return FileVisitResult.CONTINUE;
             }
-            return;
-        }
-
-        File[] lst = root.listFiles();
-        if (lst != null) {
-            for (File f : lst) {
-                if ((acceptSymlinks || IOUtils.isNotSymbolicLink(f)) && !shouldExclude(base, f, ruleset)) {
-                    if (f.isDirectory()) {
-                        walk(base, f, ruleset, files, acceptSymlinks);
-                    } else if (f.isFile()) {
-                        // add to list
-                        files.add(f);
-                    }
+            if (enter(dir)) {
+                return FileVisitResult.CONTINUE;
+            }
+            leave();
+            return FileVisitResult.SKIP_SUBTREE;
+        }
+
+        @Override
+        public FileVisitResult postVisitDirectory(Path dir, IOException e) {
+            if (!dir.equals(root)) {
+                leave();
+            }
+            return FileVisitResult.CONTINUE;
+        }
+
+        @Override
+        public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) {
+            // symbolic links are only regular files when they are followed
+            if (attrs.isRegularFile()) {
+                if (enter(file)) {
+                    // relative path, without the leading separator
+                    files.add(path.substring(1));
                 }
+                leave();
             }
+            return FileVisitResult.CONTINUE;
+        }
+
+        @Override
+        public FileVisitResult visitFileFailed(Path file, IOException e) {
+            // unreadable files and cycles of symbolic links are left out
+            return FileVisitResult.CONTINUE;
         }
     }
 
@@ -131,10 +219,58 @@ public class JreUtils {
             return null;
         }
 
+        // the runtime is only walked when its files are needed, validation only probes a few of them
         File baseDir = new File(root);
-        Set<File> lst = new HashSet<>();
-        walk(baseDir, baseDir, ruleset, lst, acceptSymlinks);
-        return new RelativeFileSet(baseDir, lst);
+        return RelativeFileSet.lazy(baseDir,
+            () -> listFiles(baseDir, ruleset, acceptSymlinks),
+            fname -> isIncluded(baseDir, fname, ruleset, acceptSymlinks));
+    }
+
+    private static Set<String> listFiles(File baseDir, Rule[] ruleset, boolean acceptSymlinks) {
+        Set<String> lst = new LinkedHashSet<>();
+        if (baseDir.isDirectory()) {
+            try {
+                // the base directory itself may be a link, even if links below it are not followed
+                Files.walkFileTree(baseDir.toPath().toRealPath(),
+                        acceptSymlinks ? EnumSet.of(FileVisitOption.FOLLOW_LINKS) :
+                                Collections.emptySet(),
+                        Integer.MAX_VALUE, new Walker(ruleset, lst));
+            } catch (IOException e) {
+                Log.debug(e);
+            }
+        }
+        return lst;
+    }
+
+    /**
+     * Tells whether {@link #listFiles} would list a file, by checking the file
+     * and the directories leading to it rather than walking the tree.
+     */
+    private static boolean isIncluded(File baseDir, String fname, Rule[] ruleset, boolean acceptSymlinks) {
+        if (!baseDir.isDirectory()) {
+            return false;
+        }
+        LinkOption[] options = acceptSymlinks ? new LinkOption[0] : new LinkOption[] {LinkOption.NOFOLLOW_LINKS};
+        String[] names = fname.split(Pattern.quote(File.separator), -1);
+        Path path = baseDir.toPath();
+        StringBuilder lowerPath = new StringBuilder();
+        for (int i = 0; i < names.length; i++) {
+            String name = names[i];
+            if (name.isEmpty() || name.equals(".") || name.equals("..")) {
+                return false;
+            }
+            path = path.resolve(name);
+            lowerPath.append(File.separatorChar).append(name.toLowerCase());
+            if (shouldExclude(lowerPath, ruleset)) {
+                return false;
+            }
+            boolean exists = i == names.length - 1 ?
+                    Files.isRegularFile(path, options) : Files.isDirectory(path, options);
+            if (!exists) {
+                return false;
+            }
+        }
+        return true;
     }
 
 }
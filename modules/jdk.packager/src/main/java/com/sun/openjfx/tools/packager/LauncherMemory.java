@@ -0,0 +1,248 @@
+/*
+ * Copyright (c) 2015, 2017, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+
+package com.sun.openjfx.tools.packager;
+
+import java.io.PrintStream;
+import java.text.MessageFormat;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+/**
+ * Memory, stack and garbage collector settings the launcher applies when it
+ * starts the JVM.  The maximum heap is sized relative to the memory available to the
+ * application when it is started, which on Linux is the limit of the
+ * container or cgroup it runs in if that is less than the physical memory.
+ */
+public final class LauncherMemory {
+
+    public static final String MEMORY_AUTO = "auto";
+
+    public static final String GC_AUTO = "auto";
+    public static final String GC_SERIAL = "serial";
+    public static final String GC_PARALLEL = "parallel";
+    public static final String GC_G1 = "g1";
+
+    private static final Pattern STACK_SIZE = Pattern.compile("[0-9]+[kKmMgG]?");
+    private static final Pattern GC_OPTION = Pattern.compile("-XX:\\+Use\\w+GC");
+
+    private LauncherMemory() {}
+
+    private static Map<String, String> getGarbageCollectors() {
+        Map<String, String> map = new LinkedHashMap<>();
+        map.put("Auto", GC_AUTO);
+        map.put("Serial", GC_SERIAL);
+        map.put("Parallel", GC_PARALLEL);
+        map.put("G1", GC_G1);
+        return map;
+    }
+
+    public static final BundlerParamInfo<String> APP_MEMORY = new StandardBundlerParam<>(
+            "Application Memory",
+            "Maximum heap size as a percentage of the memory available to the application, such as \"50%\" or " +
+                    "\"62.5%\", or \"auto\" for all of it.  Like -XX:MaxRAMPercentage, but resolved by the " +
+                    "launcher.",
+            "app.memory",
+            String.class,
+        p -> null,
+        (s, p) -> s);
+
+    public static final BundlerParamInfo<Long> APP_MEMORY_MIN = new StandardBundlerParam<>(
+            "Application Memory Minimum",
+            "Lower bound of the maximum heap size computed from app.memory, such as \"256m\" or \"1g\".",
+            "app.memory.min",
+            Long.class,
+        p -> null,
+        (s, p) -> parseSize(s));
+
+    public static final BundlerParamInfo<Long> APP_MEMORY_MAX = new StandardBundlerParam<>(
+            "Application Memory Maximum",
+            "Upper bound of the maximum heap size computed from app.memory, such as \"4g\".",
+            "app.memory.max",
+            Long.class,
+        p -> null,
+        (s, p) -> parseSize(s));
+
+    public static final EnumeratedBundlerParam<String> APP_GC = new EnumeratedBundlerParam<>(
+            "Garbage Collector",
+            "Garbage collector the launcher selects: \"serial\", \"parallel\", \"g1\" or \"auto\", which selects " +
+                    "the serial collector if less than 1792 MB of memory is available to the application.  " +
+                    "Ignored if the JVM options select a collector, such as -XX:+UseZGC.",
+            "app.gc",
+            String.class,
+        p -> null,
+        (s, p) -> s.toLowerCase(Locale.ROOT), getGarbageCollectors());
+
+    public static final BundlerParamInfo<String> APP_STACK_SIZE = new StandardBundlerParam<>(
+            "Application Stack Size",
+            "Stack size of the thread the main class runs on, as with -Xss, such as \"8m\".  The launcher " +
+                    "starts the JVM on a new thread, not on the primordial thread of the process.",
+            "app.stack.size",
+            String.class,
+        p -> null,
+        (s, p) -> s);
+
+    /**
+     * Converts a size such as "512m", "2g" or "1048576k" into megabytes.  A
+     * size without a unit is in megabytes.
+     */
+    static Long parseSize(String value) {
+        String size = value.trim().toLowerCase(Locale.ROOT);
+        char unit = size.isEmpty() ? 'm' : size.charAt(size.length() - 1);
+
+        if (unit == 'k' || unit == 'm' || unit == 'g') {
+            size = size.substring(0, size.length() - 1);
+        }
+
+        try {
+            long number = Long.parseLong(size);
+
+            if (number < 0) {
+                throw new NumberFormatException(value);
+            }
+
+            switch (unit) {
+                case 'k':
+                    return number / 1024;
+                case 'g':
+                    return number * 1024;
+                default:
+                    return number;
+            }
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException(MessageFormat.format("Invalid memory size \"{0}\".", value), e);
+        }
+    }
+
+    static boolean isValidMemory(String value) {
+        if (MEMORY_AUTO.equals(value)) {
+            return true;
+        }
+
+        if (value.length() < 2 || !value.endsWith("%")) {
+            return false;
+        }
+
+        try {
+            double percentage = Double.parseDouble(value.substring(0, value.length() - 1));
+            return percentage > 0 && percentage <= 100;
+        } catch (NumberFormatException e) {
+            return false;
+        }
+    }
+
+    public static void validate(Map<String, ? super Object> params) throws ConfigException {
+        String memory = APP_MEMORY.fetchFrom(params);
+
+        if (memory != null && !isValidMemory(memory)) {
+            throw new ConfigException(
+                    MessageFormat.format("Invalid application memory \"{0}\".", memory),
+                    "Use a percentage between 0 and 100, such as \"50%\", or \"auto\".");
+        }
+
+        Long min;
+        Long max;
+
+        try {
+            min = APP_MEMORY_MIN.fetchFrom(params);
+            max = APP_MEMORY_MAX.fetchFrom(params);
+        } catch (IllegalArgumentException e) {
+            throw new ConfigException(e.getMessage(), "Use a size such as \"512m\" or \"2g\".");
+        }
+
+        if (min != null && max != null && min > max) {
+            throw new ConfigException(
+                    MessageFormat.format("The application memory minimum {0}m is larger than the maximum {1}m.",
+                            min.toString(), max.toString()),
+                    "Swap " + APP_MEMORY_MIN.getID() + " and " + APP_MEMORY_MAX.getID() + ".");
+        }
+
+        String stackSize = APP_STACK_SIZE.fetchFrom(params);
+
+        if (stackSize != null && !STACK_SIZE.matcher(stackSize).matches()) {
+            throw new ConfigException(
+                    MessageFormat.format("Invalid stack size \"{0}\".", stackSize),
+                    "Use a size such as \"512k\" or \"8m\".");
+        }
+
+        String gc = APP_GC.fetchFrom(params);
+
+        if (gc != null && !getGarbageCollectors().containsValue(gc)) {
+            throw new ConfigException(
+                    MessageFormat.format("Unknown garbage collector \"{0}\".", gc),
+                    "Use \"serial\", \"parallel\", \"g1\" or \"auto\".");
+        }
+    }
+
+    // Returns the JVM option that selects the garbage collector, such as -XX:+UseG1GC, or null.
+    static String findGarbageCollectorOption(Map<String, ? super Object> params) {
+        for (String option : StandardBundlerParam.JVM_OPTIONS.fetchFrom(params)) {
+            if (GC_OPTION.matcher(option).matches()) {
+                return option;
+            }
+        }
+        return null;
+    }
+
+    // Writes the settings to the [Application] section of the launcher configuration file.
+    public static void writeConfig(Map<String, ? super Object> params, PrintStream out) {
+        String memory = APP_MEMORY.fetchFrom(params);
+
+        if (memory != null) {
+            out.println("app.memory=" + memory);
+
+            Long min = APP_MEMORY_MIN.fetchFrom(params);
+            if (min != null) {
+                out.println("app.memory.min=" + min + "m");
+            }
+
+            Long max = APP_MEMORY_MAX.fetchFrom(params);
+            if (max != null) {
+                out.println("app.memory.max=" + max + "m");
+            }
+
+            Log.verbose(MessageFormat.format("Maximum heap size is {0} of the available memory, at least {1} and " +
+                    "at most {2}.", memory, min == null ? "0m" : min + "m", max == null ? "unlimited" : max + "m"));
+        }
+
+        String gc = APP_GC.fetchFrom(params);
+        String gcOption = findGarbageCollectorOption(params);
+
+        if (gc != null && gcOption != null) {
+            Log.verbose(MessageFormat.format("Ignoring {0}={1}, the JVM options select the garbage collector " +
+                    "with {2}.", APP_GC.getID(), gc, gcOption));
+        } else if (gc != null) {
+            out.println("app.gc=" + gc);
+        }
+
+        String stackSize = APP_STACK_SIZE.fetchFrom(params);
+
+        if (stackSize != null) {
+            out.println("app.stack.size=" + stackSize);
+        }
+    }
+}
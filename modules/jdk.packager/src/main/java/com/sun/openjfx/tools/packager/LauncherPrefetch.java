@@ -0,0 +1,297 @@
+/*
+ * Copyright (c) 2015, 2017, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+
+package com.sun.openjfx.tools.packager;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.text.MessageFormat;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import static com.sun.openjfx.tools.packager.StandardBundlerParam.APP_FS_NAME;
+import static com.sun.openjfx.tools.packager.StandardBundlerParam.CLASSPATH;
+import static com.sun.openjfx.tools.packager.StandardBundlerParam.ENABLE_APP_CDS;
+import static com.sun.openjfx.tools.packager.StandardBundlerParam.MAIN_JAR;
+
+/**
+ * Writes the list of files the Linux launcher reads into the page cache on a
+ * background thread while it loads the JVM, so that a cold start does not
+ * fault the runtime and the application in from disk a page at a time.  The
+ * list is written next to the launcher configuration file with the
+ * ".prefetch" suffix, one file per line in the order they are read at
+ * startup.
+ *
+ * <p>By default the list holds the runtime files every JVM reads at startup
+ * and the application jars.  If a training run is requested the application
+ * is started from the finished image and the other files it maps or opens
+ * during the run, such as native libraries and resources, are added to the
+ * list.
+ */
+public final class LauncherPrefetch {
+
+    public static final String SUFFIX = ".prefetch";
+
+    // In the order the JVM reads them, libjli and libjvm are loaded by the
+    // launcher, the CDS archive is mapped when the JVM is created and
+    // libjimage opens the modules file when the module system is initialized.
+    static final String[] RUNTIME_FILES = {
+        "lib/libjli.so",
+        "lib/jli/libjli.so",
+        "lib/server/libjvm.so",
+        "lib/server/classes.jsa",
+        "lib/libjava.so",
+        "lib/libjimage.so",
+        "lib/libzip.so",
+        "lib/modules"
+    };
+
+    private static final long SAMPLE_INTERVAL = 10;
+    private static final Path PROC = new File("/proc").toPath();
+
+    // The launcher neither uses nor starts an activation server if this is set.
+    private static final String NO_ACTIVATION_SERVER = "JAVAPACKAGER_NO_ACTIVATION_SERVER";
+
+    private LauncherPrefetch() {}
+
+    public static final BundlerParamInfo<Boolean> PREFETCH = new StandardBundlerParam<>(
+            "Launcher Prefetch",
+            "Write the list of files the launcher reads into the page cache at startup.",
+            "launcher.prefetch",
+            Boolean.class,
+        p -> Boolean.TRUE,
+        (s, p) -> Boolean.valueOf(s));
+
+    public static final BundlerParamInfo<Integer> PREFETCH_TRAINING = new StandardBundlerParam<>(
+            "Launcher Prefetch Training Run",
+            "Number of seconds to run the application from the finished image for, recording the files it reads " +
+                    "at startup.  0 uses the default list of runtime files and application jars.",
+            "launcher.prefetch.training",
+            Integer.class,
+        p -> 0,
+        (s, p) -> Integer.valueOf(s));
+
+    public static File getPrefetchFile(Path root, String launcherName) {
+        return root.resolve("app").resolve(launcherName + SUFFIX).toFile();
+    }
+
+    /**
+     * Writes the prefetch list of the launcher with the given name in the
+     * image at root.
+     */
+    public static void write(Map<String, ? super Object> params, Path root, String launcherName)
+            throws IOException {
+        Set<String> files = new LinkedHashSet<>(getDefaultFiles(params, root));
+        int seconds = PREFETCH_TRAINING.fetchFrom(params);
+
+        // The files are listed in the order they were first seen by the
+        // training run, but files seen in the same sample are only ordered
+        // by address.  The default files are read in the order the JVM is
+        // known to read them and the other files after them.
+        if (seconds > 0) {
+            Path image = root.toRealPath();
+            List<Path> trained = train(image.resolve(launcherName), seconds);
+            Log.verbose(MessageFormat.format("Prefetch training run of {0} read {1} files.",
+                    launcherName, trained.size()));
+
+            for (Path file : trained) {
+                String name = toLauncherPath(params, image, file);
+                if (name != null) {
+                    files.add(name);
+                }
+            }
+        }
+
+        try (PrintStream out = new PrintStream(getPrefetchFile(root, launcherName))) {
+            out.println("# Files the launcher reads into the page cache at startup, in order.");
+            for (String file : files) {
+                out.println(file);
+            }
+        }
+    }
+
+    // The files every start of the application reads, as paths the launcher
+    // expands its macros in.
+    static List<String> getDefaultFiles(Map<String, ? super Object> params, Path root) {
+        List<String> result = new ArrayList<>();
+        String runtimeLocation = "$APPDIR/runtime";
+        File runtimeImage = root.resolve("runtime").toFile();
+
+        if (SharedRuntime.isShared(params)) {
+            runtimeLocation = SharedRuntime.SHARED_RUNTIME.fetchFrom(params);
+            runtimeImage = SharedRuntime.SHARED_RUNTIME_IMAGE.fetchFrom(params);
+        }
+
+        if (runtimeImage != null) {
+            for (String file : RUNTIME_FILES) {
+                if (new File(runtimeImage, file).isFile()) {
+                    result.add(runtimeLocation + "/" + file);
+                }
+            }
+        }
+
+        if (ENABLE_APP_CDS.fetchFrom(params)) {
+            result.add("$CACHEDIR/" + APP_FS_NAME.fetchFrom(params) + ".jpa");
+        }
+
+        Set<String> jars = new LinkedHashSet<>();
+        RelativeFileSet mainJar = MAIN_JAR.fetchFrom(params);
+
+        if (mainJar != null) {
+            jars.addAll(mainJar.getIncludedFiles());
+        }
+
+        for (String entry : CLASSPATH.fetchFrom(params).split("[ :;]")) {
+            if (!entry.isEmpty()) {
+                jars.add(entry);
+            }
+        }
+
+        for (String jar : jars) {
+            if (root.resolve("app").resolve(jar).toFile().isFile()) {
+                result.add("$PACKAGEDIR/" + jar.replace(File.separatorChar, '/'));
+            }
+        }
+
+        return result;
+    }
+
+    // Returns the path the launcher reads file from, or null if the file is
+    // not part of the image or of the shared runtime.  The launchers and
+    // libpackager in the root of the image are read before the list is.
+    static String toLauncherPath(Map<String, ? super Object> params, Path root, Path file) {
+        Path app = root.resolve("app");
+
+        if (file.startsWith(app)) {
+            return "$PACKAGEDIR/" + app.relativize(file).toString().replace(File.separatorChar, '/');
+        } else if (file.startsWith(root)) {
+            Path relative = root.relativize(file);
+            return relative.getNameCount() > 1 ? "$APPDIR/" + relative.toString().replace(File.separatorChar, '/') :
+                    null;
+        }
+
+        File runtimeImage = SharedRuntime.SHARED_RUNTIME_IMAGE.fetchFrom(params);
+
+        if (SharedRuntime.isShared(params) && runtimeImage != null) {
+            Path runtime = runtimeImage.toPath().toAbsolutePath().normalize();
+            if (file.startsWith(runtime)) {
+                return SharedRuntime.SHARED_RUNTIME.fetchFrom(params) + "/" +
+                        runtime.relativize(file).toString().replace(File.separatorChar, '/');
+            }
+        }
+
+        return null;
+    }
+
+    // Starts the launcher and records the regular files it and its child
+    // processes have mapped or open, sampling /proc until the launcher exits
+    // or the training run times out.
+    static List<Path> train(Path launcher, int seconds) {
+        Set<Path> result = new LinkedHashSet<>();
+
+        if (!Files.isDirectory(PROC)) {
+            Log.info("The prefetch training run requires /proc, the default prefetch list is used.");
+            return new ArrayList<>(result);
+        }
+
+        Process process;
+        try {
+            ProcessBuilder builder = new ProcessBuilder(launcher.toString())
+                    .redirectOutput(ProcessBuilder.Redirect.DISCARD)
+                    .redirectError(ProcessBuilder.Redirect.DISCARD);
+            // An activation server would be detached from the launcher, so
+            // it could neither be sampled nor stopped with its descendants.
+            builder.environment().put(NO_ACTIVATION_SERVER, "true");
+            process = builder.start();
+        } catch (IOException e) {
+            Log.info(MessageFormat.format("Unable to start the prefetch training run of {0}: {1}",
+                    launcher, e.getMessage()));
+            Log.debug(e);
+            return new ArrayList<>(result);
+        }
+
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(seconds);
+
+        try {
+            while (System.nanoTime() < deadline) {
+                sample(process.pid(), result);
+                process.descendants().forEach(h -> sample(h.pid(), result));
+
+                if (process.waitFor(SAMPLE_INTERVAL, TimeUnit.MILLISECONDS)) {
+                    break;
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            process.descendants().forEach(ProcessHandle::destroy);
+            process.destroy();
+        }
+
+        return new ArrayList<>(result);
+    }
+
+    private static void sample(long pid, Set<Path> files) {
+        Path proc = PROC.resolve(Long.toString(pid));
+
+        try {
+            for (String line : Files.readAllLines(proc.resolve("maps"))) {
+                // address perms offset dev inode pathname
+                String[] fields = line.trim().split("\\s+", 6);
+                if (fields.length == 6 && fields[5].startsWith("/")) {
+                    addFile(new File(fields[5].replace(" (deleted)", "")).toPath(), files);
+                }
+            }
+        } catch (IOException ignore) {
+            // The process has exited.
+        }
+
+        try (DirectoryStream<Path> fds = Files.newDirectoryStream(proc.resolve("fd"))) {
+            for (Path fd : fds) {
+                try {
+                    addFile(Files.readSymbolicLink(fd), files);
+                } catch (IOException ignore) {
+                    // The file descriptor was closed.
+                }
+            }
+        } catch (IOException ignore) {
+            // The process has exited.
+        }
+    }
+
+    private static void addFile(Path file, Set<Path> files) {
+        if (file.isAbsolute() && Files.isRegularFile(file)) {
+            files.add(file.normalize());
+        }
+    }
+}
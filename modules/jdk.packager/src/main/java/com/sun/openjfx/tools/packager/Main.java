@@ -55,6 +55,7 @@ public class Main {
     private static boolean genPackages;
     private static boolean css2Bin;
     private static boolean signJar;
+    private static boolean verifyJar;
 
     private static void addResources(CommonParams commonParams, String srcdir, String srcfiles)
             throws PackagerException {
@@ -185,6 +186,7 @@ public class Main {
             DeployParams deployParams = new DeployParams();
             CreateBSSParams createBssParams = new CreateBSSParams();
             SignJarParams signJarParams = new SignJarParams();
+            VerifyJarParams verifyJarParams = new VerifyJarParams();
             String srcdir = null;
             String srcfiles = null;
 
@@ -274,6 +276,14 @@ public class Main {
                         } else if (arg.equals(STRIP_NATIVE_COMMANDS + "=")) {
                             deployParams.setStripNativeCommands(
                                     Boolean.valueOf(arg.replace(STRIP_NATIVE_COMMANDS + "=", "")));
+                        } else if (arg.equals(JLINK_PROFILE)) {
+                            deployParams.setJLinkProfile(nextArg(args, i++));
+                        } else if (arg.startsWith(JLINK_PROFILE + "=")) {
+                            deployParams.setJLinkProfile(arg.replace(JLINK_PROFILE + "=", ""));
+                        } else if (arg.equals(SHARED_RUNTIME)) {
+                            deployParams.setSharedRuntime(nextArg(args, i++));
+                        } else if (arg.startsWith(SHARED_RUNTIME + "=")) {
+                            deployParams.setSharedRuntime(arg.replace(SHARED_RUNTIME + "=", ""));
                         } else if (arg.equals(DETECT_MODULES)) {
                             deployParams.setDetectModules(true);
                         } else if (arg.equals(MODULE_PATH) || arg.equals(P)) {
@@ -291,7 +301,7 @@ public class Main {
                         }
                     }
 
-                    if (deployParams.validateForBundle()) {
+                    if (deployParams.validateForBundle() || bundleType == BundleType.RUNTIME) {
                         genPackages = true;
                     }
 
@@ -328,6 +338,14 @@ public class Main {
                             signJarParams.setKeyPass(nextArg(args, i++));
                         } else if (arg.equalsIgnoreCase("-storeType")) {
                             signJarParams.setStoreType(nextArg(args, i++));
+                        } else if (arg.equalsIgnoreCase("-threads")) {
+                            signJarParams.setThreads(Integer.parseInt(nextArg(args, i++)));
+                        } else if (arg.equalsIgnoreCase("-cacheDir")) {
+                            signJarParams.setCacheDir(new File(nextArg(args, i++)));
+                        } else if (arg.equalsIgnoreCase("-format")) {
+                            signJarParams.setFormat(nextArg(args, i++));
+                        } else if (arg.equalsIgnoreCase("-sigFile")) {
+                            signJarParams.setSigFile(nextArg(args, i++));
                         } else if (arg.equalsIgnoreCase("-verbose") || arg.equalsIgnoreCase("-v")) {
                             signJarParams.setVerbose(true);
                             verbose = true;
@@ -344,6 +362,25 @@ public class Main {
 
                     addResources(signJarParams, srcdir, srcfiles);
                     signJar = true;
+                } else if (args[0].equalsIgnoreCase("-verifyJar")) {
+                    for (int i = 1; i < args.length; i++) {
+                        String arg = args[i];
+                        if (arg.equalsIgnoreCase("-threads")) {
+                            verifyJarParams.setThreads(Integer.parseInt(nextArg(args, i++)));
+                        } else if (arg.equalsIgnoreCase("-verbose") || arg.equalsIgnoreCase("-v")) {
+                            verifyJarParams.setVerbose(true);
+                            verbose = true;
+                        } else if (arg.equalsIgnoreCase("-srcdir")) {
+                            srcdir = nextArg(args, i++);
+                        } else if (arg.equalsIgnoreCase("-srcfiles")) {
+                            srcfiles = nextArg(args, i++);
+                        } else {
+                            throw new PackagerException("Error: Unknown argument: {0}", arg);
+                        }
+                    }
+
+                    addResources(verifyJarParams, srcdir, srcfiles);
+                    verifyJar = true;
                 } else if (args[0].equalsIgnoreCase("-help") || args[0].equalsIgnoreCase("--help")) {
                     showBundlerHelp(args[1], args.length > 2 && "-verbose".equals(args[2]));
                 } else {
@@ -389,6 +426,21 @@ public class Main {
                     }
                     packager.signJar(signJarParams);
                 }
+                if (verifyJar) {
+                    verifyJarParams.validate();
+                    List<JarVerificationResult> results = packager.verifyJar(verifyJarParams);
+                    long failed = 0;
+                    for (JarVerificationResult result : results) {
+                        Log.info(result.toString());
+                        if (!result.isValid()) {
+                            failed++;
+                        }
+                    }
+                    if (failed > 0) {
+                        throw new PackagerException("Error: Verification failed for {0} of {1} jars",
+                                String.valueOf(failed), String.valueOf(results.size()));
+                    }
+                }
 
             } catch (Exception e) {
                 if (verbose) {
@@ -415,6 +467,8 @@ public class Main {
     private static final String STRIP_NATIVE_COMMANDS = "--" + StandardBundlerParam.STRIP_NATIVE_COMMANDS.getID();
     private static final String J_XDEBUG = JLinkBundlerHelper.DEBUG.getID() + ":";
     private static final String DETECT_MODULES = "--" + JLinkBundlerHelper.DETECT_MODULES.getID();
+    private static final String JLINK_PROFILE = "--" + JLinkBundlerHelper.JLINK_PROFILE.getID();
+    private static final String SHARED_RUNTIME = "--shared-runtime";
 
     private static void showBundlerHelp(String bundlerName, boolean verbose) {
         if ("bundlers".equals(bundlerName)) {
@@ -27,8 +27,12 @@ package com.sun.openjfx.tools.packager;
 
 import java.io.File;
 import java.io.FileInputStream;
-import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.CodeSigner;
 import java.security.InvalidKeyException;
 import java.security.KeyStore;
 import java.security.KeyStoreException;
@@ -40,14 +44,24 @@ import java.security.cert.Certificate;
 import java.security.cert.CertificateException;
 import java.security.cert.X509Certificate;
 import java.text.MessageFormat;
-import java.util.HashMap;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Enumeration;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
-import java.util.zip.ZipOutputStream;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.jar.JarEntry;
+import java.util.jar.JarFile;
 
 import javafx.css.Stylesheet;
 
-import com.sun.openjfx.tools.packager.JarSignature.InputStreamSource;
 import com.sun.openjfx.tools.packager.bundlers.BundleParams;
 import com.sun.openjfx.tools.packager.bundlers.Bundler.BundleType;
 
@@ -90,6 +104,8 @@ public class PackagerLib {
 
     private void generateNativeBundles(File outdir, Map<String, ? super Object> params,
                                        String bundleType, String bundleFormat) throws PackagerException {
+        // each bundler gets its own fork of the params, which costs nothing
+        ResolvedParams bundleParams = new ResolvedParams(params);
         for (com.sun.openjfx.tools.packager.Bundler bundler :
                 Bundlers.createBundlersInstance().getBundlers(bundleType)) {
             // if they specify the bundle format, require we match the ID
@@ -97,7 +113,7 @@ public class PackagerLib {
                 continue;
             }
 
-            Map<String, ? super Object> localParams = new HashMap<>(params);
+            Map<String, ? super Object> localParams = bundleParams.fork();
             try {
                 if (bundler.validate(localParams)) {
                     File result = bundler.execute(localParams, outdir);
@@ -138,22 +154,242 @@ public class PackagerLib {
         this.createBssParams = null;
     }
 
+    /**
+     * Signs the jars as BLOBs, or the standard way with the
+     * {@link SignJarParams#FORMAT_JAR jar format}.  The key is loaded once,
+     * and the jars are signed concurrently, each with its own signature, by
+     * up to {@link SignJarParams#setThreads(int)} threads.  All the jars are
+     * processed even if some of them fail to be signed.  With a
+     * {@link SignJarParams#setCacheDir(File) cache directory}, jars signed
+     * before with the same key are copied from the cache.  With the jar
+     * format, the digests of the unchanged entries of jars signed before
+     * to the output directory are reused.
+     */
     public void signJar(SignJarParams params) throws PackagerException {
+        SigningKey key;
+        SigningCache cache = null;
+        String signatureName = null;
+        if (SignJarParams.FORMAT_JAR.equalsIgnoreCase(params.format)) {
+            signatureName = params.sigFile != null ? params.sigFile.toUpperCase(Locale.ENGLISH) :
+                    JarSignature.toSignatureFileName(params.alias);
+        }
         try {
-            JarSignature signature = retrieveSignature(params);
+            key = retrieveSigningKey(params);
+            if (params.cacheDir != null) {
+                String format = signatureName != null ? SigningCache.JAR_FORMAT + ":" + signatureName :
+                        SigningCache.BLOB_FORMAT;
+                cache = new SigningCache(params.cacheDir, format, key.certChain,
+                        key.createSignature(signatureName).getAlgorithm());
+            }
+        } catch (Exception ex) {
+            Log.verbose(ex);
+            throw new PackagerException("Error: Signing failed", ex);
+        }
+
+        List<PackagerResource> jars = new ArrayList<>();
+        for (PackagerResource pr : params.resources) {
+            collectJars(pr, jars);
+        }
+        if (jars.isEmpty()) {
+            return;
+        }
 
-            for (PackagerResource pr : params.resources) {
-                signFile(pr, signature, params.outdir, params.verbose);
+        // the jars are signed concurrently, each to its own destination
+        Set<Path> destinations = new HashSet<>();
+        for (PackagerResource pr : jars) {
+            if (!destinations.add(getSignedJar(pr, params.outdir).toPath().toAbsolutePath().normalize())) {
+                throw new PackagerException("Error: Signing failed, more than one jar is signed to {0}",
+                        getSignedJar(pr, params.outdir).getPath());
             }
+        }
+
+        final SigningCache signingCache = cache;
+        final String sigName = signatureName;
+        ExecutorService executor = createJarExecutor("JarSigner", params.threads, jars.size());
+        List<Future<?>> results = new ArrayList<>();
+        for (PackagerResource pr : jars) {
+            results.add(executor.submit(() -> {
+                signFile(pr, key, signingCache, sigName, params.outdir, params.verbose);
+                return null;
+            }));
+        }
+        executor.shutdown();
+
+        List<String> failed = new ArrayList<>();
+        Throwable failure = null;
+        for (int i = 0; i < jars.size(); i++) {
+            try {
+                results.get(i).get();
+            } catch (InterruptedException ex) {
+                executor.shutdownNow();
+                Thread.currentThread().interrupt();
+                throw new PackagerException("Error: Signing failed", ex);
+            } catch (ExecutionException ex) {
+                String path = jars.get(i).getFile().getPath();
+                Log.info(MessageFormat.format("Failed to sign {0}: {1}", path, ex.getCause()));
+                Log.verbose(ex.getCause());
+                failed.add(path);
+                if (failure == null) {
+                    failure = ex.getCause();
+                } else {
+                    failure.addSuppressed(ex.getCause());
+                }
+            }
+        }
 
+        if (failure != null) {
+            throw new PackagerException(MessageFormat.format("Error: Signing failed for {0} of {1} jars: {2}",
+                    failed.size(), jars.size(), String.join(", ", failed)), failure);
+        }
+    }
+
+    /**
+     * Verifies the BLOB or standard signatures of the jars, concurrently by
+     * up to {@link VerifyJarParams#setThreads(int)} threads.
+     *
+     * @return the result for each jar, in the order of the resources
+     */
+    public List<JarVerificationResult> verifyJar(VerifyJarParams params) throws PackagerException {
+        List<PackagerResource> jars = new ArrayList<>();
+        for (PackagerResource pr : params.resources) {
+            collectJars(pr, jars);
+        }
+        if (jars.isEmpty()) {
+            return new ArrayList<>();
+        }
+
+        ExecutorService executor = createJarExecutor("JarVerifier", params.threads, jars.size());
+        List<Future<JarVerificationResult>> futures = new ArrayList<>();
+        for (PackagerResource pr : jars) {
+            futures.add(executor.submit(() -> verifyFile(pr.getFile())));
+        }
+        executor.shutdown();
+
+        List<JarVerificationResult> results = new ArrayList<>();
+        try {
+            for (Future<JarVerificationResult> future : futures) {
+                results.add(future.get());
+            }
+        } catch (InterruptedException | ExecutionException ex) {
+            executor.shutdownNow();
+            if (ex instanceof InterruptedException) {
+                Thread.currentThread().interrupt();
+            }
+            throw new PackagerException("Error: Verification failed", ex);
+        }
+        return results;
+    }
+
+    private JarVerificationResult verifyFile(File jar) {
+        long start = System.nanoTime();
+        JarVerificationResult.Status status;
+        CodeSigner[] codeSigners = null;
+        Exception error = null;
+
+        try {
+            JarSignature signature = JarSignature.load(jar);
+            if (signature != null) {
+                status = signature.isValid() ? JarVerificationResult.Status.VALID :
+                        JarVerificationResult.Status.INVALID;
+                codeSigners = signature.getCodeSigners();
+            } else {
+                codeSigners = verifyStandardSignature(jar);
+                status = codeSigners != null ? JarVerificationResult.Status.VALID :
+                        JarVerificationResult.Status.UNSIGNED;
+            }
+        } catch (SecurityException ex) {
+            Log.verbose(ex);
+            status = JarVerificationResult.Status.INVALID;
         } catch (Exception ex) {
             Log.verbose(ex);
-            throw new PackagerException("Error: Signing failed", ex);
+            status = JarVerificationResult.Status.ERROR;
+            error = ex;
+        }
+
+        return new JarVerificationResult(jar, status, codeSigners, error, (System.nanoTime() - start) / 1000000);
+    }
+
+    /**
+     * Verifies the jar signed the standard way, reading all its entries.
+     *
+     * @return the signers of the jar, or {@code null} if it is not signed
+     * @throws SecurityException if the signature is not valid, or an entry
+     *         is not signed by the same signers as the others
+     */
+    private static CodeSigner[] verifyStandardSignature(File jar) throws IOException {
+        try (JarFile jarFile = new JarFile(jar, true)) {
+            List<JarEntry> entries = new ArrayList<>();
+            boolean signed = false;
+            byte[] buf = new byte[RawZipFile.BUFFER_SIZE];
+            Enumeration<JarEntry> e = jarFile.entries();
+            while (e.hasMoreElements()) {
+                JarEntry entry = e.nextElement();
+                String upperName = entry.getName().toUpperCase(Locale.ENGLISH);
+                if (JarSignature.isSigningRelated(upperName)) {
+                    signed |= upperName.endsWith(".SF");
+                } else if (!entry.isDirectory()) {
+                    // the digest of an entry is checked when it is read
+                    try (InputStream is = jarFile.getInputStream(entry)) {
+                        while (is.read(buf) != -1) {
+                            // nothing to do
+                        }
+                    }
+                    entries.add(entry);
+                }
+            }
+            if (!signed) {
+                return null;
+            }
+
+            CodeSigner[] codeSigners = null;
+            Set<CodeSigner> signers = null;
+            for (JarEntry entry : entries) {
+                CodeSigner[] entrySigners = entry.getCodeSigners();
+                if (entrySigners == null) {
+                    throw new SecurityException("Entry is not signed: " + entry.getName());
+                }
+                if (signers == null) {
+                    codeSigners = entrySigners;
+                    signers = new HashSet<>(Arrays.asList(entrySigners));
+                } else if (!signers.equals(new HashSet<>(Arrays.asList(entrySigners)))) {
+                    throw new SecurityException("Entry is not signed by the same signers: " + entry.getName());
+                }
+            }
+            return codeSigners;
         }
+    }
 
+    private static ExecutorService createJarExecutor(String name, int threads, int jars) {
+        int size = Math.min(threads > 0 ? threads : Runtime.getRuntime().availableProcessors(), jars);
+        AtomicInteger threadCount = new AtomicInteger();
+        return Executors.newFixedThreadPool(size, r -> {
+            Thread thread = new Thread(r, name + "-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
     }
 
-    private JarSignature retrieveSignature(SignJarParams params) throws KeyStoreException,
+    private static final class SigningKey {
+        private final PrivateKey privateKey;
+        private final X509Certificate[] certChain;
+
+        SigningKey(PrivateKey privateKey, X509Certificate[] certChain) {
+            this.privateKey = privateKey;
+            this.certChain = certChain;
+        }
+
+        // Signature objects are stateful, a jar that failed to be signed
+        // must not leave its data in the signature of the next one.
+        JarSignature createSignature() throws NoSuchAlgorithmException, InvalidKeyException {
+            return JarSignature.create(privateKey, certChain);
+        }
+
+        JarSignature createSignature(String signatureName) throws NoSuchAlgorithmException, InvalidKeyException {
+            return signatureName != null ? JarSignature.createForJar(privateKey, certChain) : createSignature();
+        }
+    }
+
+    private SigningKey retrieveSigningKey(SignJarParams params) throws KeyStoreException,
             NoSuchAlgorithmException, UnrecoverableKeyException, IOException,
             CertificateException, InvalidKeyException {
         if (params.keyPass == null) {
@@ -189,43 +425,68 @@ public class PackagerLib {
         PrivateKey privateKey = (PrivateKey)
                 store.getKey(params.alias, params.keyPass.toCharArray());
 
-        return JarSignature.create(privateKey, certChain);
+        // fail early if the key can not be used for signing
+        SigningKey key = new SigningKey(privateKey, certChain);
+        key.createSignature();
+        return key;
     }
 
-    private void signFile(PackagerResource pr, JarSignature signature, File outdir, boolean verbose)
-            throws NoSuchAlgorithmException, IOException, SignatureException {
+    private void collectJars(PackagerResource pr, List<PackagerResource> jars) {
         if (pr.getFile().isDirectory()) {
             File[] children = pr.getFile().listFiles();
             if (children != null) {
                 for (File innerFile : children) {
-                    signFile(new PackagerResource(
-                            pr.getBaseDir(), innerFile), signature, outdir, verbose);
+                    collectJars(new PackagerResource(pr.getBaseDir(), innerFile), jars);
                 }
             }
         } else {
-            File jar = pr.getFile();
-            File parent = jar.getParentFile();
-            String name = "bsigned_" + jar.getName();
-            File signedJar = new File(parent, name);
+            jars.add(pr);
+        }
+    }
 
-            Log.info("Signing (BLOB) " + jar.getPath());
+    private static File getSignedJar(PackagerResource pr, File outdir) {
+        // in-place without an output directory
+        return outdir != null ? new File(outdir, pr.getRelativePath()) : pr.getFile();
+    }
 
-            signAsBLOB(jar, signedJar, signature);
+    private void signFile(PackagerResource pr, SigningKey key, SigningCache cache, String signatureName,
+            File outdir, boolean verbose)
+            throws NoSuchAlgorithmException, IOException, SignatureException, InvalidKeyException {
+        File jar = pr.getFile();
+        File destJar = getSignedJar(pr, outdir);
+        destJar.getParentFile().mkdirs();
+        File signedJar = new File(destJar.getParentFile(), "bsigned_" + destJar.getName());
 
-            File destJar;
-            if (outdir != null) {
-                destJar = new File(outdir, pr.getRelativePath());
+        long start = System.nanoTime();
+        String mode = signatureName != null ? "(" + signatureName + ")" : "(BLOB)";
+
+        try {
+            String cacheKey = cache != null ? cache.getKey(jar) : null;
+            if (cacheKey != null && cache.copyTo(cacheKey, signedJar)) {
+                Log.info("Signed " + mode + " from cache " + jar.getPath());
+            } else if (signatureName != null) {
+                Log.info("Signing " + mode + " " + jar.getPath());
+                // a jar signed before to the output directory is a previous version
+                File previous = outdir != null ? destJar : null;
+                key.createSignature(signatureName).signJar(jar, signedJar, signatureName, previous);
+                if (cacheKey != null) {
+                    cache.put(cacheKey, signedJar);
+                }
             } else {
-                // in-place
-                jar.delete();
-                destJar = jar;
-            }
-            destJar.delete();
-            destJar.getParentFile().mkdirs();
-            signedJar.renameTo(destJar);
-            if (verbose) {
-                Log.info("Signed as " + destJar.getPath());
+                Log.info("Signing " + mode + " " + jar.getPath());
+                signAsBLOB(jar, signedJar, key.createSignature());
+                if (cacheKey != null) {
+                    cache.put(cacheKey, signedJar);
+                }
             }
+            Files.move(signedJar.toPath(), destJar.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        } finally {
+            signedJar.delete();
+        }
+
+        if (verbose) {
+            Log.info(MessageFormat.format("Signed as {0} in {1} ms", destJar.getPath(),
+                    (System.nanoTime() - start) / 1000000));
         }
     }
 
@@ -235,12 +496,7 @@ public class PackagerLib {
             throw new IllegalStateException("Should retrieve signature first");
         }
 
-        InputStreamSource in = () -> new FileInputStream(jar);
-        if (!signedJar.isFile()) {
-            signedJar.createNewFile();
-        }
-        FileOutputStream fos = new FileOutputStream(signedJar);
-        signature.signJarAsBLOB(in, new ZipOutputStream(fos));
+        signature.signJarAsBLOB(jar, signedJar);
     }
 
     private void createBinaryCss(List<PackagerResource> cssResources, File outdir) throws PackagerException {
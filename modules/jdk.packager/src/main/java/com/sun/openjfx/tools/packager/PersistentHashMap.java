@@ -0,0 +1,358 @@
+/*
+ * Copyright (c) 2015, 2017, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+
+
+package com.sun.openjfx.tools.packager;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * An immutable hash map, which shares its structure with the maps it is
+ * derived from, so that a modified copy costs O(log n) instead of O(n).
+ *
+ * It is a hash array mapped trie: each level of the tree is indexed by 5 bits
+ * of the hash of the keys, and only the path to a modified entry is copied.
+ * Keys must not be {@code null}, values may be.
+ */
+final class PersistentHashMap<K, V> implements Iterable<Map.Entry<K, V>> {
+
+    private static final int BITS = 5;
+    private static final int MASK = (1 << BITS) - 1;
+
+    private static final PersistentHashMap<?, ?> EMPTY = new PersistentHashMap<>(new BitmapNode(0, new Object[0]), 0);
+
+    private final Node root;
+    private final int size;
+
+    private PersistentHashMap(Node root, int size) {
+        this.root = root;
+        this.size = size;
+    }
+
+    @SuppressWarnings("unchecked")
+    static <K, V> PersistentHashMap<K, V> empty() {
+        return (PersistentHashMap<K, V>) EMPTY;
+    }
+
+    int size() {
+        return size;
+    }
+
+    boolean isEmpty() {
+        return size == 0;
+    }
+
+    boolean containsKey(Object key) {
+        return root.find(hash(key), key, 0) != null;
+    }
+
+    @SuppressWarnings("unchecked")
+    V get(Object key) {
+        Leaf leaf = root.find(hash(key), key, 0);
+        return leaf == null ? null : (V) leaf.getValue();
+    }
+
+    /**
+     * Returns a map with the key mapped to the value.
+     */
+    PersistentHashMap<K, V> with(K key, V value) {
+        int hash = hash(Objects.requireNonNull(key));
+        Leaf leaf = root.find(hash, key, 0);
+        if (leaf != null && leaf.getValue() == value) {
+            return this;
+        }
+        return new PersistentHashMap<>(root.with(new Leaf(hash, key, value), 0), leaf == null ? size + 1 : size);
+    }
+
+    /**
+     * Returns a map without the key.
+     */
+    PersistentHashMap<K, V> without(Object key) {
+        int hash = hash(key);
+        if (root.find(hash, key, 0) == null) {
+            return this;
+        }
+        return new PersistentHashMap<>(root.without(hash, key, 0), size - 1);
+    }
+
+    /**
+     * Iterates over the entries, which can not be modified, in no
+     * particular order.
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    public Iterator<Map.Entry<K, V>> iterator() {
+        List<Map.Entry<K, V>> entries = new ArrayList<>(size);
+        root.collect((List<Leaf>) (List<?>) entries);
+        return Collections.unmodifiableList(entries).iterator();
+    }
+
+    private static int hash(Object key) {
+        int h = key.hashCode();
+        return h ^ (h >>> 16);
+    }
+
+    private static int chunk(int hash, int shift) {
+        return (hash >>> shift) & MASK;
+    }
+
+    private static int bit(int hash, int shift) {
+        return 1 << chunk(hash, shift);
+    }
+
+    private static final class Leaf implements Map.Entry<Object, Object> {
+        private final int hash;
+        private final Object key;
+        private final Object value;
+
+        Leaf(int hash, Object key, Object value) {
+            this.hash = hash;
+            this.key = key;
+            this.value = value;
+        }
+
+        @Override
+        public Object getKey() {
+            return key;
+        }
+
+        @Override
+        public Object getValue() {
+            return value;
+        }
+
+        @Override
+        public Object setValue(Object newValue) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Map.Entry)) {
+                return false;
+            }
+            Map.Entry<?, ?> e = (Map.Entry<?, ?>) o;
+            return Objects.equals(key, e.getKey()) && Objects.equals(value, e.getValue());
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hashCode(key) ^ Objects.hashCode(value);
+        }
+
+        @Override
+        public String toString() {
+            return key + "=" + value;
+        }
+    }
+
+    private abstract static class Node {
+        abstract Leaf find(int hash, Object key, int shift);
+
+        abstract Node with(Leaf leaf, int shift);
+
+        // never called for a missing key, returns an empty node when the last key is removed
+        abstract Node without(int hash, Object key, int shift);
+
+        abstract void collect(List<Leaf> leaves);
+
+        abstract boolean isEmpty();
+    }
+
+    // The entries and the sub-tries of a level, at the positions of their bits
+    private static final class BitmapNode extends Node {
+        private final int bitmap;
+        private final Object[] slots;
+
+        BitmapNode(int bitmap, Object[] slots) {
+            this.bitmap = bitmap;
+            this.slots = slots;
+        }
+
+        private int index(int bit) {
+            return Integer.bitCount(bitmap & (bit - 1));
+        }
+
+        @Override
+        Leaf find(int hash, Object key, int shift) {
+            int bit = bit(hash, shift);
+            if ((bitmap & bit) == 0) {
+                return null;
+            }
+            Object slot = slots[index(bit)];
+            if (slot instanceof Leaf) {
+                Leaf leaf = (Leaf) slot;
+                return leaf.hash == hash && leaf.getKey().equals(key) ? leaf : null;
+            }
+            return ((Node) slot).find(hash, key, shift + BITS);
+        }
+
+        @Override
+        Node with(Leaf leaf, int shift) {
+            int bit = bit(leaf.hash, shift);
+            int index = index(bit);
+            if ((bitmap & bit) == 0) {
+                Object[] copy = new Object[slots.length + 1];
+                System.arraycopy(slots, 0, copy, 0, index);
+                copy[index] = leaf;
+                System.arraycopy(slots, index, copy, index + 1, slots.length - index);
+                return new BitmapNode(bitmap | bit, copy);
+            }
+
+            Object slot = slots[index];
+            Object replacement;
+            if (slot instanceof Leaf) {
+                Leaf existing = (Leaf) slot;
+                if (existing.hash == leaf.hash && existing.getKey().equals(leaf.getKey())) {
+                    replacement = leaf;
+                } else {
+                    replacement = merge(existing, existing.hash, leaf, shift + BITS);
+                }
+            } else {
+                replacement = ((Node) slot).with(leaf, shift + BITS);
+            }
+            Object[] copy = slots.clone();
+            copy[index] = replacement;
+            return new BitmapNode(bitmap, copy);
+        }
+
+        @Override
+        Node without(int hash, Object key, int shift) {
+            int bit = bit(hash, shift);
+            int index = index(bit);
+            Object slot = slots[index];
+            if (slot instanceof Node) {
+                Node child = ((Node) slot).without(hash, key, shift + BITS);
+                if (!child.isEmpty()) {
+                    Object[] copy = slots.clone();
+                    copy[index] = child;
+                    return new BitmapNode(bitmap, copy);
+                }
+            }
+            Object[] copy = new Object[slots.length - 1];
+            System.arraycopy(slots, 0, copy, 0, index);
+            System.arraycopy(slots, index + 1, copy, index, slots.length - index - 1);
+            return new BitmapNode(bitmap & ~bit, copy);
+        }
+
+        @Override
+        void collect(List<Leaf> leaves) {
+            for (Object slot : slots) {
+                if (slot instanceof Leaf) {
+                    leaves.add((Leaf) slot);
+                } else {
+                    ((Node) slot).collect(leaves);
+                }
+            }
+        }
+
+        @Override
+        boolean isEmpty() {
+            return slots.length == 0;
+        }
+    }
+
+    // The entries whose keys have the same hash
+    private static final class CollisionNode extends Node {
+        private final int hash;
+        private final Leaf[] leaves;
+
+        CollisionNode(int hash, Leaf[] leaves) {
+            this.hash = hash;
+            this.leaves = leaves;
+        }
+
+        @Override
+        Leaf find(int hash, Object key, int shift) {
+            if (hash == this.hash) {
+                for (Leaf leaf : leaves) {
+                    if (leaf.getKey().equals(key)) {
+                        return leaf;
+                    }
+                }
+            }
+            return null;
+        }
+
+        @Override
+        Node with(Leaf leaf, int shift) {
+            if (leaf.hash != hash) {
+                return merge(this, hash, leaf, shift);
+            }
+            for (int i = 0; i < leaves.length; i++) {
+                if (leaves[i].getKey().equals(leaf.getKey())) {
+                    Leaf[] copy = leaves.clone();
+                    copy[i] = leaf;
+                    return new CollisionNode(hash, copy);
+                }
+            }
+            Leaf[] copy = Arrays.copyOf(leaves, leaves.length + 1);
+            copy[leaves.length] = leaf;
+            return new CollisionNode(hash, copy);
+        }
+
+        @Override
+        Node without(int hash, Object key, int shift) {
+            Leaf[] copy = new Leaf[leaves.length - 1];
+            int i = 0;
+            for (Leaf leaf : leaves) {
+                if (!leaf.getKey().equals(key)) {
+                    copy[i++] = leaf;
+                }
+            }
+            return new CollisionNode(hash, copy);
+        }
+
+        @Override
+        void collect(List<Leaf> leaves) {
+            leaves.addAll(Arrays.asList(this.leaves));
+        }
+
+        @Override
+        boolean isEmpty() {
+            return leaves.length == 0;
+        }
+    }
+
+    // A node with an entry or a sub-trie, and an entry with another key, at the given level
+    private static Node merge(Object existing, int existingHash, Leaf leaf, int shift) {
+        if (existingHash == leaf.hash) {
+            return new CollisionNode(leaf.hash, new Leaf[] {(Leaf) existing, leaf});
+        }
+        int existingChunk = chunk(existingHash, shift);
+        int chunk = chunk(leaf.hash, shift);
+        if (existingChunk == chunk) {
+            return new BitmapNode(1 << chunk, new Object[] {merge(existing, existingHash, leaf, shift + BITS)});
+        }
+        Object[] slots = existingChunk < chunk ? new Object[] {existing, leaf} : new Object[] {leaf, existing};
+        return new BitmapNode(1 << existingChunk | 1 << chunk, slots);
+    }
+}
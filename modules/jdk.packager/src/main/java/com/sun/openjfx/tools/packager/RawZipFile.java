@@ -0,0 +1,528 @@
+/*
+ * Copyright (c) 2015, 2017, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+
+package com.sun.openjfx.tools.packager;
+
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+import java.util.zip.InflaterInputStream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipException;
+
+/**
+ * Random access to the entries of a zip file through its central directory,
+ * for copying them to another zip file without decompressing and
+ * recompressing their data.
+ *
+ * Only plain zip files are supported: {@link #open(FileChannel)} returns
+ * {@code null} for zip64, encrypted and multi-disk archives, or archives with
+ * data before the first entry, which have to be processed as a stream.
+ */
+final class RawZipFile {
+
+    static final int BUFFER_SIZE = 64 * 1024;
+
+    private static final int LOCAL_HEADER = 0x04034b50;
+    private static final int CENTRAL_HEADER = 0x02014b50;
+    private static final int END_HEADER = 0x06054b50;
+    private static final int ZIP64_END_LOCATOR = 0x07064b50;
+
+    private static final int LOCAL_HEADER_SIZE = 30;
+    private static final int CENTRAL_HEADER_SIZE = 46;
+    private static final int END_HEADER_SIZE = 22;
+
+    private static final int FLAG_ENCRYPTED = 0x0001;
+    private static final int FLAG_DATA_DESCRIPTOR = 0x0008;
+    private static final int FLAG_UTF8 = 0x0800;
+
+    // room left for the entries added while copying
+    private static final long MAX_SIZE = 0xFFFFFFFFL - 0x100000L;
+    private static final int MAX_ENTRIES = 0xFFFF - 16;
+
+    private final FileChannel channel;
+    private final List<Entry> entries;
+    private final byte[] comment;
+
+    /**
+     * An entry, as described by the central directory.
+     */
+    static final class Entry {
+        private final String name;
+        private final byte[] centralHeader;
+        private long dataOffset;
+        private byte[] localExtra;
+
+        private Entry(String name, byte[] centralHeader) {
+            this.name = name;
+            this.centralHeader = centralHeader;
+        }
+
+        String getName() {
+            return name;
+        }
+
+        boolean isDirectory() {
+            return name.endsWith("/");
+        }
+
+        private ByteBuffer header() {
+            return ByteBuffer.wrap(centralHeader).order(ByteOrder.LITTLE_ENDIAN);
+        }
+
+        private int getMethod() {
+            return header().getShort(10) & 0xFFFF;
+        }
+
+        long getCrc() {
+            return header().getInt(16) & 0xFFFFFFFFL;
+        }
+
+        private long getCompressedSize() {
+            return header().getInt(20) & 0xFFFFFFFFL;
+        }
+
+        long getSize() {
+            return header().getInt(24) & 0xFFFFFFFFL;
+        }
+
+        private long getLocalHeaderOffset() {
+            return header().getInt(42) & 0xFFFFFFFFL;
+        }
+    }
+
+    private RawZipFile(FileChannel channel, List<Entry> entries, byte[] comment) {
+        this.channel = channel;
+        this.entries = entries;
+        this.comment = comment;
+    }
+
+    /**
+     * Reads the central directory of the zip file.
+     *
+     * @return the zip file, or {@code null} if it has to be read as a stream
+     * @throws ZipException if the file is not a zip file
+     */
+    static RawZipFile open(FileChannel channel) throws IOException {
+        long size = channel.size();
+        if (size > MAX_SIZE) {
+            return null;
+        }
+
+        // the end record is followed by a comment of up to 64k
+        int tail = (int) Math.min(size, END_HEADER_SIZE + 0xFFFF);
+        ByteBuffer buffer = read(channel, size - tail, tail);
+        int end = -1;
+        for (int i = tail - END_HEADER_SIZE; i >= 0; i--) {
+            if (buffer.getInt(i) == END_HEADER && i + END_HEADER_SIZE + (buffer.getShort(i + 20) & 0xFFFF) == tail) {
+                end = i;
+                break;
+            }
+        }
+        if (end < 0) {
+            throw new ZipException("End of central directory not found");
+        }
+
+        long endOffset = size - tail + end;
+        int diskEntries = buffer.getShort(end + 8) & 0xFFFF;
+        int count = buffer.getShort(end + 10) & 0xFFFF;
+        long centralSize = buffer.getInt(end + 12) & 0xFFFFFFFFL;
+        long centralOffset = buffer.getInt(end + 16) & 0xFFFFFFFFL;
+        boolean zip64 = end >= 20 && buffer.getInt(end - 20) == ZIP64_END_LOCATOR;
+        if (zip64 || buffer.getShort(end + 4) != 0 || buffer.getShort(end + 6) != 0 || diskEntries != count ||
+                count > MAX_ENTRIES || centralOffset + centralSize != endOffset) {
+            return null;
+        }
+
+        byte[] comment = new byte[tail - end - END_HEADER_SIZE];
+        buffer.position(end + END_HEADER_SIZE);
+        buffer.get(comment);
+
+        ByteBuffer central = read(channel, centralOffset, (int) centralSize);
+        List<Entry> entries = new ArrayList<>(count);
+        int position = 0;
+        for (int i = 0; i < count; i++) {
+            if (position + CENTRAL_HEADER_SIZE > centralSize || central.getInt(position) != CENTRAL_HEADER) {
+                throw new ZipException("Invalid central directory header");
+            }
+
+            int flags = central.getShort(position + 8) & 0xFFFF;
+            int method = central.getShort(position + 10) & 0xFFFF;
+            int nameLength = central.getShort(position + 28) & 0xFFFF;
+            int headerLength = CENTRAL_HEADER_SIZE + nameLength + (central.getShort(position + 30) & 0xFFFF) +
+                    (central.getShort(position + 32) & 0xFFFF);
+            if ((flags & FLAG_ENCRYPTED) != 0 || (method != ZipEntry.STORED && method != ZipEntry.DEFLATED) ||
+                    central.getInt(position + 20) == -1 || central.getInt(position + 24) == -1 ||
+                    central.getInt(position + 42) == -1) {
+                return null;
+            }
+            if (position + headerLength > centralSize) {
+                throw new ZipException("Invalid central directory header");
+            }
+
+            byte[] header = new byte[headerLength];
+            central.position(position);
+            central.get(header);
+            entries.add(new Entry(new String(header, CENTRAL_HEADER_SIZE, nameLength, StandardCharsets.UTF_8),
+                    header));
+            position += headerLength;
+        }
+
+        // the order of the data in the file, which is what a stream sees
+        entries.sort(Comparator.comparingLong(Entry::getLocalHeaderOffset));
+        if (!entries.isEmpty() && entries.get(0).getLocalHeaderOffset() != 0) {
+            return null;
+        }
+
+        for (Entry entry : entries) {
+            long offset = entry.getLocalHeaderOffset();
+            ByteBuffer local = read(channel, offset, LOCAL_HEADER_SIZE);
+            if (local.getInt(0) != LOCAL_HEADER) {
+                throw new ZipException("Invalid local header for " + entry.name);
+            }
+            int nameLength = local.getShort(26) & 0xFFFF;
+            int extraLength = local.getShort(28) & 0xFFFF;
+            entry.localExtra = new byte[extraLength];
+            read(channel, offset + LOCAL_HEADER_SIZE + nameLength, extraLength).get(entry.localExtra);
+            entry.dataOffset = offset + LOCAL_HEADER_SIZE + nameLength + extraLength;
+            if (entry.dataOffset + entry.getCompressedSize() > centralOffset) {
+                throw new ZipException("Invalid compressed size for " + entry.name);
+            }
+        }
+
+        return new RawZipFile(channel, entries, comment);
+    }
+
+    private static ByteBuffer read(FileChannel channel, long position, int length) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(length).order(ByteOrder.LITTLE_ENDIAN);
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) < 0) {
+                throw new EOFException("Unexpected end of zip file");
+            }
+        }
+        buffer.flip();
+        return buffer;
+    }
+
+    /**
+     * The entries in the order their data is stored in the file.
+     */
+    List<Entry> getEntries() {
+        return entries;
+    }
+
+    /**
+     * Returns the uncompressed data of the entry.  The CRC and size are
+     * checked when the end of the stream is reached.
+     */
+    InputStream getInputStream(Entry entry) {
+        boolean deflated = entry.getMethod() == ZipEntry.DEFLATED;
+        InputStream data = new DataInputStream(entry.dataOffset, entry.getCompressedSize(), deflated);
+        if (deflated) {
+            data = new InflaterInputStream(data, new Inflater(true), BUFFER_SIZE) {
+                @Override
+                public void close() throws IOException {
+                    super.close();
+                    inf.end();
+                }
+            };
+        }
+        return new CheckedInputStream(entry, data);
+    }
+
+    // The compressed data of an entry, optionally followed by the dummy byte
+    // the inflater may need to detect the end of the data.
+    private class DataInputStream extends InputStream {
+        private long position;
+        private long remaining;
+        private boolean dummy;
+
+        DataInputStream(long position, long length, boolean dummy) {
+            this.position = position;
+            this.remaining = length;
+            this.dummy = dummy;
+        }
+
+        @Override
+        public int read() throws IOException {
+            byte[] b = new byte[1];
+            return read(b, 0, 1) == 1 ? b[0] & 0xFF : -1;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            if (len == 0) {
+                return 0;
+            }
+            if (remaining == 0) {
+                if (!dummy) {
+                    return -1;
+                }
+                dummy = false;
+                b[off] = 0;
+                return 1;
+            }
+
+            ByteBuffer buffer = ByteBuffer.wrap(b, off, (int) Math.min(len, remaining));
+            int n = channel.read(buffer, position);
+            if (n < 0) {
+                throw new EOFException("Unexpected end of zip file");
+            }
+            position += n;
+            remaining -= n;
+            return n;
+        }
+    }
+
+    private static final class CheckedInputStream extends InputStream {
+        private final Entry entry;
+        private final InputStream data;
+        private final CRC32 crc = new CRC32();
+        private long size;
+
+        CheckedInputStream(Entry entry, InputStream data) {
+            this.entry = entry;
+            this.data = data;
+        }
+
+        @Override
+        public int read() throws IOException {
+            byte[] b = new byte[1];
+            return read(b, 0, 1) == 1 ? b[0] & 0xFF : -1;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            int n = data.read(b, off, len);
+            if (n > 0) {
+                crc.update(b, off, n);
+                size += n;
+                if (size > entry.getSize()) {
+                    throw new ZipException("Invalid entry size for " + entry.name);
+                }
+            } else if (n < 0) {
+                if (size != entry.getSize()) {
+                    throw new ZipException("Invalid entry size for " + entry.name);
+                }
+                if (crc.getValue() != entry.getCrc()) {
+                    throw new ZipException("Invalid entry CRC for " + entry.name);
+                }
+            }
+            return n;
+        }
+
+        @Override
+        public void close() throws IOException {
+            data.close();
+        }
+    }
+
+    /**
+     * Writes a zip file made of entries copied from other zip files and new
+     * stored entries.
+     */
+    static final class Writer implements AutoCloseable {
+        private final FileChannel out;
+        private ByteBuffer centralDirectory = ByteBuffer.allocate(BUFFER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+        private int count;
+
+        Writer(FileChannel out) {
+            this.out = out;
+        }
+
+        /**
+         * Copies the entry with its compressed data.  Its data descriptor,
+         * if any, is folded into the local header.
+         */
+        void copy(RawZipFile zip, Entry entry) throws IOException {
+            final long offset = out.position();
+            ByteBuffer header = entry.header();
+            final int flags = header.getShort(8) & ~FLAG_DATA_DESCRIPTOR;
+            byte[] name = new byte[header.getShort(28) & 0xFFFF];
+            header.position(CENTRAL_HEADER_SIZE);
+            header.get(name);
+
+            ByteBuffer local = ByteBuffer.allocate(LOCAL_HEADER_SIZE + name.length + entry.localExtra.length)
+                    .order(ByteOrder.LITTLE_ENDIAN);
+            local.putInt(LOCAL_HEADER);
+            local.putShort(header.getShort(6));
+            local.putShort((short) flags);
+            local.put(entry.centralHeader, 10, 18);
+            local.putShort((short) name.length);
+            local.putShort((short) entry.localExtra.length);
+            local.put(name);
+            local.put(entry.localExtra);
+            local.flip();
+            write(local);
+
+            long position = entry.dataOffset;
+            long remaining = entry.getCompressedSize();
+            while (remaining > 0) {
+                long n = zip.channel.transferTo(position, remaining, out);
+                if (n <= 0) {
+                    throw new EOFException("Unexpected end of zip file");
+                }
+                position += n;
+                remaining -= n;
+            }
+
+            byte[] centralHeader = entry.centralHeader.clone();
+            ByteBuffer copy = ByteBuffer.wrap(centralHeader).order(ByteOrder.LITTLE_ENDIAN);
+            copy.putShort(8, (short) flags);
+            copy.putInt(42, (int) offset);
+            addCentralHeader(centralHeader);
+        }
+
+        /**
+         * Adds an entry with uncompressed data, and the current time.
+         */
+        void addStored(String entryName, byte[] data) throws IOException {
+            add(entryName, ZipEntry.STORED, data, data);
+        }
+
+        /**
+         * Adds an entry with compressed data, and the current time.
+         */
+        void addDeflated(String entryName, byte[] data) throws IOException {
+            Deflater deflater = new Deflater(Deflater.DEFAULT_COMPRESSION, true);
+            try {
+                deflater.setInput(data);
+                deflater.finish();
+                ByteArrayOutputStream compressed = new ByteArrayOutputStream(data.length / 2 + 64);
+                byte[] buf = new byte[BUFFER_SIZE];
+                while (!deflater.finished()) {
+                    compressed.write(buf, 0, deflater.deflate(buf));
+                }
+                add(entryName, ZipEntry.DEFLATED, data, compressed.toByteArray());
+            } finally {
+                deflater.end();
+            }
+        }
+
+        private void add(String entryName, int method, byte[] data, byte[] compressed) throws IOException {
+            final long offset = out.position();
+            byte[] name = entryName.getBytes(StandardCharsets.UTF_8);
+            CRC32 crc = new CRC32();
+            crc.update(data);
+            int time = dosTime(LocalDateTime.now());
+
+            ByteBuffer local = ByteBuffer.allocate(LOCAL_HEADER_SIZE + name.length).order(ByteOrder.LITTLE_ENDIAN);
+            local.putInt(LOCAL_HEADER);
+            local.putShort((short) (method == ZipEntry.STORED ? 10 : 20));
+            local.putShort((short) FLAG_UTF8);
+            local.putShort((short) method);
+            local.putInt(time);
+            local.putInt((int) crc.getValue());
+            local.putInt(compressed.length);
+            local.putInt(data.length);
+            local.putShort((short) name.length);
+            local.putShort((short) 0);
+            local.put(name);
+            local.flip();
+            write(local);
+            write(ByteBuffer.wrap(compressed));
+
+            ByteBuffer header = ByteBuffer.allocate(CENTRAL_HEADER_SIZE + name.length).order(ByteOrder.LITTLE_ENDIAN);
+            header.putInt(CENTRAL_HEADER);
+            header.putShort((short) 20);
+            header.put(local.array(), 4, 26);
+            header.putShort((short) 0);
+            header.putShort((short) 0);
+            header.putShort((short) 0);
+            header.putInt(0);
+            header.putInt((int) offset);
+            header.put(name);
+            addCentralHeader(header.array());
+        }
+
+        private static int dosTime(LocalDateTime time) {
+            return (time.getYear() - 1980) << 25 | time.getMonthValue() << 21 | time.getDayOfMonth() << 16 |
+                    time.getHour() << 11 | time.getMinute() << 5 | time.getSecond() >> 1;
+        }
+
+        private void addCentralHeader(byte[] header) throws IOException {
+            if (++count > 0xFFFF || out.position() > 0xFFFFFFFFL) {
+                throw new ZipException("Too many or too large entries for a zip file without zip64 extensions");
+            }
+            if (centralDirectory.remaining() < header.length) {
+                ByteBuffer grown = ByteBuffer.allocate(Math.max(centralDirectory.capacity() * 2,
+                        centralDirectory.position() + header.length)).order(ByteOrder.LITTLE_ENDIAN);
+                centralDirectory.flip();
+                grown.put(centralDirectory);
+                centralDirectory = grown;
+            }
+            centralDirectory.put(header);
+        }
+
+        /**
+         * Writes the central directory, with the comment of the given zip file.
+         */
+        void finish(RawZipFile zip) throws IOException {
+            long offset = out.position();
+            int size = centralDirectory.position();
+            centralDirectory.flip();
+            write(centralDirectory);
+            if (offset + size > 0xFFFFFFFFL) {
+                throw new ZipException("Zip file too large without zip64 extensions");
+            }
+
+            ByteBuffer end = ByteBuffer.allocate(END_HEADER_SIZE + zip.comment.length).order(ByteOrder.LITTLE_ENDIAN);
+            end.putInt(END_HEADER);
+            end.putShort((short) 0);
+            end.putShort((short) 0);
+            end.putShort((short) count);
+            end.putShort((short) count);
+            end.putInt(size);
+            end.putInt((int) offset);
+            end.putShort((short) zip.comment.length);
+            end.put(zip.comment);
+            end.flip();
+            write(end);
+        }
+
+        private void write(ByteBuffer buffer) throws IOException {
+            while (buffer.hasRemaining()) {
+                out.write(buffer);
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            out.close();
+        }
+    }
+}
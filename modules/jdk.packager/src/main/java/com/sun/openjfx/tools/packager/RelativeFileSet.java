@@ -28,8 +28,11 @@ package com.sun.openjfx.tools.packager;
 import java.io.File;
 
 import java.util.Collection;
+import java.util.Collections;
 import java.util.LinkedHashSet;
 import java.util.Set;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
 
 public class RelativeFileSet {
 
@@ -43,6 +46,9 @@ public class RelativeFileSet {
     private String arch;
     private File basedir;
     private Set<String> files = new LinkedHashSet<>();
+    // until the files are asked for, see lazy()
+    private Supplier<Set<String>> lister;
+    private Predicate<String> probe;
 
     public RelativeFileSet(RelativeFileSet copy) {
         type = copy.type;
@@ -50,7 +56,13 @@ public class RelativeFileSet {
         os = copy.os;
         arch = copy.arch;
         basedir = copy.basedir;
-        files = new LinkedHashSet<>(copy.files);
+        synchronized (copy) {
+            lister = copy.lister;
+            probe = copy.probe;
+            if (lister == null) {
+                files = new LinkedHashSet<>(copy.files);
+            }
+        }
     }
 
     public RelativeFileSet(File base, Collection<File> files) {
@@ -72,11 +84,40 @@ public class RelativeFileSet {
         this(base, (Collection<File>) files);
     }
 
+    /**
+     * A file set which only lists its files when they are asked for, such as
+     * a runtime which is only checked for a few files unless it is copied.
+     *
+     * @param lister lists the paths relative to {@code base}, using the
+     *        platform separator
+     * @param probe tells whether a path would be listed, without listing
+     *        the others
+     */
+    static RelativeFileSet lazy(File base, Supplier<Set<String>> lister, Predicate<String> probe) {
+        RelativeFileSet result = new RelativeFileSet(base, Collections.<File>emptySet());
+        result.lister = lister;
+        result.probe = probe;
+        return result;
+    }
+
+    private synchronized Set<String> files() {
+        if (lister != null) {
+            files = lister.get();
+            lister = null;
+            probe = null;
+        }
+        return files;
+    }
+
+    private synchronized boolean includes(String fname) {
+        return lister != null ? probe.test(fname) : files.contains(fname);
+    }
+
     public boolean contains(String[] requiredFiles) {
         boolean result = true;
 
         for (String fname : requiredFiles) {
-            if (!files.contains(fname)) {
+            if (!includes(fname)) {
                 Log.debug("Runtime does not contain [" + fname + "]");
                 result = false;
             }
@@ -86,7 +127,7 @@ public class RelativeFileSet {
     }
 
     public boolean contains(String requiredFile) {
-        if (files.contains(requiredFile)) {
+        if (includes(requiredFile)) {
             return true;
         } else {
             Log.debug("Runtime does not contain [" + requiredFile + "]");
@@ -99,7 +140,7 @@ public class RelativeFileSet {
     }
 
     public Set<String> getIncludedFiles() {
-        return files;
+        return files();
     }
 
     public Type getType() {
@@ -136,7 +177,7 @@ public class RelativeFileSet {
 
     @Override
     public String toString() {
-        return "RelativeFileSet{basedir:" + basedir + ", files:" + files + "}";
+        return "RelativeFileSet{basedir:" + basedir + ", files:" + files() + "}";
     }
 
 }
@@ -0,0 +1,331 @@
+/*
+ * Copyright (c) 2015, 2017, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+
+
+package com.sun.openjfx.tools.packager;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.ArrayDeque;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Bundler parameters which remember the values resolved by
+ * {@link BundlerParamInfo#fetchFrom(Map)}.
+ *
+ * Each parameter is converted from its string value, or gets its default
+ * value, at most once, even if the result is {@code null}.  While a value is
+ * resolved, the parameters it reads, with {@code fetchFrom}, {@code get} or
+ * {@code containsKey}, are recorded as its dependencies, and the parameters
+ * it writes are recorded as derived from it.  Writing a parameter, or
+ * {@link #invalidate(String) invalidating} it, forgets the resolved values
+ * depending on it, and removes the derived ones.
+ *
+ * A default value which also depends on something the parameters do not
+ * track, like the files it looks for, is marked with
+ * {@link #untracked(Map)}, as are the values resolved from it.  A
+ * {@code null} result of such a default is not remembered, the default is
+ * invoked again when the parameter is fetched, like with a plain map.
+ *
+ * The entries of the map are the values set by the user, the default values
+ * and the values written while resolving others, like in a plain map.  The
+ * values of internal parameters, whose id starts with a dot, are remembered
+ * but are not entries of the map.
+ *
+ * The state is held in persistent maps, so that {@link #fork()}, for a
+ * bundler or a launcher, takes constant time whatever the number and size of
+ * the parameters, and keeps the values resolved so far.  Writes to a fork
+ * are not seen by the parameters it was forked from, and the other way
+ * round.
+ */
+public final class ResolvedParams extends AbstractMap<String, Object> {
+
+    // marks resolved null values
+    private static final Object NULL = new Object();
+
+    private PersistentHashMap<String, Object> values = PersistentHashMap.empty();
+    private PersistentHashMap<String, Object> resolved = PersistentHashMap.empty();
+    // the values which are not set by the user, and removed when invalidated
+    private PersistentHashMap<String, Boolean> derived = PersistentHashMap.empty();
+    // id -> ids of the values resolved from it
+    private PersistentHashMap<String, PersistentHashMap<String, Boolean>> dependents = PersistentHashMap.empty();
+    // id -> ids it was resolved from
+    private PersistentHashMap<String, PersistentHashMap<String, Boolean>> dependencies = PersistentHashMap.empty();
+    // the values which depend on state the parameters do not track
+    private PersistentHashMap<String, Boolean> untracked = PersistentHashMap.empty();
+    private final Deque<String> resolving = new ArrayDeque<>();
+
+    public ResolvedParams() {
+    }
+
+    /**
+     * Creates parameters with the entries of the map.  A ResolvedParams map
+     * is {@link #fork() forked}.
+     */
+    public ResolvedParams(Map<String, ? super Object> params) {
+        if (params instanceof ResolvedParams) {
+            ResolvedParams other = (ResolvedParams) params;
+            synchronized (other) {
+                values = other.values;
+                resolved = other.resolved;
+                derived = other.derived;
+                dependents = other.dependents;
+                dependencies = other.dependencies;
+                untracked = other.untracked;
+            }
+        } else {
+            for (Map.Entry<String, ? super Object> entry : params.entrySet()) {
+                values = values.with(entry.getKey(), entry.getValue());
+            }
+        }
+    }
+
+    /**
+     * Returns a copy of the parameters, with the values resolved so far, in
+     * constant time.
+     */
+    public ResolvedParams fork() {
+        return new ResolvedParams(this);
+    }
+
+    @SuppressWarnings("unchecked")
+    synchronized <T> T resolve(BundlerParamInfo<T> param, boolean invokeDefault) {
+        String id = param.getID();
+        dependsOn(id);
+        Object value = resolved.get(id);
+        if (value != null) {
+            return value == NULL ? null : (T) value;
+        }
+
+        T result;
+        resolving.push(id);
+        try {
+            if (values.containsKey(id) && !isInternal(id)) {
+                result = param.convert(this);
+            } else if (invokeDefault && param.getDefaultValueFunction() != null) {
+                result = param.getDefaultValueFunction().apply(this);
+                if (result != null && !isInternal(id)) {
+                    values = values.with(id, result);
+                    derived = derived.with(id, Boolean.TRUE);
+                }
+            } else {
+                return null;
+            }
+        } finally {
+            resolving.pop();
+        }
+        // the value reading this one is untracked too
+        dependsOn(id);
+        if (result != null || !untracked.containsKey(id)) {
+            resolved = resolved.with(id, result == null ? NULL : result);
+        }
+        return result;
+    }
+
+    private static boolean isInternal(String id) {
+        return id.startsWith(".");
+    }
+
+    /**
+     * Records that the default value being resolved, if the params are
+     * resolved params, also depends on state they do not track.  A
+     * {@code null} result is then resolved again when fetched.
+     */
+    public static void untracked(Map<String, ? super Object> params) {
+        if (params instanceof ResolvedParams) {
+            ((ResolvedParams) params).markUntracked();
+        }
+    }
+
+    private synchronized void markUntracked() {
+        String current = resolving.peek();
+        if (current != null) {
+            untracked = untracked.with(current, Boolean.TRUE);
+        }
+    }
+
+    // records that the value being resolved, if any, reads the given one
+    private void dependsOn(String id) {
+        String current = resolving.peek();
+        if (current != null && !current.equals(id)) {
+            link(current, id);
+            if (untracked.containsKey(id)) {
+                untracked = untracked.with(current, Boolean.TRUE);
+            }
+        }
+    }
+
+    private void link(String id, String dependency) {
+        dependencies = dependencies.with(id, ids(dependencies, id).with(dependency, Boolean.TRUE));
+        dependents = dependents.with(dependency, ids(dependents, dependency).with(id, Boolean.TRUE));
+    }
+
+    private static PersistentHashMap<String, Boolean> ids(
+            PersistentHashMap<String, PersistentHashMap<String, Boolean>> graph, String id) {
+        PersistentHashMap<String, Boolean> ids = graph.get(id);
+        return ids == null ? PersistentHashMap.empty() : ids;
+    }
+
+    /**
+     * Returns the ids of the parameters the value of the given one was
+     * resolved from, as far as it is resolved.
+     */
+    public synchronized Set<String> getDependencies(String id) {
+        Set<String> ids = new HashSet<>();
+        for (Map.Entry<String, Boolean> entry : ids(dependencies, id)) {
+            ids.add(entry.getKey());
+        }
+        return Collections.unmodifiableSet(ids);
+    }
+
+    /**
+     * Returns whether the value of the parameter is resolved.
+     */
+    public synchronized boolean isResolved(String id) {
+        return resolved.containsKey(id);
+    }
+
+    /**
+     * Forgets the resolved value of the parameter, for example because a
+     * file it was read from changed, and the values depending on it.  Default
+     * and derived values are removed, and resolved again when fetched.
+     */
+    public synchronized void invalidate(String id) {
+        Deque<String> pending = new ArrayDeque<>();
+        Set<String> seen = new HashSet<>();
+        pending.push(id);
+        while (!pending.isEmpty()) {
+            String next = pending.pop();
+            // the values being resolved stay, they are completed with the new value
+            if (!seen.add(next) || resolving.contains(next)) {
+                continue;
+            }
+            resolved = resolved.without(next);
+            untracked = untracked.without(next);
+            if (derived.containsKey(next)) {
+                derived = derived.without(next);
+                values = values.without(next);
+            }
+            for (Map.Entry<String, Boolean> dependency : ids(dependencies, next)) {
+                PersistentHashMap<String, Boolean> others = ids(dependents, dependency.getKey()).without(next);
+                dependents = others.isEmpty() ? dependents.without(dependency.getKey()) :
+                        dependents.with(dependency.getKey(), others);
+            }
+            dependencies = dependencies.without(next);
+            for (Map.Entry<String, Boolean> dependent : ids(dependents, next)) {
+                pending.push(dependent.getKey());
+            }
+            dependents = dependents.without(next);
+        }
+    }
+
+    @Override
+    public synchronized Object get(Object key) {
+        if (key instanceof String) {
+            dependsOn((String) key);
+        }
+        return values.get(key);
+    }
+
+    @Override
+    public synchronized boolean containsKey(Object key) {
+        if (key instanceof String) {
+            dependsOn((String) key);
+        }
+        return values.containsKey(key);
+    }
+
+    /**
+     * Sets the value of the parameter, forgetting the values resolved from
+     * it.  A value written while another one is resolved is derived from it.
+     */
+    @Override
+    public synchronized Object put(String key, Object value) {
+        String current = resolving.peek();
+        boolean isDerived = current != null && !resolving.contains(key);
+        invalidate(key);
+        if (isDerived) {
+            derived = derived.with(key, Boolean.TRUE);
+            link(key, current);
+        } else if (current == null) {
+            derived = derived.without(key);
+        }
+        Object previous = values.get(key);
+        values = values.with(key, value);
+        return previous;
+    }
+
+    @Override
+    public synchronized Object remove(Object key) {
+        if (!(key instanceof String)) {
+            return null;
+        }
+        invalidate((String) key);
+        derived = derived.without(key);
+        Object previous = values.get(key);
+        values = values.without(key);
+        return previous;
+    }
+
+    @Override
+    public synchronized void clear() {
+        values = PersistentHashMap.empty();
+        resolved = PersistentHashMap.empty();
+        derived = PersistentHashMap.empty();
+        dependents = PersistentHashMap.empty();
+        dependencies = PersistentHashMap.empty();
+        untracked = PersistentHashMap.empty();
+    }
+
+    @Override
+    public synchronized int size() {
+        return values.size();
+    }
+
+    /**
+     * The entries at the time of the call, which can not be modified through
+     * the returned set.
+     */
+    @Override
+    public synchronized Set<Entry<String, Object>> entrySet() {
+        PersistentHashMap<String, Object> snapshot = values;
+        return new AbstractSet<Entry<String, Object>>() {
+            @Override
+            public Iterator<Entry<String, Object>> iterator() {
+                return snapshot.iterator();
+            }
+
+            @Override
+            public int size() {
+                return snapshot.size();
+            }
+        };
+    }
+}
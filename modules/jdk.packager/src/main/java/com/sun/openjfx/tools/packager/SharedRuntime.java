@@ -0,0 +1,198 @@
+/*
+ * Copyright (c) 2015, 2017, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+
+package com.sun.openjfx.tools.packager;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.module.Configuration;
+import java.lang.module.FindException;
+import java.lang.module.ModuleFinder;
+import java.lang.module.ResolutionException;
+import java.lang.module.ResolvedModule;
+import java.nio.file.Files;
+import java.text.MessageFormat;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import jdk.tools.jlink.internal.packager.AppRuntimeImageBuilder;
+
+/**
+ * Support for a runtime image that is installed once and shared by several
+ * packaged applications.  The runtime is created by a runtime bundler
+ * ({@code -native runtime}) and the application images point their launcher
+ * configuration at the location of the shared runtime instead of co-bundling
+ * their own copy.
+ */
+public final class SharedRuntime {
+
+    private static final String RELEASE_FILENAME = "release";
+    private static final String RELEASE_JAVA_VERSION = "JAVA_VERSION";
+    private static final String RELEASE_MODULES = "MODULES";
+
+    private SharedRuntime() {}
+
+    public static final BundlerParamInfo<String> SHARED_RUNTIME = new StandardBundlerParam<>(
+            "Shared Runtime",
+            "Location of the shared runtime on the target system.  If set the application image does not " +
+                    "co-bundle a runtime and the launcher uses the shared runtime instead.",
+            "sharedRuntime",
+            String.class,
+        p -> null,
+        (s, p) -> s);
+
+    public static final BundlerParamInfo<File> SHARED_RUNTIME_IMAGE = new StandardBundlerParam<>(
+            "Shared Runtime Image",
+            "Runtime image created by the runtime bundler that the application is checked against.  Defaults to " +
+                    "the shared runtime location if it exists on the packaging machine.",
+            "sharedRuntimeImage",
+            File.class,
+        p -> {
+            // the runtime bundler may create the image later
+            ResolvedParams.untracked(p);
+            String location = SHARED_RUNTIME.fetchFrom(p);
+            if (location != null && new File(location).isDirectory()) {
+                return new File(location);
+            }
+            return null;
+        },
+        (s, p) -> new File(s));
+
+    public static final BundlerParamInfo<String> RUNTIME_NAME = new StandardBundlerParam<>(
+            "Runtime Name",
+            "Name of the directory the runtime bundler creates the shared runtime image in.  Defaults to " +
+                    "\"runtime-\" followed by the Java version of the runtime.",
+            "runtime.name",
+            String.class,
+        p -> {
+            String version = JLinkBundlerHelper.getJDKVersion(p);
+            return version.isEmpty() ? "runtime" : "runtime-" + version;
+        },
+        (s, p) -> s);
+
+    public static boolean isShared(Map<String, ? super Object> params) {
+        return SHARED_RUNTIME.fetchFrom(params) != null;
+    }
+
+    // Reads the "release" file jlink writes to the root of a runtime image.
+    public static Map<String, String> readRelease(File runtimeImage) throws IOException {
+        Properties props = new Properties();
+
+        try (InputStream is = Files.newInputStream(new File(runtimeImage, RELEASE_FILENAME).toPath())) {
+            props.load(is);
+        }
+
+        Map<String, String> result = new HashMap<>();
+        for (String key : props.stringPropertyNames()) {
+            result.put(key, props.getProperty(key).replaceAll("^\"|\"$", ""));
+        }
+
+        return result;
+    }
+
+    /**
+     * Checks that the shared runtime provides all of the given modules and
+     * was created from the same Java release the application is packaged
+     * against.
+     */
+    public static void checkCompatibility(Map<String, ? super Object> params, Set<String> modules)
+            throws ConfigException {
+        File runtimeImage = SHARED_RUNTIME_IMAGE.fetchFrom(params);
+
+        if (runtimeImage == null) {
+            Log.info(MessageFormat.format("Shared runtime {0} is not available on this machine, the application " +
+                    "is not checked against it.", SHARED_RUNTIME.fetchFrom(params)));
+            return;
+        }
+
+        Map<String, String> release;
+        try {
+            release = readRelease(runtimeImage);
+        } catch (IOException e) {
+            throw new ConfigException(
+                    MessageFormat.format("The shared runtime \"{0}\" is not a runtime image.", runtimeImage),
+                    "Create the shared runtime with \"-native runtime\".");
+        }
+
+        Set<String> missing = resolveModules(params, modules);
+        missing.removeAll(Arrays.asList(release.getOrDefault(RELEASE_MODULES, "").trim().split("\\s+")));
+
+        if (!missing.isEmpty()) {
+            throw new ConfigException(
+                    MessageFormat.format("The shared runtime \"{0}\" is missing the modules {1}.",
+                            runtimeImage, missing.toString()),
+                    "Add the modules to the shared runtime.  Application modules are not linked into a shared " +
+                            "runtime, put them on the class path.");
+        }
+
+        String appVersion = JLinkBundlerHelper.getJDKVersion(params);
+        String runtimeVersion = release.getOrDefault(RELEASE_JAVA_VERSION, "");
+
+        if (!isCompatibleVersion(appVersion, runtimeVersion)) {
+            throw new ConfigException(
+                    MessageFormat.format("The shared runtime \"{0}\" is Java {1}, the application is packaged " +
+                            "against Java {2}.", runtimeImage, runtimeVersion, appVersion),
+                    "Package the application against the JDK the shared runtime was created from.");
+        }
+    }
+
+    // Adds the modules required by the given modules, as jlink would link
+    // them into the runtime image.
+    private static Set<String> resolveModules(Map<String, ? super Object> params, Set<String> modules) {
+        ModuleFinder finder = AppRuntimeImageBuilder.moduleFinder(StandardBundlerParam.MODULE_PATH.fetchFrom(params),
+                modules, StandardBundlerParam.LIMIT_MODULES.fetchFrom(params));
+
+        try {
+            return Configuration.empty().resolve(finder, ModuleFinder.of(), modules).modules().stream()
+                    .map(ResolvedModule::name)
+                    .collect(Collectors.toCollection(LinkedHashSet::new));
+        } catch (FindException | ResolutionException e) {
+            Log.debug(e);
+            return new LinkedHashSet<>(modules);
+        }
+    }
+
+    // A runtime is compatible if it is the same feature release and not older
+    // than the JDK the application is packaged against.
+    static boolean isCompatibleVersion(String appVersion, String runtimeVersion) {
+        if (appVersion.isEmpty()) {
+            return true;
+        }
+
+        try {
+            Runtime.Version app = Runtime.Version.parse(appVersion);
+            Runtime.Version runtime = Runtime.Version.parse(runtimeVersion);
+            return app.feature() == runtime.feature() && runtime.compareToIgnoreOptional(app) >= 0;
+        } catch (IllegalArgumentException e) {
+            return appVersion.equals(runtimeVersion);
+        }
+    }
+}
@@ -28,9 +28,16 @@ package com.sun.openjfx.tools.packager;
 import java.io.File;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Locale;
 
 public class SignJarParams extends CommonParams {
 
+    /** Signs the jars as BLOBs, in META-INF/SIGNATURE.BSF. */
+    public static final String FORMAT_BLOB = "blob";
+
+    /** Signs the jars the standard way, like jarsigner does. */
+    public static final String FORMAT_JAR = "jar";
+
     final List<PackagerResource> resources = new ArrayList<>();
 
     File keyStore;
@@ -39,11 +46,47 @@ public class SignJarParams extends CommonParams {
     String keyPass;
     String storeType = "jks";
     Boolean verbose = false;
+    int threads;
+    File cacheDir;
+    String format = FORMAT_BLOB;
+    String sigFile;
 
     public void setVerbose(boolean v) {
         verbose = v;
     }
 
+    /**
+     * The number of jars signed concurrently, all the available processors
+     * if not positive.
+     */
+    public void setThreads(int threads) {
+        this.threads = threads;
+    }
+
+    /**
+     * The directory the signed jars are kept in, so that unchanged jars are
+     * not signed again by later runs.  No jars are kept if {@code null}.
+     */
+    public void setCacheDir(File cacheDir) {
+        this.cacheDir = cacheDir;
+    }
+
+    /**
+     * The signature format, {@link #FORMAT_BLOB} by default or
+     * {@link #FORMAT_JAR}.
+     */
+    public void setFormat(String format) {
+        this.format = format;
+    }
+
+    /**
+     * The name of the signature files of the {@link #FORMAT_JAR jar} format,
+     * derived from the alias if {@code null}.
+     */
+    public void setSigFile(String sigFile) {
+        this.sigFile = sigFile;
+    }
+
     public void setAlias(String alias) {
         this.alias = alias;
     }
@@ -89,6 +132,16 @@ public class SignJarParams extends CommonParams {
         if (storeType == null) {
             storeType = "jks";
         }
+        if (format == null) {
+            format = FORMAT_BLOB;
+        }
+        if (!FORMAT_BLOB.equalsIgnoreCase(format) && !FORMAT_JAR.equalsIgnoreCase(format)) {
+            throw new PackagerException("Error: Invalid signature format: {0}", format);
+        }
+        if (sigFile != null && (sigFile.isEmpty() ||
+                !JarSignature.toSignatureFileName(sigFile).equals(sigFile.toUpperCase(Locale.ENGLISH)))) {
+            throw new PackagerException("Error: Invalid signature file name: {0}", sigFile);
+        }
 
         if (outdir != null) {
             outdir.mkdirs();
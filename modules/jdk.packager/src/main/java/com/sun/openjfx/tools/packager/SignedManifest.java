@@ -0,0 +1,178 @@
+/*
+ * Copyright (c) 2015, 2017, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+
+package com.sun.openjfx.tools.packager;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.jar.Attributes;
+import java.util.jar.Manifest;
+
+/**
+ * Writes the manifest and the signature file of a jar signed the standard
+ * way, with a digest of each entry in the manifest and a digest of each
+ * manifest section in the signature file.
+ *
+ * The manifest is written here rather than by {@link Manifest#write} so that
+ * the bytes of each section, which the signature file refers to, are known.
+ * Its lines are wrapped at 72 bytes like {@code Manifest} does.
+ */
+final class SignedManifest {
+
+    static final String DIGEST = "SHA-256";
+    static final String DIGEST_ATTRIBUTE = DIGEST + "-Digest";
+
+    private static final byte[] NEWLINE = {'\r', '\n'};
+    private static final int LINE_LENGTH = 72;
+
+    private final Manifest original;
+    private final List<String> names = new ArrayList<>();
+    private final List<String> digests = new ArrayList<>();
+
+    private byte[] manifest;
+    private final List<byte[]> sectionDigests = new ArrayList<>();
+    private byte[] mainDigest;
+
+    /**
+     * @param original the manifest of the unsigned jar, whose attributes are
+     *         kept, or {@code null}
+     */
+    SignedManifest(Manifest original) {
+        this.original = original != null ? original : new Manifest();
+    }
+
+    /**
+     * Adds an entry of the jar, with the base64 encoded digest of its data.
+     */
+    void addEntry(String name, String digest) {
+        names.add(name);
+        digests.add(digest);
+        manifest = null;
+    }
+
+    byte[] getManifest() throws NoSuchAlgorithmException {
+        if (manifest == null) {
+            build();
+        }
+        return manifest.clone();
+    }
+
+    /**
+     * Returns the signature file for the manifest.
+     */
+    byte[] getSignatureFile(String createdBy) throws NoSuchAlgorithmException {
+        if (manifest == null) {
+            build();
+        }
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        writeAttribute(out, Attributes.Name.SIGNATURE_VERSION.toString(), "1.0");
+        writeAttribute(out, DIGEST_ATTRIBUTE + "-Manifest-Main-Attributes", encode(mainDigest));
+        writeAttribute(out, DIGEST_ATTRIBUTE + "-Manifest", encode(MessageDigest.getInstance(DIGEST).digest(manifest)));
+        writeAttribute(out, "Created-By", createdBy);
+        out.write(NEWLINE, 0, NEWLINE.length);
+
+        for (int i = 0; i < names.size(); i++) {
+            writeAttribute(out, "Name", names.get(i));
+            writeAttribute(out, DIGEST_ATTRIBUTE, encode(sectionDigests.get(i)));
+            out.write(NEWLINE, 0, NEWLINE.length);
+        }
+        return out.toByteArray();
+    }
+
+    private void build() throws NoSuchAlgorithmException {
+        final MessageDigest md = MessageDigest.getInstance(DIGEST);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        sectionDigests.clear();
+
+        Attributes main = original.getMainAttributes();
+        String version = main.getValue(Attributes.Name.MANIFEST_VERSION);
+        writeAttribute(out, Attributes.Name.MANIFEST_VERSION.toString(), version != null ? version : "1.0");
+        for (Map.Entry<Object, Object> attribute : main.entrySet()) {
+            if (!Attributes.Name.MANIFEST_VERSION.equals(attribute.getKey())) {
+                writeAttribute(out, attribute.getKey().toString(), (String) attribute.getValue());
+            }
+        }
+        out.write(NEWLINE, 0, NEWLINE.length);
+        mainDigest = md.digest(out.toByteArray());
+
+        Map<String, Attributes> otherSections = new TreeMap<>(original.getEntries());
+        ByteArrayOutputStream section = new ByteArrayOutputStream();
+        for (int i = 0; i < names.size(); i++) {
+            String name = names.get(i);
+            section.reset();
+            writeAttribute(section, "Name", name);
+            Attributes attributes = otherSections.remove(name);
+            if (attributes != null) {
+                for (Map.Entry<Object, Object> attribute : attributes.entrySet()) {
+                    // the digests of earlier signatures are replaced
+                    if (!attribute.getKey().toString().endsWith("-Digest")) {
+                        writeAttribute(section, attribute.getKey().toString(), (String) attribute.getValue());
+                    }
+                }
+            }
+            writeAttribute(section, DIGEST_ATTRIBUTE, digests.get(i));
+            section.write(NEWLINE, 0, NEWLINE.length);
+            byte[] bytes = section.toByteArray();
+            sectionDigests.add(md.digest(bytes));
+            out.write(bytes, 0, bytes.length);
+        }
+
+        // sections which are not about an entry of the jar, such as packages
+        for (Map.Entry<String, Attributes> other : otherSections.entrySet()) {
+            writeAttribute(out, "Name", other.getKey());
+            for (Map.Entry<Object, Object> attribute : other.getValue().entrySet()) {
+                writeAttribute(out, attribute.getKey().toString(), (String) attribute.getValue());
+            }
+            out.write(NEWLINE, 0, NEWLINE.length);
+        }
+
+        manifest = out.toByteArray();
+    }
+
+    // "name: value", as lines of up to 72 bytes, continued with a space
+    private static void writeAttribute(ByteArrayOutputStream out, String name, String value) {
+        byte[] line = (name + ": " + value).getBytes(StandardCharsets.UTF_8);
+        int length = Math.min(line.length, LINE_LENGTH);
+        out.write(line, 0, length);
+        out.write(NEWLINE, 0, NEWLINE.length);
+        for (int i = length; i < line.length; i += LINE_LENGTH - 1) {
+            out.write(' ');
+            out.write(line, i, Math.min(line.length - i, LINE_LENGTH - 1));
+            out.write(NEWLINE, 0, NEWLINE.length);
+        }
+    }
+
+    static String encode(byte[] digest) {
+        return Base64.getEncoder().encodeToString(digest);
+    }
+}
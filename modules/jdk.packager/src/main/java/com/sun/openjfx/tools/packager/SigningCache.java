@@ -0,0 +1,199 @@
+/*
+ * Copyright (c) 2015, 2017, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+
+package com.sun.openjfx.tools.packager;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.cert.CertificateEncodingException;
+import java.security.cert.X509Certificate;
+import java.util.Properties;
+import java.util.zip.CRC32C;
+import java.util.zip.CheckedInputStream;
+
+/**
+ * Signed jars kept from previous runs of {@link PackagerLib#signJar}, so that
+ * a jar which has not changed since is copied rather than signed again.
+ *
+ * A signed jar is looked up by the digest of the unsigned jar, the
+ * fingerprint of the certificate chain and the signature algorithm.  Each
+ * entry is a {@code <key>.jar} file with a {@code <key>.properties} file
+ * holding the size and checksum of the signed jar, which are checked when
+ * the jar is copied out of the cache.  The checksum only detects entries
+ * modified by accident: the cache is as trusted as the output directory.
+ *
+ * Entries are written atomically, so the cache can be shared by concurrent
+ * builds, and can be deleted at any time.  The modification time of an entry
+ * is updated when it is used, for pruning the cache by age.
+ */
+final class SigningCache {
+
+    // change whenever the signed jars would be different
+    static final String BLOB_FORMAT = "BLOB-1";
+    static final String JAR_FORMAT = "JAR-1";
+
+    private static final String DIGEST = "SHA-256";
+    private static final String SIGNED_SIZE = "signed.size";
+    private static final String SIGNED_CRC32C = "signed.crc32c";
+
+    private final Path directory;
+    private final byte[] signerFingerprint;
+
+    /**
+     * @param format {@link #BLOB_FORMAT}, or {@link #JAR_FORMAT} followed by
+     *        anything else the signed jars depend on, such as the name of the
+     *        signature files
+     */
+    SigningCache(File directory, String format, X509Certificate[] certChain, String signatureAlgorithm)
+            throws IOException, NoSuchAlgorithmException, CertificateEncodingException {
+        this.directory = directory.toPath();
+        Files.createDirectories(this.directory);
+
+        MessageDigest md = MessageDigest.getInstance(DIGEST);
+        md.update(format.getBytes(StandardCharsets.UTF_8));
+        md.update((byte) 0);
+        md.update(signatureAlgorithm.getBytes(StandardCharsets.UTF_8));
+        md.update((byte) 0);
+        for (X509Certificate cert : certChain) {
+            md.update(MessageDigest.getInstance(DIGEST).digest(cert.getEncoded()));
+        }
+        signerFingerprint = md.digest();
+    }
+
+    /**
+     * Returns the key of the signed version of the jar.
+     */
+    String getKey(File jar) throws IOException, NoSuchAlgorithmException {
+        MessageDigest md = MessageDigest.getInstance(DIGEST);
+        md.update(signerFingerprint);
+        md.update(digest(jar.toPath()));
+        return toHex(md.digest());
+    }
+
+    /**
+     * Copies the signed jar with the key out of the cache.
+     *
+     * @return whether the cache has a valid signed jar for the key
+     */
+    boolean copyTo(String key, File signedJar) throws IOException {
+        Path cached = directory.resolve(key + ".jar");
+        Properties properties = new Properties();
+        try (Reader reader = Files.newBufferedReader(directory.resolve(key + ".properties"),
+                StandardCharsets.UTF_8)) {
+            properties.load(reader);
+        } catch (NoSuchFileException ex) {
+            return false;
+        }
+
+        CRC32C crc = new CRC32C();
+        long size;
+        try (InputStream in = new CheckedInputStream(Files.newInputStream(cached), crc);
+             OutputStream out = Files.newOutputStream(signedJar.toPath())) {
+            size = in.transferTo(out);
+        } catch (NoSuchFileException ex) {
+            return false;
+        }
+
+        if (!String.valueOf(size).equals(properties.getProperty(SIGNED_SIZE)) ||
+                !Long.toHexString(crc.getValue()).equals(properties.getProperty(SIGNED_CRC32C))) {
+            Log.verbose("Ignoring modified signing cache entry " + cached);
+            signedJar.delete();
+            return false;
+        }
+
+        Files.setLastModifiedTime(cached, FileTime.fromMillis(System.currentTimeMillis()));
+        return true;
+    }
+
+    /**
+     * Adds the signed jar to the cache, replacing any entry with the key.
+     */
+    void put(String key, File signedJar) throws IOException {
+        Path jar = Files.createTempFile(directory, key, ".jar.tmp");
+        Path metadata = Files.createTempFile(directory, key, ".properties.tmp");
+        try {
+            CRC32C crc = new CRC32C();
+            long size;
+            try (InputStream in = new CheckedInputStream(Files.newInputStream(signedJar.toPath()), crc);
+                 OutputStream out = Files.newOutputStream(jar)) {
+                size = in.transferTo(out);
+            }
+            Properties properties = new Properties();
+            properties.setProperty(SIGNED_SIZE, String.valueOf(size));
+            properties.setProperty(SIGNED_CRC32C, Long.toHexString(crc.getValue()));
+            try (Writer writer = Files.newBufferedWriter(metadata, StandardCharsets.UTF_8)) {
+                properties.store(writer, null);
+            }
+
+            // the jar first, an entry with an old jar fails its check
+            move(jar, directory.resolve(key + ".jar"));
+            move(metadata, directory.resolve(key + ".properties"));
+        } finally {
+            Files.deleteIfExists(jar);
+            Files.deleteIfExists(metadata);
+        }
+    }
+
+    private static void move(Path source, Path target) throws IOException {
+        try {
+            Files.move(source, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException ex) {
+            Files.move(source, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    private static byte[] digest(Path file) throws IOException, NoSuchAlgorithmException {
+        MessageDigest md = MessageDigest.getInstance(DIGEST);
+        byte[] buf = new byte[RawZipFile.BUFFER_SIZE];
+        try (InputStream in = Files.newInputStream(file)) {
+            int n;
+            while ((n = in.read(buf)) != -1) {
+                md.update(buf, 0, n);
+            }
+        }
+        return md.digest();
+    }
+
+    private static String toHex(byte[] bytes) {
+        StringBuilder sb = new StringBuilder(bytes.length * 2);
+        for (byte b : bytes) {
+            sb.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+        }
+        return sb.toString();
+    }
+}
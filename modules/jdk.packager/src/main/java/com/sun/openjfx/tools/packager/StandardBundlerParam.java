@@ -230,6 +230,21 @@ public class StandardBundlerParam<T> extends BundlerParamInfo<T> {
         },
         (s, p) -> Boolean.valueOf(s));
 
+    // Scans the application jars for the main class info once per ResolvedParams, the main
+    // class, jar and classpath found are derived from it.  The jars are scanned again until
+    // the main class is known, they may not be there yet.
+    private static final StandardBundlerParam<Boolean> MAIN_CLASS_INFO = new StandardBundlerParam<>(
+            "Main Class Info",
+            "Whether the application jars were scanned for the main class.",
+            ".main-class-info",
+            Boolean.class,
+        params -> {
+            ResolvedParams.untracked(params);
+            scanAppResourcesForMainClassInfo(params);
+            return params.containsKey(MAIN_CLASS.getID()) ? Boolean.TRUE : null;
+        },
+        null);
+
     @SuppressWarnings("unchecked")
     public static final StandardBundlerParam<List<String>> ARGUMENTS = new StandardBundlerParam<>(
             "Command Line Arguments",
@@ -517,11 +532,32 @@ public class StandardBundlerParam<T> extends BundlerParamInfo<T> {
     public static final StandardBundlerParam<String> APP_CDS_CACHE_MODE = new StandardBundlerParam<>(
             "AppCDS Cache Mode",
             "The mode in which the AppCDS .jpa files are generated and cached.  Current values are 'install', " +
-                    "'auto', and 'auto+install'.",
+                    "'auto', 'auto+install' and 'background'.  With 'background' the first launch starts the " +
+                    "application without the cache while it is generated in the background.",
             "commercial.AppCDS.cache",
             String.class,
         p -> "auto", (s, p) -> s);
 
+    public static final StandardBundlerParam<String> STARTUP_TRACE = new StandardBundlerParam<>(
+            "Startup Trace",
+            "Pass the startup timestamps of the launcher to the application as launcher.* system properties.  " +
+                    "Either \"true\" or the name of a trace file the timestamps and the JVM startup phases are " +
+                    "also written to, such as \"$APPDATADIR/startup.trace\".",
+            "app.startup.trace",
+            String.class,
+        p -> null,
+        (s, p) -> s);
+
+    public static final StandardBundlerParam<Integer> ACTIVATION_TIMEOUT = new StandardBundlerParam<>(
+            "Activation Server Timeout",
+            "Keep a JVM running in the background that runs the main class for every launch of the application, " +
+                    "until there was no launch for this many seconds.  -1 keeps it running, 0 disables it.  " +
+                    "The runtime must contain the com.brcolow.javapackager.services module.",
+            "app.activationTimeout",
+            Integer.class,
+        p -> 0,
+        (s, p) -> Integer.valueOf(s));
+
     @SuppressWarnings("unchecked")
     public static final StandardBundlerParam<List<String>> APP_CDS_CLASS_ROOTS = new StandardBundlerParam<>(
             "AppCDS Root Classes",
@@ -601,6 +637,14 @@ public class StandardBundlerParam<T> extends BundlerParamInfo<T> {
         params -> Boolean.FALSE, (s, p) -> Boolean.valueOf(s));
 
     private static void extractMainClassInfoFromAppResources(Map<String, ? super Object> params) {
+        if (params instanceof ResolvedParams) {
+            MAIN_CLASS_INFO.fetchFrom(params);
+        } else {
+            scanAppResourcesForMainClassInfo(params);
+        }
+    }
+
+    private static void scanAppResourcesForMainClassInfo(Map<String, ? super Object> params) {
         boolean hasMainClass = params.containsKey(MAIN_CLASS.getID());
         boolean hasMainJar = params.containsKey(MAIN_JAR.getID());
         boolean hasMainJarClassPath = params.containsKey(CLASSPATH.getID());
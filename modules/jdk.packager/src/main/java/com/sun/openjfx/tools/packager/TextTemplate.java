@@ -0,0 +1,327 @@
+/*
+ * Copyright (c) 2015, 2017, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+
+
+package com.sun.openjfx.tools.packager;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.StringWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.file.Files;
+import java.text.MessageFormat;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * A text resource of the bundlers, such as a control file or a launcher
+ * script, in which the keys of a map are replaced by their values.
+ *
+ * Templates are loaded from the module, or from a file of the drop-in
+ * resources root, and kept for later use; a file is loaded again when it is
+ * modified.  The number of templates kept is bounded, so that a long-lived
+ * process packaging many applications does not hold on to all of them.
+ *
+ * The text is split into literals and keys once for each set of keys it is
+ * rendered with, so rendering writes each part once in a single pass.  At
+ * each position the longest key wins, and values are written as they are,
+ * even if they contain keys.
+ */
+final class TextTemplate {
+
+    // root of the resources of the bundlers, in the module or on the class path
+    static final String RESOURCE_ROOT = "/com/sun/openjfx/tools/";
+
+    // the key sets a template is rendered with rarely vary, this only bounds the cache
+    private static final int MAX_COMPILED = 16;
+    // more than the templates of a bundler, fewer than those of many drop-in resource roots
+    private static final int MAX_TEMPLATES = 64;
+
+    private static final Map<String, TextTemplate> RESOURCES = new ConcurrentHashMap<>();
+    private static final Map<File, TextTemplate> FILES = new ConcurrentHashMap<>();
+
+    private final String text;
+    private final long lastModified;
+    private final long length;
+    private final Map<Set<String>, Compiled> compiled = new ConcurrentHashMap<>();
+
+    TextTemplate(String text) {
+        this(text, 0, 0);
+    }
+
+    private TextTemplate(String text, long lastModified, long length) {
+        this.text = text;
+        this.lastModified = lastModified;
+        this.length = length;
+    }
+
+    /**
+     * Opens a resource of the bundlers, such as
+     * {@code packager/linux/template.control}.
+     *
+     * @return the stream, or {@code null} if there is no such resource
+     */
+    static InputStream openResource(String name) {
+        return TextTemplate.class.getResourceAsStream(resourcePath(name));
+    }
+
+    private static String resourcePath(String name) {
+        return RESOURCE_ROOT + (name.startsWith("/") ? name.substring(1) : name);
+    }
+
+    private static boolean hasResource(String name) {
+        return RESOURCES.containsKey(name) || TextTemplate.class.getResource(resourcePath(name)) != null;
+    }
+
+    /**
+     * Resolves where a resource of the bundlers is loaded from: the file
+     * {@code publicName} of {@code publicRoot} if there is one, else the
+     * resource {@code publicName}, else {@code customFile}, else the resource
+     * {@code defaultName}.  The choice is logged if {@code verbose}.
+     *
+     * @return the source, or {@code null} if there is none
+     */
+    static Source resolve(String publicName, String category, String defaultName, File customFile,
+                          boolean verbose, File publicRoot) {
+        Source source = null;
+        if (publicName != null) {
+            if (publicRoot != null) {
+                File publicResource = new File(publicRoot, publicName);
+                if (publicResource.isFile()) {
+                    source = new Source(publicResource, null);
+                }
+            } else if (hasResource(publicName)) {
+                source = new Source(null, publicName);
+            }
+        }
+        boolean custom = source != null;
+        boolean fromCustomFile = false;
+        if (source == null && customFile != null && customFile.isFile()) {
+            source = new Source(customFile, null);
+            fromCustomFile = true;
+        }
+        if (source == null && defaultName != null && hasResource(defaultName)) {
+            source = new Source(null, defaultName);
+        }
+        if (verbose) {
+            String prefix = category == null ? "" : "[" + category + "] ";
+            if (custom) {
+                Log.info(MessageFormat.format("Using custom package resource {0} (loaded from {1})",
+                        prefix, publicName));
+            } else if (fromCustomFile) {
+                Log.info(MessageFormat.format("Using custom package resource {0} (loaded from file {1})",
+                        prefix, customFile.getAbsoluteFile()));
+            } else {
+                Log.info(MessageFormat.format(
+                        "Using default package resource {0} (add {1} to the class path to customize)",
+                        prefix, publicName));
+            }
+        }
+        return source;
+    }
+
+    /**
+     * Locates the template of a text resource, as resolved by
+     * {@link #resolve}.
+     *
+     * @throws RuntimeException if there is no resource {@code defaultName}
+     */
+    static TextTemplate locate(String publicName, String category, String defaultName, boolean verbose,
+                               File publicRoot) throws IOException {
+        Source source = resolve(publicName, category, defaultName, null, verbose, publicRoot);
+        TextTemplate template = source != null ? source.template() : null;
+        if (template == null) {
+            throw new RuntimeException("Module corrupt? No " + defaultName + " resource!");
+        }
+        return template;
+    }
+
+    /**
+     * @return the template of a resource of the bundlers, or {@code null} if
+     *         there is no such resource
+     */
+    static TextTemplate fromResource(String name) throws IOException {
+        TextTemplate template = RESOURCES.get(name);
+        if (template == null) {
+            try (InputStream is = openResource(name)) {
+                if (is == null) {
+                    return null;
+                }
+                template = new TextTemplate(new String(is.readAllBytes()));
+            }
+            keep(RESOURCES, name, template);
+        }
+        return template;
+    }
+
+    /**
+     * @return the template of a file, loaded again if the file was modified
+     *         since it was last loaded
+     */
+    static TextTemplate fromFile(File file) throws IOException {
+        File key = file.getAbsoluteFile();
+        long lastModified = key.lastModified();
+        long length = key.length();
+        TextTemplate template = FILES.get(key);
+        if (template == null || template.lastModified != lastModified || template.length != length) {
+            template = new TextTemplate(new String(Files.readAllBytes(key.toPath())), lastModified, length);
+            keep(FILES, key, template);
+        }
+        return template;
+    }
+
+    private static <K> void keep(Map<K, TextTemplate> cache, K key, TextTemplate template) {
+        if (cache.size() >= MAX_TEMPLATES && !cache.containsKey(key)) {
+            cache.clear();
+        }
+        cache.put(key, template);
+    }
+
+    /**
+     * Writes the text with each key of {@code pairs} replaced by its value.
+     * Keys with a {@code null} value are left as they are.
+     */
+    void render(Map<String, String> pairs, Writer out) throws IOException {
+        Compiled parts = compile(pairs);
+        out.write(parts.literals[0]);
+        for (int i = 0; i < parts.keys.length; i++) {
+            out.write(pairs.get(parts.keys[i]));
+            out.write(parts.literals[i + 1]);
+        }
+    }
+
+    String render(Map<String, String> pairs) {
+        StringWriter out = new StringWriter(text.length() + 256);
+        try {
+            render(pairs, out);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return out.toString();
+    }
+
+    private Compiled compile(Map<String, String> pairs) {
+        Set<String> keys = new HashSet<>();
+        for (Map.Entry<String, String> e : pairs.entrySet()) {
+            if (e.getValue() != null && !e.getKey().isEmpty()) {
+                keys.add(e.getKey());
+            }
+        }
+        Compiled parts = compiled.get(keys);
+        if (parts == null) {
+            parts = new Compiled(text, keys);
+            if (compiled.size() >= MAX_COMPILED) {
+                compiled.clear();
+            }
+            compiled.put(keys, parts);
+        }
+        return parts;
+    }
+
+    /**
+     * A resource of the bundlers as resolved, either a file or a resource of
+     * the module.
+     */
+    static final class Source {
+
+        final File file;
+        final String resource;
+
+        private Source(File file, String resource) {
+            this.file = file;
+            this.resource = resource;
+        }
+
+        InputStream open() throws IOException {
+            return file != null ? new FileInputStream(file) : openResource(resource);
+        }
+
+        TextTemplate template() throws IOException {
+            return file != null ? fromFile(file) : fromResource(resource);
+        }
+    }
+
+    /**
+     * The text split into literals and the keys found between them.
+     */
+    private static final class Compiled {
+
+        final String[] literals;
+        final String[] keys;
+
+        Compiled(String text, Set<String> keySet) {
+            // the keys starting with each character, longest first
+            Map<Character, String[]> byFirstChar = new HashMap<>();
+            for (String key : keySet) {
+                byFirstChar.merge(key.charAt(0), new String[] {key}, (a, b) -> {
+                    String[] merged = Arrays.copyOf(a, a.length + 1);
+                    merged[a.length] = b[0];
+                    return merged;
+                });
+            }
+            for (String[] candidates : byFirstChar.values()) {
+                Arrays.sort(candidates, Comparator.comparingInt(String::length).reversed());
+            }
+
+            List<String> literalList = new ArrayList<>();
+            List<String> keyList = new ArrayList<>();
+            int start = 0;
+            int i = 0;
+            while (i < text.length()) {
+                String match = null;
+                String[] candidates = byFirstChar.get(text.charAt(i));
+                if (candidates != null) {
+                    for (String key : candidates) {
+                        if (text.startsWith(key, i)) {
+                            match = key;
+                            break;
+                        }
+                    }
+                }
+                if (match == null) {
+                    i++;
+                } else {
+                    literalList.add(text.substring(start, i));
+                    keyList.add(match);
+                    i += match.length();
+                    start = i;
+                }
+            }
+            literalList.add(text.substring(start));
+            literals = literalList.toArray(new String[0]);
+            keys = keyList.toArray(new String[0]);
+        }
+    }
+}
@@ -0,0 +1,66 @@
+/*
+ * Copyright (c) 2011, 2017, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+
+package com.sun.openjfx.tools.packager;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+
+public class VerifyJarParams extends CommonParams {
+
+    final List<PackagerResource> resources = new ArrayList<>();
+
+    int threads;
+
+    public VerifyJarParams() {
+    }
+
+    /**
+     * The number of jars verified concurrently, all the available processors
+     * if not positive.
+     */
+    public void setThreads(int threads) {
+        this.threads = threads;
+    }
+
+    @Override
+    public void addResource(File baseDir, String path) {
+        resources.add(new PackagerResource(baseDir, path));
+    }
+
+    @Override
+    public void addResource(File baseDir, File file) {
+        resources.add(new PackagerResource(baseDir, file));
+    }
+
+    @Override
+    public void validate() throws PackagerException {
+        if (resources.isEmpty()) {
+            throw new PackagerException("Error: Missing argument: {0}", "srcdir");
+        }
+    }
+
+}
@@ -37,6 +37,7 @@ import com.sun.openjfx.tools.packager.JLinkBundlerHelper;
 import com.sun.openjfx.tools.packager.Log;
 import com.sun.openjfx.tools.packager.Platform;
 import com.sun.openjfx.tools.packager.RelativeFileSet;
+import com.sun.openjfx.tools.packager.SharedRuntime;
 import com.sun.openjfx.tools.packager.StandardBundlerParam;
 import com.sun.openjfx.tools.packager.bundlers.Bundler.BundleType;
 
@@ -216,6 +217,14 @@ public class BundleParams {
         putUnlessNull(JLinkBundlerHelper.DETECT_MODULES.getID(), value);
     }
 
+    public void setJLinkProfile(String value) {
+        putUnlessNull(JLinkBundlerHelper.JLINK_PROFILE.getID(), value);
+    }
+
+    public void setSharedRuntime(String value) {
+        putUnlessNull(SharedRuntime.SHARED_RUNTIME.getID(), value);
+    }
+
     public void setSrcDir(String value) {
         putUnlessNull(SOURCE_DIR.getID(), value);
     }
@@ -34,7 +34,8 @@ public final class Bundler {
         ALL,      // Generates all bundlers
         NATIVE,   // Generates both app image and all installers
         IMAGE,    // Generates app image only
-        INSTALLER // Generates installers
+        INSTALLER, // Generates installers
+        RUNTIME   // Generates a shared runtime image only
     }
 
     public static final class Bundle {
@@ -64,6 +65,9 @@ public final class Bundler {
                 case "installer":
                     result.type = BundleType.INSTALLER;
                     break;
+                case "runtime":
+                    result.type = BundleType.RUNTIME;
+                    break;
                 default:
                     // assume it is request to build only specific format (like exe or msi)
                     result.type = BundleType.INSTALLER;
@@ -30,16 +30,20 @@ import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.text.MessageFormat;
-import java.util.HashMap;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 
 import com.sun.openjfx.tools.packager.AbstractAppImageBuilder;
+import com.sun.openjfx.tools.packager.BinaryLauncherConfig;
 import com.sun.openjfx.tools.packager.BundlerParamInfo;
 import com.sun.openjfx.tools.packager.IOUtils;
+import com.sun.openjfx.tools.packager.LauncherPrefetch;
 import com.sun.openjfx.tools.packager.Log;
 import com.sun.openjfx.tools.packager.RelativeFileSet;
+import com.sun.openjfx.tools.packager.ResolvedParams;
+import com.sun.openjfx.tools.packager.SharedRuntime;
 import com.sun.openjfx.tools.packager.StandardBundlerParam;
 
 import static com.sun.openjfx.tools.packager.StandardBundlerParam.APP_FS_NAME;
@@ -83,10 +87,11 @@ public class LinuxAppImageBuilder extends AbstractAppImageBuilder {
         this.appDir = root.resolve("app");
         this.runtimeDir = root.resolve("runtime");
         this.resourcesDir = root.resolve("resources");
-        this.params = new HashMap<>();
-        config.forEach(params::put);
+        this.params = new ResolvedParams(config);
         Files.createDirectories(appDir);
-        Files.createDirectories(runtimeDir);
+        if (!SharedRuntime.isShared(params)) {
+            Files.createDirectories(runtimeDir);
+        }
         Files.createDirectories(resourcesDir);
     }
 
@@ -98,9 +103,14 @@ public class LinuxAppImageBuilder extends AbstractAppImageBuilder {
         return "app/" + APP_FS_NAME.fetchFrom(p) + ".cfg";
     }
 
+    @Override
+    public Path getImageRoot() {
+        return root;
+    }
+
     @Override
     public void prepareApplicationFiles() {
-        Map<String, ? super Object> originalParams = new HashMap<>(params);
+        ResolvedParams originalParams = new ResolvedParams(params);
 
         try {
             // create the primary launcher
@@ -110,15 +120,19 @@ public class LinuxAppImageBuilder extends AbstractAppImageBuilder {
             Files.copy(Paths.get("./build/generated-resources/com/sun/openjfx/tools/packager/linux/" + LIBRARY_NAME),
                     root.resolve(LIBRARY_NAME));
 
+            List<Map<String, ? super Object>> launchers = new ArrayList<>();
+            launchers.add(params);
+
             // create the secondary launchers, if any
             List<Map<String, ? super Object>> entryPoints = StandardBundlerParam.SECONDARY_LAUNCHERS.fetchFrom(params);
             for (Map<String, ? super Object> entryPoint : entryPoints) {
-                Map<String, ? super Object> tmp = new HashMap<>(originalParams);
+                Map<String, ? super Object> tmp = originalParams.fork();
                 tmp.putAll(entryPoint);
                 // remove name.fs that was calculated for main launcher.
                 // otherwise, wrong launcher name will be selected.
                 tmp.remove(APP_FS_NAME.getID());
                 createLauncherForEntryPoint(tmp);
+                launchers.add(tmp);
             }
 
             // Copy class path entries to Java folder
@@ -127,6 +141,13 @@ public class LinuxAppImageBuilder extends AbstractAppImageBuilder {
             // Copy icon to Resources folder
             copyIcon();
 
+            // The prefetch lists name the files of the finished image.
+            for (Map<String, ? super Object> launcher : launchers) {
+                if (LauncherPrefetch.PREFETCH.fetchFrom(launcher)) {
+                    LauncherPrefetch.write(launcher, root, getLauncherName(launcher));
+                }
+            }
+
         } catch (IOException ex) {
             Log.info("Exception: " + ex);
             Log.debug(ex);
@@ -142,7 +163,13 @@ public class LinuxAppImageBuilder extends AbstractAppImageBuilder {
         executableFile.toFile().setExecutable(true, false);
         executableFile.toFile().setWritable(true, true);
 
-        writeCfgFile(p, root.resolve(getLauncherCfgName(p)).toFile(), "$APPDIR/runtime");
+        String runtimeLocation = usesSharedRuntime() ? SharedRuntime.SHARED_RUNTIME.fetchFrom(p) : "$APPDIR/runtime";
+        File cfgFile = root.resolve(getLauncherCfgName(p)).toFile();
+        writeCfgFile(p, cfgFile, runtimeLocation);
+
+        if (BinaryLauncherConfig.BINARY_CONFIG.fetchFrom(p)) {
+            BinaryLauncherConfig.write(cfgFile);
+        }
     }
 
     private void copyIcon() throws IOException {
@@ -172,6 +199,11 @@ public class LinuxAppImageBuilder extends AbstractAppImageBuilder {
         }
     }
 
+    @Override
+    public boolean usesSharedRuntime() {
+        return SharedRuntime.isShared(params);
+    }
+
     @Override
     protected String getCacheLocation(Map<String, ? super Object> params) {
         return "$CACHEDIR/";
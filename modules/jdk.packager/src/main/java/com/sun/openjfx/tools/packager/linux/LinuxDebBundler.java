@@ -549,16 +549,17 @@ public class LinuxDebBundler extends AbstractBundler {
             secondaryLauncherData.put("DESKTOP_MIMES", "");
 
             // prepare desktop shortcut
-            Writer w = new BufferedWriter(new FileWriter(getConfig_DesktopShortcutFile(rootDir, secondaryLauncher)));
-            String content = preprocessTextResource(LinuxAppBundler.LINUX_BUNDLER_PREFIX +
-                            getConfig_DesktopShortcutFile(rootDir, secondaryLauncher).getName(),
-                    "Menu shortcut descriptor",
-                    DEFAULT_DESKTOP_FILE_TEMPLATE,
-                    secondaryLauncherData,
-                    VERBOSE.fetchFrom(params),
-                    DROP_IN_RESOURCES_ROOT.fetchFrom(params));
-            w.write(content);
-            w.close();
+            try (Writer w = new BufferedWriter(
+                    new FileWriter(getConfig_DesktopShortcutFile(rootDir, secondaryLauncher)))) {
+                preprocessTextResource(LinuxAppBundler.LINUX_BUNDLER_PREFIX +
+                                getConfig_DesktopShortcutFile(rootDir, secondaryLauncher).getName(),
+                        "Menu shortcut descriptor",
+                        DEFAULT_DESKTOP_FILE_TEMPLATE,
+                        secondaryLauncherData,
+                        VERBOSE.fetchFrom(params),
+                        DROP_IN_RESOURCES_ROOT.fetchFrom(params),
+                        w);
+            }
 
             // prepare installer icon
             iconTarget = getConfig_IconFile(rootDir, secondaryLauncher);
@@ -729,100 +730,100 @@ public class LinuxDebBundler extends AbstractBundler {
         }
 
         // prepare desktop shortcut
-        Writer writer = new BufferedWriter(new FileWriter(getConfig_DesktopShortcutFile(rootDir, params)));
-        String content = preprocessTextResource(
-                LinuxAppBundler.LINUX_BUNDLER_PREFIX + getConfig_DesktopShortcutFile(rootDir, params).getName(),
-                "Menu shortcut descriptor",
-                DEFAULT_DESKTOP_FILE_TEMPLATE,
-                data,
-                VERBOSE.fetchFrom(params),
-                DROP_IN_RESOURCES_ROOT.fetchFrom(params));
-        writer.write(content);
-        writer.close();
+        try (Writer writer = new BufferedWriter(new FileWriter(getConfig_DesktopShortcutFile(rootDir, params)))) {
+            preprocessTextResource(
+                    LinuxAppBundler.LINUX_BUNDLER_PREFIX + getConfig_DesktopShortcutFile(rootDir, params).getName(),
+                    "Menu shortcut descriptor",
+                    DEFAULT_DESKTOP_FILE_TEMPLATE,
+                    data,
+                    VERBOSE.fetchFrom(params),
+                    DROP_IN_RESOURCES_ROOT.fetchFrom(params),
+                    writer);
+        }
 
         // prepare control file
-        writer = new BufferedWriter(new FileWriter(getConfig_ControlFile(params)));
-        content = preprocessTextResource(
-                LinuxAppBundler.LINUX_BUNDLER_PREFIX + getConfig_ControlFile(params).getName(),
-                "DEB control file",
-                DEFAULT_CONTROL_TEMPLATE,
-                data,
-                VERBOSE.fetchFrom(params),
-                DROP_IN_RESOURCES_ROOT.fetchFrom(params));
-        writer.write(content);
-        writer.close();
-
-        writer = new BufferedWriter(new FileWriter(getConfig_PreinstallFile(params)));
-        content = preprocessTextResource(
-                LinuxAppBundler.LINUX_BUNDLER_PREFIX + getConfig_PreinstallFile(params).getName(),
-                "DEB preinstall script",
-                DEFAULT_PREINSTALL_TEMPLATE,
-                data,
-                VERBOSE.fetchFrom(params),
-                DROP_IN_RESOURCES_ROOT.fetchFrom(params));
-        writer.write(content);
-        writer.close();
+        try (Writer writer = new BufferedWriter(new FileWriter(getConfig_ControlFile(params)))) {
+            preprocessTextResource(
+                    LinuxAppBundler.LINUX_BUNDLER_PREFIX + getConfig_ControlFile(params).getName(),
+                    "DEB control file",
+                    DEFAULT_CONTROL_TEMPLATE,
+                    data,
+                    VERBOSE.fetchFrom(params),
+                    DROP_IN_RESOURCES_ROOT.fetchFrom(params),
+                    writer);
+        }
+
+        try (Writer writer = new BufferedWriter(new FileWriter(getConfig_PreinstallFile(params)))) {
+            preprocessTextResource(
+                    LinuxAppBundler.LINUX_BUNDLER_PREFIX + getConfig_PreinstallFile(params).getName(),
+                    "DEB preinstall script",
+                    DEFAULT_PREINSTALL_TEMPLATE,
+                    data,
+                    VERBOSE.fetchFrom(params),
+                    DROP_IN_RESOURCES_ROOT.fetchFrom(params),
+                    writer);
+        }
         setPermissions(getConfig_PreinstallFile(params), "rwxr-xr-x");
 
-        writer = new BufferedWriter(new FileWriter(getConfig_PrermFile(params)));
-        content = preprocessTextResource(
-                LinuxAppBundler.LINUX_BUNDLER_PREFIX + getConfig_PrermFile(params).getName(),
-                "DEB prerm script",
-                DEFAULT_PRERM_TEMPLATE,
-                data,
-                VERBOSE.fetchFrom(params),
-                DROP_IN_RESOURCES_ROOT.fetchFrom(params));
-        writer.write(content);
-        writer.close();
+        try (Writer writer = new BufferedWriter(new FileWriter(getConfig_PrermFile(params)))) {
+            preprocessTextResource(
+                    LinuxAppBundler.LINUX_BUNDLER_PREFIX + getConfig_PrermFile(params).getName(),
+                    "DEB prerm script",
+                    DEFAULT_PRERM_TEMPLATE,
+                    data,
+                    VERBOSE.fetchFrom(params),
+                    DROP_IN_RESOURCES_ROOT.fetchFrom(params),
+                    writer);
+        }
         setPermissions(getConfig_PrermFile(params), "rwxr-xr-x");
 
-        writer = new BufferedWriter(new FileWriter(getConfig_PostinstallFile(params)));
-        content = preprocessTextResource(
-                LinuxAppBundler.LINUX_BUNDLER_PREFIX + getConfig_PostinstallFile(params).getName(),
-                "DEB postinstall script",
-                DEFAULT_POSTINSTALL_TEMPLATE,
-                data,
-                VERBOSE.fetchFrom(params),
-                DROP_IN_RESOURCES_ROOT.fetchFrom(params));
-        writer.write(content);
-        writer.close();
+        try (Writer writer = new BufferedWriter(new FileWriter(getConfig_PostinstallFile(params)))) {
+            preprocessTextResource(
+                    LinuxAppBundler.LINUX_BUNDLER_PREFIX + getConfig_PostinstallFile(params).getName(),
+                    "DEB postinstall script",
+                    DEFAULT_POSTINSTALL_TEMPLATE,
+                    data,
+                    VERBOSE.fetchFrom(params),
+                    DROP_IN_RESOURCES_ROOT.fetchFrom(params),
+                    writer);
+        }
         setPermissions(getConfig_PostinstallFile(params), "rwxr-xr-x");
 
-        writer = new BufferedWriter(new FileWriter(getConfig_PostrmFile(params)));
-        content = preprocessTextResource(
-                LinuxAppBundler.LINUX_BUNDLER_PREFIX + getConfig_PostrmFile(params).getName(),
-                "DEB postrm script",
-                DEFAULT_POSTRM_TEMPLATE,
-                data,
-                VERBOSE.fetchFrom(params),
-                DROP_IN_RESOURCES_ROOT.fetchFrom(params));
-        writer.write(content);
-        writer.close();
+        try (Writer writer = new BufferedWriter(new FileWriter(getConfig_PostrmFile(params)))) {
+            preprocessTextResource(
+                    LinuxAppBundler.LINUX_BUNDLER_PREFIX + getConfig_PostrmFile(params).getName(),
+                    "DEB postrm script",
+                    DEFAULT_POSTRM_TEMPLATE,
+                    data,
+                    VERBOSE.fetchFrom(params),
+                    DROP_IN_RESOURCES_ROOT.fetchFrom(params),
+                    writer);
+        }
         setPermissions(getConfig_PostrmFile(params), "rwxr-xr-x");
 
-        writer = new BufferedWriter(new FileWriter(getConfig_CopyrightFile(params)));
-        content = preprocessTextResource(
-                LinuxAppBundler.LINUX_BUNDLER_PREFIX + getConfig_CopyrightFile(params).getName(),
-                "DEB copyright file",
-                DEFAULT_COPYRIGHT_TEMPLATE,
-                data,
-                VERBOSE.fetchFrom(params),
-                DROP_IN_RESOURCES_ROOT.fetchFrom(params));
-        writer.write(content);
-        writer.close();
+        try (Writer writer = new BufferedWriter(new FileWriter(getConfig_CopyrightFile(params)))) {
+            preprocessTextResource(
+                    LinuxAppBundler.LINUX_BUNDLER_PREFIX + getConfig_CopyrightFile(params).getName(),
+                    "DEB copyright file",
+                    DEFAULT_COPYRIGHT_TEMPLATE,
+                    data,
+                    VERBOSE.fetchFrom(params),
+                    DROP_IN_RESOURCES_ROOT.fetchFrom(params),
+                    writer);
+        }
 
         if (SERVICE_HINT.fetchFrom(params)) {
             //prepare init script
-            writer = new BufferedWriter(new FileWriter(getConfig_InitScriptFile(params)));
-            content = preprocessTextResource(
-                    LinuxAppBundler.LINUX_BUNDLER_PREFIX + getConfig_InitScriptFile(params).getName(),
-                    "DEB init script",
-                    DEFAULT_INIT_SCRIPT_TEMPLATE,
-                    data,
-                    VERBOSE.fetchFrom(params),
-                    DROP_IN_RESOURCES_ROOT.fetchFrom(params));
-            writer.write(content);
-            writer.close();
+            try (Writer writer = new BufferedWriter(new FileWriter(getConfig_InitScriptFile(params)))) {
+                preprocessTextResource(
+                        LinuxAppBundler.LINUX_BUNDLER_PREFIX + getConfig_InitScriptFile(params).getName(),
+                        "DEB init script",
+                        DEFAULT_INIT_SCRIPT_TEMPLATE,
+                        data,
+                        VERBOSE.fetchFrom(params),
+                        DROP_IN_RESOURCES_ROOT.fetchFrom(params),
+                        writer);
+            }
             setPermissions(getConfig_InitScriptFile(params), "rwxr-xr-x");
         }
 
@@ -438,14 +438,15 @@ public class LinuxRpmBundler extends AbstractBundler {
             secondaryLauncherData.put("DESKTOP_MIMES", "");
 
             // prepare desktop shortcut
-            Writer w = new BufferedWriter(new FileWriter(getConfig_DesktopShortcutFile(rootDir, secondaryLauncher)));
-            String content = preprocessTextResource(LinuxAppBundler.LINUX_BUNDLER_PREFIX +
-                            getConfig_DesktopShortcutFile(rootDir, secondaryLauncher).getName(),
-                    "Menu shortcut descriptor", DEFAULT_DESKTOP_FILE_TEMPLATE, secondaryLauncherData,
-                    VERBOSE.fetchFrom(params),
-                    DROP_IN_RESOURCES_ROOT.fetchFrom(params));
-            w.write(content);
-            w.close();
+            try (Writer w = new BufferedWriter(
+                    new FileWriter(getConfig_DesktopShortcutFile(rootDir, secondaryLauncher)))) {
+                preprocessTextResource(LinuxAppBundler.LINUX_BUNDLER_PREFIX +
+                                getConfig_DesktopShortcutFile(rootDir, secondaryLauncher).getName(),
+                        "Menu shortcut descriptor", DEFAULT_DESKTOP_FILE_TEMPLATE, secondaryLauncherData,
+                        VERBOSE.fetchFrom(params),
+                        DROP_IN_RESOURCES_ROOT.fetchFrom(params),
+                        w);
+            }
 
             // prepare installer icon
             iconTarget = getConfig_IconFile(rootDir, secondaryLauncher);
@@ -616,37 +617,37 @@ public class LinuxRpmBundler extends AbstractBundler {
             }
         }
         //prepare desktop shortcut
-        Writer w = new BufferedWriter(new FileWriter(getConfig_DesktopShortcutFile(rootDir, params)));
-        String content = preprocessTextResource(
-                LinuxAppBundler.LINUX_BUNDLER_PREFIX + getConfig_DesktopShortcutFile(rootDir, params).getName(),
-                "Menu shortcut descriptor", DEFAULT_DESKTOP_FILE_TEMPLATE, data,
-                VERBOSE.fetchFrom(params),
-                DROP_IN_RESOURCES_ROOT.fetchFrom(params));
-        w.write(content);
-        w.close();
+        try (Writer w = new BufferedWriter(new FileWriter(getConfig_DesktopShortcutFile(rootDir, params)))) {
+            preprocessTextResource(
+                    LinuxAppBundler.LINUX_BUNDLER_PREFIX + getConfig_DesktopShortcutFile(rootDir, params).getName(),
+                    "Menu shortcut descriptor", DEFAULT_DESKTOP_FILE_TEMPLATE, data,
+                    VERBOSE.fetchFrom(params),
+                    DROP_IN_RESOURCES_ROOT.fetchFrom(params),
+                    w);
+        }
 
         //prepare spec file
-        w = new BufferedWriter(new FileWriter(getConfig_SpecFile(params)));
-        content = preprocessTextResource(
-                LinuxAppBundler.LINUX_BUNDLER_PREFIX + getConfig_SpecFile(params).getName(),
-                "RPM spec file", DEFAULT_SPEC_TEMPLATE, data,
-                VERBOSE.fetchFrom(params),
-                DROP_IN_RESOURCES_ROOT.fetchFrom(params));
-        w.write(content);
-        w.close();
+        try (Writer w = new BufferedWriter(new FileWriter(getConfig_SpecFile(params)))) {
+            preprocessTextResource(
+                    LinuxAppBundler.LINUX_BUNDLER_PREFIX + getConfig_SpecFile(params).getName(),
+                    "RPM spec file", DEFAULT_SPEC_TEMPLATE, data,
+                    VERBOSE.fetchFrom(params),
+                    DROP_IN_RESOURCES_ROOT.fetchFrom(params),
+                    w);
+        }
 
         if (SERVICE_HINT.fetchFrom(params)) {
             //prepare init script
-            w = new BufferedWriter(new FileWriter(getConfig_InitScriptFile(params)));
-            content = preprocessTextResource(
-                    LinuxAppBundler.LINUX_BUNDLER_PREFIX + getConfig_InitScriptFile(params).getName(),
-                    "RPM init script",
-                    DEFAULT_INIT_SCRIPT_TEMPLATE,
-                    data,
-                    VERBOSE.fetchFrom(params),
-                    DROP_IN_RESOURCES_ROOT.fetchFrom(params));
-            w.write(content);
-            w.close();
+            try (Writer w = new BufferedWriter(new FileWriter(getConfig_InitScriptFile(params)))) {
+                preprocessTextResource(
+                        LinuxAppBundler.LINUX_BUNDLER_PREFIX + getConfig_InitScriptFile(params).getName(),
+                        "RPM init script",
+                        DEFAULT_INIT_SCRIPT_TEMPLATE,
+                        data,
+                        VERBOSE.fetchFrom(params),
+                        DROP_IN_RESOURCES_ROOT.fetchFrom(params),
+                        w);
+            }
             setPermissions(getConfig_InitScriptFile(params), "rwxr-xr-x");
         }
 
@@ -0,0 +1,145 @@
+/*
+ * Copyright (c) 2017, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+
+package com.sun.openjfx.tools.packager.linux;
+
+import java.io.File;
+import java.nio.file.Path;
+import java.text.MessageFormat;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Map;
+
+import com.sun.openjfx.tools.packager.AbstractAppImageBuilder;
+import com.sun.openjfx.tools.packager.AbstractBundler;
+import com.sun.openjfx.tools.packager.BundlerParamInfo;
+import com.sun.openjfx.tools.packager.ConfigException;
+import com.sun.openjfx.tools.packager.IOUtils;
+import com.sun.openjfx.tools.packager.ImageSizeReport;
+import com.sun.openjfx.tools.packager.JLinkBundlerHelper;
+import com.sun.openjfx.tools.packager.Log;
+import com.sun.openjfx.tools.packager.Platform;
+import com.sun.openjfx.tools.packager.SharedRuntime;
+import com.sun.openjfx.tools.packager.StandardBundlerParam;
+import com.sun.openjfx.tools.packager.UnsupportedPlatformException;
+
+/**
+ * Creates a versioned runtime image that is installed once and used by the
+ * application images packaged with the {@code sharedRuntime} parameter.
+ */
+public class LinuxRuntimeBundler extends AbstractBundler {
+
+    @Override
+    public boolean validate(Map<String, ? super Object> p) throws UnsupportedPlatformException, ConfigException {
+        if (p == null) {
+            throw new ConfigException("Parameters map is null.", "Pass in a non-null parameters map.");
+        }
+
+        if (Platform.getPlatform() != Platform.LINUX) {
+            throw new UnsupportedPlatformException();
+        }
+
+        JLinkBundlerHelper.validateJLinkParams(p);
+        ImageSizeReport.validate(p);
+
+        if (JLinkBundlerHelper.findPathOfModule(StandardBundlerParam.MODULE_PATH.fetchFrom(p),
+                "java.base.jmod") == null) {
+            throw new ConfigException("The module path does not contain the JDK modules.",
+                    "Add the jmods directory of the JDK to the module path.");
+        }
+
+        return true;
+    }
+
+    @Override
+    public File execute(Map<String, ? super Object> params, File outputParentDir) {
+        try {
+            if (!outputParentDir.isDirectory() && !outputParentDir.mkdirs()) {
+                throw new RuntimeException(MessageFormat.format("Output directory {0} cannot be created.",
+                        outputParentDir.getAbsolutePath()));
+            }
+
+            File runtimeDirectory = new File(outputParentDir, SharedRuntime.RUNTIME_NAME.fetchFrom(params));
+            IOUtils.deleteRecursive(runtimeDirectory);
+
+            Log.info(MessageFormat.format("Creating shared runtime: {0}", runtimeDirectory.getAbsolutePath()));
+
+            JLinkBundlerHelper.executeRuntime(params, new RuntimeImageBuilder(params, runtimeDirectory.toPath()));
+
+            return runtimeDirectory;
+        } catch (Exception ex) {
+            Log.info("Exception: " + ex);
+            Log.debug(ex);
+            return null;
+        }
+    }
+
+    @Override
+    public String getName() {
+        return "Linux Shared Runtime Image";
+    }
+
+    @Override
+    public String getDescription() {
+        return "A directory based runtime image that is shared by several linux Application images.";
+    }
+
+    @Override
+    public String getID() {
+        return "linux.runtime";
+    }
+
+    @Override
+    public String getBundleType() {
+        return "RUNTIME";
+    }
+
+    @Override
+    public Collection<BundlerParamInfo<?>> getBundleParameters() {
+        return Arrays.asList(StandardBundlerParam.ADD_MODULES,
+                StandardBundlerParam.LIMIT_MODULES,
+                StandardBundlerParam.MODULE_PATH,
+                StandardBundlerParam.STRIP_NATIVE_COMMANDS,
+                JLinkBundlerHelper.JLINK_PROFILE,
+                SharedRuntime.RUNTIME_NAME);
+    }
+
+    private static class RuntimeImageBuilder extends AbstractAppImageBuilder {
+
+        RuntimeImageBuilder(Map<String, Object> properties, Path root) {
+            super(properties, root);
+        }
+
+        @Override
+        public void prepareApplicationFiles() {
+            // a runtime image has no application files
+        }
+
+        @Override
+        protected String getCacheLocation(Map<String, ? super Object> params) {
+            return "$CACHEDIR/";
+        }
+    }
+}
@@ -302,6 +302,11 @@ public class MacAppImageBuilder extends AbstractAppImageBuilder {
         return true;
     }
 
+    @Override
+    public Path getImageRoot() {
+        return root;
+    }
+
     @Override
     public void prepareApplicationFiles() throws IOException {
         File file;
@@ -32,7 +32,6 @@ import java.io.FileWriter;
 import java.io.IOException;
 import java.io.PrintStream;
 import java.io.Writer;
-import java.nio.file.Paths;
 import java.text.MessageFormat;
 import java.util.Arrays;
 import java.util.Collection;
@@ -761,10 +760,7 @@ public class WinExeBundler extends AbstractBundler {
 
         // run candle
         ProcessBuilder pb = new ProcessBuilder(TOOL_INNO_SETUP_COMPILER_EXECUTABLE.fetchFrom(params),
-                "/o" + outdir.getAbsolutePath(), getConfig_ExeProjectFile(params).exists() ?
-                getConfig_ExeProjectFile(params).getAbsolutePath() :
-                Paths.get("./src/main/resources/com/sun/openjfx/tools/ " + DEFAULT_EXE_PROJECT_TEMPLATE)
-                        .toAbsolutePath().toString());
+                "/o" + outdir.getAbsolutePath(), getConfig_ExeProjectFile(params).getAbsolutePath());
         pb.directory(EXE_IMAGE_DIR.fetchFrom(params));
         IOUtils.exec(pb, VERBOSE.fetchFrom(params));
 
@@ -47,6 +47,7 @@ import com.sun.openjfx.tools.packager.BundlerParamInfo;
 import com.sun.openjfx.tools.packager.IOUtils;
 import com.sun.openjfx.tools.packager.Log;
 import com.sun.openjfx.tools.packager.RelativeFileSet;
+import com.sun.openjfx.tools.packager.ResolvedParams;
 import com.sun.openjfx.tools.packager.StandardBundlerParam;
 
 import static com.sun.openjfx.tools.packager.StandardBundlerParam.APP_FS_NAME;
@@ -153,9 +154,14 @@ public class WindowsAppImageBuilder extends AbstractAppImageBuilder {
         getConfig_ExecutableProperties(params).delete();
     }
 
+    @Override
+    public Path getImageRoot() {
+        return root;
+    }
+
     @Override
     public void prepareApplicationFiles() {
-        Map<String, ? super Object> originalParams = new HashMap<>(params);
+        ResolvedParams originalParams = new ResolvedParams(params);
         File rootFile = root.toFile();
         if (!rootFile.isDirectory() && !rootFile.mkdirs()) {
             throw new RuntimeException(MessageFormat.format("Output directory {0} cannot be created.",
@@ -180,7 +186,7 @@ public class WindowsAppImageBuilder extends AbstractAppImageBuilder {
             // create the secondary launchers, if any
             List<Map<String, ? super Object>> entryPoints = StandardBundlerParam.SECONDARY_LAUNCHERS.fetchFrom(params);
             for (Map<String, ? super Object> entryPoint : entryPoints) {
-                Map<String, ? super Object> tmp = new HashMap<>(originalParams);
+                Map<String, ? super Object> tmp = originalParams.fork();
                 tmp.putAll(entryPoint);
                 createLauncherForEntryPoint(tmp);
             }
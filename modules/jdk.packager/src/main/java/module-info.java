@@ -59,6 +59,7 @@ module com.brcolow.javapackager {
             com.sun.openjfx.tools.packager.linux.LinuxAppBundler,
             com.sun.openjfx.tools.packager.linux.LinuxDebBundler,
             com.sun.openjfx.tools.packager.linux.LinuxRpmBundler,
+            com.sun.openjfx.tools.packager.linux.LinuxRuntimeBundler,
             com.sun.openjfx.tools.packager.mac.MacAppBundler,
             com.sun.openjfx.tools.packager.mac.MacAppStoreBundler,
             com.sun.openjfx.tools.packager.mac.MacDaemonBundler,
@@ -0,0 +1,311 @@
+/*
+ * Copyright (c) 2018, Oracle and/or its affiliates.
+ * All rights reserved. Use is subject to license terms.
+ *
+ * This file is available and licensed under the following license:
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *  - Redistributions of source code must retain the above copyright
+ *    notice, this list of conditions and the following disclaimer.
+ *  - Redistributions in binary form must reproduce the above copyright
+ *    notice, this list of conditions and the following disclaimer in
+ *    the documentation and/or other materials provided with the distribution.
+ *  - Neither the name of Oracle Corporation nor the names of its
+ *    contributors may be used to endorse or promote products derived
+ *    from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+#include "ActivationClient.h"
+#include "FilePath.h"
+
+#ifdef POSIX
+
+#include <errno.h>
+#include <limits.h>
+#include <string.h>
+#include <stdlib.h>
+#include <unistd.h>
+#include <arpa/inet.h>
+#include <netinet/in.h>
+#include <sys/socket.h>
+#include <sys/un.h>
+
+#define ACTIVATION_ID_PREFIX "javapackager.activation."
+#define ACTIVATION_BUFFER_SIZE 65536
+
+#define FRAME_ACCEPTED 'A'
+#define FRAME_OUT 'O'
+#define FRAME_ERR 'E'
+#define FRAME_INPUT_REQUEST 'I'
+#define FRAME_INPUT 'i'
+#define FRAME_EXIT 'X'
+
+#ifdef MSG_NOSIGNAL
+#define SEND_FLAGS MSG_NOSIGNAL
+#else
+#define SEND_FLAGS 0
+#endif //MSG_NOSIGNAL
+
+extern char** environ;
+
+
+ActivationClient::ActivationClient(void) {
+    FSocket = -1;
+}
+
+ActivationClient::~ActivationClient(void) {
+    if (FSocket != -1) {
+        close(FSocket);
+    }
+}
+
+TString ActivationClient::GetFileName(TString AppID) {
+    Platform& platform = Platform::GetInstance();
+    TString tmpDir = platform.GetTempDirectory();
+
+    if (tmpDir.empty() == true) {
+        return tmpDir;
+    }
+
+    // Same as the file names of the single instance service.
+    TString name = TString(_T(ACTIVATION_ID_PREFIX)) + AppID;
+
+    for (size_t index = 0; index < name.length(); index++) {
+        if (name[index] == '/' || name[index] == ':') {
+            name[index] = '_';
+        }
+    }
+
+    return FilePath::IncludeTrailingSeparater(FilePath::IncludeTrailingSeparater(tmpDir) + _T("si")) + name;
+}
+
+// The file holds the random number and, if the server listens on TCP, the port.
+bool ActivationClient::Connect(TString FileName, TString &Token) {
+    Platform& platform = Platform::GetInstance();
+    std::list<TString> lines = platform.LoadFromFile(FileName);
+
+    if (lines.empty() == true) {
+        return false;
+    }
+
+    Token = lines.front();
+    lines.pop_front();
+
+    if (lines.empty() == true) {
+        TString socketFileName = FileName + _T(".socket");
+        struct sockaddr_un address;
+
+        if (socketFileName.length() >= sizeof(address.sun_path)) {
+            return false;
+        }
+
+        memset(&address, 0, sizeof(address));
+        address.sun_family = AF_UNIX;
+        strncpy(address.sun_path, socketFileName.c_str(), sizeof(address.sun_path) - 1);
+
+        FSocket = socket(AF_UNIX, SOCK_STREAM, 0);
+
+        if (FSocket == -1 || connect(FSocket, (struct sockaddr*)&address, sizeof(address)) != 0) {
+            return false;
+        }
+    }
+    else {
+        struct sockaddr_in address;
+        memset(&address, 0, sizeof(address));
+        address.sin_family = AF_INET;
+        address.sin_port = htons((unsigned short)atoi(lines.front().c_str()));
+        address.sin_addr.s_addr = htonl(INADDR_LOOPBACK);
+
+        FSocket = socket(AF_INET, SOCK_STREAM, 0);
+
+        if (FSocket == -1 || connect(FSocket, (struct sockaddr*)&address, sizeof(address)) != 0) {
+            return false;
+        }
+    }
+
+#ifdef SO_NOSIGPIPE
+    int value = 1;
+    setsockopt(FSocket, SOL_SOCKET, SO_NOSIGPIPE, &value, sizeof(value));
+#endif //SO_NOSIGPIPE
+
+    return true;
+}
+
+bool ActivationClient::Write(const void* Data, size_t Size) {
+    const char* data = (const char*)Data;
+
+    while (Size > 0) {
+        ssize_t count = send(FSocket, data, Size, SEND_FLAGS);
+
+        if (count < 0 && errno == EINTR) {
+            continue;
+        }
+
+        if (count <= 0) {
+            return false;
+        }
+
+        data += count;
+        Size -= count;
+    }
+
+    return true;
+}
+
+bool ActivationClient::WriteInt(unsigned int Value) {
+    unsigned int value = htonl(Value);
+    return Write(&value, sizeof(value));
+}
+
+bool ActivationClient::WriteString(const std::string Value) {
+    return WriteInt((unsigned int)Value.length()) && Write(Value.data(), Value.length());
+}
+
+bool ActivationClient::Read(void* Data, size_t Size) {
+    char* data = (char*)Data;
+
+    while (Size > 0) {
+        ssize_t count = recv(FSocket, data, Size, 0);
+
+        if (count < 0 && errno == EINTR) {
+            continue;
+        }
+
+        if (count <= 0) {
+            return false;
+        }
+
+        data += count;
+        Size -= count;
+    }
+
+    return true;
+}
+
+bool ActivationClient::ReadInt(unsigned int &Value) {
+    unsigned int value;
+
+    if (Read(&value, sizeof(value)) == false) {
+        return false;
+    }
+
+    Value = ntohl(value);
+    return true;
+}
+
+bool ActivationClient::Run(TString AppID, std::list<TString> Args, int &ExitCode) {
+    TString fileName = GetFileName(AppID);
+    TString token;
+
+    if (fileName.empty() == true || Connect(fileName, token) == false) {
+        return false;
+    }
+
+    char workingDirectory[PATH_MAX];
+
+    if (getcwd(workingDirectory, sizeof(workingDirectory)) == NULL) {
+        workingDirectory[0] = '\0';
+    }
+
+    size_t environmentSize = 0;
+
+    while (environ[environmentSize] != NULL) {
+        environmentSize++;
+    }
+
+    bool sent = WriteString(token) && WriteString(workingDirectory) &&
+        WriteInt((unsigned int)Args.size());
+
+    for (std::list<TString>::const_iterator iterator = Args.begin(); sent == true && iterator != Args.end(); iterator++) {
+        sent = WriteString(*iterator);
+    }
+
+    sent = sent && WriteInt((unsigned int)environmentSize);
+
+    for (size_t index = 0; sent == true && index < environmentSize; index++) {
+        sent = WriteString(environ[index]);
+    }
+
+    unsigned char type = 0;
+    unsigned int value = 0;
+
+    // The server closes the connection without accepting it if it is not the
+    // server of the application, the application is then started as usual.
+    if (sent == false || Read(&type, 1) == false || type != FRAME_ACCEPTED || ReadInt(value) == false) {
+        return false;
+    }
+
+    // The application has been started, from here on the launch is complete
+    // when the server goes away.
+    ExitCode = 1;
+    char* buffer = new char[ACTIVATION_BUFFER_SIZE];
+
+    while (Read(&type, 1) == true && ReadInt(value) == true) {
+        if (type == FRAME_OUT || type == FRAME_ERR) {
+            int fd = type == FRAME_OUT ? STDOUT_FILENO : STDERR_FILENO;
+            bool read = true;
+
+            while (read == true && value > 0) {
+                size_t count = value < ACTIVATION_BUFFER_SIZE ? value : ACTIVATION_BUFFER_SIZE;
+                read = Read(buffer, count);
+
+                if (read == true && write(fd, buffer, count) < 0) {
+                    // The output is discarded, like the output of an application
+                    // whose standard output is closed.
+                }
+
+                value -= count;
+            }
+
+            if (read == false) {
+                break;
+            }
+        }
+        else if (type == FRAME_INPUT_REQUEST) {
+            size_t count = value < ACTIVATION_BUFFER_SIZE ? value : ACTIVATION_BUFFER_SIZE;
+            ssize_t available = read(STDIN_FILENO, buffer, count);
+
+            while (available < 0 && errno == EINTR) {
+                available = read(STDIN_FILENO, buffer, count);
+            }
+
+            if (available < 0) {
+                available = 0;
+            }
+
+            type = FRAME_INPUT;
+
+            if (Write(&type, 1) == false || WriteInt((unsigned int)available) == false ||
+                Write(buffer, available) == false) {
+                break;
+            }
+        }
+        else if (type == FRAME_EXIT) {
+            ExitCode = (int)value;
+            break;
+        }
+        else {
+            break;
+        }
+    }
+
+    delete[] buffer;
+    return true;
+}
+
+#endif //POSIX
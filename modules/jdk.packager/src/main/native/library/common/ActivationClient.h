@@ -0,0 +1,74 @@
+/*
+ * Copyright (c) 2018, Oracle and/or its affiliates.
+ * All rights reserved. Use is subject to license terms.
+ *
+ * This file is available and licensed under the following license:
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *  - Redistributions of source code must retain the above copyright
+ *    notice, this list of conditions and the following disclaimer.
+ *  - Redistributions in binary form must reproduce the above copyright
+ *    notice, this list of conditions and the following disclaimer in
+ *    the documentation and/or other materials provided with the distribution.
+ *  - Neither the name of Oracle Corporation nor the names of its
+ *    contributors may be used to endorse or promote products derived
+ *    from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+#ifndef ACTIVATIONCLIENT_H
+#define ACTIVATIONCLIENT_H
+
+#include "Platform.h"
+
+#ifdef POSIX
+
+#include <list>
+
+// Forwards a launch of the application to its activation server, a JVM that
+// is kept running in the background and runs the main class of the
+// application for every launch (see ActivationServer in the services module).
+// The server listens on a Unix domain socket, or on a TCP port of 127.0.0.1 if
+// its file names one, and the launcher relays the standard output, standard
+// error and standard input of the application until it exits.
+class ActivationClient {
+private:
+    int FSocket;
+
+    bool Connect(TString FileName, TString &Token);
+    bool Write(const void* Data, size_t Size);
+    bool WriteInt(unsigned int Value);
+    bool WriteString(const std::string Value);
+    bool Read(void* Data, size_t Size);
+    bool ReadInt(unsigned int &Value);
+
+public:
+    ActivationClient(void);
+    ~ActivationClient(void);
+
+    // Base name of the files of the activation server of AppID.
+    static TString GetFileName(TString AppID);
+
+    // Runs the application in the activation server. Returns false without
+    // running it if there is no server, otherwise ExitCode is the exit code of
+    // the application.
+    bool Run(TString AppID, std::list<TString> Args, int &ExitCode);
+};
+
+#endif //POSIX
+
+#endif //ACTIVATIONCLIENT_H
@@ -0,0 +1,224 @@
+/*
+ * Copyright (c) 2018, Oracle and/or its affiliates.
+ * All rights reserved. Use is subject to license terms.
+ *
+ * This file is available and licensed under the following license:
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *  - Redistributions of source code must retain the above copyright
+ *    notice, this list of conditions and the following disclaimer.
+ *  - Redistributions in binary form must reproduce the above copyright
+ *    notice, this list of conditions and the following disclaimer in
+ *    the documentation and/or other materials provided with the distribution.
+ *  - Neither the name of Oracle Corporation nor the names of its
+ *    contributors may be used to endorse or promote products derived
+ *    from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+#include "BinaryConfigFile.h"
+#include "PlatformString.h"
+
+#ifdef POSIX
+
+#include <string.h>
+#include <fcntl.h>
+#include <unistd.h>
+#include <sys/mman.h>
+#include <sys/stat.h>
+
+#define BINARY_CONFIG_MAGIC "JPCB"
+#define BINARY_CONFIG_VERSION 1
+#define BINARY_CONFIG_HEADER_SIZE 24
+#define BINARY_CONFIG_RECORD_SIZE 16
+
+
+BinaryConfigFile::BinaryConfigFile() : ISectionalPropertyContainer() {
+    FData = NULL;
+    FSize = 0;
+    FSectionCount = 0;
+    FSectionTable = 0;
+}
+
+BinaryConfigFile::~BinaryConfigFile() {
+    Unmap();
+}
+
+void BinaryConfigFile::Unmap() {
+    if (FData != NULL) {
+        munmap((void*)FData, FSize);
+        FData = NULL;
+        FSize = 0;
+    }
+}
+
+bool BinaryConfigFile::LoadFromFile(const TString FileName, const TString IniFileName) {
+    struct stat iniStat;
+    struct stat binaryStat;
+
+    if (stat(StringToFileSystemString(IniFileName), &iniStat) != 0 ||
+        stat(StringToFileSystemString(FileName), &binaryStat) != 0) {
+        return false;
+    }
+
+    // The INI file was edited after the binary configuration was written.
+    if (binaryStat.st_mtime < iniStat.st_mtime || binaryStat.st_size < BINARY_CONFIG_HEADER_SIZE) {
+        return false;
+    }
+
+    int handle = open(StringToFileSystemString(FileName), O_RDONLY);
+
+    if (handle < 0) {
+        return false;
+    }
+
+    void* data = mmap(NULL, binaryStat.st_size, PROT_READ, MAP_PRIVATE, handle, 0);
+    close(handle);
+
+    if (data == MAP_FAILED) {
+        return false;
+    }
+
+    FData = (const unsigned char*)data;
+    FSize = binaryStat.st_size;
+
+    if (Validate(iniStat.st_size) == false) {
+        Unmap();
+        return false;
+    }
+
+    return true;
+}
+
+unsigned int BinaryConfigFile::ReadUInt32(size_t Offset) {
+    return (unsigned int)FData[Offset] | ((unsigned int)FData[Offset + 1] << 8) |
+        ((unsigned int)FData[Offset + 2] << 16) | ((unsigned int)FData[Offset + 3] << 24);
+}
+
+// A string is referenced by an offset/length pair at Offset.
+bool BinaryConfigFile::IsValidString(size_t Offset) {
+    size_t start = ReadUInt32(Offset);
+    size_t length = ReadUInt32(Offset + 4);
+    return start <= FSize && length <= FSize - start;
+}
+
+TString BinaryConfigFile::ReadString(size_t Offset) {
+    return TString((const char*)FData + ReadUInt32(Offset), ReadUInt32(Offset + 4));
+}
+
+// Checks all tables and strings once so the lookups do not need to.
+bool BinaryConfigFile::Validate(unsigned long long IniFileSize) {
+    if (memcmp(FData, BINARY_CONFIG_MAGIC, 4) != 0 || ReadUInt32(4) != BINARY_CONFIG_VERSION) {
+        return false;
+    }
+
+    unsigned long long iniSize = (unsigned long long)ReadUInt32(8) | ((unsigned long long)ReadUInt32(12) << 32);
+
+    if (iniSize != IniFileSize) {
+        return false;
+    }
+
+    FSectionCount = ReadUInt32(16);
+    FSectionTable = ReadUInt32(20);
+
+    if (FSectionTable > FSize || FSectionCount > (FSize - FSectionTable) / BINARY_CONFIG_RECORD_SIZE) {
+        return false;
+    }
+
+    for (unsigned int index = 0; index < FSectionCount; index++) {
+        size_t section = FSectionTable + index * BINARY_CONFIG_RECORD_SIZE;
+        size_t entryTable = ReadUInt32(section + 8);
+        size_t entryCount = ReadUInt32(section + 12);
+
+        if (IsValidString(section) == false || entryTable > FSize ||
+            entryCount > (FSize - entryTable) / BINARY_CONFIG_RECORD_SIZE) {
+            return false;
+        }
+
+        for (size_t entry = 0; entry < entryCount; entry++) {
+            size_t offset = entryTable + entry * BINARY_CONFIG_RECORD_SIZE;
+
+            if (IsValidString(offset) == false || IsValidString(offset + 8) == false) {
+                return false;
+            }
+        }
+    }
+
+    return true;
+}
+
+bool BinaryConfigFile::FindSection(const TString SectionName, unsigned int &EntryTable, unsigned int &EntryCount) {
+    for (unsigned int index = 0; index < FSectionCount; index++) {
+        size_t section = FSectionTable + index * BINARY_CONFIG_RECORD_SIZE;
+        size_t length = ReadUInt32(section + 4);
+
+        if (length == SectionName.length() &&
+            memcmp(FData + ReadUInt32(section), SectionName.data(), length) == 0) {
+            EntryTable = ReadUInt32(section + 8);
+            EntryCount = ReadUInt32(section + 12);
+            return true;
+        }
+    }
+
+    return false;
+}
+
+bool BinaryConfigFile::GetSection(const TString SectionName, OrderedMap<TString, TString> &Data) {
+    unsigned int entryTable;
+    unsigned int entryCount;
+
+    if (FindSection(SectionName, entryTable, entryCount) == false) {
+        return false;
+    }
+
+    for (unsigned int index = 0; index < entryCount; index++) {
+        size_t entry = entryTable + index * BINARY_CONFIG_RECORD_SIZE;
+        Data.Append(ReadString(entry), ReadString(entry + 8));
+    }
+
+    return true;
+}
+
+bool BinaryConfigFile::ContainsSection(const TString SectionName) {
+    unsigned int entryTable;
+    unsigned int entryCount;
+    return FindSection(SectionName, entryTable, entryCount);
+}
+
+bool BinaryConfigFile::GetValue(const TString SectionName, const TString Key, TString& Value) {
+    unsigned int entryTable;
+    unsigned int entryCount;
+
+    if (FindSection(SectionName, entryTable, entryCount) == false) {
+        return false;
+    }
+
+    // Sections may hold duplicate keys, the first one wins as with IniFile.
+    for (unsigned int index = 0; index < entryCount; index++) {
+        size_t entry = entryTable + index * BINARY_CONFIG_RECORD_SIZE;
+        size_t length = ReadUInt32(entry + 4);
+
+        if (length == Key.length() && memcmp(FData + ReadUInt32(entry), Key.data(), length) == 0) {
+            Value = ReadString(entry + 8);
+            return true;
+        }
+    }
+
+    return false;
+}
+
+#endif //POSIX
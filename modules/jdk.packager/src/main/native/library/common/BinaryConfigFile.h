@@ -0,0 +1,84 @@
+/*
+ * Copyright (c) 2018, Oracle and/or its affiliates.
+ * All rights reserved. Use is subject to license terms.
+ *
+ * This file is available and licensed under the following license:
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *  - Redistributions of source code must retain the above copyright
+ *    notice, this list of conditions and the following disclaimer.
+ *  - Redistributions in binary form must reproduce the above copyright
+ *    notice, this list of conditions and the following disclaimer in
+ *    the documentation and/or other materials provided with the distribution.
+ *  - Neither the name of Oracle Corporation nor the names of its
+ *    contributors may be used to endorse or promote products derived
+ *    from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+#ifndef BINARYCONFIGFILE_H
+#define BINARYCONFIGFILE_H
+
+#include "Platform.h"
+#include "OrderedMap.h"
+
+#ifdef POSIX
+
+// Read only view of the binary launcher configuration the packager writes
+// next to the INI configuration file (<name>.cfg.bin). It holds the same
+// sections and name/value pairs as the INI file, already split and with the
+// paths fixed for the platform. The file is memory mapped and the values are
+// read straight from the mapping. Paths keep their $APPDIR macros, they are
+// expanded by Package as with the INI file.
+//
+// Layout, integers are little endian and offsets are from the start of the file:
+//   header:   "JPCB", version (u32), size of the INI file (u64),
+//             section count (u32), section table offset (u32)
+//   section:  name offset, name length, entry table offset, entry count (u32)
+//   entry:    key offset, key length, value offset, value length (u32)
+//   strings:  UTF-8
+class BinaryConfigFile : public ISectionalPropertyContainer {
+private:
+    const unsigned char* FData;
+    size_t FSize;
+    unsigned int FSectionCount;
+    unsigned int FSectionTable;
+
+    unsigned int ReadUInt32(size_t Offset);
+    bool IsValidString(size_t Offset);
+    TString ReadString(size_t Offset);
+    bool FindSection(const TString SectionName, unsigned int &EntryTable, unsigned int &EntryCount);
+    bool Validate(unsigned long long IniFileSize);
+    void Unmap();
+
+public:
+    BinaryConfigFile();
+    virtual ~BinaryConfigFile();
+
+    // Maps FileName if it was written for the current content of
+    // IniFileName, otherwise returns false and the INI file must be used.
+    bool LoadFromFile(const TString FileName, const TString IniFileName);
+
+    // ISectionalPropertyContainer
+    virtual bool GetSection(const TString SectionName, OrderedMap<TString, TString> &Data);
+    virtual bool ContainsSection(const TString SectionName);
+    virtual bool GetValue(const TString SectionName, const TString Key, TString& Value);
+};
+
+#endif //POSIX
+
+#endif //BINARYCONFIGFILE_H
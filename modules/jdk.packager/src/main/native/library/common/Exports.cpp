@@ -39,6 +39,7 @@
 #include "Java.h"
 
 #include "jni.h"
+#include "Exports.h"
 
 
 class UserJVMArgsExports {
@@ -46,44 +47,50 @@ private:
     // This is not a class to create an instance of.
     UserJVMArgsExports();
 
-    static jobjectArray MapKeysToJObjectArray(JNIEnv *env, OrderedMap<TString, TString> map) {
+    // Keys and values alternate in the result.
+    static jobjectArray MapToJObjectArray(JNIEnv *env, OrderedMap<TString, TString> map) {
         std::vector<TString> keys = map.GetKeys();
-        JavaStringArray result(env, keys.size());
+        std::list<TString> items;
 
         for (unsigned int index = 0; index < keys.size(); index++) {
-            PlatformString value(keys[index]);
-            try {
-                result.SetValue(index, value.toJString(env));
-            }
-            catch (const JavaException&) {}
+            TString value;
+            map.GetValue(keys[index], value);
+            items.push_back(keys[index]);
+            items.push_back(value);
         }
+
+        JavaStringArray result(env, items);
         return result.GetData();
     }
 
 public:
-    static jstring _getUserJvmOptionDefaultValue(JNIEnv *env, jstring option) {
-        if (env == NULL || option == NULL)
-            return NULL;
-
-        jstring result = NULL;
+    static void _setUserJvmKeysAndValues(JNIEnv *env, jobjectArray options, jobjectArray values) {
+        if (env == NULL || options == NULL || values == NULL)
+            return;
 
         Package& package = Package::GetInstance();
-        OrderedMap<TString, TString> defaultuserargs = package.GetDefaultJVMUserArgs();
-        TString loption = PlatformString(env, option).toString();
+        OrderedMap<TString, TString> newMap;
 
-        TString temp;
-        defaultuserargs.GetValue(loption, temp);
-        PlatformString value = temp;
         try {
-            result = value.toJString(env);
+            JavaStringArray loptions(env, options);
+            JavaStringArray lvalues(env, values);
+
+            for (unsigned int index = 0; index < loptions.Count(); index++) {
+                TString name = PlatformString(env, loptions.GetValue(index)).toString();
+                TString value = PlatformString(env, lvalues.GetValue(index)).toString();
+                newMap.Append(name, value);
+            }
         }
         catch (const JavaException&) {
+            return;
         }
 
-        return result;
+        package.SetJVMUserArgOverrides(newMap);
     }
 
-    static jobjectArray _getUserJvmOptionDefaultKeys(JNIEnv *env) {
+    // The current options and the defaults in one call, the options are read
+    // again first if Reload is true.
+    static jobjectArray _getUserJvmOptionSnapshot(JNIEnv *env, jboolean Reload) {
         if (env == NULL)
             return NULL;
 
@@ -91,71 +98,41 @@ public:
 
         Package& package = Package::GetInstance();
 
-        try {
-            result = MapKeysToJObjectArray(env, package.GetDefaultJVMUserArgs());
-        }
-        catch (const JavaException&) {
+        if (Reload == JNI_TRUE) {
+            package.ReloadJVMUserArgOverrides();
         }
 
-        return result;
-    }
-
-    static jstring _getUserJvmOptionValue(JNIEnv *env, jstring option) {
-        if (env == NULL || option == NULL)
-            return NULL;
-
-        jstring result = NULL;
-
-        Package& package = Package::GetInstance();
-        OrderedMap<TString, TString> userargs = package.GetJVMUserArgs();
-
         try {
-            TString loption = PlatformString(env, option).toString();
-            TString temp;
-            userargs.GetValue(loption, temp);
-            PlatformString value = temp;
-            result = value.toJString(env);
-        }
-        catch (const JavaException&) {
-        }
-
-        return result;
-    }
-
-    static void _setUserJvmKeysAndValues(JNIEnv *env, jobjectArray options, jobjectArray values) {
-        if (env == NULL || options == NULL || values == NULL)
-            return;
+            jclass stringArrayClass = env->FindClass("[Ljava/lang/String;");
 
-        Package& package = Package::GetInstance();
-        OrderedMap<TString, TString> newMap;
+            if (stringArrayClass == NULL) {
+                return NULL;
+            }
 
-        try {
-            JavaStringArray loptions(env, options);
-            JavaStringArray lvalues(env, values);
+            result = env->NewObjectArray(2, stringArrayClass, NULL);
 
-            for (unsigned int index = 0; index < loptions.Count(); index++) {
-                TString name = PlatformString(env, loptions.GetValue(index)).toString();
-                TString value = PlatformString(env, lvalues.GetValue(index)).toString();
-                newMap.Append(name, value);
+            if (result != NULL) {
+                env->SetObjectArrayElement(result, 0, MapToJObjectArray(env, package.GetJVMUserArgs()));
+                env->SetObjectArrayElement(result, 1, MapToJObjectArray(env, package.GetDefaultJVMUserArgs()));
             }
         }
         catch (const JavaException&) {
-            return;
+            result = NULL;
         }
 
-        package.SetJVMUserArgOverrides(newMap);
+        return result;
     }
 
-    static jobjectArray _getUserJvmOptionKeys(JNIEnv *env) {
+    static jstring _getUserJvmOptionsFileName(JNIEnv *env) {
         if (env == NULL)
             return NULL;
 
-        jobjectArray result = NULL;
+        jstring result = NULL;
 
         Package& package = Package::GetInstance();
 
         try {
-            result = MapKeysToJObjectArray(env, package.GetJVMUserArgs());
+            result = PlatformString(package.GetJVMUserArgsConfigFileName()).toJString(env);
         }
         catch (const JavaException&) {
         }
@@ -166,24 +143,16 @@ public:
 
 
 extern "C" {
-    JNIEXPORT jstring JNICALL Java_jdk_packager_services_userjvmoptions_LauncherUserJvmOptions__1getUserJvmOptionDefaultValue(JNIEnv *env, jclass klass, jstring option) {
-        return UserJVMArgsExports::_getUserJvmOptionDefaultValue(env, option);
-    }
-
-    JNIEXPORT jobjectArray JNICALL Java_jdk_packager_services_userjvmoptions_LauncherUserJvmOptions__1getUserJvmOptionDefaultKeys(JNIEnv *env, jclass klass) {
-        return UserJVMArgsExports::_getUserJvmOptionDefaultKeys(env);
-    }
-
-    JNIEXPORT jstring JNICALL Java_jdk_packager_services_userjvmoptions_LauncherUserJvmOptions__1getUserJvmOptionValue(JNIEnv *env, jclass klass, jstring option) {
-        return UserJVMArgsExports::_getUserJvmOptionValue(env, option);
+    JNIEXPORT void JNICALL Java_com_openjfx_packager_services_userjvmoptions_LauncherUserJvmOptions__1setUserJvmKeysAndValues(JNIEnv *env, jclass klass, jobjectArray options, jobjectArray values) {
+        UserJVMArgsExports::_setUserJvmKeysAndValues(env, options, values);
     }
 
-    JNIEXPORT void JNICALL Java_jdk_packager_services_userjvmoptions_LauncherUserJvmOptions__1setUserJvmKeysAndValues(JNIEnv *env, jclass klass, jobjectArray options, jobjectArray values) {
-        UserJVMArgsExports::_setUserJvmKeysAndValues(env, options, values);
+    JNIEXPORT jobjectArray JNICALL Java_com_openjfx_packager_services_userjvmoptions_LauncherUserJvmOptions__1getUserJvmOptionSnapshot(JNIEnv *env, jclass klass, jboolean reload) {
+        return UserJVMArgsExports::_getUserJvmOptionSnapshot(env, reload);
     }
 
-    JNIEXPORT jobjectArray JNICALL Java_jdk_packager_services_userjvmoptions_LauncherUserJvmOptions__1getUserJvmOptionKeys(JNIEnv *env, jclass klass) {
-        return UserJVMArgsExports::_getUserJvmOptionKeys(env);
+    JNIEXPORT jstring JNICALL Java_com_openjfx_packager_services_userjvmoptions_LauncherUserJvmOptions__1getUserJvmOptionsFileName(JNIEnv *env, jclass klass) {
+        return UserJVMArgsExports::_getUserJvmOptionsFileName(env);
     }
 }
 
@@ -33,51 +33,35 @@
 
 /* DO NOT EDIT THIS FILE - it is machine generated */
 #include <jni.h>
-/* Header for class jdk_packager_services_userjvmoptions_LauncherUserJvmOptions */
+/* Header for class com_openjfx_packager_services_userjvmoptions_LauncherUserJvmOptions */
 
-#ifndef _Included_jdk_packager_services_userjvmoptions_LauncherUserJvmOptions
-#define _Included_jdk_packager_services_userjvmoptions_LauncherUserJvmOptions
+#ifndef _Included_com_openjfx_packager_services_userjvmoptions_LauncherUserJvmOptions
+#define _Included_com_openjfx_packager_services_userjvmoptions_LauncherUserJvmOptions
 #ifdef __cplusplus
 extern "C" {
 #endif
 /*
- * Class:     jdk_packager_services_userjvmoptions_LauncherUserJvmOptions
- * Method:    _getUserJvmOptionDefaultValue
- * Signature: (Ljava/lang/String;)Ljava/lang/String;
- */
-JNIEXPORT jstring JNICALL Java_jdk_packager_services_userjvmoptions_LauncherUserJvmOptions__1getUserJvmOptionDefaultValue
-  (JNIEnv *, jclass, jstring);
-
-/*
- * Class:     jdk_packager_services_userjvmoptions_LauncherUserJvmOptions
- * Method:    _getUserJvmOptionDefaultKeys
- * Signature: ()[Ljava/lang/String;
- */
-JNIEXPORT jobjectArray JNICALL Java_jdk_packager_services_userjvmoptions_LauncherUserJvmOptions__1getUserJvmOptionDefaultKeys
-  (JNIEnv *, jclass);
-
-/*
- * Class:     jdk_packager_services_userjvmoptions_LauncherUserJvmOptions
- * Method:    _getUserJvmOptionValue
- * Signature: (Ljava/lang/String;)Ljava/lang/String;
- */
-JNIEXPORT jstring JNICALL Java_jdk_packager_services_userjvmoptions_LauncherUserJvmOptions__1getUserJvmOptionValue
-  (JNIEnv *, jclass, jstring);
-
-/*
- * Class:     jdk_packager_services_userjvmoptions_LauncherUserJvmOptions
+ * Class:     com_openjfx_packager_services_userjvmoptions_LauncherUserJvmOptions
  * Method:    _setUserJvmKeysAndValues
  * Signature: ([Ljava/lang/String;[Ljava/lang/String;)V
  */
-JNIEXPORT void JNICALL Java_jdk_packager_services_userjvmoptions_LauncherUserJvmOptions__1setUserJvmKeysAndValues
+JNIEXPORT void JNICALL Java_com_openjfx_packager_services_userjvmoptions_LauncherUserJvmOptions__1setUserJvmKeysAndValues
   (JNIEnv *, jclass, jobjectArray, jobjectArray);
 
 /*
- * Class:     jdk_packager_services_userjvmoptions_LauncherUserJvmOptions
- * Method:    _getUserJvmOptionKeys
- * Signature: ()[Ljava/lang/String;
+ * Class:     com_openjfx_packager_services_userjvmoptions_LauncherUserJvmOptions
+ * Method:    _getUserJvmOptionSnapshot
+ * Signature: (Z)[[Ljava/lang/String;
+ */
+JNIEXPORT jobjectArray JNICALL Java_com_openjfx_packager_services_userjvmoptions_LauncherUserJvmOptions__1getUserJvmOptionSnapshot
+  (JNIEnv *, jclass, jboolean);
+
+/*
+ * Class:     com_openjfx_packager_services_userjvmoptions_LauncherUserJvmOptions
+ * Method:    _getUserJvmOptionsFileName
+ * Signature: ()Ljava/lang/String;
  */
-JNIEXPORT jobjectArray JNICALL Java_jdk_packager_services_userjvmoptions_LauncherUserJvmOptions__1getUserJvmOptionKeys
+JNIEXPORT jstring JNICALL Java_com_openjfx_packager_services_userjvmoptions_LauncherUserJvmOptions__1getUserJvmOptionsFileName
   (JNIEnv *, jclass);
 
 #ifdef __cplusplus
@@ -41,6 +41,7 @@
 #endif //WINDOWS
 
 #ifdef POSIX
+#include <stdio.h>
 #include <sys/stat.h>
 #endif //POSIX
 
@@ -144,6 +145,24 @@ bool FilePath::DeleteFile(const TString FileName) {
     return result;
 }
 
+bool FilePath::RenameFile(const TString FileName, const TString NewFileName) {
+    bool result = false;
+
+    if (FileExists(FileName) == true) {
+#ifdef WINDOWS
+        result = ::MoveFileEx(FixPathForPlatform(FileName).data(), FixPathForPlatform(NewFileName).data(),
+                              MOVEFILE_REPLACE_EXISTING) == TRUE;
+#endif //WINDOWS
+#ifdef POSIX
+        if (rename(StringToFileSystemString(FileName), StringToFileSystemString(NewFileName)) == 0) {
+            result = true;
+        }
+#endif //POSIX
+    }
+
+    return result;
+}
+
 bool FilePath::DeleteDirectory(const TString DirectoryName) {
     bool result = false;
 
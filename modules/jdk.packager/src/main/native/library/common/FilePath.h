@@ -120,6 +120,9 @@ public:
     static bool DeleteFile(const TString FileName);
     static bool DeleteDirectory(const TString DirectoryName);
 
+    // Replaces NewFileName, if it exists, in a single step.
+    static bool RenameFile(const TString FileName, const TString NewFileName);
+
     static TString ExtractFilePath(TString Path);
     static TString ExtractFileExt(TString Path);
     static TString ExtractFileName(TString Path);
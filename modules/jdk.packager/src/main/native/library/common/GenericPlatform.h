@@ -60,6 +60,8 @@ public:
 
     virtual std::map<TString, TString> GetKeys();
 
+    virtual void PrefetchFiles(std::list<TString> FileNames);
+
 #ifdef DEBUG
     virtual DebugState GetDebugState();
 #endif //DEBUG
@@ -185,6 +185,22 @@ size_t JavaOptions::GetCount() {
     return FItems.size();
 }
 
+// Returns true if one of the JVM options selects the garbage collector, such as -XX:+UseG1GC.
+static bool SelectsGarbageCollector(OrderedMap<TString, TString> Map) {
+    std::vector<TString> keys = Map.GetKeys();
+
+    for (size_t index = 0; index < keys.size(); index++) {
+        TString name = keys[index];
+
+        if (name.length() > 10 && name.find(_T("-XX:+Use")) == 0 &&
+            name.compare(name.length() - 2, 2, _T("GC")) == 0) {
+            return true;
+        }
+    }
+
+    return false;
+}
+
 // jvmuserargs can have a trailing equals in the key. This needs to be removed to use
 // other parts of the launcher.
 OrderedMap<TString, TString> RemoveTrailingEquals(OrderedMap<TString, TString> Map) {
@@ -274,6 +290,18 @@ bool JavaVirtualMachine::StartJVM() {
         options.AppendValue(minHeapSizeOption, _T(""));
     }
 
+    // app.gc is only a default, a collector selected in the JVM options or by the user wins.
+    if (package.GetGarbageCollector().empty() == false &&
+        SelectsGarbageCollector(package.GetJVMArgs()) == false &&
+        SelectsGarbageCollector(package.GetJVMUserArgs()) == false) {
+        options.AppendValue(package.GetGarbageCollector(), _T(""));
+    }
+
+    // JLI_Launch creates the thread the main class runs on with this stack size.
+    if (package.GetStackSize().empty() == false) {
+        options.AppendValue(_T("-Xss") + package.GetStackSize(), _T(""));
+    }
+
     TString mainClassName = package.GetMainClassName();
     TString mainModule = package.GetMainModule();
 
@@ -284,6 +312,11 @@ bool JavaVirtualMachine::StartJVM() {
     }
 
     configureLibrary();
+    package.AddStartupTimestamp(_T("t.jli"));
+
+    if (package.IsStartupTraceEnabled() == true) {
+        appendStartupTrace(options);
+    }
 
     // Initialize the arguments to JLI_Launch()
     //
@@ -303,7 +336,29 @@ bool JavaVirtualMachine::StartJVM() {
         options.AppendValue(TString(_T("-splash:")) + package.GetSplashScreenFileName(), _T(""));
     }
 
-    if (mainModule.empty() == true) {
+    if (package.IsActivationServer() == true) {
+        // The activation server runs the main class for every launch, the
+        // application module is resolved as the main module would be.
+        if (mainModule.empty() == true) {
+            options.AppendValue(_T("-Djavapackager.activation.main"), Helpers::ConvertJavaPathToId(mainClassName));
+        } else {
+            TString moduleName = mainModule.substr(0, mainModule.find(_T("/")));
+            options.AppendValue(_T("-Djavapackager.activation.main"), mainModule);
+            options.AppendValue(_T("--add-modules"));
+            options.AppendValue(moduleName);
+
+            size_t separator = mainModule.rfind(_T("."));
+
+            if (moduleName != mainModule && separator != TString::npos && separator > moduleName.length()) {
+                options.AppendValue(_T("--add-exports"));
+                options.AppendValue(mainModule.substr(0, separator) + _T("=com.brcolow.javapackager.services"));
+            }
+        }
+
+        options.AppendValue(_T("-Djavapackager.activation.timeout"), package.GetActivationTimeout());
+        options.AppendValue(_T("-m"));
+        options.AppendValue(_T("com.brcolow.javapackager.services/com.openjfx.packager.services.singleton.ActivationServer"));
+    } else if (mainModule.empty() == true) {
         options.AppendValue(Helpers::ConvertJavaPathToId(mainClassName), _T(""));
     } else {
         options.AppendValue(_T("-m"));
@@ -350,6 +405,39 @@ void JavaVirtualMachine::configureLibrary() {
     javaLibrary.Load(libName);
 }
 
+// Passes the timestamps of the launcher to the application as system properties
+// (launcher.t0 when the launcher started, launcher.t.config, launcher.t.singleinstance,
+// launcher.t.jli and launcher.t.jvm right before the JVM is started), in microseconds
+// since the epoch. If there is a trace file the timestamps are written to it and the
+// JVM logs its startup phases, up to the invocation of the main class, to <trace file>.jvm.
+void JavaVirtualMachine::appendStartupTrace(JavaOptions& options) {
+    Platform& platform = Platform::GetInstance();
+    Package& package = Package::GetInstance();
+
+    package.AddStartupTimestamp(_T("t.jvm"));
+
+    OrderedMap<TString, TString> timestamps = package.GetStartupTimestamps();
+    std::vector<TString> names = timestamps.GetKeys();
+    std::list<TString> contents;
+
+    for (std::vector<TString>::const_iterator iterator = names.begin(); iterator != names.end(); iterator++) {
+        TString timestamp;
+
+        if (timestamps.GetValue(*iterator, timestamp) == true) {
+            options.AppendValue(_T("-Dlauncher.") + *iterator, timestamp);
+            contents.push_back(_T("launcher.") + *iterator + _T("=") + timestamp);
+        }
+    }
+
+    TString traceFileName = package.GetStartupTraceFileName();
+
+    if (traceFileName.empty() == false) {
+        platform.SaveToFile(traceFileName, contents, false);
+        options.AppendValue(_T("-Dlauncher.trace.file"), traceFileName);
+        options.AppendValue(_T("-Xlog:startuptime:file=") + traceFileName + _T(".jvm:timemillis,uptimemillis"));
+    }
+}
+
 bool JavaVirtualMachine::launchVM(JavaOptions& options, std::list<TString>& vmargs, bool addSiProcessId) {
     Platform& platform = Platform::GetInstance();
     Package& package = Package::GetInstance();
@@ -96,6 +96,7 @@ private:
     JavaLibrary javaLibrary;
 
     void configureLibrary();
+    void appendStartupTrace(JavaOptions& options);
     bool launchVM(JavaOptions& options, std::list<TString>& vmargs, bool addSiProcessId);
 public:
     JavaVirtualMachine();
@@ -37,6 +37,7 @@
 
 #include "JavaVirtualMachine.h"
 #include "LinuxPlatform.h"
+#include "BinaryConfigFile.h"
 #include "PlatformString.h"
 
 
@@ -45,11 +46,13 @@
 #include <sys/file.h>
 #include <sys/stat.h>
 #include <errno.h>
+#include <fcntl.h>
 #include <unistd.h>
 #include <sys/types.h>
 #include <limits.h>
 
 #define LINUX_PACKAGER_TMP_DIR "/.java/packager/tmp"
+#define PREFETCH_CHUNK_SIZE (2 * 1024 * 1024)
 
 
 TString GetEnv(const TString &name) {
@@ -126,6 +129,15 @@ TString LinuxPlatform::GetAppDataDirectory() {
 }
 
 ISectionalPropertyContainer* LinuxPlatform::GetConfigFile(TString FileName) {
+    // The packager writes a precompiled copy of the configuration next to
+    // the INI file. Use it unless the INI file was changed since.
+    BinaryConfigFile *binary = new BinaryConfigFile();
+
+    if (binary->LoadFromFile(FileName + _T(".bin"), FileName) == true) {
+        return binary;
+    }
+
+    delete binary;
     IniFile *result = new IniFile();
 
     if (result->LoadFromFile(FileName) == false) {
@@ -166,14 +178,140 @@ void LinuxPlatform::reactivateAnotherInstance() {
     const ProcessReactivator reactivator(singleInstanceProcessId);
 }
 
+// Reads a cgroup memory limit in bytes. Returns 0 if the file does not exist
+// or there is no limit ("max" for cgroup v2).
+static unsigned long long ReadCgroupMemoryLimit(std::string FileName) {
+    unsigned long long result = 0;
+    FILE *file = fopen(FileName.c_str(), "r");
+
+    if (file != NULL) {
+        if (fscanf(file, "%llu", &result) != 1) {
+            result = 0;
+        }
+
+        fclose(file);
+    }
+
+    return result;
+}
+
+// Returns the memory limit in bytes of the cgroup the launcher runs in, or 0
+// if there is none. Both cgroup v2 (unified) and v1 (memory controller) are
+// checked. Within a container the cgroup path is usually not visible so the
+// root of the hierarchy is checked as well.
+static unsigned long long GetCgroupMemoryLimit() {
+    unsigned long long result = 0;
+    FILE *file = fopen("/proc/self/cgroup", "r");
+
+    if (file == NULL) {
+        return result;
+    }
+
+    char line[PATH_MAX];
+
+    while (fgets(line, sizeof(line), file) != NULL) {
+        std::string entry = line;
+        std::string::size_type first = entry.find(':');
+        std::string::size_type second = entry.find(':', first + 1);
+
+        if (first == std::string::npos || second == std::string::npos) {
+            continue;
+        }
+
+        std::string controllers = entry.substr(first + 1, second - first - 1);
+        std::string path = entry.substr(second + 1);
+        path.erase(path.find_last_not_of("\n") + 1);
+        std::vector<std::string> files;
+
+        if (entry.compare(0, first, "0") == 0 && controllers.empty() == true) {
+            files.push_back("/sys/fs/cgroup" + path + "/memory.max");
+            files.push_back("/sys/fs/cgroup/memory.max");
+        }
+        else if (("," + controllers + ",").find(",memory,") != std::string::npos) {
+            files.push_back("/sys/fs/cgroup/memory" + path + "/memory.limit_in_bytes");
+            files.push_back("/sys/fs/cgroup/memory/memory.limit_in_bytes");
+        }
+
+        for (std::vector<std::string>::iterator iterator = files.begin(); iterator != files.end(); iterator++) {
+            unsigned long long limit = ReadCgroupMemoryLimit(*iterator);
+
+            if (limit > 0 && (result == 0 || limit < result)) {
+                result = limit;
+            }
+        }
+    }
+
+    fclose(file);
+    return result;
+}
+
 TPlatformNumber LinuxPlatform::GetMemorySize() {
     long pages = sysconf(_SC_PHYS_PAGES);
     long page_size = sysconf(_SC_PAGE_SIZE);
-    TPlatformNumber result = pages * page_size;
-    result = result / 1048576; // Convert from bytes to megabytes.
+    unsigned long long physical = (unsigned long long)pages * page_size;
+    unsigned long long limit = GetCgroupMemoryLimit();
+
+    // cgroup v1 reports a very large number if there is no limit.
+    if (limit > 0 && limit < physical) {
+        physical = limit;
+    }
+
+    TPlatformNumber result = physical / 1048576; // Convert from bytes to megabytes.
     return result;
 }
 
+static void* PrefetchFilesThread(void* Arg) {
+    std::list<TString>* fileNames = (std::list<TString>*)Arg;
+
+    for (std::list<TString>::const_iterator iterator = fileNames->begin(); iterator != fileNames->end(); iterator++) {
+        int fd = open(iterator->c_str(), O_RDONLY | O_CLOEXEC);
+
+        if (fd < 0) {
+            continue;
+        }
+
+        struct stat info;
+
+        if (fstat(fd, &info) == 0 && S_ISREG(info.st_mode)) {
+            // readahead blocks until the range is read so the files are
+            // read in the order the JVM touches them. The kernel caps a
+            // single request, so large files like lib/modules are read in
+            // chunks. Fall back to the asynchronous hint on file systems
+            // that do not support readahead.
+            for (off_t offset = 0; offset < info.st_size; offset += PREFETCH_CHUNK_SIZE) {
+                if (readahead(fd, offset, PREFETCH_CHUNK_SIZE) != 0) {
+                    posix_fadvise(fd, offset, 0, POSIX_FADV_WILLNEED);
+                    break;
+                }
+            }
+        }
+
+        close(fd);
+    }
+
+    delete fileNames;
+    return NULL;
+}
+
+void LinuxPlatform::PrefetchFiles(std::list<TString> FileNames) {
+    if (FileNames.empty() == true) {
+        return;
+    }
+
+    std::list<TString>* fileNames = new std::list<TString>(FileNames);
+    pthread_attr_t attributes;
+    pthread_t thread;
+
+    pthread_attr_init(&attributes);
+    pthread_attr_setdetachstate(&attributes, PTHREAD_CREATE_DETACHED);
+
+    if (pthread_create(&thread, &attributes, PrefetchFilesThread, fileNames) != 0) {
+        delete fileNames;
+    }
+
+    pthread_attr_destroy(&attributes);
+}
+
 #ifdef DEBUG
 bool LinuxPlatform::IsNativeDebuggerPresent() {
     // gdb opens file descriptors stdin=3, stdout=4, stderr=5 whereas
@@ -80,6 +80,7 @@ public:
     virtual void reactivateAnotherInstance();
     virtual bool IsMainThread();
     virtual TPlatformNumber GetMemorySize();
+    virtual void PrefetchFiles(std::list<TString> FileNames);
 
 #ifdef DEBUG
     virtual bool IsNativeDebuggerPresent();
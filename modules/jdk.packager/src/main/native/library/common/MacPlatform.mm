@@ -337,6 +337,12 @@ std::map<TString, TString> MacPlatform::GetKeys() {
 
         keys.insert(std::map<TString, TString>::value_type(CONFIG_SPLASH_KEY,         _T("app.splash")));
         keys.insert(std::map<TString, TString>::value_type(CONFIG_APP_MEMORY,         _T("app.memory")));
+        keys.insert(std::map<TString, TString>::value_type(CONFIG_APP_MEMORY_MIN,     _T("app.memory.min")));
+        keys.insert(std::map<TString, TString>::value_type(CONFIG_APP_MEMORY_MAX,     _T("app.memory.max")));
+        keys.insert(std::map<TString, TString>::value_type(CONFIG_APP_GC,             _T("app.gc")));
+        keys.insert(std::map<TString, TString>::value_type(CONFIG_APP_STACK_SIZE,     _T("app.stack.size")));
+        keys.insert(std::map<TString, TString>::value_type(CONFIG_APP_STARTUP_TRACE,  _T("app.startup.trace")));
+        keys.insert(std::map<TString, TString>::value_type(CONFIG_APP_ACTIVATION_TIMEOUT, _T("app.activation.timeout")));
         keys.insert(std::map<TString, TString>::value_type(CONFIG_APP_DEBUG,          _T("app.debug")));
         keys.insert(std::map<TString, TString>::value_type(CONFIG_APPLICATION_INSTANCE,   _T("app.application.instance")));
 
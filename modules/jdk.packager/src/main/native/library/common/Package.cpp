@@ -38,18 +38,59 @@
 #include "IniFile.h"
 
 #include <assert.h>
+#include <stdlib.h>
+
+#ifdef POSIX
+#include <sys/time.h>
+#endif //POSIX
 
 Package::Package(void) {
     FInitialized = false;
+    FStartupTrace = false;
+    FActivationServer = false;
+    FJVMUserArgsOverridesFromFile = false;
     Initialize();
 }
 
+// Value is a percentage such as "25" or "62.5", as with -XX:MaxRAMPercentage.
 TPlatformNumber StringToPercentageOfNumber(TString Value, TPlatformNumber Number) {
     TPlatformNumber result = 0;
-    size_t percentage = atoi(PlatformString(Value.c_str()));
+    double percentage = atof(PlatformString(Value.c_str()));
 
-    if (percentage > 0 && Number > 0) {
-        result = Number * percentage / 100;
+    if (percentage > 0 && percentage <= 100 && Number > 0) {
+        result = (TPlatformNumber)(Number * percentage / 100);
+    }
+
+    return result;
+}
+
+// Converts a size such as "512m", "2g" or "1048576k" into megabytes. A size
+// without a unit is in megabytes. Returns 0 if Value is not a size.
+TPlatformNumber StringToMegabytes(TString Value) {
+    TPlatformNumber result = 0;
+
+    if (Value.empty() == false) {
+        TCHAR unit = Value[Value.length() - 1];
+        TPlatformNumber number = atol(PlatformString(Value.c_str()));
+
+        switch (unit) {
+            case 'k':
+            case 'K': {
+                result = number / 1024;
+                break;
+            }
+
+            case 'g':
+            case 'G': {
+                result = number * 1024;
+                break;
+            }
+
+            default: {
+                result = number;
+                break;
+            }
+        }
     }
 
     return result;
@@ -149,6 +190,7 @@ void Package::Initialize() {
     config->GetValue(keys[CONFIG_SECTION_APPLICATION], keys[JVM_RUNTIME_KEY], FBootFields->FJVMRuntimeDirectory);
 
     // Read jvmargs.
+    FBootFields->FAppCDSBackground = false;
     PromoteAppCDSState(config);
     ReadJVMArgs(config);
 
@@ -165,47 +207,87 @@ void Package::Initialize() {
     config->GetSection(keys[CONFIG_SECTION_JVMUSEROPTIONS], FDefaultJVMUserArgs);
 
     // Load JVM user overrides.
-    TString jvmUserArgsConfigFileName = GetJVMUserArgsConfigFileName();
+    LoadJVMUserArgOverrides();
 
-    if (FilePath::FileExists(jvmUserArgsConfigFileName) == true) {
-        // Load new location for user VM overrides.
-        IniFile userConfig;
+    // Auto Memory.
+    TString autoMemory;
 
-        if (userConfig.LoadFromFile(jvmUserArgsConfigFileName) == false) {
-            // New property file format was not found, attempt to load old property file format.
-            userConfig.GetSection(keys[CONFIG_SECTION_JVMUSEROVERRIDESOPTIONS], FJVMUserArgsOverrides);
+    // The memory size of the platform is the limit of the container or cgroup the application runs in,
+    // if it is less than the physical memory.
+    FBootFields->FMemoryState = PackageBootFields::msManual;
+    FBootFields->FMemorySize = 0;
+
+    if (config->GetValue(keys[CONFIG_SECTION_APPLICATION], keys[CONFIG_APP_MEMORY], autoMemory) == true) {
+        if (autoMemory == _T("auto")) {
+            FBootFields->FMemoryState = PackageBootFields::msAuto;
+            FBootFields->FMemorySize = platform.GetMemorySize();
         }
+        else if (autoMemory.length() > 1 && autoMemory[autoMemory.length() - 1] == '%') {
+            FBootFields->FMemorySize = StringToPercentageOfNumber(autoMemory.substr(0, autoMemory.length() - 1),
+                                                                  platform.GetMemorySize());
 
-        userConfig.GetSection(keys[CONFIG_SECTION_JVMUSEROVERRIDESOPTIONS], FJVMUserArgsOverrides);
-    }
-    else {
-        // Attemp to load java.util.prefs for legacy JVM user overrides.
-        AutoFreePtr<JavaUserPreferences> javaPreferences(JavaUserPreferences::CreateInstance());
+            if (FBootFields->FMemorySize > 0) {
+                FBootFields->FMemoryState = PackageBootFields::msAuto;
+            }
+        }
 
-        if (javaPreferences->Load(GetAppID()) == true) {
-            FJVMUserArgsOverrides = javaPreferences->GetData();
+        if (FBootFields->FMemoryState == PackageBootFields::msAuto) {
+            TString value;
+
+            if (config->GetValue(keys[CONFIG_SECTION_APPLICATION], keys[CONFIG_APP_MEMORY_MIN], value) == true &&
+                FBootFields->FMemorySize < StringToMegabytes(value)) {
+                FBootFields->FMemorySize = StringToMegabytes(value);
+            }
+
+            if (config->GetValue(keys[CONFIG_SECTION_APPLICATION], keys[CONFIG_APP_MEMORY_MAX], value) == true &&
+                StringToMegabytes(value) > 0 && FBootFields->FMemorySize > StringToMegabytes(value)) {
+                FBootFields->FMemorySize = StringToMegabytes(value);
+            }
         }
     }
 
-    // Auto Memory.
-    TString autoMemory;
+    // Garbage collector. "auto" selects the serial collector if the memory available to the application
+    // is too small for the JVM to consider the machine a server class machine.
+    TString gc;
+    FBootFields->FGarbageCollector = _T("");
 
-    if (config->GetValue(keys[CONFIG_SECTION_APPLICATION], keys[CONFIG_APP_MEMORY], autoMemory) == true) {
-        if (autoMemory == _T("auto") || autoMemory == _T("100%")) {
-            FBootFields->FMemoryState = PackageBootFields::msAuto;
-            FBootFields->FMemorySize = platform.GetMemorySize();
+    if (config->GetValue(keys[CONFIG_SECTION_APPLICATION], keys[CONFIG_APP_GC], gc) == true) {
+        if (gc == _T("auto")) {
+            if (platform.GetMemorySize() < 1792) {
+                FBootFields->FGarbageCollector = _T("-XX:+UseSerialGC");
+            }
         }
-        else if (autoMemory.length() == 2 && isdigit(autoMemory[0]) && autoMemory[1] == '%') {
-            FBootFields->FMemoryState = PackageBootFields::msAuto;
-            FBootFields->FMemorySize = StringToPercentageOfNumber(autoMemory.substr(0, 1), platform.GetMemorySize());
+        else if (gc == _T("serial")) {
+            FBootFields->FGarbageCollector = _T("-XX:+UseSerialGC");
         }
-        else if (autoMemory.length() == 3 && isdigit(autoMemory[0]) && isdigit(autoMemory[1]) && autoMemory[2] == '%') {
-            FBootFields->FMemoryState = PackageBootFields::msAuto;
-            FBootFields->FMemorySize = StringToPercentageOfNumber(autoMemory.substr(0, 2), platform.GetMemorySize());
+        else if (gc == _T("parallel")) {
+            FBootFields->FGarbageCollector = _T("-XX:+UseParallelGC");
         }
-        else {
-            FBootFields->FMemoryState = PackageBootFields::msManual;
-            FBootFields->FMemorySize = 0;
+        else if (gc == _T("g1")) {
+            FBootFields->FGarbageCollector = _T("-XX:+UseG1GC");
+        }
+    }
+
+    // Stack size of the thread JLI_Launch runs the main class on, as with -Xss.
+    FBootFields->FStackSize = _T("");
+    config->GetValue(keys[CONFIG_SECTION_APPLICATION], keys[CONFIG_APP_STACK_SIZE], FBootFields->FStackSize);
+
+    // Seconds the activation server waits for the next launch before it exits.
+    FBootFields->FActivationTimeout = _T("");
+    config->GetValue(keys[CONFIG_SECTION_APPLICATION], keys[CONFIG_APP_ACTIVATION_TIMEOUT],
+        FBootFields->FActivationTimeout);
+
+    // Startup trace, "true" or the name of a file to write the timestamps to.
+    TString startupTrace;
+    FStartupTrace = false;
+    FStartupTraceFileName = _T("");
+
+    if (config->GetValue(keys[CONFIG_SECTION_APPLICATION], keys[CONFIG_APP_STARTUP_TRACE], startupTrace) == true &&
+        startupTrace.empty() == false && startupTrace != _T("false")) {
+        FStartupTrace = true;
+
+        if (startupTrace != _T("true")) {
+            FStartupTraceFileName = startupTrace;
         }
     }
 
@@ -235,7 +317,8 @@ void Package::Clear() {
 //    -> cdsGenCache If -Xappcds:generatecache
 //    -> cdsDisabled If -Xappcds:off
 //    -> cdsEnabled If "AppCDSJVMOptions" section is present
-//    -> cdsAuto If "AppCDSJVMOptions" section is present and app.appcds.cache=auto
+//    -> cdsAuto If "AppCDSJVMOptions" section is present and app.appcds.cache=auto or
+//       app.appcds.cache=background
 //    -> cdsDisabled Default
 //
 void Package::PromoteAppCDSState(ISectionalPropertyContainer* Config) {
@@ -263,6 +346,12 @@ void Package::PromoteAppCDSState(ISectionalPropertyContainer* Config) {
                     appCDSCacheValue == _T("auto")) {
                     platform.SetAppCDSState(cdsAuto);
                 }
+                // The same as "auto" except that the cache file is generated in the background while the
+                // application runs without it.
+                else if (appCDSCacheValue == _T("background")) {
+                    FBootFields->FAppCDSBackground = true;
+                    platform.SetAppCDSState(cdsAuto);
+                }
                 else {
                     platform.SetAppCDSState(cdsEnabled);
                 }
@@ -291,6 +380,8 @@ void Package::ReadJVMArgs(ISectionalPropertyContainer* Config) {
         }
 
         case cdsGenCache: {
+            Config->GetValue(keys[CONFIG_SECTION_APPCDSGENERATECACHEJVMOPTIONS],
+                             _T( "-XX:SharedArchiveFile"), FBootFields->FAppCDSCacheFileName);
             Config->GetSection(keys[CONFIG_SECTION_APPCDSGENERATECACHEJVMOPTIONS], FBootFields->FJVMArgs);
             break;
         }
@@ -449,12 +540,67 @@ void Package::SetJVMUserArgOverrides(OrderedMap<TString, TString> Value) {
     MergeJVMDefaultsWithOverrides();
 }
 
+void Package::LoadJVMUserArgOverrides() {
+    Platform& platform = Platform::GetInstance();
+    std::map<TString, TString> keys = platform.GetKeys();
+    TString jvmUserArgsConfigFileName = GetJVMUserArgsConfigFileName();
+
+    if (FilePath::FileExists(jvmUserArgsConfigFileName) == true) {
+        // Load new location for user VM overrides.
+        IniFile userConfig;
+
+        if (userConfig.LoadFromFile(jvmUserArgsConfigFileName) == false) {
+            // New property file format was not found, attempt to load old property file format.
+            userConfig.GetSection(keys[CONFIG_SECTION_JVMUSEROVERRIDESOPTIONS], FJVMUserArgsOverrides);
+        }
+
+        userConfig.GetSection(keys[CONFIG_SECTION_JVMUSEROVERRIDESOPTIONS], FJVMUserArgsOverrides);
+        FJVMUserArgsOverridesFromFile = true;
+    }
+    else {
+        FJVMUserArgsOverridesFromFile = false;
+
+        // Attemp to load java.util.prefs for legacy JVM user overrides.
+        AutoFreePtr<JavaUserPreferences> javaPreferences(JavaUserPreferences::CreateInstance());
+
+        if (javaPreferences->Load(GetAppID()) == true) {
+            FJVMUserArgsOverrides = javaPreferences->GetData();
+        }
+    }
+}
+
+void Package::ReloadJVMUserArgOverrides() {
+    // Only the file is read again, the boot fields the legacy preferences
+    // need are freed once the JVM is started.
+    if (FilePath::FileExists(GetJVMUserArgsConfigFileName()) == true) {
+        FJVMUserArgsOverrides.Clear();
+        LoadJVMUserArgOverrides();
+        MergeJVMDefaultsWithOverrides();
+    }
+    else if (FJVMUserArgsOverridesFromFile == true) {
+        // The file was deleted, the defaults apply again.
+        FJVMUserArgsOverrides.Clear();
+        FJVMUserArgsOverridesFromFile = false;
+        MergeJVMDefaultsWithOverrides();
+    }
+}
+
 void Package::SaveJVMUserArgOverrides(OrderedMap<TString, TString> Data) {
     IniFile userConfig;
     Platform& platform = Platform::GetInstance();
     std::map<TString, TString> keys = platform.GetKeys();
     userConfig.AppendSection(keys[CONFIG_SECTION_JVMUSEROVERRIDESOPTIONS], Data);
-    userConfig.SaveToFile(GetJVMUserArgsConfigFileName());
+
+    // Replace the file in one step, the launcher never reads a partially written file.
+    TString fileName = GetJVMUserArgsConfigFileName();
+    TString tempFileName = fileName + _T(".tmp");
+
+    if (userConfig.SaveToFile(tempFileName) == false || FilePath::RenameFile(tempFileName, fileName) == false) {
+        FilePath::DeleteFile(tempFileName);
+    }
+    else {
+        FJVMUserArgsOverridesFromFile = true;
+    }
 }
 
 OrderedMap<TString, TString> Package::GetJVMUserArgs() {
@@ -579,6 +725,18 @@ TString Package::GetAppCDSCacheFileName() {
     return FBootFields->FAppCDSCacheFileName;
 }
 
+// Changes the cache file the JVM reads or, with -Xappcds:generatecache, writes.
+void Package::SetAppCDSCacheFileName(TString Value) {
+    assert(FBootFields != NULL);
+    FBootFields->FAppCDSCacheFileName = Value;
+    FBootFields->FJVMArgs.SetValue(_T("-XX:SharedArchiveFile"), Value);
+}
+
+bool Package::IsAppCDSBackground() {
+    assert(FBootFields != NULL);
+    return FBootFields->FAppCDSBackground;
+}
+
 TString Package::GetAppID() {
     assert(FBootFields != NULL);
     return FBootFields->FAppID;
@@ -657,6 +815,104 @@ PackageBootFields::MemoryState Package::GetMemoryState() {
     return FBootFields->FMemoryState;
 }
 
+TString Package::GetGarbageCollector() {
+    assert(FBootFields != NULL);
+    return FBootFields->FGarbageCollector;
+}
+
+TString Package::GetStackSize() {
+    assert(FBootFields != NULL);
+    return FBootFields->FStackSize;
+}
+
+bool Package::IsActivationServerEnabled() {
+    assert(FBootFields != NULL);
+
+    if (getenv("JAVAPACKAGER_NO_ACTIVATION_SERVER") != NULL) {
+        return false;
+    }
+
+    return FBootFields->FActivationTimeout.empty() == false && FBootFields->FActivationTimeout != _T("0");
+}
+
+TString Package::GetActivationTimeout() {
+    assert(FBootFields != NULL);
+    return FBootFields->FActivationTimeout;
+}
+
+bool Package::IsActivationServer() {
+    return FActivationServer;
+}
+
+void Package::SetActivationServer(bool Value) {
+    FActivationServer = Value;
+}
+
+std::list<TString> Package::GetPrefetchFiles() {
+    std::list<TString> result;
+    Platform& platform = Platform::GetInstance();
+    TString configFileName = platform.GetConfigFileName();
+
+    if (configFileName.empty() == false) {
+        Macros& macros = Macros::GetInstance();
+        std::list<TString> lines = platform.LoadFromFile(FilePath::ChangeFileExt(configFileName, _T(".prefetch")));
+
+        for (std::list<TString>::const_iterator iterator = lines.begin(); iterator != lines.end(); iterator++) {
+            TString line = *iterator;
+
+            // Skip blank lines and comments.
+            if (line.find_first_not_of(_T(" \t\r")) == TString::npos || line[0] == '#') {
+                continue;
+            }
+
+            result.push_back(FilePath::FixPathForPlatform(macros.ExpandMacros(line)));
+        }
+    }
+
+    return result;
+}
+
 DebugState Package::Debugging() {
     return FDebugging;
 }
+
+TString Package::GetTimestamp() {
+#ifdef WINDOWS
+    FILETIME time;
+    GetSystemTimeAsFileTime(&time);
+    ULONGLONG value = ((ULONGLONG)time.dwHighDateTime << 32) | time.dwLowDateTime;
+    // Convert from 100 nanosecond intervals since 1601.
+    value = value / 10 - 11644473600000000ULL;
+#endif //WINDOWS
+#ifdef POSIX
+    struct timeval time;
+    gettimeofday(&time, NULL);
+    unsigned long long value = (unsigned long long)time.tv_sec * 1000000 + time.tv_usec;
+#endif //POSIX
+    return PlatformString((size_t)value).toString();
+}
+
+void Package::AddStartupTimestamp(TString Name, TString Timestamp) {
+    FStartupTimestamps.Append(Name, Timestamp);
+}
+
+void Package::AddStartupTimestamp(TString Name) {
+    AddStartupTimestamp(Name, GetTimestamp());
+}
+
+OrderedMap<TString, TString> Package::GetStartupTimestamps() {
+    return FStartupTimestamps;
+}
+
+bool Package::IsStartupTraceEnabled() {
+    return FStartupTrace;
+}
+
+TString Package::GetStartupTraceFileName() {
+    if (FStartupTraceFileName.empty() == false) {
+        Macros& macros = Macros::GetInstance();
+        return FilePath::FixPathForPlatform(macros.ExpandMacros(FStartupTraceFileName));
+    }
+
+    return FStartupTraceFileName;
+}
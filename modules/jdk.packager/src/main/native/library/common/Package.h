@@ -67,9 +67,13 @@ public:
     TString FCommandName;
 
     TString FAppCDSCacheFileName;
+    bool FAppCDSBackground;
 
     TPlatformNumber FMemorySize;
     MemoryState FMemoryState;
+    TString FGarbageCollector;
+    TString FStackSize;
+    TString FActivationTimeout;
 };
 
 
@@ -87,15 +91,23 @@ private:
     DebugState FDebugging;
 
     OrderedMap<TString, TString> FJVMUserArgsOverrides;
+    bool FJVMUserArgsOverridesFromFile; // The overrides were read from or saved to the user config file
     OrderedMap<TString, TString> FDefaultJVMUserArgs; // Contains JVM user defaults
     OrderedMap<TString, TString> FJVMUserArgs; // Contains a merge of JVM defaults and user overrides
 
+    bool FStartupTrace;
+    TString FStartupTraceFileName;
+
+    bool FActivationServer;
+    OrderedMap<TString, TString> FStartupTimestamps; // Survives Clear() so the whole startup is traced
+
 
     Package(void);
 
     //void Initialize();
     void MergeJVMDefaultsWithOverrides();
     TString GetMainJar();
+    void LoadJVMUserArgOverrides();
     void SaveJVMUserArgOverrides(OrderedMap<TString, TString> Data);
     void ReadJVMArgs(ISectionalPropertyContainer* Config);
     void PromoteAppCDSState(ISectionalPropertyContainer* Config);
@@ -115,6 +127,8 @@ public:
     OrderedMap<TString, TString> GetDefaultJVMUserArgs();
     OrderedMap<TString, TString> GetJVMUserArgOverrides();
     void SetJVMUserArgOverrides(OrderedMap<TString, TString> Value);
+    // Reads the overrides again, another instance may have changed them.
+    void ReloadJVMUserArgOverrides();
     OrderedMap<TString, TString> GetJVMUserArgs();
     TString GetMainModule();
 
@@ -128,6 +142,8 @@ public:
     TString GetJVMUserArgsConfigFileName();
     TString GetAppCDSCacheDirectory();
     TString GetAppCDSCacheFileName();
+    void SetAppCDSCacheFileName(TString Value);
+    bool IsAppCDSBackground();
 
     TString GetAppID();
     TString GetPackageAppDataDirectory();
@@ -142,8 +158,31 @@ public:
 
     TPlatformNumber GetMemorySize();
     PackageBootFields::MemoryState GetMemoryState();
+    TString GetGarbageCollector();
+    TString GetStackSize();
+
+    // The activation server is started if app.activation.timeout is set, "-1"
+    // keeps it running until it is stopped, otherwise it exits after that many
+    // seconds without a launch. Setting JAVAPACKAGER_NO_ACTIVATION_SERVER in the
+    // environment turns it off for a launch, as for the packager's prefetch training run.
+    bool IsActivationServerEnabled();
+    TString GetActivationTimeout();
+    bool IsActivationServer();
+    void SetActivationServer(bool Value);
+
+    // Files listed in the ".prefetch" file next to the config file, one per
+    // line.  Blank lines and lines starting with # are skipped.
+    std::list<TString> GetPrefetchFiles();
 
     DebugState Debugging();
+
+    // Microseconds since the epoch.
+    static TString GetTimestamp();
+    void AddStartupTimestamp(TString Name, TString Timestamp);
+    void AddStartupTimestamp(TString Name);
+    OrderedMap<TString, TString> GetStartupTimestamps();
+    bool IsStartupTraceEnabled();
+    TString GetStartupTraceFileName();
 };
 
 #endif //PACKAGE_H
@@ -143,6 +143,12 @@ typedef pid_t TProcessID;
 #define CONFIG_SPLASH_KEY         _T("CONFIG_SPLASH_KEY")
 #define CONFIG_APP_ID_KEY         _T("CONFIG_APP_ID_KEY")
 #define CONFIG_APP_MEMORY         _T("CONFIG_APP_MEMORY")
+#define CONFIG_APP_MEMORY_MIN     _T("CONFIG_APP_MEMORY_MIN")
+#define CONFIG_APP_MEMORY_MAX     _T("CONFIG_APP_MEMORY_MAX")
+#define CONFIG_APP_GC             _T("CONFIG_APP_GC")
+#define CONFIG_APP_STACK_SIZE     _T("CONFIG_APP_STACK_SIZE")
+#define CONFIG_APP_STARTUP_TRACE  _T("CONFIG_APP_STARTUP_TRACE")
+#define CONFIG_APP_ACTIVATION_TIMEOUT _T("CONFIG_APP_ACTIVATION_TIMEOUT")
 #define CONFIG_APP_DEBUG          _T("CONFIG_APP_DEBUG")
 #define CONFIG_APPLICATION_INSTANCE _T("CONFIG_APPLICATION_INSTANCE")
 
@@ -289,6 +295,9 @@ public:
     virtual bool Wait() = 0;
     virtual TProcessID GetProcessID() = 0;
 
+    // Exit status of the process once it was waited for, -1 if it is not known.
+    virtual int GetExitCode() = 0;
+
     virtual std::list<TString> GetOutput() { return FOutput; }
     virtual void SetInput(TString Value) = 0;
 
@@ -444,6 +453,15 @@ public:
     // Caller must free result.
     virtual Process* CreateProcess() = 0;
 
+    // Starts Application without waiting for it, at a low priority unless
+    // LowPriority is false. The process is not terminated when the launcher exits.
+    virtual bool StartBackgroundProcess(TString Application, std::vector<TString> Arguments,
+                                        bool LowPriority = true) = 0;
+
+    // Takes an exclusive lock on FileName that is held until the process
+    // exits. Returns false if another process holds the lock.
+    virtual bool AcquireFileLock(TString FileName) = 0;
+
     virtual bool IsMainThread() = 0;
     virtual bool CheckForSingleInstance(TString Name) = 0;
     virtual void reactivateAnotherInstance() = 0;
@@ -451,6 +469,10 @@ public:
     // Returns megabytes.
     virtual TPlatformNumber GetMemorySize() = 0;
 
+    // Reads FileNames into the page cache, in order, on a background thread.
+    // Returns without waiting for the reads to complete.
+    virtual void PrefetchFiles(std::list<TString> FileNames) = 0;
+
     virtual std::map<TString, TString> GetKeys() = 0;
 
     virtual std::list<TString> LoadFromFile(TString FileName) = 0;
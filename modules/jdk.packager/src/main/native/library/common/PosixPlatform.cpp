@@ -54,6 +54,8 @@
 #include <algorithm>
 #include <dlfcn.h>
 #include <signal.h>
+#include <fcntl.h>
+#include <sys/resource.h>
 
 
 PosixPlatform::PosixPlatform(void) {
@@ -176,12 +178,74 @@ Process* PosixPlatform::CreateProcess() {
     return new PosixProcess();
 }
 
+bool PosixPlatform::StartBackgroundProcess(TString Application, std::vector<TString> Arguments, bool LowPriority) {
+    std::vector<char*> argv;
+    argv.push_back((char*)Application.c_str());
+
+    for (std::vector<TString>::iterator iterator = Arguments.begin(); iterator != Arguments.end(); iterator++) {
+        argv.push_back((char*)iterator->c_str());
+    }
+
+    argv.push_back(NULL);
+
+    // Fork twice so the background process is not a child of the launcher
+    // and does not need to be waited for.
+    pid_t pid = fork();
+
+    if (pid == -1) {
+        return false;
+    }
+    else if (pid == 0) {
+        if (fork() == 0) {
+            setsid();
+
+            if (LowPriority == true) {
+                setpriority(PRIO_PROCESS, 0, 10);
+            }
+
+            int handle = open("/dev/null", O_RDWR);
+
+            if (handle != -1) {
+                dup2(handle, STDIN_FILENO);
+                dup2(handle, STDOUT_FILENO);
+                dup2(handle, STDERR_FILENO);
+                close(handle);
+            }
+
+            execv(Application.c_str(), &argv[0]);
+        }
+
+        _exit(0);
+    }
+
+    int status;
+    waitpid(pid, &status, 0);
+    return true;
+}
+
+bool PosixPlatform::AcquireFileLock(TString FileName) {
+    int handle = open(StringToFileSystemString(FileName), O_RDWR | O_CREAT, S_IRUSR | S_IWUSR);
+
+    if (handle == -1) {
+        return false;
+    }
+
+    if (flock(handle, LOCK_EX | LOCK_NB) != 0) {
+        close(handle);
+        return false;
+    }
+
+    // The handle is left open, the lock is released when the process exits.
+    return true;
+}
+
 //--------------------------------------------------------------------------------------------------
 
 
 PosixProcess::PosixProcess() : Process() {
     FChildPID = 0;
     FRunning = false;
+    FExitCode = -1;
     FOutputHandle = 0;
     FInputHandle = 0;
 }
@@ -323,7 +387,19 @@ bool PosixProcess::Execute(const TString Application, const std::vector<TString>
         }
         else if (FChildPID == 0) {
             Cleanup();
-            TString command = Application;
+            // The command runs through the shell, quote the path of the application.
+            TString command = _T("'");
+
+            for (size_t index = 0; index < Application.length(); index++) {
+                if (Application[index] == '\'') {
+                    command += _T("'\\''");
+                }
+                else {
+                    command += Application[index];
+                }
+            }
+
+            command += _T("'");
 
             for (std::vector<TString>::const_iterator iterator = Arguments.begin(); iterator != Arguments.end(); iterator++) {
                 command += TString(_T(" ")) + *iterator;
@@ -378,14 +454,11 @@ bool PosixProcess::Wait() {
     bool result = false;
 
     int status = 0;
-    pid_t wpid = 0;
+    pid_t wpid = waitpid(FChildPID, &status, 0);
 
-#ifdef LINUX
-    wait(&status);
-#endif
-#ifdef MAC
-    wpid = wait(&status);
-#endif
+    if (wpid == FChildPID && WIFEXITED(status)) {
+        FExitCode = WEXITSTATUS(status);
+    }
 
     if (!WIFEXITED(status) || WEXITSTATUS(status) != 0) {
         if (errno != EINTR){
@@ -420,6 +493,10 @@ TProcessID PosixProcess::GetProcessID() {
     return FChildPID;
 }
 
+int PosixProcess::GetExitCode() {
+    return FExitCode;
+}
+
 void PosixProcess::SetInput(TString Value) {
     if (FInputHandle != 0) {
         write(FInputHandle, Value.data(), Value.size());
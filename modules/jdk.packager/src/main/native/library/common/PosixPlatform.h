@@ -65,6 +65,8 @@ public:
     virtual std::vector<TString> FilterOutRuntimeDependenciesForPlatform(std::vector<TString> Imports);
 
     virtual Process* CreateProcess();
+    virtual bool StartBackgroundProcess(TString Application, std::vector<TString> Arguments, bool LowPriority = true);
+    virtual bool AcquireFileLock(TString FileName);
     virtual TString GetTempDirectory();
 };
 
@@ -79,6 +81,7 @@ private:
     struct sigaction savintr, savequit;
 #endif //MAC
     bool FRunning;
+    int FExitCode;
 
     void Cleanup();
     bool ReadOutput();
@@ -94,6 +97,7 @@ public:
         bool AWait = false);
     virtual bool Wait();
     virtual TProcessID GetProcessID();
+    virtual int GetExitCode();
     virtual void SetInput(TString Value);
     virtual std::list<TString> GetOutput();
 };
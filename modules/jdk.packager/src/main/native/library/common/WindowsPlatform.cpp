@@ -440,6 +440,37 @@ Process* WindowsPlatform::CreateProcess() {
     return new WindowsProcess();
 }
 
+bool WindowsPlatform::StartBackgroundProcess(TString Application, std::vector<TString> Arguments, bool LowPriority) {
+    STARTUPINFO startupInfo;
+    PROCESS_INFORMATION processInfo;
+    ZeroMemory(&startupInfo, sizeof(startupInfo));
+    startupInfo.cb = sizeof(startupInfo);
+    ZeroMemory(&processInfo, sizeof(processInfo));
+
+    TString command = _T("\"") + Application + _T("\"");
+
+    for (std::vector<TString>::const_iterator iterator = Arguments.begin(); iterator != Arguments.end(); iterator++) {
+        command += TString(_T(" ")) + *iterator;
+    }
+
+    if (::CreateProcess(Application.data(), (wchar_t*)command.data(), NULL, NULL, FALSE,
+                        (LowPriority == true ? BELOW_NORMAL_PRIORITY_CLASS : 0) | DETACHED_PROCESS, NULL, NULL,
+                        &startupInfo, &processInfo) == FALSE) {
+        return false;
+    }
+
+    CloseHandle(processInfo.hProcess);
+    CloseHandle(processInfo.hThread);
+    return true;
+}
+
+bool WindowsPlatform::AcquireFileLock(TString FileName) {
+    // No sharing is allowed, the file is deleted when the process exits and closes the handle.
+    HANDLE handle = ::CreateFile(FileName.data(), GENERIC_WRITE, 0, NULL, OPEN_ALWAYS,
+                                 FILE_ATTRIBUTE_NORMAL | FILE_FLAG_DELETE_ON_CLOSE, NULL);
+    return handle != INVALID_HANDLE_VALUE;
+}
+
 #ifdef DEBUG
 bool WindowsPlatform::IsNativeDebuggerPresent() {
     bool result = false;
@@ -771,6 +802,7 @@ WindowsJob WindowsProcess::FJob;
 
 WindowsProcess::WindowsProcess() : Process() {
     FRunning = false;
+    FExitCode = -1;
 }
 
 WindowsProcess::~WindowsProcess() {
@@ -825,7 +857,8 @@ bool WindowsProcess::Execute(const TString Application, const std::vector<TStrin
         startupInfo.cb = sizeof(startupInfo);
         ZeroMemory(&FProcessInfo, sizeof(FProcessInfo));
 
-        TString command = Application;
+        // The first token of the command line is the program, quote it as it may contain spaces.
+        TString command = _T("\"") + Application + _T("\"");
 
         for (std::vector<TString>::const_iterator iterator = Arguments.begin(); iterator != Arguments.end(); iterator++) {
             command += TString(_T(" ")) + *iterator;
@@ -859,6 +892,13 @@ bool WindowsProcess::Wait() {
     bool result = false;
 
     WaitForSingleObject(FProcessInfo.hProcess, INFINITE);
+
+    DWORD exitCode = 0;
+
+    if (GetExitCodeProcess(FProcessInfo.hProcess, &exitCode) != FALSE) {
+        FExitCode = (int)exitCode;
+    }
+
     return result;
 }
 
@@ -866,6 +906,10 @@ TProcessID WindowsProcess::GetProcessID() {
     return FProcessInfo.dwProcessId;
 }
 
+int WindowsProcess::GetExitCode() {
+    return FExitCode;
+}
+
 bool WindowsProcess::ReadOutput() {
     bool result = false;
     //TODO implement
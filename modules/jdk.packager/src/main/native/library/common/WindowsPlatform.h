@@ -114,6 +114,8 @@ public:
     virtual std::vector<TString> FilterOutRuntimeDependenciesForPlatform(std::vector<TString> Imports);
 
     virtual Process* CreateProcess();
+    virtual bool StartBackgroundProcess(TString Application, std::vector<TString> Arguments, bool LowPriority = true);
+    virtual bool AcquireFileLock(TString FileName);
 
     virtual void reactivateAnotherInstance();
     virtual bool IsMainThread();
@@ -211,6 +213,7 @@ public:
 class WindowsProcess : public Process {
 private:
     bool FRunning;
+    int FExitCode;
 
     PROCESS_INFORMATION FProcessInfo;
     static WindowsJob FJob;
@@ -228,6 +231,7 @@ public:
         bool AWait = false);
     virtual bool Wait();
     virtual TProcessID GetProcessID();
+    virtual int GetExitCode();
     virtual void SetInput(TString Value);
     virtual std::list<TString> GetOutput();
 };
@@ -40,6 +40,7 @@
 #include "PlatformThread.h"
 #include "Macros.h"
 #include "Messages.h"
+#include "ActivationClient.h"
 
 
 #ifdef WINDOWS
@@ -62,14 +63,52 @@ Basic approach:
   - Wait for JVM to exit and then exit from Main
   - To debug application by passing command line argument.
   - Application folder is added to the library path (so LoadLibrary()) works.
-
-Limitations and future work:
-  - Running Java code in primordial thread may cause problems
-    (example: can not use custom stack size).
-    Solution used by java launcher is to create a new thread to invoke JVM.
-    See CR 6316197 for more information.
+  - The JVM is started with JLI_Launch, which like the java launcher runs it on a new
+    thread rather than the primordial thread (see CR 6316197). The stack size of that
+    thread is taken from -Xss in the JVM options, or from app.stack.size.
 */
 
+// Runs in a process started by a launcher in the AppCDS "background" mode. The
+// cache file is generated by a child process into a temporary file that is
+// only moved into place if the dump succeeded, a failed or interrupted dump
+// leaves no cache file behind. The lock keeps a second launcher from
+// generating the same cache file at the same time.
+static void GenerateAppCDSCacheInBackground() {
+    Platform& platform = Platform::GetInstance();
+    Package& package = Package::GetInstance();
+    TString cacheDirectory = package.GetAppCDSCacheDirectory();
+    TString cacheFileName = package.GetAppCDSCacheFileName();
+
+    if (cacheFileName.empty() == true) {
+        return;
+    }
+
+    if (FilePath::DirectoryExists(cacheDirectory) == false) {
+        FilePath::CreateDirectory(cacheDirectory, true);
+    }
+
+    if (platform.AcquireFileLock(cacheFileName + _T(".lock")) == false ||
+        FilePath::FileExists(cacheFileName) == true) {
+        return;
+    }
+
+    AutoFreePtr<Process> process = platform.CreateProcess();
+    std::vector<TString> args;
+    args.push_back(_T("-Xappcds:generatecache"));
+    args.push_back(_T("-Xappcds:background"));
+    args.push_back(_T("-Xapp:child"));
+    process->Execute(platform.GetModuleFileName(), args, true);
+
+    TString tempFileName = cacheFileName + _T(".tmp");
+
+    if (process->GetExitCode() == 0 && FilePath::FileExists(tempFileName) == true) {
+        FilePath::RenameFile(tempFileName, cacheFileName);
+    }
+    else {
+        FilePath::DeleteFile(tempFileName);
+    }
+}
+
 extern "C" {
 
 #ifdef WINDOWS
@@ -83,6 +122,9 @@ extern "C" {
     bool start_launcher(int argc, TCHAR* argv[]) {
         bool result = false;
         bool parentProcess = true;
+        bool backgroundProcess = false;
+        bool activationServer = false;
+        TString startTime = Package::GetTimestamp();
 
         // Platform must be initialized first.
         Platform& platform = Platform::GetInstance();
@@ -100,6 +142,12 @@ extern "C" {
                 else if (argument == _T("-Xapp:child")) {
                     parentProcess = false;
                 }
+                else if (argument == _T("-Xappcds:background")) {
+                    backgroundProcess = true;
+                }
+                else if (argument == _T("-Xapp:activationserver")) {
+                    activationServer = true;
+                }
 #ifdef DEBUG
                 // There is a compiler bug on Mac when overloading ShowResponseMessage.
                 else if (argument == _T("-nativedebug")) {
@@ -117,9 +165,40 @@ extern "C" {
             Package& package = Package::GetInstance();
             Macros::Initialize();
             package.SetCommandLineArguments(argc, argv);
+            package.SetActivationServer(activationServer);
+
+#ifdef POSIX
+            // Run the application in the activation server if there is one, otherwise
+            // start it for the next launch. The server runs the application in the
+            // working directory of the launch, before it is changed to the app directory.
+            if (backgroundProcess == false && activationServer == false &&
+                package.IsActivationServerEnabled() == true) {
+                ActivationClient client;
+                int exitCode = 0;
+
+                if (client.Run(package.GetAppID(), package.GetArgs(), exitCode) == true) {
+                    fflush(stdout);
+                    fflush(stderr);
+                    exit(exitCode);
+                }
+
+                std::vector<TString> args;
+                args.push_back(_T("-Xapp:activationserver"));
+                platform.StartBackgroundProcess(platform.GetModuleFileName(), args, false);
+            }
+#endif //POSIX
+
             platform.SetCurrentDirectory(package.GetPackageAppDirectory());
+            package.AddStartupTimestamp(_T("t0"), startTime);
+            package.AddStartupTimestamp(_T("t.config"));
 
-            if (package.CheckForSingleInstance()) {
+            if (backgroundProcess == true && platform.GetAppCDSState() != cdsGenCache) {
+                GenerateAppCDSCacheInBackground();
+                return true;
+            }
+
+            // The application is usually running while the cache is generated in the background.
+            if (backgroundProcess == false && activationServer == false && package.CheckForSingleInstance()) {
                 // reactivate the first instance if the process Id is valid
                 platform.reactivateAnotherInstance();
                 if (package.GetArgs().size() > 0 && platform.GetSingleInstanceProcessId() != 0) {
@@ -129,6 +208,13 @@ extern "C" {
                 return true;
             }
 
+            package.AddStartupTimestamp(_T("t.singleinstance"));
+
+            // Read the runtime and application files into the page cache while the JVM is loaded.
+            if (backgroundProcess == false && activationServer == false) {
+                platform.PrefetchFiles(package.GetPrefetchFiles());
+            }
+
             switch (platform.GetAppCDSState()) {
                 case cdsDisabled:
                 case cdsUninitialized:
@@ -139,6 +225,11 @@ extern "C" {
                 case cdsGenCache: {
                         TString cacheDirectory = package.GetAppCDSCacheDirectory();
 
+                        if (backgroundProcess == true) {
+                            // Leave the current cache file in place until the new one is complete.
+                            package.SetAppCDSCacheFileName(package.GetAppCDSCacheFileName() + _T(".tmp"));
+                        }
+
                         if (FilePath::DirectoryExists(cacheDirectory) == false) {
                             FilePath::CreateDirectory(cacheDirectory, true);
                         }
@@ -156,7 +247,19 @@ extern "C" {
                 case cdsAuto: {
                     TString cacheFileName = package.GetAppCDSCacheFileName();
 
-                    if (parentProcess == true && FilePath::FileExists(cacheFileName) == false) {
+                    if (parentProcess == true && FilePath::FileExists(cacheFileName) == false &&
+                        package.IsAppCDSBackground() == true) {
+                        // Start the application without the cache, it is generated in the
+                        // background for the next launch.
+                        std::vector<TString> args;
+                        args.push_back(_T("-Xappcds:background"));
+                        platform.StartBackgroundProcess(platform.GetModuleFileName(), args);
+
+                        platform.SetAppCDSState(cdsDisabled);
+                        package.Clear();
+                        package.Initialize();
+                    }
+                    else if (parentProcess == true && FilePath::FileExists(cacheFileName) == false) {
                         AutoFreePtr<Process> process = platform.CreateProcess();
                         std::vector<TString> args;
                         args.push_back(_T("-Xappcds:generatecache"));
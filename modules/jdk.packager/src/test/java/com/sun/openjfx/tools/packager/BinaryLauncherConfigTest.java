@@ -0,0 +1,120 @@
+/*
+ * Copyright (c) 2014, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+
+
+package com.sun.openjfx.tools.packager;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class BinaryLauncherConfigTest {
+
+    @Rule
+    public TemporaryFolder tmpFolder = new TemporaryFolder();
+
+    private static String getString(ByteBuffer data, int record) {
+        byte[] bytes = new byte[data.getInt(record + 4)];
+        data.position(data.getInt(record));
+        data.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    @Test
+    public void splitOption() {
+        assertEquals("-Xmx", BinaryLauncherConfig.splitOption("-Xmx=512m").getKey());
+        assertEquals("b=c", BinaryLauncherConfig.splitOption("a=b=c").getValue());
+        assertEquals("-Dkey=x", BinaryLauncherConfig.splitOption("-Dkey\\=x=y=z").getKey());
+        assertEquals("y=z", BinaryLauncherConfig.splitOption("-Dkey\\=x=y=z").getValue());
+        assertEquals("a\\b", BinaryLauncherConfig.splitOption("a\\\\b").getKey());
+        assertEquals("ab", BinaryLauncherConfig.splitOption("a\\b").getKey());
+        assertEquals("", BinaryLauncherConfig.splitOption("-Xshare:dump").getValue());
+    }
+
+    @Test
+    public void parse() {
+        Map<String, List<Map.Entry<String, String>>> sections = BinaryLauncherConfig.parse(Arrays.asList(
+                "; comment", "[Application]", "app.name=Hello", "# comment", "", "[Empty]",
+                "[JVMOptions]", "-Xmx512m", "-Xmx1g", "[Application]", "app.version=1.0"));
+
+        assertEquals(Arrays.asList("Application", "JVMOptions"), Arrays.asList(sections.keySet().toArray()));
+        assertEquals(2, sections.get("Application").size());
+        assertEquals("app.version", sections.get("Application").get(1).getKey());
+        assertEquals(2, sections.get("JVMOptions").size());
+        assertNull(BinaryLauncherConfig.parse(Arrays.asList("app.name=Hello")));
+    }
+
+    @Test
+    public void write() throws IOException {
+        File cfgFile = tmpFolder.newFile("Hello.cfg");
+        Files.write(cfgFile.toPath(), Arrays.asList("[Application]", "app.name=Héllo", "",
+                "[JVMOptions]", "-Xmx512m"));
+
+        BinaryLauncherConfig.write(cfgFile);
+
+        File binaryFile = BinaryLauncherConfig.getBinaryFile(cfgFile);
+        assertTrue(binaryFile.exists());
+
+        ByteBuffer data = ByteBuffer.wrap(Files.readAllBytes(binaryFile.toPath())).order(ByteOrder.LITTLE_ENDIAN);
+        assertEquals("JPCB", new String(Arrays.copyOf(data.array(), 4), StandardCharsets.US_ASCII));
+        assertEquals(BinaryLauncherConfig.VERSION, data.getInt(4));
+        assertEquals(cfgFile.length(), data.getLong(8));
+        assertEquals(2, data.getInt(16));
+
+        int section = data.getInt(20) + BinaryLauncherConfig.RECORD_SIZE;
+        assertEquals("JVMOptions", getString(data, section));
+        assertEquals(1, data.getInt(section + 12));
+
+        int entry = data.getInt(data.getInt(20) + 8);
+        assertEquals("app.name", getString(data, entry));
+        assertEquals("Héllo", getString(data, entry + 8));
+    }
+
+    @Test
+    public void writePropertyFile() throws IOException {
+        File cfgFile = tmpFolder.newFile("Hello.cfg");
+        Files.write(cfgFile.toPath(), Arrays.asList("app.name=Hello"));
+        Files.write(BinaryLauncherConfig.getBinaryFile(cfgFile).toPath(), new byte[] {0});
+
+        BinaryLauncherConfig.write(cfgFile);
+
+        assertFalse(BinaryLauncherConfig.getBinaryFile(cfgFile).exists());
+    }
+}
@@ -0,0 +1,135 @@
+/*
+ * Copyright (c) 2014, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+
+package com.sun.openjfx.tools.packager;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+public class ImageSizeReportTest {
+
+    @Rule
+    public TemporaryFolder image = new TemporaryFolder();
+
+    @Rule
+    public TemporaryFolder reports = new TemporaryFolder();
+
+    @Before
+    public void createImage() throws IOException {
+        Path root = image.getRoot().toPath();
+        Files.createDirectories(root.resolve("app"));
+        Files.createDirectories(root.resolve("runtime/lib"));
+        Files.createDirectories(root.resolve("runtime/legal"));
+        Files.write(root.resolve("app/main.jar"), new byte[100]);
+        Files.write(root.resolve("runtime/lib/libjava.so"), new byte[200]);
+        Files.write(root.resolve("runtime/legal/LICENSE"), new byte[30]);
+        Files.write(root.resolve("runtime/legal/COPYRIGHT"), new byte[20]);
+    }
+
+    @Test
+    public void testCategories() throws IOException {
+        ImageSizeReport report = ImageSizeReport.create(image.getRoot().toPath());
+
+        assertEquals(350, report.getTotalSize());
+        assertEquals(4, report.getFileCount());
+        assertEquals(100, report.getSize(ImageSizeReport.JAR));
+        assertEquals(200, report.getSize(ImageSizeReport.NATIVE));
+        assertEquals(50, (long) report.getSizes().get("resource/runtime/legal"));
+    }
+
+    @Test
+    public void testSaveAndLoad() throws IOException {
+        ImageSizeReport report = ImageSizeReport.create(image.getRoot().toPath());
+        File file = new File(image.getRoot(), "size-report.txt");
+        report.save(file);
+
+        ImageSizeReport loaded = ImageSizeReport.load(file);
+        assertEquals(report.getSizes(), loaded.getSizes());
+        assertEquals(report.getFileCount(), loaded.getFileCount());
+    }
+
+    @Test
+    public void testBudgetWarning() throws IOException, ConfigException {
+        Map<String, ? super Object> params = new HashMap<>();
+        params.put(ImageSizeReport.IMAGE_SIZE_BUDGET.getID(), "300");
+
+        assertFalse(ImageSizeReport.checkBudgets(params, ImageSizeReport.create(image.getRoot().toPath()), null));
+    }
+
+    @Test
+    public void testBaselineKeptWhenOverBudget() throws IOException, ConfigException {
+        File reportFile = reports.newFile("size-report.txt");
+        Map<String, ? super Object> params = new HashMap<>();
+        params.put(ImageSizeReport.IMAGE_SIZE_REPORT.getID(), reportFile.getPath());
+        ImageSizeReport.analyze(params, image.getRoot().toPath());
+        assertEquals(350, ImageSizeReport.load(reportFile).getTotalSize());
+
+        Files.write(image.getRoot().toPath().resolve("app/extra.jar"), new byte[500]);
+        params.put(ImageSizeReport.IMAGE_SIZE_GROWTH_BUDGET.getID(), "100");
+        ImageSizeReport.analyze(params, image.getRoot().toPath());
+        assertEquals(350, ImageSizeReport.load(reportFile).getTotalSize());
+    }
+
+    @Test(expected = ConfigException.class)
+    public void testUnknownBudgetAction() throws ConfigException {
+        Map<String, ? super Object> params = new HashMap<>();
+        params.put(ImageSizeReport.IMAGE_SIZE_BUDGET_ACTION.getID(), "ignore");
+
+        ImageSizeReport.validate(params);
+    }
+
+    @Test(expected = ConfigException.class)
+    public void testBudgetExceeded() throws IOException, ConfigException {
+        Map<String, ? super Object> params = new HashMap<>();
+        params.put(ImageSizeReport.IMAGE_SIZE_BUDGET.getID(), "300");
+        params.put(ImageSizeReport.IMAGE_SIZE_BUDGET_ACTION.getID(), "fail");
+
+        ImageSizeReport.checkBudgets(params, ImageSizeReport.create(image.getRoot().toPath()), null);
+    }
+
+    @Test(expected = ConfigException.class)
+    public void testGrowthBudgetExceeded() throws IOException, ConfigException {
+        ImageSizeReport previous = ImageSizeReport.create(image.getRoot().toPath());
+        Files.write(image.getRoot().toPath().resolve("app/extra.jar"), new byte[500]);
+
+        Map<String, ? super Object> params = new HashMap<>();
+        params.put(ImageSizeReport.IMAGE_SIZE_GROWTH_BUDGET.getID(), "100");
+        params.put(ImageSizeReport.IMAGE_SIZE_BUDGET_ACTION.getID(), "fail");
+
+        ImageSizeReport.checkBudgets(params, ImageSizeReport.create(image.getRoot().toPath()), previous);
+    }
+}
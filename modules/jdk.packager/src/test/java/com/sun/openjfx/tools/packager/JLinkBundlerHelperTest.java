@@ -0,0 +1,102 @@
+/*
+ * Copyright (c) 2018, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+
+package com.sun.openjfx.tools.packager;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+public class JLinkBundlerHelperTest {
+
+    @Test
+    public void testNoProfile() {
+        Map<String, ? super Object> params = new HashMap<>();
+
+        assertEquals(new HashMap<>(), JLinkBundlerHelper.getJLinkArguments(params));
+    }
+
+    @Test
+    public void testSizeProfile() {
+        Map<String, ? super Object> params = new HashMap<>();
+        params.put(JLinkBundlerHelper.JLINK_PROFILE.getID(), "size");
+
+        Map<String, String> arguments = JLinkBundlerHelper.getJLinkArguments(params);
+        assertEquals("2", arguments.get("compress"));
+        assertEquals("on", arguments.get("strip-debug"));
+        assertFalse(arguments.containsKey("generate-cds-archive"));
+        assertEquals("headers", arguments.get("exclude-jmod-section"));
+    }
+
+    @Test
+    public void testStartupProfileOverrides() {
+        Map<String, ? super Object> params = new HashMap<>();
+        params.put(JLinkBundlerHelper.JLINK_PROFILE.getID(), "startup");
+        params.put(JLinkBundlerHelper.JLINK_STRIP_DEBUG.getID(), "false");
+        params.put(JLinkBundlerHelper.JLINK_INCLUDE_LOCALES.getID(), "en,fr");
+        params.put(JLinkBundlerHelper.JLINK_OPTIONS.getID(), "compress=1");
+
+        Map<String, String> arguments = JLinkBundlerHelper.getJLinkArguments(params);
+        assertEquals("1", arguments.get("compress"));
+        assertEquals("en,fr", arguments.get("include-locales"));
+        assertFalse(arguments.containsKey("strip-debug"));
+    }
+
+    @Test
+    public void testManPagesOnly() {
+        Map<String, ? super Object> params = new HashMap<>();
+        params.put(JLinkBundlerHelper.JLINK_NO_MAN_PAGES.getID(), "true");
+
+        assertEquals("man", JLinkBundlerHelper.getJLinkArguments(params).get("exclude-jmod-section"));
+    }
+
+    @Test(expected = ConfigException.class)
+    public void testInvalidCompression() throws ConfigException {
+        Map<String, ? super Object> params = new HashMap<>();
+        params.put(JLinkBundlerHelper.JLINK_COMPRESS.getID(), "3");
+
+        JLinkBundlerHelper.validateJLinkParams(params);
+    }
+
+    @Test(expected = ConfigException.class)
+    public void testNonNumericCompression() throws ConfigException {
+        Map<String, ? super Object> params = new HashMap<>();
+        params.put(JLinkBundlerHelper.JLINK_COMPRESS.getID(), "zip");
+
+        JLinkBundlerHelper.validateJLinkParams(params);
+    }
+
+    @Test(expected = ConfigException.class)
+    public void testUnknownProfile() throws ConfigException {
+        Map<String, ? super Object> params = new HashMap<>();
+        params.put(JLinkBundlerHelper.JLINK_PROFILE.getID(), "fast");
+
+        JLinkBundlerHelper.validateJLinkParams(params);
+    }
+}
@@ -0,0 +1,127 @@
+/*
+ * Copyright (c) 2014, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+
+
+package com.sun.openjfx.tools.packager;
+
+import org.junit.Assume;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class JreUtilsTest {
+
+    @Rule
+    public TemporaryFolder tmpFolder = new TemporaryFolder();
+
+    private static String path(String relative) {
+        return relative.replace('/', File.separatorChar);
+    }
+
+    private static JreUtils.Rule[] rules() {
+        return new JreUtils.Rule[] {
+                JreUtils.Rule.prefixNeg(path("/bin")),
+                JreUtils.Rule.suffix("deploy.jar"),
+                JreUtils.Rule.prefixNeg(path("/lib/deploy")),
+                JreUtils.Rule.substrNeg("libnpjp2")
+        };
+    }
+
+    private File createTree() throws IOException {
+        File root = tmpFolder.newFolder("jre");
+        for (String name : new String[] {"bin/java", "lib/modules", "lib/ext/Deploy.jar", "lib/deploy/other.jar",
+                "lib/amd64/libnpjp2.so", "release"}) {
+            File file = new File(root, path(name));
+            file.getParentFile().mkdirs();
+            assertTrue(file.createNewFile());
+        }
+        return root;
+    }
+
+    @Test
+    public void testRules() throws Exception {
+        File root = createTree();
+
+        RelativeFileSet files = JreUtils.extractJreAsRelativeFileSet(root.getPath(), rules());
+
+        // rules see the lower case path, the file set keeps the case of the files
+        Set<String> expected = new HashSet<>(Arrays.asList(
+                path("lib/modules"), path("lib/ext/Deploy.jar"), "release"));
+        assertEquals(expected, files.getIncludedFiles());
+        assertEquals(root, files.getBaseDirectory());
+    }
+
+    @Test
+    public void testSymbolicLinks() throws Exception {
+        File root = createTree();
+        try {
+            Files.createSymbolicLink(new File(root, "link").toPath(), new File(root, "lib").toPath());
+            Files.createSymbolicLink(new File(root, "release.link").toPath(), new File(root, "release").toPath());
+        } catch (UnsupportedOperationException | IOException e) {
+            Assume.assumeNoException(e);
+        }
+
+        RelativeFileSet files = JreUtils.extractJreAsRelativeFileSet(root.getPath(), rules());
+        assertEquals(new HashSet<>(Arrays.asList(path("lib/modules"), path("lib/ext/Deploy.jar"), "release")),
+                files.getIncludedFiles());
+
+        files = JreUtils.extractJreAsRelativeFileSet(root.getPath(), rules(), true);
+        assertTrue(files.contains(path("link/modules")));
+        assertTrue(files.contains("release.link"));
+    }
+
+    @Test
+    public void testFilesAreListedWhenNeeded() throws Exception {
+        File root = createTree();
+
+        RelativeFileSet files = JreUtils.extractJreAsRelativeFileSet(root.getPath(), rules());
+
+        // probed without listing the files
+        assertTrue(files.contains(path("lib/modules")));
+        assertTrue(files.contains(new String[] {path("lib/ext/Deploy.jar"), "release"}));
+        assertFalse(files.contains(path("bin/java")));
+        assertFalse(files.contains(path("lib/deploy/other.jar")));
+        assertFalse(files.contains("lib"));
+        assertFalse(files.contains(path("lib/../release")));
+        assertFalse(files.contains("missing"));
+
+        // listed on first use, so files created since are included
+        assertTrue(new File(root, "added").createNewFile());
+        assertEquals(new HashSet<>(Arrays.asList(path("lib/modules"), path("lib/ext/Deploy.jar"), "release",
+                "added")), files.getIncludedFiles());
+        assertTrue(files.contains("added"));
+    }
+}
@@ -0,0 +1,126 @@
+/*
+ * Copyright (c) 2014, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+
+
+package com.sun.openjfx.tools.packager;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class LauncherMemoryTest {
+
+    @Test
+    public void parseSize() {
+        assertEquals(512L, (long) LauncherMemory.parseSize("512"));
+        assertEquals(512L, (long) LauncherMemory.parseSize("512m"));
+        assertEquals(2048L, (long) LauncherMemory.parseSize("2G"));
+        assertEquals(1024L, (long) LauncherMemory.parseSize("1048576k"));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void parseInvalidSize() {
+        LauncherMemory.parseSize("lots");
+    }
+
+    @Test
+    public void isValidMemory() {
+        assertTrue(LauncherMemory.isValidMemory("auto"));
+        assertTrue(LauncherMemory.isValidMemory("5%"));
+        assertTrue(LauncherMemory.isValidMemory("62.5%"));
+        assertTrue(LauncherMemory.isValidMemory("100%"));
+        assertFalse(LauncherMemory.isValidMemory("0%"));
+        assertFalse(LauncherMemory.isValidMemory("150%"));
+        assertFalse(LauncherMemory.isValidMemory("%"));
+        assertFalse(LauncherMemory.isValidMemory("512m"));
+    }
+
+    @Test(expected = ConfigException.class)
+    public void validateMinLargerThanMax() throws ConfigException {
+        Map<String, ? super Object> params = new HashMap<>();
+        params.put(LauncherMemory.APP_MEMORY.getID(), "50%");
+        params.put(LauncherMemory.APP_MEMORY_MIN.getID(), "2g");
+        params.put(LauncherMemory.APP_MEMORY_MAX.getID(), "1g");
+        LauncherMemory.validate(params);
+    }
+
+    @Test(expected = ConfigException.class)
+    public void validateUnknownGarbageCollector() throws ConfigException {
+        Map<String, ? super Object> params = new HashMap<>();
+        params.put(LauncherMemory.APP_GC.getID(), "shenandoah");
+        LauncherMemory.validate(params);
+    }
+
+    @Test(expected = ConfigException.class)
+    public void validateStackSize() throws ConfigException {
+        Map<String, ? super Object> params = new HashMap<>();
+        params.put(LauncherMemory.APP_STACK_SIZE.getID(), "8 MB");
+        LauncherMemory.validate(params);
+    }
+
+    @Test
+    public void writeConfig() throws ConfigException {
+        Map<String, ? super Object> params = new HashMap<>();
+        params.put(LauncherMemory.APP_MEMORY.getID(), "75%");
+        params.put(LauncherMemory.APP_MEMORY_MAX.getID(), "4g");
+        params.put(LauncherMemory.APP_GC.getID(), "G1");
+        params.put(LauncherMemory.APP_STACK_SIZE.getID(), "8m");
+        LauncherMemory.validate(params);
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (PrintStream out = new PrintStream(bytes, true, StandardCharsets.UTF_8)) {
+            LauncherMemory.writeConfig(params, out);
+        }
+
+        assertEquals(String.join(System.lineSeparator(), "app.memory=75%", "app.memory.max=4096m", "app.gc=g1",
+                "app.stack.size=8m", ""),
+                bytes.toString(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    public void writeConfigWithCollectorInJvmOptions() {
+        Map<String, ? super Object> params = new HashMap<>();
+        params.put(LauncherMemory.APP_GC.getID(), "serial");
+        params.put(StandardBundlerParam.JVM_OPTIONS.getID(), Arrays.asList("-Xss2m", "-XX:+UseParallelGC"));
+
+        assertEquals("-XX:+UseParallelGC", LauncherMemory.findGarbageCollectorOption(params));
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (PrintStream out = new PrintStream(bytes, true, StandardCharsets.UTF_8)) {
+            LauncherMemory.writeConfig(params, out);
+        }
+
+        assertEquals("", bytes.toString(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,113 @@
+/*
+ * Copyright (c) 2014, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+
+package com.sun.openjfx.tools.packager;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+public class LauncherPrefetchTest {
+
+    @Rule
+    public TemporaryFolder tmpFolder = new TemporaryFolder();
+
+    private Path createImage() throws IOException {
+        Path root = tmpFolder.newFolder("Hello").toPath();
+        for (String file : Arrays.asList("runtime/lib/modules", "runtime/lib/server/libjvm.so",
+                "runtime/lib/libjli.so", "app/hello.jar", "app/lib/util.jar")) {
+            Files.createDirectories(root.resolve(file).getParent());
+            Files.createFile(root.resolve(file));
+        }
+        return root;
+    }
+
+    private Map<String, ? super Object> createParams(Path root) {
+        Map<String, ? super Object> params = new HashMap<>();
+        params.put(StandardBundlerParam.APP_FS_NAME.getID(), "Hello");
+        params.put(StandardBundlerParam.MAIN_JAR.getID(),
+                new RelativeFileSet(root.resolve("app").toFile(), Collections.singleton(root.resolve("app/hello.jar").toFile())));
+        params.put(StandardBundlerParam.CLASSPATH.getID(), "lib/util.jar missing.jar");
+        return params;
+    }
+
+    @Test
+    public void defaultFiles() throws IOException {
+        Path root = createImage();
+
+        assertEquals(Arrays.asList("$APPDIR/runtime/lib/libjli.so", "$APPDIR/runtime/lib/server/libjvm.so",
+                "$APPDIR/runtime/lib/modules", "$PACKAGEDIR/hello.jar", "$PACKAGEDIR/lib/util.jar"),
+                LauncherPrefetch.getDefaultFiles(createParams(root), root));
+    }
+
+    @Test
+    public void defaultFilesSharedRuntime() throws IOException {
+        Path root = createImage();
+        Map<String, ? super Object> params = createParams(root);
+        params.put(SharedRuntime.SHARED_RUNTIME.getID(), "/opt/runtime-11");
+        params.put(SharedRuntime.SHARED_RUNTIME_IMAGE.getID(), root.resolve("runtime").toFile());
+
+        List<String> files = LauncherPrefetch.getDefaultFiles(params, root);
+        assertEquals("/opt/runtime-11/lib/libjli.so", files.get(0));
+        assertEquals("/opt/runtime-11/lib/modules", files.get(2));
+    }
+
+    @Test
+    public void toLauncherPath() throws IOException {
+        Path root = createImage();
+        Map<String, ? super Object> params = createParams(root);
+
+        assertEquals("$APPDIR/runtime/lib/modules",
+                LauncherPrefetch.toLauncherPath(params, root, root.resolve("runtime/lib/modules")));
+        assertEquals("$PACKAGEDIR/lib/util.jar",
+                LauncherPrefetch.toLauncherPath(params, root, root.resolve("app/lib/util.jar")));
+        assertNull(LauncherPrefetch.toLauncherPath(params, root, root.resolve("libpackager.so")));
+        assertNull(LauncherPrefetch.toLauncherPath(params, root, new File("/usr/lib/libc.so.6").toPath()));
+    }
+
+    @Test
+    public void write() throws IOException {
+        Path root = createImage();
+        LauncherPrefetch.write(createParams(root), root, "Hello");
+
+        List<String> lines = Files.readAllLines(LauncherPrefetch.getPrefetchFile(root, "Hello").toPath());
+        assertEquals(6, lines.size());
+        assertEquals("$APPDIR/runtime/lib/libjli.so", lines.get(1));
+        assertEquals("$PACKAGEDIR/lib/util.jar", lines.get(5));
+    }
+}
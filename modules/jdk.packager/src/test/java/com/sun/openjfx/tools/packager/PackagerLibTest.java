@@ -25,21 +25,41 @@
 
 package com.sun.openjfx.tools.packager;
 
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 
+import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.Date;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.jar.Attributes;
 import java.util.jar.JarEntry;
+import java.util.jar.JarFile;
 import java.util.jar.JarOutputStream;
 import java.util.jar.Manifest;
 import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
 import java.util.zip.ZipInputStream;
+import java.util.zip.ZipOutputStream;
 
 import org.junit.Before;
 import org.junit.BeforeClass;
@@ -94,13 +114,19 @@ public class PackagerLibTest {
         fail("Failed to find signatures in the jar");
     }
 
-    public void doTestSignJar(Manifest m) throws PackagerException, IOException {
-        File inputJar = createTestJar(m, "DUMMY.class");
-
+    // signed with the test keystore
+    private SignJarParams newSignJarParams() {
         SignJarParams params = new SignJarParams();
         params.setKeyStore(Paths.get("./src/test/resources/com/sun/openjfx/tools", "test.keystore").toFile());
         params.setStorePass("nopassword");
         params.setAlias("simple-http-server");
+        return params;
+    }
+
+    public void doTestSignJar(Manifest m) throws PackagerException, IOException {
+        File inputJar = createTestJar(m, "DUMMY.class");
+
+        SignJarParams params = newSignJarParams();
         params.addResource(inputJar.getParentFile(), inputJar);
 
         File out = dest.getRoot();
@@ -129,7 +155,355 @@ public class PackagerLibTest {
         doTestSignJar(new Manifest());
     }
 
+    @Test
+    public void testSignJar_copiesCompressedEntries() throws Exception {
+        File inputJar = createTestJarWithLargeEntry(new Manifest(), "DUMMY.class");
+        File signedJar = new File(dest.getRoot(), "signed.jar");
+
+        SignJarParams params = newSignJarParams();
+        params.addResource(inputJar.getParentFile(), inputJar);
+        params.setOutdir(dest.getRoot());
+        lib.signJar(params);
+        new File(dest.getRoot(), inputJar.getName()).renameTo(signedJar);
+
+        // the entries are copied with their compressed data as is
+        Map<String, Long> compressedSizes = new HashMap<>();
+        try (ZipFile zip = new ZipFile(inputJar)) {
+            for (Enumeration<? extends ZipEntry> e = zip.entries(); e.hasMoreElements();) {
+                ZipEntry entry = e.nextElement();
+                compressedSizes.put(entry.getName(), entry.getCompressedSize());
+            }
+        }
+        List<String> names = new ArrayList<>();
+        try (ZipFile zip = new ZipFile(signedJar)) {
+            for (Enumeration<? extends ZipEntry> e = zip.entries(); e.hasMoreElements();) {
+                ZipEntry entry = e.nextElement();
+                names.add(entry.getName());
+                if (compressedSizes.containsKey(entry.getName())) {
+                    assertEquals(entry.getName(), (long) compressedSizes.get(entry.getName()),
+                            entry.getCompressedSize());
+                }
+            }
+        }
+        assertEquals(names.indexOf("META-INF/MANIFEST.MF") + 1, names.indexOf("META-INF/SIGNATURE.BSF"));
+        assertTrue(names.contains("DUMMY.class"));
+        assertTrue(names.contains("LARGE.txt"));
+
+        assertTrue("Expect the signature to be valid", isValidSignature(signedJar));
+    }
+
+    @Test
+    public void testSignJar_multipleJars() throws Exception {
+        File srcDir = src.newFolder("jars");
+        for (int i = 0; i < 8; i++) {
+            File jar = createTestJar(new Manifest(), "DUMMY" + i + ".class");
+            Files.move(jar.toPath(), new File(srcDir, "test" + i + ".jar").toPath());
+        }
+        Files.write(new File(srcDir, "broken.jar").toPath(), "not a jar".getBytes(StandardCharsets.UTF_8));
+
+        SignJarParams params = newSignJarParams();
+        params.setThreads(4);
+        params.addResource(srcDir, srcDir);
+        params.setOutdir(dest.getRoot());
+
+        try {
+            lib.signJar(params);
+            fail("Expect signing the broken jar to fail");
+        } catch (PackagerException e) {
+            assertTrue(e.getMessage(), e.getMessage().contains("broken.jar"));
+        }
+
+        // the other jars are signed anyway
+        for (int i = 0; i < 8; i++) {
+            File signedJar = new File(dest.getRoot(), "test" + i + ".jar");
+            assertTrue("Expect the signature to be valid", isValidSignature(signedJar));
+        }
+        assertFalse(new File(dest.getRoot(), "broken.jar").exists());
+        assertFalse(new File(dest.getRoot(), "bsigned_broken.jar").exists());
+    }
+
+    @Test
+    public void testSignJar_sameDestination() throws Exception {
+        File first = src.newFolder("first");
+        File second = src.newFolder("second");
+        Files.move(createTestJar(new Manifest(), "DUMMY.class").toPath(), new File(first, "test.jar").toPath());
+        Files.move(createTestJar(new Manifest(), "OTHER.class").toPath(), new File(second, "test.jar").toPath());
+
+        SignJarParams params = newSignJarParams();
+        params.addResource(first, "test.jar");
+        params.addResource(second, "test.jar");
+        params.setOutdir(dest.getRoot());
+
+        try {
+            lib.signJar(params);
+            fail("Expect signing two jars to the same destination to fail");
+        } catch (PackagerException e) {
+            assertTrue(e.getMessage(), e.getMessage().contains("test.jar"));
+        }
+        assertFalse(new File(dest.getRoot(), "test.jar").exists());
+    }
+
+    @Test
+    public void testSignJar_cache() throws Exception {
+        File srcDir = src.newFolder("cached");
+        File cacheDir = dest.newFolder("cache");
+        File jar = new File(srcDir, "test.jar");
+        Files.move(createTestJar(new Manifest(), "DUMMY.class").toPath(), jar.toPath());
+
+        File signed = signToNewFolder(srcDir, cacheDir, "first");
+        assertTrue(isValidSignature(signed));
+        File[] cachedJars = cacheDir.listFiles((dir, name) -> name.endsWith(".jar"));
+        assertEquals(1, cachedJars.length);
+        assertEquals(2, cacheDir.list().length);
+
+        // an unchanged jar is copied from the cache
+        signed = signToNewFolder(srcDir, cacheDir, "second");
+        assertArrayEquals(Files.readAllBytes(cachedJars[0].toPath()), Files.readAllBytes(signed.toPath()));
+        assertEquals(2, cacheDir.list().length);
+
+        // a modified cache entry is replaced
+        Path cachedJar = cachedJars[0].toPath();
+        Files.write(cachedJar, new byte[] {0}, StandardOpenOption.APPEND);
+        signed = signToNewFolder(srcDir, cacheDir, "third");
+        assertTrue(isValidSignature(signed));
+        assertArrayEquals(Files.readAllBytes(cachedJar), Files.readAllBytes(signed.toPath()));
+
+        // a changed jar is signed again
+        Files.move(createTestJar(new Manifest(), "OTHER.class").toPath(), jar.toPath(),
+                StandardCopyOption.REPLACE_EXISTING);
+        signed = signToNewFolder(srcDir, cacheDir, "fourth");
+        assertTrue(isValidSignature(signed));
+        assertEquals(4, cacheDir.list().length);
+    }
+
+    private File signToNewFolder(File srcDir, File cacheDir, String name) throws Exception {
+        SignJarParams params = newSignJarParams();
+        params.setCacheDir(cacheDir);
+        params.addResource(srcDir, srcDir);
+        params.setOutdir(dest.newFolder(name));
+        lib.signJar(params);
+        return new File(params.outdir, "test.jar");
+    }
+
+    @Test
+    public void testSignJar_standardFormat() throws Exception {
+        File srcDir = src.newFolder("standard");
+        File signedDir = dest.newFolder("standard");
+        File jar = new File(srcDir, "test.jar");
+        Manifest m = new Manifest();
+        m.getMainAttributes().put(Attributes.Name.MAIN_CLASS, "hello.Main");
+        Files.move(createTestJarWithLargeEntry(m, "DUMMY.class").toPath(), jar.toPath());
+
+        SignJarParams params = newSignJarParams();
+        params.setFormat(SignJarParams.FORMAT_JAR);
+        params.addResource(srcDir, srcDir);
+        params.setOutdir(signedDir);
+        lib.signJar(params);
+
+        File signed = new File(signedDir, "test.jar");
+        assertEquals(Arrays.asList("DUMMY.class", "LARGE.txt"), getSignedEntries(signed));
+        try (JarFile jarFile = new JarFile(signed)) {
+            assertEquals("hello.Main", jarFile.getManifest().getMainAttributes().getValue(Attributes.Name.MAIN_CLASS));
+            assertTrue(jarFile.getEntry("META-INF/SIMPLE-H.SF") != null);
+            assertTrue(jarFile.getEntry("META-INF/SIMPLE-H.DSA") != null);
+        }
+
+        // signed again with a changed entry, reusing the digests of the others
+        Files.move(createTestJarWithLargeEntry(m, "OTHER.class").toPath(), jar.toPath(),
+                StandardCopyOption.REPLACE_EXISTING);
+        lib.signJar(params);
+        assertEquals(Arrays.asList("LARGE.txt", "OTHER.class"), getSignedEntries(signed));
+
+        VerifyJarParams verifyParams = new VerifyJarParams();
+        verifyParams.addResource(signedDir, "test.jar");
+        List<JarVerificationResult> results = lib.verifyJar(verifyParams);
+        assertEquals(JarVerificationResult.Status.VALID, results.get(0).getStatus());
+        assertEquals(1, results.get(0).getCodeSigners().length);
+    }
+
+    @Test
+    public void testVerifyJar_standardFormatSigners() throws Exception {
+        File srcDir = src.newFolder("signers");
+        File signedDir = dest.newFolder("signers");
+        Files.move(createTestJar(new Manifest(), "DUMMY.class").toPath(), new File(srcDir, "test.jar").toPath());
+        Files.move(createTestJar(new Manifest(), "OTHER.class").toPath(), new File(srcDir, "other.jar").toPath());
+
+        SignJarParams params = newSignJarParams();
+        params.setFormat(SignJarParams.FORMAT_JAR);
+        params.addResource(srcDir, "test.jar");
+        params.setOutdir(signedDir);
+        lib.signJar(params);
+
+        params = newSignJarParams();
+        params.setKeyStore(Paths.get("./src/test/resources/com/sun/openjfx/tools", "other.keystore").toFile());
+        params.setAlias("other");
+        params.setFormat(SignJarParams.FORMAT_JAR);
+        params.addResource(srcDir, "other.jar");
+        params.setOutdir(signedDir);
+        lib.signJar(params);
+
+        // each entry is signed, but not by the same signer
+        mergeJars(new File(signedDir, "mixed.jar"), new File(signedDir, "test.jar"),
+                new File(signedDir, "other.jar"));
+        // an entry is added after signing
+        mergeJars(new File(signedDir, "added.jar"), new File(signedDir, "test.jar"), new File(srcDir, "other.jar"));
+
+        VerifyJarParams verifyParams = new VerifyJarParams();
+        for (String name : new String[] {"test.jar", "other.jar", "mixed.jar", "added.jar"}) {
+            verifyParams.addResource(signedDir, name);
+        }
+        List<JarVerificationResult> results = lib.verifyJar(verifyParams);
+
+        assertEquals(JarVerificationResult.Status.VALID, results.get(0).getStatus());
+        assertEquals(JarVerificationResult.Status.VALID, results.get(1).getStatus());
+        assertEquals(JarVerificationResult.Status.INVALID, results.get(2).getStatus());
+        assertEquals(JarVerificationResult.Status.INVALID, results.get(3).getStatus());
+    }
+
+    // the entries of the jars, with the manifest sections of the others
+    // appended to the manifest of the first one as is
+    private void mergeJars(File target, File first, File... others) throws IOException {
+        List<File> jars = new ArrayList<>();
+        jars.add(first);
+        jars.addAll(Arrays.asList(others));
+
+        ByteArrayOutputStream manifest = new ByteArrayOutputStream();
+        for (File jar : jars) {
+            try (ZipFile zip = new ZipFile(jar);
+                 InputStream is = zip.getInputStream(zip.getEntry(JarFile.MANIFEST_NAME))) {
+                String content = new String(is.readAllBytes(), StandardCharsets.UTF_8);
+                int sections = content.indexOf("\r\n\r\n");
+                if (jar == first) {
+                    manifest.write(content.getBytes(StandardCharsets.UTF_8));
+                } else if (sections >= 0) {
+                    manifest.write(content.substring(sections + 4).getBytes(StandardCharsets.UTF_8));
+                }
+            }
+        }
+
+        try (ZipOutputStream jos = new ZipOutputStream(new FileOutputStream(target))) {
+            jos.putNextEntry(new ZipEntry(JarFile.MANIFEST_NAME));
+            manifest.writeTo(jos);
+            jos.closeEntry();
+            for (File jar : jars) {
+                try (ZipFile zip = new ZipFile(jar)) {
+                    for (Enumeration<? extends ZipEntry> e = zip.entries(); e.hasMoreElements();) {
+                        ZipEntry entry = e.nextElement();
+                        if (entry.isDirectory() || JarFile.MANIFEST_NAME.equals(entry.getName())) {
+                            continue;
+                        }
+                        jos.putNextEntry(new ZipEntry(entry.getName()));
+                        try (InputStream is = zip.getInputStream(entry)) {
+                            is.transferTo(jos);
+                        }
+                        jos.closeEntry();
+                    }
+                }
+            }
+        }
+    }
+
+    // the names of the entries signed the standard way, failing for entries which are not
+    private List<String> getSignedEntries(File jar) throws IOException {
+        List<String> names = new ArrayList<>();
+        try (JarFile jarFile = new JarFile(jar, true)) {
+            Enumeration<JarEntry> entries = jarFile.entries();
+            while (entries.hasMoreElements()) {
+                JarEntry entry = entries.nextElement();
+                if (entry.isDirectory() || entry.getName().startsWith("META-INF/")) {
+                    continue;
+                }
+                try (InputStream is = jarFile.getInputStream(entry)) {
+                    is.readAllBytes();
+                }
+                assertTrue(entry.getName(), entry.getCodeSigners() != null);
+                names.add(entry.getName());
+            }
+        }
+        Collections.sort(names);
+        return names;
+    }
+
+    @Test
+    public void testVerifyJar() throws Exception {
+        File srcDir = src.newFolder("verify");
+        File signedDir = dest.newFolder("verify");
+        File inputJar = createTestJar(new Manifest(), "DUMMY.class");
+        Files.copy(inputJar.toPath(), new File(srcDir, "valid.jar").toPath());
+        Files.copy(inputJar.toPath(), new File(srcDir, "tampered.jar").toPath());
+
+        SignJarParams params = newSignJarParams();
+        params.addResource(srcDir, srcDir);
+        params.setOutdir(signedDir);
+        lib.signJar(params);
+
+        // change the content of an entry, keeping the signature
+        File tampered = new File(signedDir, "tampered.jar");
+        File copy = new File(dest.getRoot(), "copy.jar");
+        try (ZipInputStream jis = new ZipInputStream(new FileInputStream(tampered));
+             ZipOutputStream jos = new ZipOutputStream(new FileOutputStream(copy))) {
+            ZipEntry ze;
+            while ((ze = jis.getNextEntry()) != null) {
+                jos.putNextEntry(new ZipEntry(ze.getName()));
+                byte[] content = jis.readAllBytes();
+                if ("DUMMY.class".equals(ze.getName())) {
+                    content = "Other content".getBytes(StandardCharsets.UTF_8);
+                }
+                jos.write(content);
+                jos.closeEntry();
+            }
+        }
+        Files.move(copy.toPath(), tampered.toPath(), StandardCopyOption.REPLACE_EXISTING);
+
+        Files.copy(inputJar.toPath(), new File(signedDir, "unsigned.jar").toPath());
+        Files.write(new File(signedDir, "broken.jar").toPath(), "not a jar".getBytes(StandardCharsets.UTF_8));
+
+        VerifyJarParams verifyParams = new VerifyJarParams();
+        verifyParams.setThreads(2);
+        for (String name : new String[] {"valid.jar", "tampered.jar", "unsigned.jar", "broken.jar"}) {
+            verifyParams.addResource(signedDir, name);
+        }
+        List<JarVerificationResult> results = lib.verifyJar(verifyParams);
+
+        assertEquals(4, results.size());
+        assertEquals(JarVerificationResult.Status.VALID, results.get(0).getStatus());
+        assertEquals(1, results.get(0).getCodeSigners().length);
+        assertEquals(JarVerificationResult.Status.INVALID, results.get(1).getStatus());
+        assertEquals(JarVerificationResult.Status.UNSIGNED, results.get(2).getStatus());
+        assertEquals(JarVerificationResult.Status.ERROR, results.get(3).getStatus());
+        assertEquals(new File(signedDir, "broken.jar").getCanonicalFile(), results.get(3).getJar());
+    }
+
+    private boolean isValidSignature(File jar) throws Exception {
+        byte[] rawSignature;
+        try (ZipFile zip = new ZipFile(jar);
+             InputStream is = zip.getInputStream(zip.getEntry("META-INF/SIGNATURE.BSF"))) {
+            rawSignature = is.readAllBytes();
+        }
+
+        JarSignature signature = JarSignature.load(rawSignature);
+        try (ZipInputStream jis = new ZipInputStream(new FileInputStream(jar))) {
+            ZipEntry ze;
+            while ((ze = jis.getNextEntry()) != null) {
+                if (!"META-INF/SIGNATURE.BSF".equals(ze.getName()) && !ze.isDirectory()) {
+                    signature.update(ze.getName().getBytes(StandardCharsets.UTF_8));
+                    signature.update(jis.readAllBytes());
+                }
+            }
+        }
+        return signature.isValid();
+    }
+
     private File createTestJar(Manifest m, String entryName) throws IOException {
+        return createTestJar(m, entryName, false);
+    }
+
+    // with a compressible LARGE.txt entry next to the given one
+    private File createTestJarWithLargeEntry(Manifest m, String entryName) throws IOException {
+        return createTestJar(m, entryName, true);
+    }
+
+    private File createTestJar(Manifest m, String entryName, boolean largeEntry) throws IOException {
         File res = File.createTempFile("test", ".jar");
         res.delete();
 
@@ -149,6 +523,17 @@ public class PackagerLibTest {
         jos.write(content, 0, content.length);
         jos.closeEntry();
 
+        if (largeEntry) {
+            StringBuilder large = new StringBuilder();
+            for (int i = 0; i < 10000; i++) {
+                large.append("Compressible line ").append(i).append('\n');
+            }
+            content = large.toString().getBytes(StandardCharsets.UTF_8);
+            jos.putNextEntry(new JarEntry("LARGE.txt"));
+            jos.write(content, 0, content.length);
+            jos.closeEntry();
+        }
+
         jos.close();
 
         return res;
@@ -0,0 +1,86 @@
+/*
+ * Copyright (c) 2014, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+
+package com.sun.openjfx.tools.packager;
+
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+public class PersistentHashMapTest {
+
+    @Test
+    public void testAgainstHashMap() {
+        Random random = new Random(42);
+        Map<String, Integer> expected = new HashMap<>();
+        PersistentHashMap<String, Integer> map = PersistentHashMap.empty();
+
+        for (int i = 0; i < 20000; i++) {
+            // "Aa" and "BB" have the same hash code, so do the keys built from them
+            String key = (random.nextBoolean() ? "Aa" : "BB") + random.nextInt(500);
+            if (random.nextInt(3) == 0) {
+                expected.remove(key);
+                map = map.without(key);
+            } else {
+                Integer value = random.nextInt(10) == 0 ? null : i;
+                expected.put(key, value);
+                map = map.with(key, value);
+            }
+            assertEquals(expected.size(), map.size());
+            assertEquals(expected.containsKey(key), map.containsKey(key));
+            assertEquals(expected.get(key), map.get(key));
+        }
+
+        Map<String, Integer> actual = new HashMap<>();
+        for (Map.Entry<String, Integer> entry : map) {
+            actual.put(entry.getKey(), entry.getValue());
+        }
+        assertEquals(expected, actual);
+    }
+
+    @Test
+    public void testStructureSharing() {
+        PersistentHashMap<String, String> map = PersistentHashMap.empty();
+        for (int i = 0; i < 100; i++) {
+            map = map.with("key" + i, "value" + i);
+        }
+
+        PersistentHashMap<String, String> modified = map.with("key1", "other").without("key2");
+        assertEquals("value1", map.get("key1"));
+        assertEquals("value2", map.get("key2"));
+        assertEquals(100, map.size());
+        assertEquals("other", modified.get("key1"));
+        assertEquals(99, modified.size());
+
+        // nothing is copied when nothing changes
+        assertSame(map, map.without("missing"));
+        assertSame(map, map.with("key3", map.get("key3")));
+    }
+}
@@ -0,0 +1,209 @@
+/*
+ * Copyright (c) 2014, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+
+package com.sun.openjfx.tools.packager;
+
+import org.junit.Test;
+
+import java.util.Collections;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class ResolvedParamsTest {
+
+    private final AtomicInteger conversions = new AtomicInteger();
+    private final AtomicInteger defaults = new AtomicInteger();
+
+    private final StandardBundlerParam<Integer> size = new StandardBundlerParam<>("size", "size", "size",
+            Integer.class, params -> null, (s, p) -> {
+                conversions.incrementAndGet();
+                return Integer.valueOf(s);
+            });
+
+    private final StandardBundlerParam<Integer> doubled = new StandardBundlerParam<>("doubled", "doubled",
+            "doubled", Integer.class, params -> {
+                defaults.incrementAndGet();
+                Integer value = size.fetchFrom(params);
+                params.put("note", "doubled " + value);
+                return value == null ? null : value * 2;
+            }, null);
+
+    // a file which may not be there yet
+    private volatile String file;
+
+    private final StandardBundlerParam<String> found = new StandardBundlerParam<>("found", "found", "found",
+            String.class, params -> {
+                defaults.incrementAndGet();
+                ResolvedParams.untracked(params);
+                return file;
+            }, null);
+
+    private final StandardBundlerParam<String> foundName = new StandardBundlerParam<>("foundName", "foundName",
+            "foundName", String.class, params -> {
+                String value = found.fetchFrom(params);
+                return value == null ? null : value.toUpperCase();
+            }, null);
+
+    private final StandardBundlerParam<Integer> internal = new StandardBundlerParam<>("internal", "internal",
+            ".internal", Integer.class, params -> {
+                defaults.incrementAndGet();
+                params.put("note", "internal");
+                return 1;
+            }, null);
+
+    @Test
+    public void testResolvedOnce() {
+        ResolvedParams params = new ResolvedParams(Collections.singletonMap("size", "21"));
+
+        assertEquals(Integer.valueOf(42), doubled.fetchFrom(params));
+        assertEquals(Integer.valueOf(42), doubled.fetchFrom(params));
+        assertEquals(Integer.valueOf(21), size.fetchFrom(params));
+        assertEquals(1, conversions.get());
+        assertEquals(1, defaults.get());
+
+        // default and derived values are in the map
+        assertEquals(42, params.get("doubled"));
+        assertEquals("doubled 21", params.get("note"));
+        assertEquals(Collections.singleton("size"), params.getDependencies("doubled"));
+    }
+
+    @Test
+    public void testNullResolvedOnce() {
+        ResolvedParams params = new ResolvedParams();
+
+        assertNull(doubled.fetchFrom(params));
+        assertNull(doubled.fetchFrom(params));
+        assertEquals(1, defaults.get());
+        assertFalse(params.containsKey("doubled"));
+        assertTrue(params.isResolved("doubled"));
+    }
+
+    @Test
+    public void testUntrackedNullResolvedAgain() {
+        ResolvedParams params = new ResolvedParams();
+
+        assertNull(foundName.fetchFrom(params));
+        assertFalse(params.isResolved("found"));
+        assertFalse(params.isResolved("foundName"));
+
+        file = "name";
+        assertEquals("NAME", foundName.fetchFrom(params));
+        assertEquals("NAME", foundName.fetchFrom(params));
+        assertEquals(2, defaults.get());
+        assertEquals("name", params.get("found"));
+    }
+
+    @Test
+    public void testInternalValuesAreNotEntries() {
+        ResolvedParams params = new ResolvedParams();
+
+        assertEquals(Integer.valueOf(1), internal.fetchFrom(params));
+        assertEquals(Integer.valueOf(1), internal.fetchFrom(params));
+        assertEquals(1, defaults.get());
+        assertTrue(params.isResolved(".internal"));
+        assertFalse(params.containsKey(".internal"));
+        assertEquals(Collections.singleton("note"), params.keySet());
+
+        // the values derived from it are removed with it
+        params.invalidate(".internal");
+        assertFalse(params.containsKey("note"));
+    }
+
+    @Test
+    public void testPutInvalidatesDependents() {
+        ResolvedParams params = new ResolvedParams(Collections.singletonMap("size", "21"));
+        doubled.fetchFrom(params);
+
+        params.put("size", "5");
+        assertFalse(params.isResolved("doubled"));
+        assertFalse(params.containsKey("doubled"));
+        assertFalse(params.containsKey("note"));
+
+        assertEquals(Integer.valueOf(10), doubled.fetchFrom(params));
+        assertEquals("doubled 5", params.get("note"));
+        assertEquals(2, conversions.get());
+        assertEquals(2, defaults.get());
+    }
+
+    @Test
+    public void testInvalidate() {
+        ResolvedParams params = new ResolvedParams(Collections.singletonMap("size", "21"));
+        doubled.fetchFrom(params);
+
+        // a value set by the user stays, and is converted again
+        params.invalidate("size");
+        assertEquals("21", params.get("size"));
+        assertEquals(Integer.valueOf(42), doubled.fetchFrom(params));
+        assertEquals(2, conversions.get());
+        assertEquals(2, defaults.get());
+
+        // a value set by the user replaces the default one
+        params.put("doubled", 1);
+        params.invalidate("size");
+        assertEquals(Integer.valueOf(1), doubled.fetchFrom(params));
+        assertEquals(2, defaults.get());
+    }
+
+    @Test
+    public void testCopyKeepsResolvedValues() {
+        ResolvedParams params = new ResolvedParams(Collections.singletonMap("size", "21"));
+        doubled.fetchFrom(params);
+
+        ResolvedParams copy = new ResolvedParams(params);
+        assertEquals(Integer.valueOf(42), doubled.fetchFrom(copy));
+        assertEquals(1, defaults.get());
+
+        // the copies are independent
+        copy.put("size", "1");
+        assertEquals(Integer.valueOf(2), doubled.fetchFrom(copy));
+        assertEquals(Integer.valueOf(42), doubled.fetchFrom(params));
+    }
+
+    @Test
+    public void testForksAreIsolated() {
+        ResolvedParams params = new ResolvedParams(Collections.singletonMap("size", "21"));
+        doubled.fetchFrom(params);
+
+        ResolvedParams fork = params.fork();
+        ResolvedParams other = params.fork();
+        fork.put("size", "1");
+        other.put("extra", "value");
+        params.remove("note");
+
+        assertEquals(Integer.valueOf(2), doubled.fetchFrom(fork));
+        assertEquals("doubled 1", fork.get("note"));
+        assertFalse(fork.containsKey("extra"));
+        assertEquals(Integer.valueOf(42), doubled.fetchFrom(other));
+        assertEquals("doubled 21", other.get("note"));
+        assertEquals("value", other.get("extra"));
+        assertEquals(Integer.valueOf(42), doubled.fetchFrom(params));
+        assertFalse(params.containsKey("note"));
+        assertEquals(2, defaults.get());
+    }
+}
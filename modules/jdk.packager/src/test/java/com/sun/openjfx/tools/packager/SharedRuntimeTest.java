@@ -0,0 +1,91 @@
+/*
+ * Copyright (c) 2018, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+
+package com.sun.openjfx.tools.packager;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class SharedRuntimeTest {
+
+    @Rule
+    public TemporaryFolder runtime = new TemporaryFolder();
+
+    private Map<String, ? super Object> createParams(String modules) throws IOException {
+        String version = JLinkBundlerHelper.getJDKVersion(new HashMap<>());
+        Files.write(new File(runtime.getRoot(), "release").toPath(), Arrays.asList(
+                "JAVA_VERSION=\"" + version + "\"",
+                "MODULES=\"" + modules + "\""));
+
+        Map<String, ? super Object> params = new HashMap<>();
+        params.put(SharedRuntime.SHARED_RUNTIME.getID(), "/opt/shared/runtime");
+        params.put(SharedRuntime.SHARED_RUNTIME_IMAGE.getID(), runtime.getRoot().getAbsolutePath());
+        return params;
+    }
+
+    @Test
+    public void testReadRelease() throws IOException {
+        createParams("java.base java.desktop");
+
+        Map<String, String> release = SharedRuntime.readRelease(runtime.getRoot());
+        assertEquals("java.base java.desktop", release.get("MODULES"));
+    }
+
+    @Test
+    public void testCompatibleRuntime() throws IOException, ConfigException {
+        Map<String, ? super Object> params = createParams("java.base java.datatransfer java.xml java.prefs java.desktop java.logging");
+
+        SharedRuntime.checkCompatibility(params, new HashSet<>(Arrays.asList("java.base", "java.desktop")));
+    }
+
+    @Test(expected = ConfigException.class)
+    public void testMissingModules() throws IOException, ConfigException {
+        Map<String, ? super Object> params = createParams("java.base java.desktop");
+
+        SharedRuntime.checkCompatibility(params, new HashSet<>(Arrays.asList("java.base", "java.desktop")));
+    }
+
+    @Test
+    public void testCompatibleVersion() {
+        assertTrue(SharedRuntime.isCompatibleVersion("", "11.0.2"));
+        assertTrue(SharedRuntime.isCompatibleVersion("11.0.2", "11.0.2"));
+        assertTrue(SharedRuntime.isCompatibleVersion("11.0.2", "11.0.5"));
+        assertFalse(SharedRuntime.isCompatibleVersion("11.0.5", "11.0.2"));
+        assertFalse(SharedRuntime.isCompatibleVersion("11.0.2", "12"));
+    }
+}
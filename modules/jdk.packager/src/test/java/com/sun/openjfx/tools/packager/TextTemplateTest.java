@@ -0,0 +1,180 @@
+/*
+ * Copyright (c) 2014, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+
+
+package com.sun.openjfx.tools.packager;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.InputStream;
+import java.io.StringWriter;
+import java.nio.file.Files;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class TextTemplateTest {
+
+    @Rule
+    public TemporaryFolder tmpFolder = new TemporaryFolder();
+
+    @Test
+    public void testRender() throws Exception {
+        TextTemplate template = new TextTemplate("Name: APPLICATION_NAME\nVersion: APPLICATION_VERSION\n");
+        Map<String, String> pairs = new HashMap<>();
+        pairs.put("APPLICATION_NAME", "hello");
+        pairs.put("APPLICATION_VERSION", "1.0");
+        pairs.put("APPLICATION_UNUSED", "unused");
+
+        assertEquals("Name: hello\nVersion: 1.0\n", template.render(pairs));
+
+        StringWriter out = new StringWriter();
+        template.render(pairs, out);
+        assertEquals("Name: hello\nVersion: 1.0\n", out.toString());
+
+        // the compiled template is reused for other values
+        pairs.put("APPLICATION_NAME", "world");
+        assertEquals("Name: world\nVersion: 1.0\n", template.render(pairs));
+    }
+
+    @Test
+    public void testLongestKeyWins() {
+        TextTemplate template = new TextTemplate("APPLICATION_LAUNCHER_FILENAME APPLICATION_LAUNCHER");
+        Map<String, String> pairs = new HashMap<>();
+        pairs.put("APPLICATION_LAUNCHER", "launcher");
+        pairs.put("APPLICATION_LAUNCHER_FILENAME", "file");
+
+        assertEquals("file launcher", template.render(pairs));
+    }
+
+    @Test
+    public void testValuesAreNotSubstituted() {
+        TextTemplate template = new TextTemplate("APPLICATION_DESCRIPTION");
+        Map<String, String> pairs = new HashMap<>();
+        pairs.put("APPLICATION_DESCRIPTION", "shows APPLICATION_NAME");
+        pairs.put("APPLICATION_NAME", "hello");
+
+        assertEquals("shows APPLICATION_NAME", template.render(pairs));
+    }
+
+    @Test
+    public void testNullValues() {
+        TextTemplate template = new TextTemplate("APPLICATION_NAME APPLICATION_VERSION");
+        Map<String, String> pairs = new HashMap<>();
+        pairs.put("APPLICATION_NAME", "hello");
+        pairs.put("APPLICATION_VERSION", null);
+
+        assertEquals("hello APPLICATION_VERSION", template.render(pairs));
+    }
+
+    @Test
+    public void testFromResource() throws Exception {
+        TextTemplate template = TextTemplate.fromResource("/packager/linux/template.control");
+        assertNotNull(template);
+        assertSame(template, TextTemplate.fromResource("/packager/linux/template.control"));
+        assertNull(TextTemplate.fromResource("packager/linux/missing.control"));
+    }
+
+    @Test
+    public void testFromFile() throws Exception {
+        File file = tmpFolder.newFile("template.txt");
+        Files.write(file.toPath(), "KEY".getBytes());
+        Map<String, String> pairs = new HashMap<>();
+        pairs.put("KEY", "value");
+
+        TextTemplate template = TextTemplate.fromFile(file);
+        assertEquals("value", template.render(pairs));
+        assertSame(template, TextTemplate.fromFile(file));
+
+        // a modified file is loaded again
+        Files.write(file.toPath(), "KEY KEY".getBytes());
+        assertTrue(file.setLastModified(file.lastModified() + 2000));
+        TextTemplate modified = TextTemplate.fromFile(file);
+        assertFalse(template == modified);
+        assertEquals("value value", modified.render(pairs));
+    }
+
+    @Test
+    public void testFilesAreNotAllKept() throws Exception {
+        File first = tmpFolder.newFile("first.txt");
+        Files.write(first.toPath(), "KEY".getBytes());
+        TextTemplate template = TextTemplate.fromFile(first);
+
+        for (int i = 0; i < 100; i++) {
+            File file = tmpFolder.newFile("template" + i + ".txt");
+            Files.write(file.toPath(), "KEY".getBytes());
+            TextTemplate.fromFile(file);
+        }
+        assertFalse(template == TextTemplate.fromFile(first));
+    }
+
+    @Test
+    public void testLocate() throws Exception {
+        File root = tmpFolder.newFolder("resources");
+        Files.write(new File(root, "custom.control").toPath(), "custom KEY".getBytes());
+        Map<String, String> pairs = new HashMap<>();
+        pairs.put("KEY", "value");
+
+        assertEquals("custom value", TextTemplate.locate("custom.control", null,
+                "/packager/linux/template.control", false, root).render(pairs));
+        assertSame(TextTemplate.fromResource("/packager/linux/template.control"),
+                TextTemplate.locate("missing.control", null, "/packager/linux/template.control", false, root));
+        try {
+            TextTemplate.locate("missing.control", null, "packager/linux/missing.control", false, root);
+            fail("Expect a missing default resource to fail");
+        } catch (RuntimeException expected) {
+        }
+    }
+
+    @Test
+    public void testResolve() throws Exception {
+        File root = tmpFolder.newFolder("resolved");
+        File publicFile = new File(root, "custom.control");
+        Files.write(publicFile.toPath(), "custom".getBytes());
+        File customFile = tmpFolder.newFile("fallback.control");
+
+        assertEquals(publicFile, TextTemplate.resolve("custom.control", null, "/packager/linux/template.control",
+                customFile, false, root).file);
+        assertEquals(customFile, TextTemplate.resolve("missing.control", null, "/packager/linux/template.control",
+                customFile, false, root).file);
+        TextTemplate.Source source = TextTemplate.resolve("missing.control", null, "/packager/linux/template.control",
+                null, false, root);
+        assertNull(source.file);
+        try (InputStream is = source.open()) {
+            assertNotNull(is);
+        }
+        assertNull(TextTemplate.resolve("missing.control", null, "packager/linux/missing.control", null, false, root));
+    }
+}